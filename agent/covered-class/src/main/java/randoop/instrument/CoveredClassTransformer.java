@@ -7,6 +7,7 @@ import java.lang.instrument.IllegalClassFormatException;
 import java.lang.reflect.Modifier;
 import java.security.ProtectionDomain;
 import javassist.CannotCompileException;
+import javassist.ClassClassPath;
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtConstructor;
@@ -19,9 +20,10 @@ import randoop.BugInRandoopException;
  * covered. Does the following instrumentation of each class:
  *
  * <ol>
- *   <li>Adds a static boolean flag to the class. Initially set to false.
- *   <li>Adds a statement at the beginning of each method and constructor that sets the flag.
- *   <li>Adds a static method that polls and resets the value of the flag.
+ *   <li>Gives the class an id from {@link CoveredClassFlags#newClassId()}, and adds a static field
+ *       that holds the id.
+ *   <li>Adds a statement at the beginning of each method and constructor that sets the flag of the
+ *       class in {@link CoveredClassFlags#covered}.
  * </ol>
  *
  * Avoids instrumenting JDK and JUnit classes and skips interfaces. Otherwise, all other classes are
@@ -39,6 +41,8 @@ public class CoveredClassTransformer implements ClassFileTransformer {
   CoveredClassTransformer() {
     super();
     pool = ClassPool.getDefault();
+    // the inserted statements refer to CoveredClassFlags, so the pool must be able to find it
+    pool.appendClassPath(new ClassClassPath(CoveredClassFlags.class));
   }
 
   /**
@@ -124,28 +128,28 @@ public class CoveredClassTransformer implements ClassFileTransformer {
 
   /**
    * Instruments the bytecode of the given class object to track constructor and method calls for
-   * the class. Modifies each method and constructor to set an inserted private field that keeps
-   * track. Adds a public method {@code boolean randoop_checkAndReset()}
+   * the class. Adds a public field {@code static final int randoop_classId}, and modifies each
+   * method and constructor to set the element for that id in {@link CoveredClassFlags#covered}.
    *
    * @param cc the {@code javassist.CtClass} object
    * @see #transform(ClassLoader, String, Class, ProtectionDomain, byte[])
    */
   private void modifyClass(CtClass cc) {
-    // add static field
-    String flagFieldName = "randoop_classUsedFlag";
+    int classId = CoveredClassFlags.newClassId();
+
+    // add static field for the id
     try {
-      CtField flagField = new CtField(CtClass.booleanType, flagFieldName, cc);
-      flagField.setModifiers(Modifier.STATIC);
-      cc.addField(flagField, "false");
+      CtField idField = new CtField(CtClass.intType, "randoop_classId", cc);
+      idField.setModifiers(Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL);
+      cc.addField(idField, CtField.Initializer.constant(classId));
     } catch (CannotCompileException e) {
       throw new Error("error adding instrumentation field: " + e);
     }
-    String flagFieldAccess = cc.getName() + "#" + flagFieldName;
 
     // add code to entry of each method to indicate that called
-    String statementToSetFlag = flagFieldAccess + " = true" + ";";
+    String statementToSetFlag =
+        CoveredClassFlags.class.getName() + ".covered[" + classId + "] = true;";
 
-    // instrument methods *before* adding polling method
     try {
       for (CtMethod m : cc.getMethods()) {
         int mods = m.getModifiers();
@@ -165,26 +169,5 @@ public class CoveredClassTransformer implements ClassFileTransformer {
     } catch (CannotCompileException e) {
       throw new Error("error instrumenting constructor: " + e);
     }
-
-    // add static method that polls and resets the covered flag
-    try {
-      String methodName = "randoop_checkAndReset";
-      CtMethod pollMethod = new CtMethod(CtClass.booleanType, methodName, new CtClass[0], cc);
-      pollMethod.setBody(
-          "{"
-              + "boolean state = "
-              + flagFieldAccess
-              + "; "
-              + flagFieldAccess
-              + " = false"
-              + ";"
-              + "return state"
-              + ";"
-              + "}");
-      pollMethod.setModifiers(Modifier.STATIC | Modifier.PUBLIC);
-      cc.addMethod(pollMethod);
-    } catch (CannotCompileException e) {
-      throw new Error("error adding instrumentation method: " + e);
-    }
   }
 }
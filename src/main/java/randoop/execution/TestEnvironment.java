@@ -4,10 +4,13 @@ import static randoop.execution.RunCommand.CommandException;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 /** Provides the environment for running JUnit tests. */
 public class TestEnvironment {
@@ -27,6 +30,18 @@ public class TestEnvironment {
   /** The argument string for the replacecall agent. */
   private String replaceCallAgentArgs;
 
+  /** Whether test classes are run by {@link TestRunnerDaemon} JVMs that are reused between runs. */
+  private boolean useDaemon = false;
+
+  /** The daemons that are not running a test class. */
+  private final Deque<TestRunnerDaemonProcess> idleDaemons = new ArrayDeque<>();
+
+  /** The time in milliseconds to wait for a timed-out test thread to stop. */
+  private static final long STOP_WAIT = 1000;
+
+  /** Whether a test run by {@link #runTestInProcess(Class)} timed out and could not be stopped. */
+  private volatile boolean hasRunawayTest = false;
+
   /**
    * Creates a test environment with the given classpath and an empty agent map.
    *
@@ -68,6 +83,131 @@ public class TestEnvironment {
     this.timeout = timeout;
   }
 
+  /**
+   * Sets whether {@link #runTest(String, File, File)} runs test classes in {@link TestRunnerDaemon}
+   * JVMs that are reused between runs, instead of in a new JVM for each run. A daemon is started
+   * for each test class that is run while the other daemons are busy, and is replaced after it
+   * crashes or times out. Daemons exit when the JVM that started them exits, or when {@link
+   * #stopDaemons()} is called.
+   *
+   * <p>The javaagents of the environment are applied to the daemons, and each test class is loaded
+   * with the classes under test by a new class loader. However, a test class runs in the working
+   * directory of the daemon, and sees the changes that previous test classes made to the state of
+   * the JVM, such as system properties.
+   *
+   * @param useDaemon whether to run test classes in daemons
+   */
+  public void setUseDaemon(boolean useDaemon) {
+    this.useDaemon = useDaemon;
+  }
+
+  /** Stops the daemons that are not running a test class. */
+  public void stopDaemons() {
+    while (true) {
+      TestRunnerDaemonProcess daemon;
+      synchronized (idleDaemons) {
+        daemon = idleDaemons.pollFirst();
+      }
+      if (daemon == null) {
+        return;
+      }
+      daemon.destroy();
+    }
+  }
+
+  /**
+   * Indicates whether tests must be run in a separate JVM. This is the case if the environment has
+   * javaagents, which cannot be applied to a running JVM.
+   *
+   * @return true if the environment has javaagents, false otherwise
+   */
+  public boolean requiresSubprocess() {
+    return replaceCallAgentPath != null || !agentMap.isEmpty();
+  }
+
+  /**
+   * Indicates whether a test class run in this JVM timed out and its thread could not be stopped.
+   * The thread may still change the state of the JVM, so no more tests should be run in this JVM.
+   *
+   * @return true if a test thread could not be stopped, false otherwise
+   */
+  public boolean hasRunawayTest() {
+    return hasRunawayTest;
+  }
+
+  /**
+   * Runs the JUnit test class in this JVM, in a new thread. If the tests do not finish within the
+   * timeout, the thread is interrupted and then stopped. If it still runs, {@link
+   * #hasRunawayTest()} is true from then on. Use only if {@link #requiresSubprocess()} is false,
+   * since the javaagents of the environment are not applied.
+   *
+   * @param testClass the JUnit test class
+   * @return the results of the run
+   * @throws TimeoutException if the tests do not finish within the timeout
+   */
+  public TestResults runTestInProcess(final Class<?> testClass) throws TimeoutException {
+    final TestResults[] results = new TestResults[1];
+    Thread runner =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                results[0] = TestResultsRunner.run(testClass);
+              }
+            },
+            "Randoop test runner " + testClass.getName());
+    runner.setDaemon(true);
+    runner.setContextClassLoader(testClass.getClassLoader());
+    runner.start();
+    try {
+      runner.join(timeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (runner.isAlive() || results[0] == null) {
+      if (!stop(runner)) {
+        hasRunawayTest = true;
+      }
+      throw new TimeoutException("Timed out running " + testClass.getName());
+    }
+    return results[0];
+  }
+
+  /**
+   * Stops a thread that runs tests: interrupts it, and if it does not finish, stops it with {@code
+   * Thread.stop}, which newer JVMs do not support.
+   *
+   * @param runner the thread
+   * @return true if the thread finished, false if it still runs
+   */
+  @SuppressWarnings("deprecation") // the only way to stop a test that ignores interrupts
+  private static boolean stop(Thread runner) {
+    runner.interrupt();
+    join(runner);
+    if (runner.isAlive()) {
+      try {
+        runner.stop();
+      } catch (UnsupportedOperationException | SecurityException e) {
+        return false;
+      }
+      join(runner);
+    }
+    return !runner.isAlive();
+  }
+
+  /**
+   * Waits up to {@link #STOP_WAIT} milliseconds for a thread to finish.
+   *
+   * @param thread the thread
+   */
+  private static void join(Thread thread) {
+    try {
+      thread.join(STOP_WAIT);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Runs the named JUnit test class in this environment.
    *
@@ -78,18 +218,92 @@ public class TestEnvironment {
    */
   public RunCommand.Status runTest(String testClassName, File workingDirectory)
       throws CommandException {
-    List<String> command = commandPrefix();
+    List<String> command = commandPrefix("org.junit.runner.JUnitCore");
     command.add(testClassName);
     return RunCommand.run(command, workingDirectory, timeout);
   }
 
   /**
-   * Constructs the command to run JUnit tests in this environment, minus the name of the test
-   * class. Adding the test class name is sufficient to build a runnable command.
+   * Runs the named JUnit test class in this environment, and writes its {@link TestResults} to the
+   * results file. The file is not written if the run does not complete.
+   *
+   * @param testClassName the fully-qualified JUnit test class name
+   * @param workingDirectory the working directory for executing the test
+   * @param resultsFile the file for the results, which {@link TestResults#read(File)} reads
+   * @return the {@link RunCommand.Status} object for the execution of the test class
+   * @throws CommandException if there is an error running the test command
+   */
+  public RunCommand.Status runTest(String testClassName, File workingDirectory, File resultsFile)
+      throws CommandException {
+    if (useDaemon) {
+      return runTestInDaemon(testClassName, workingDirectory, resultsFile);
+    }
+    return runTestInNewJvm(testClassName, workingDirectory, resultsFile);
+  }
+
+  /**
+   * Runs the named JUnit test class in a new JVM, and writes its {@link TestResults} to the results
+   * file.
+   *
+   * @param testClassName the fully-qualified JUnit test class name
+   * @param workingDirectory the working directory for executing the test
+   * @param resultsFile the file for the results
+   * @return the {@link RunCommand.Status} object for the execution of the test class
+   * @throws CommandException if there is an error running the test command
+   */
+  private RunCommand.Status runTestInNewJvm(
+      String testClassName, File workingDirectory, File resultsFile) throws CommandException {
+    List<String> command = commandPrefix(TestResultsRunner.class.getName());
+    command.add(resultsFile.getAbsolutePath());
+    command.add(testClassName);
+    return RunCommand.run(command, workingDirectory, timeout);
+  }
+
+  /**
+   * Runs the named JUnit test class in an idle daemon, or in a new daemon if none is idle. The
+   * daemon is idle again after the run, unless it crashed or timed out. If the daemon cannot be
+   * started or its response cannot be read, the daemon is destroyed and the test class is run in a
+   * new JVM instead.
+   *
+   * @param testClassName the fully-qualified JUnit test class name
+   * @param workingDirectory the directory that contains the test class
+   * @param resultsFile the file for the results
+   * @return the {@link RunCommand.Status} object for the execution of the test class
+   * @throws CommandException if there is an error running the test class in the daemon
+   */
+  private RunCommand.Status runTestInDaemon(
+      String testClassName, File workingDirectory, File resultsFile) throws CommandException {
+    TestRunnerDaemonProcess daemon;
+    synchronized (idleDaemons) {
+      daemon = idleDaemons.pollFirst();
+    }
+    RunCommand.Status status;
+    try {
+      if (daemon == null) {
+        daemon = new TestRunnerDaemonProcess(commandPrefix(TestRunnerDaemon.class.getName()));
+      }
+      status = daemon.run(testClassName, workingDirectory, resultsFile, timeout);
+    } catch (CommandException e) {
+      // A daemon that fails to run the class is destroyed, and the next run starts a new one.
+      return runTestInNewJvm(testClassName, workingDirectory, resultsFile);
+    }
+    if (daemon.isAlive()) {
+      synchronized (idleDaemons) {
+        idleDaemons.addFirst(daemon);
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Constructs the command to run JUnit tests in this environment, minus the arguments of the main
+   * class. Adding the test class name is sufficient to build a runnable command for {@code
+   * org.junit.runner.JUnitCore}.
    *
+   * @param mainClassName the main class that runs the tests
    * @return the base command to run JUnit tests in this environment, without a test class name
    */
-  private List<String> commandPrefix() {
+  private List<String> commandPrefix(String mainClassName) {
     List<String> command = new ArrayList<>();
     command.add("java");
     command.add("-ea");
@@ -106,7 +320,7 @@ public class TestEnvironment {
 
     command.add("-classpath");
     command.add(testClasspath + File.pathSeparator + ".");
-    command.add("org.junit.runner.JUnitCore");
+    command.add(mainClassName);
 
     return command;
   }
@@ -0,0 +1,172 @@
+package randoop.execution;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.runner.notification.Failure;
+
+/**
+ * The failures of a run of a JUnit test class: for each failing test method, the lines of the class
+ * at which the method failed, and a description of each failure that could not be located in a test
+ * method.
+ *
+ * <p>Results are written to a file by {@link TestResultsRunner} when the class is run in another
+ * JVM. Each line of the file is either a method name, a tab and the line numbers of its failures
+ * separated by commas; or a tab followed by the description of a failure that was not located.
+ */
+public class TestResults {
+
+  /** The lines of the failures of each failing test method, by method name. */
+  private final Map<String, SortedSet<Integer>> failingLines = new TreeMap<>();
+
+  /** The descriptions of failures that are not located at a line of a test method. */
+  private final List<String> unlocatedFailures = new ArrayList<>();
+
+  /** Creates results with no failures. */
+  TestResults() {}
+
+  /**
+   * Creates the results for the failures of a run of a test class. A failure is located at the
+   * innermost line of its test method in the stack trace of the failure, or of one of its causes.
+   *
+   * @param testClassName the fully-qualified name of the test class
+   * @param failures the failures of the run
+   * @return the results of the run
+   */
+  public static TestResults fromFailures(String testClassName, List<Failure> failures) {
+    TestResults results = new TestResults();
+    for (Failure failure : failures) {
+      String methodName = failure.getDescription().getMethodName();
+      int lineNumber = -1;
+      if (methodName != null) {
+        for (Throwable t = failure.getException(); t != null && lineNumber < 0; t = t.getCause()) {
+          for (StackTraceElement element : t.getStackTrace()) {
+            if (element.getClassName().equals(testClassName)
+                && element.getMethodName().equals(methodName)) {
+              lineNumber = element.getLineNumber();
+              break;
+            }
+          }
+        }
+      }
+      if (lineNumber > 0) {
+        results.addFailingLine(methodName, lineNumber);
+      } else {
+        results.unlocatedFailures.add(
+            failure.getTestHeader() + ": " + failure.getException().toString());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Indicates whether the run had no failures.
+   *
+   * @return true if no test method failed, false otherwise
+   */
+  public boolean isEmpty() {
+    return failingLines.isEmpty() && unlocatedFailures.isEmpty();
+  }
+
+  /**
+   * Returns the lines of the failures of each failing test method.
+   *
+   * @return the map from the name of each failing test method to the lines at which it failed
+   */
+  public Map<String, SortedSet<Integer>> getFailingLines() {
+    return Collections.unmodifiableMap(failingLines);
+  }
+
+  /**
+   * Returns the descriptions of the failures that are not located at a line of a test method, such
+   * as an initialization error of the class.
+   *
+   * @return the descriptions of the failures that are not located
+   */
+  public List<String> getUnlocatedFailures() {
+    return Collections.unmodifiableList(unlocatedFailures);
+  }
+
+  /**
+   * Writes the results to a file that {@link #read(File)} reads.
+   *
+   * @param file the results file
+   * @throws IOException if the file cannot be written
+   */
+  public void write(File file) throws IOException {
+    try (PrintWriter out = new PrintWriter(file, UTF_8.name())) {
+      for (Map.Entry<String, SortedSet<Integer>> entry : failingLines.entrySet()) {
+        StringBuilder line = new StringBuilder(entry.getKey()).append('\t');
+        String separator = "";
+        for (int lineNumber : entry.getValue()) {
+          line.append(separator).append(lineNumber);
+          separator = ",";
+        }
+        out.println(line);
+      }
+      for (String description : unlocatedFailures) {
+        // A description may span several lines; only its first line is needed.
+        out.println("\t" + description.split("\\r\\n|\\r|\\n", 2)[0]);
+      }
+    }
+  }
+
+  /**
+   * Reads results written by {@link #write(File)}.
+   *
+   * @param file the results file
+   * @return the results in the file
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  public static TestResults read(File file) throws IOException {
+    TestResults results = new TestResults();
+    try (BufferedReader in = Files.newBufferedReader(file.toPath(), UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        int tab = line.indexOf('\t');
+        if (tab < 0) {
+          throw new IOException("Malformed line in test results file " + file + ": " + line);
+        }
+        if (tab == 0) {
+          results.unlocatedFailures.add(line.substring(1));
+          continue;
+        }
+        String methodName = line.substring(0, tab);
+        try {
+          for (String lineNumber : line.substring(tab + 1).split(",")) {
+            results.addFailingLine(methodName, Integer.parseInt(lineNumber));
+          }
+        } catch (NumberFormatException e) {
+          throw new IOException("Malformed line in test results file " + file + ": " + line, e);
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Adds a line at which a test method failed.
+   *
+   * @param methodName the name of the test method
+   * @param lineNumber the line of the failure
+   */
+  private void addFailingLine(String methodName, int lineNumber) {
+    SortedSet<Integer> lines = failingLines.get(methodName);
+    if (lines == null) {
+      lines = new TreeSet<>();
+      failingLines.put(methodName, lines);
+    }
+    lines.add(lineNumber);
+  }
+}
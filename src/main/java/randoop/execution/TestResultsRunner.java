@@ -0,0 +1,98 @@
+package randoop.execution;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+
+/**
+ * Runs a JUnit test class and reports its failures as {@link TestResults}.
+ *
+ * <p>The {@link #main(String[])} method is the main class of a JVM started by {@link
+ * TestEnvironment#runTest(String, File, File)}, and writes the results to a file. A {@link
+ * TestRunnerDaemon} runs classes the same way, without starting a JVM for each.
+ */
+public class TestResultsRunner {
+
+  private TestResultsRunner() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * Runs a JUnit test class and writes its results to a file. Exits with status 0 if no test
+   * failed, 1 if a test failed, and 2 if the results cannot be written.
+   *
+   * @param args the results file and the fully-qualified name of the test class
+   */
+  public static void main(String[] args) {
+    if (args.length != 2) {
+      System.err.println("Usage: TestResultsRunner <results file> <test class>");
+      System.exit(2);
+    }
+    Class<?> testClass;
+    try {
+      testClass = Class.forName(args[1]);
+    } catch (ClassNotFoundException e) {
+      System.err.println("Test class not found: " + args[1]);
+      System.exit(2);
+      throw new Error("unreachable statement");
+    }
+    System.exit(run(testClass, new File(args[0])));
+  }
+
+  /**
+   * Runs a JUnit test class in the current thread and writes its results to a file.
+   *
+   * @param testClass the test class
+   * @param resultsFile the file for the results
+   * @return 0 if no test failed, 1 if a test failed, and 2 if the results cannot be written
+   */
+  static int run(Class<?> testClass, File resultsFile) {
+    TestResults results = run(testClass);
+    try {
+      results.write(resultsFile);
+    } catch (IOException e) {
+      System.err.println("Unable to write test results file: " + e.getMessage());
+      return 2;
+    }
+    return results.isEmpty() ? 0 : 1;
+  }
+
+  /**
+   * Runs a JUnit test class in the current thread.
+   *
+   * @param testClass the test class
+   * @return the results of the run
+   */
+  static TestResults run(Class<?> testClass) {
+    FailureListener listener = new FailureListener();
+    JUnitCore junit = new JUnitCore();
+    junit.addListener(listener);
+    junit.run(testClass);
+    return TestResults.fromFailures(testClass.getName(), listener.getFailures());
+  }
+
+  /** A {@code RunListener} that records the failures of the test methods. */
+  private static class FailureListener extends RunListener {
+
+    /** The failures, in the order they are reported. */
+    private final List<Failure> failures = new ArrayList<>();
+
+    @Override
+    public synchronized void testFailure(Failure failure) {
+      failures.add(failure);
+    }
+
+    /**
+     * Returns the failures reported so far.
+     *
+     * @return the failures of the test methods
+     */
+    synchronized List<Failure> getFailures() {
+      return new ArrayList<>(failures);
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package randoop.execution;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.runner.JUnitCore;
+import randoop.Globals;
+
+/**
+ * A JVM that runs JUnit test classes on request, so that the JVM, the JDK classes, and JUnit are
+ * loaded and warmed up once for many runs. It is started by {@link TestEnvironment} when {@link
+ * TestEnvironment#setUseDaemon(boolean)} is set, with the same command as a JVM that runs a single
+ * test class, and so with the same javaagents.
+ *
+ * <p>The daemon reads requests from standard input, one per line. A request is the working
+ * directory of the run, the results file, and the name of the test class, separated by tabs. The
+ * test class is loaded, together with the classes of the classpath of the daemon, by a new class
+ * loader that first looks for classes in the classpath and then in the working directory. Only the
+ * JDK and JUnit classes are shared between runs, so that a test class can access the
+ * package-private members of the classes under test, and does not see the static state left by a
+ * previous run. The {@link TestResults} are written to the results file as by {@link
+ * TestResultsRunner}.
+ *
+ * <p>The daemon writes a response for each request to standard output: a line with {@link
+ * #RESPONSE}, the exit status of the run as for {@link TestResultsRunner#main(String[])}, the
+ * number of lines of standard output and the number of lines of error output of the run, separated
+ * by tabs, followed by those lines. The daemon writes {@link #READY} before it reads the first
+ * request, and exits when standard input is closed.
+ *
+ * <p>The responses are written to the file descriptor of standard output by a stream that only the
+ * daemon uses. {@code System.out} writes to a buffer for the output of the run during a run, and
+ * discards its output between runs, so that a thread that a test leaves running cannot write into a
+ * response. Any other text on standard output, such as the output of javaagents, is ignored by the
+ * client, which looks for the line that starts a response.
+ */
+public class TestRunnerDaemon {
+
+  /** The line that the daemon writes when it is ready for requests. */
+  static final String READY = "randoop-test-runner-ready";
+
+  /** The first field of the first line of a response. */
+  static final String RESPONSE = "randoop-test-runner-response";
+
+  /** The prefixes of the names of the classes that are shared by all runs. */
+  private static final String[] SHARED_PREFIXES = {
+    "java.", "javax.", "sun.", "junit.", "org.junit.", "org.hamcrest.", "randoop.execution."
+  };
+
+  private TestRunnerDaemon() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * Runs test classes on request until standard input is closed.
+   *
+   * @param args ignored
+   * @throws IOException if standard input cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    PrintStream toClient =
+        new PrintStream(new FileOutputStream(FileDescriptor.out), true, UTF_8.name());
+    PrintStream discarded = newPrintStream(new NullOutputStream());
+    System.setOut(discarded);
+    PrintStream originalErr = System.err;
+    BufferedReader fromClient = new BufferedReader(new InputStreamReader(System.in, UTF_8));
+    URL[] classpath = getClasspathURLs(System.getProperty("java.class.path"));
+
+    // Load JUnit before the first request.
+    new JUnitCore();
+    toClient.println(READY);
+
+    String request;
+    while ((request = fromClient.readLine()) != null) {
+      String[] fields = request.split("\t", -1);
+      if (fields.length != 3) {
+        originalErr.println("Malformed request to test runner daemon: " + request);
+        System.exit(2);
+      }
+      ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+      ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+      System.setOut(newPrintStream(stdout));
+      System.setErr(newPrintStream(stderr));
+      int exitStatus;
+      try {
+        exitStatus = run(new File(fields[0]), new File(fields[1]), fields[2], classpath);
+      } finally {
+        System.setOut(discarded);
+        System.setErr(originalErr);
+      }
+      List<String> outputLines = getLines(stdout);
+      List<String> errorLines = getLines(stderr);
+      StringBuilder response = new StringBuilder();
+      response.append(RESPONSE).append('\t').append(exitStatus);
+      response.append('\t').append(outputLines.size());
+      response.append('\t').append(errorLines.size()).append(Globals.lineSep);
+      for (String line : outputLines) {
+        response.append(line).append(Globals.lineSep);
+      }
+      for (String line : errorLines) {
+        response.append(line).append(Globals.lineSep);
+      }
+      toClient.print(response);
+      toClient.flush();
+    }
+  }
+
+  /**
+   * Loads the named test class with a new class loader and runs it.
+   *
+   * @param workingDirectory the directory that contains the test class
+   * @param resultsFile the file for the results of the run
+   * @param testClassName the fully-qualified name of the test class
+   * @param classpath the classpath of the daemon
+   * @return the exit status of the run, as for {@link TestResultsRunner#main(String[])}
+   */
+  private static int run(
+      File workingDirectory, File resultsFile, String testClassName, URL[] classpath) {
+    URL[] urls = new URL[classpath.length + 1];
+    System.arraycopy(classpath, 0, urls, 0, classpath.length);
+    try {
+      urls[classpath.length] = workingDirectory.toURI().toURL();
+    } catch (MalformedURLException e) {
+      System.err.println("Bad working directory: " + workingDirectory);
+      return 2;
+    }
+    Thread thread = Thread.currentThread();
+    ClassLoader contextClassLoader = thread.getContextClassLoader();
+    TestClassLoader loader = new TestClassLoader(urls);
+    try {
+      loader.setDefaultAssertionStatus(true);
+      thread.setContextClassLoader(loader);
+      Class<?> testClass;
+      try {
+        testClass = Class.forName(testClassName, false, loader);
+      } catch (ClassNotFoundException e) {
+        System.err.println("Test class not found: " + testClassName);
+        return 2;
+      }
+      return TestResultsRunner.run(testClass, resultsFile);
+    } finally {
+      thread.setContextClassLoader(contextClassLoader);
+      try {
+        loader.close();
+      } catch (IOException e) {
+        // Closing only releases the files opened by the class loader.
+      }
+    }
+  }
+
+  /**
+   * Returns the URLs of the entries of a classpath.
+   *
+   * @param classpath the classpath
+   * @return the URLs of the classpath entries
+   * @throws MalformedURLException if an entry cannot be converted to a URL
+   */
+  private static URL[] getClasspathURLs(String classpath) throws MalformedURLException {
+    List<URL> urls = new ArrayList<>();
+    for (String entry : classpath.split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        urls.add(new File(entry).toURI().toURL());
+      }
+    }
+    return urls.toArray(new URL[0]);
+  }
+
+  /**
+   * Returns a print stream that writes UTF-8 to the given stream.
+   *
+   * @param out the underlying stream
+   * @return the print stream
+   */
+  private static PrintStream newPrintStream(OutputStream out) {
+    try {
+      return new PrintStream(out, true, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new Error("UTF-8 is not supported", e);
+    }
+  }
+
+  /** A stream that discards its output. */
+  private static class NullOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {}
+
+    @Override
+    public void write(byte[] b, int off, int len) {}
+  }
+
+  /**
+   * Returns the lines written to a stream, none of which contains a line terminator.
+   *
+   * @param out the stream
+   * @return the lines of the text written to the stream
+   */
+  private static List<String> getLines(ByteArrayOutputStream out) {
+    List<String> lines = new ArrayList<>();
+    String text = new String(out.toByteArray(), UTF_8);
+    if (!text.isEmpty()) {
+      for (String line : text.split("\\r\\n|\\r|\\n")) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * A class loader that loads the classes of its classpath itself, except for the classes of the
+   * JVM and the classes that are shared by all runs, which are loaded by the class loader of the
+   * daemon.
+   */
+  private static class TestClassLoader extends URLClassLoader {
+
+    static {
+      ClassLoader.registerAsParallelCapable();
+    }
+
+    /** The class loader for the classes of the JVM, including the boot classpath. */
+    private final ClassLoader jvmLoader = ClassLoader.getSystemClassLoader().getParent();
+
+    /**
+     * Creates a class loader for the given classpath.
+     *
+     * @param urls the classpath
+     */
+    TestClassLoader(URL[] urls) {
+      super(urls, TestRunnerDaemon.class.getClassLoader());
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> c = findLoadedClass(name);
+        if (c == null) {
+          if (isShared(name)) {
+            return super.loadClass(name, resolve);
+          }
+          try {
+            c = jvmLoader.loadClass(name);
+          } catch (ClassNotFoundException e) {
+            try {
+              c = findClass(name);
+            } catch (ClassNotFoundException e2) {
+              return super.loadClass(name, resolve);
+            }
+          }
+        }
+        if (resolve) {
+          resolveClass(c);
+        }
+        return c;
+      }
+    }
+
+    /**
+     * Indicates whether the named class is shared by all runs.
+     *
+     * @param name the binary name of a class
+     * @return true if the class is loaded by the class loader of the daemon, false otherwise
+     */
+    private static boolean isShared(String name) {
+      for (String prefix : SHARED_PREFIXES) {
+        if (name.startsWith(prefix)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
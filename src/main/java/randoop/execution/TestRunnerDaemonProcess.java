@@ -0,0 +1,227 @@
+package randoop.execution;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static randoop.execution.RunCommand.CommandException;
+import static randoop.execution.RunCommand.Status;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import plume.UtilMDE;
+
+/**
+ * A running {@link TestRunnerDaemon} process, used by one thread at a time. A daemon that crashes
+ * or does not finish a run within the timeout is destroyed, and cannot run another test class.
+ */
+final class TestRunnerDaemonProcess {
+
+  /** The timer that destroys the daemons whose runs time out. */
+  private static final Timer timer = new Timer("Randoop test runner daemon timer", true);
+
+  /** The command that started the daemon. */
+  private final List<String> command;
+
+  /** The daemon process. */
+  private final Process process;
+
+  /** The working directory of the daemon, which holds its error output. */
+  private final File directory;
+
+  /** The file with the error output of the daemon that is not part of a run. */
+  private final File errorFile;
+
+  /** The requests to the daemon. */
+  private final PrintWriter toDaemon;
+
+  /** The responses of the daemon. */
+  private final BufferedReader fromDaemon;
+
+  /** Whether the daemon has written {@link TestRunnerDaemon#READY}. */
+  private boolean ready = false;
+
+  /** Whether the daemon can run another test class. */
+  private boolean alive = true;
+
+  /**
+   * Starts a daemon.
+   *
+   * @param command the command to run {@link TestRunnerDaemon}
+   * @throws CommandException if the daemon cannot be started
+   */
+  TestRunnerDaemonProcess(List<String> command) throws CommandException {
+    this.command = command;
+    try {
+      this.directory = Files.createTempDirectory("randoop-test-runner").toFile();
+    } catch (IOException e) {
+      throw new CommandException("Exception creating directory of test runner daemon", e);
+    }
+    this.errorFile = new File(directory, "stderr.txt");
+    ProcessBuilder processBuilder = new ProcessBuilder(command);
+    processBuilder.directory(directory);
+    processBuilder.redirectError(errorFile);
+    try {
+      this.process = processBuilder.start();
+    } catch (IOException e) {
+      UtilMDE.deleteDir(directory);
+      throw new CommandException("Exception starting test runner daemon", e);
+    }
+    this.toDaemon = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), UTF_8));
+    this.fromDaemon = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8));
+  }
+
+  /**
+   * Indicates whether the daemon can run another test class.
+   *
+   * @return true if no run of the daemon crashed or timed out, false otherwise
+   */
+  boolean isAlive() {
+    return alive;
+  }
+
+  /**
+   * Runs a test class in the daemon. If the run does not finish within the timeout, or the daemon
+   * exits, the daemon is destroyed.
+   *
+   * @param testClassName the fully-qualified name of the test class
+   * @param workingDirectory the directory that contains the test class
+   * @param resultsFile the file for the results of the run
+   * @param timeout the timeout in milliseconds for the run, including the start of the daemon
+   * @return the {@link Status} of the run, whose command is the daemon command followed by the name
+   *     of the test class
+   * @throws CommandException if the daemon cannot run another test class
+   */
+  Status run(String testClassName, File workingDirectory, File resultsFile, long timeout)
+      throws CommandException {
+    if (!alive) {
+      throw new CommandException("Test runner daemon is not running", null);
+    }
+    List<String> runCommand = new ArrayList<>(command);
+    runCommand.add(testClassName);
+
+    TimerTask destroyTask =
+        new TimerTask() {
+          @Override
+          public void run() {
+            process.destroy();
+          }
+        };
+    timer.schedule(destroyTask, timeout);
+    try {
+      // Skip the output of the javaagents as the daemon starts.
+      while (!ready) {
+        String line = fromDaemon.readLine();
+        if (line == null) {
+          return exited(runCommand, destroyTask);
+        }
+        ready = line.equals(TestRunnerDaemon.READY);
+      }
+      toDaemon.println(
+          workingDirectory.getAbsolutePath()
+              + "\t"
+              + resultsFile.getAbsolutePath()
+              + "\t"
+              + testClassName);
+      toDaemon.flush();
+      // Skip any other output of the daemon before the response.
+      String[] fields = null;
+      while (fields == null) {
+        String line = fromDaemon.readLine();
+        if (line == null) {
+          return exited(runCommand, destroyTask);
+        }
+        String[] lineFields = line.split("\t");
+        if (lineFields.length == 4 && lineFields[0].equals(TestRunnerDaemon.RESPONSE)) {
+          fields = lineFields;
+        }
+      }
+      int exitStatus = Integer.parseInt(fields[1]);
+      List<String> standardOutputLines = readLines(Integer.parseInt(fields[2]));
+      List<String> errorOutputLines = readLines(Integer.parseInt(fields[3]));
+      if (standardOutputLines == null || errorOutputLines == null) {
+        return exited(runCommand, destroyTask);
+      }
+      if (!destroyTask.cancel()) {
+        // The run finished, but the daemon was destroyed.
+        return exited(runCommand, destroyTask);
+      }
+      return new Status(runCommand, exitStatus, false, standardOutputLines, errorOutputLines);
+    } catch (IOException | RuntimeException e) {
+      // The daemon was destroyed during the run, or its response is malformed.
+      if (!destroyTask.cancel()) {
+        return exited(runCommand, destroyTask);
+      }
+      destroy();
+      throw new CommandException("Exception communicating with test runner daemon", e);
+    }
+  }
+
+  /** Stops the daemon and deletes its working directory. */
+  void destroy() {
+    alive = false;
+    toDaemon.close();
+    process.destroy();
+    try {
+      process.waitFor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    UtilMDE.deleteDir(directory);
+  }
+
+  /**
+   * Returns the status of a run during which the daemon exited or was destroyed, and destroys the
+   * daemon.
+   *
+   * @param runCommand the command of the run
+   * @param destroyTask the task that destroys the daemon on timeout
+   * @return the status of the run, which timed out if the task ran
+   */
+  private Status exited(List<String> runCommand, TimerTask destroyTask) {
+    boolean timedOut = !destroyTask.cancel();
+    int exitStatus = -1;
+    if (!timedOut) {
+      try {
+        exitStatus = process.waitFor();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    List<String> errorOutputLines;
+    try {
+      errorOutputLines = Files.readAllLines(errorFile.toPath(), UTF_8);
+    } catch (IOException e) {
+      errorOutputLines = Collections.emptyList();
+    }
+    destroy();
+    return new Status(
+        runCommand, exitStatus, timedOut, Collections.<String>emptyList(), errorOutputLines);
+  }
+
+  /**
+   * Reads lines of a response of the daemon.
+   *
+   * @param count the number of lines
+   * @return the lines, or null if the daemon exited before writing them
+   * @throws IOException if the response cannot be read
+   */
+  private List<String> readLines(int count) throws IOException {
+    List<String> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String line = fromDaemon.readLine();
+      if (line == null) {
+        return null;
+      }
+      lines.add(line);
+    }
+    return lines;
+  }
+}
@@ -113,12 +113,38 @@ public abstract class AbstractGenerator {
    */
   public List<ExecutableSequence> outRegressionSeqs;
 
+  /**
+   * The number of error test sequences classified for output, including those already handed off.
+   */
+  private int errorSequenceCount = 0;
+
+  /**
+   * The number of regression test sequences classified for output, including those already handed
+   * off.
+   */
+  private int regressionSequenceCount = 0;
+
+  /**
+   * Receives the output sequences during generation, or null if the output sequences are kept in
+   * {@link #outErrorSeqs} and {@link #outRegressionSeqs} until generation ends.
+   */
+  private OutputSequenceListener outputListener = null;
+
+  /** The number of regression sequences to collect before they are given to the output listener. */
+  private int outputBatchSize;
+
   /** A filter to determine whether a sequence should be added to the output sequence lists. */
   public Predicate<ExecutableSequence> outputTest;
 
   /** Visitor to generate checks for a sequence. */
   protected TestCheckGenerator checkGenerator;
 
+  /**
+   * Removes statements from error-revealing sequences before they are output. Null unless {@link
+   * GenInputsAbstract#minimize_error_sequences} is set.
+   */
+  private ErrorSequenceMinimizer errorSequenceMinimizer = null;
+
   protected OperationHistoryLogInterface operationHistory;
 
   /**
@@ -173,6 +199,28 @@ public abstract class AbstractGenerator {
     this.outputTest = outputTest;
   }
 
+  /**
+   * Registers a listener that receives the output sequences while generation is running, instead of
+   * keeping them until generation ends. Error-revealing sequences are given to the listener as soon
+   * as they are classified. Regression sequences are given to the listener whenever {@code
+   * batchSize} of them have been collected, with the sequences that are subsumed at that time
+   * removed, and the rest when generation ends. Sequences given to the listener are no longer held
+   * by this generator.
+   *
+   * @param outputListener the listener for output sequences
+   * @param batchSize the number of regression sequences to collect before calling the listener
+   */
+  public void setOutputSequenceListener(OutputSequenceListener outputListener, int batchSize) {
+    if (outputListener == null) {
+      throw new IllegalArgumentException("outputListener must be non-null");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.outputListener = outputListener;
+    this.outputBatchSize = batchSize;
+  }
+
   /**
    * Registers a visitor with this object for use while executing each generated sequence.
    *
@@ -252,7 +300,7 @@ public abstract class AbstractGenerator {
    * @return the sum of the number of error and regression test sequences for output
    */
   public int numOutputSequences() {
-    return outErrorSeqs.size() + outRegressionSeqs.size();
+    return errorSequenceCount + regressionSequenceCount;
   }
 
   /**
@@ -261,7 +309,7 @@ public abstract class AbstractGenerator {
    * @return the number of error test sequences
    */
   private int numErrorSequences() {
-    return outErrorSeqs.size();
+    return errorSequenceCount;
   }
 
   /**
@@ -275,6 +323,10 @@ public abstract class AbstractGenerator {
       throw new Error("Generator not properly initialized - must have a TestCheckGenerator");
     }
 
+    if (GenInputsAbstract.minimize_error_sequences) {
+      errorSequenceMinimizer = new ErrorSequenceMinimizer(executionVisitor, checkGenerator);
+    }
+
     startTime = System.currentTimeMillis();
 
     if (GenInputsAbstract.progressdisplay) {
@@ -321,11 +373,27 @@ public abstract class AbstractGenerator {
       if (outputTest.test(eSeq)) {
         if (!eSeq.hasInvalidBehavior()) {
           if (eSeq.hasFailure()) {
+            if (errorSequenceMinimizer != null) {
+              ExecutableSequence minimized = errorSequenceMinimizer.minimize(eSeq);
+              if (minimized != eSeq && outputTest.test(minimized)) {
+                eSeq = minimized;
+              }
+            }
             operationHistory.add(eSeq.getOperation(), OperationOutcome.ERROR_SEQUENCE);
             num_failing_sequences++;
+            errorSequenceCount++;
             outErrorSeqs.add(eSeq);
+            if (outputListener != null) {
+              outputListener.errorSequences(new ArrayList<>(outErrorSeqs));
+              outErrorSeqs.clear();
+            }
           } else {
+            regressionSequenceCount++;
             outRegressionSeqs.add(eSeq);
+            if (outputListener != null && outRegressionSeqs.size() >= outputBatchSize) {
+              outputListener.regressionSequences(getRegressionSequences());
+              outRegressionSeqs.clear();
+            }
           }
         } else {
           invalidSequenceCount++;
@@ -359,6 +427,11 @@ public abstract class AbstractGenerator {
               + String.format("%.3g", ReflectionExecutor.excepExecAvgMillis()));
     }
 
+    if (outputListener != null) {
+      outputListener.regressionSequences(getRegressionSequences());
+      outRegressionSeqs.clear();
+    }
+
     // Notify listeners that exploration is ending.
     if (listenerMgr != null) {
       listenerMgr.explorationEnd();
@@ -385,7 +458,8 @@ public abstract class AbstractGenerator {
 
   /**
    * Returns the generated regression test sequences for output. Filters out subsequences, which can
-   * be retrieved using {@link #getSubsumedSequences()}
+   * be retrieved using {@link #getSubsumedSequences()}. If an {@link OutputSequenceListener} is
+   * registered, only includes the sequences not yet given to it.
    *
    * @return regression test sequences that do not occur in a longer sequence
    */
@@ -405,7 +479,8 @@ public abstract class AbstractGenerator {
   }
 
   /**
-   * Returns the generated error-revealing test sequences for output.
+   * Returns the generated error-revealing test sequences for output. If an {@link
+   * OutputSequenceListener} is registered, only includes the sequences not yet given to it.
    *
    * @return the generated error test sequences
    */
@@ -420,7 +495,7 @@ public abstract class AbstractGenerator {
    * @return the total number of test sequences saved for output
    */
   public int outputSequenceCount() {
-    return outRegressionSeqs.size() + outErrorSeqs.size();
+    return regressionSequenceCount + errorSequenceCount;
   }
 
   /**
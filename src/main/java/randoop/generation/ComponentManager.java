@@ -1,7 +1,6 @@
 package randoop.generation;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import randoop.operation.TypedClassOperation;
@@ -51,7 +50,7 @@ public class ComponentManager {
   // Seeds are all contained in gralComponents. This list
   // is kept to restore seeds if the user calls
   // clearGeneratedSequences().
-  private final Collection<Sequence> gralSeeds;
+  private final Set<Sequence> gralSeeds;
 
   /**
    * A set of additional components representing literals that should only be used as input to
@@ -76,7 +75,7 @@ public class ComponentManager {
   /** Create an empty component manager, with an empty seed sequence set. */
   public ComponentManager() {
     gralComponents = new SequenceCollection();
-    gralSeeds = Collections.unmodifiableSet(Collections.<Sequence>emptySet());
+    gralSeeds = new LinkedHashSet<>();
   }
 
   /**
@@ -89,10 +88,20 @@ public class ComponentManager {
   public ComponentManager(Collection<Sequence> generalSeeds) {
     Set<Sequence> seedSet = new LinkedHashSet<>(generalSeeds.size());
     seedSet.addAll(generalSeeds);
-    this.gralSeeds = Collections.unmodifiableSet(seedSet);
+    this.gralSeeds = seedSet;
     gralComponents = new SequenceCollection(seedSet);
   }
 
+  /**
+   * Add a seed sequence, which is kept when the generated sequences are cleared.
+   *
+   * @param sequence the sequence
+   */
+  public void addSeedSequence(Sequence sequence) {
+    gralSeeds.add(sequence);
+    gralComponents.add(sequence);
+  }
+
   /**
    * Returns the number of (non-seed) sequences stored by the manager.
    *
@@ -0,0 +1,172 @@
+package randoop.generation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import randoop.ExecutionVisitor;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.test.ErrorRevealingChecks;
+import randoop.test.TestCheckGenerator;
+import randoop.test.TestChecks;
+
+/**
+ * Removes statements from error-revealing sequences as they are generated, without writing or
+ * compiling any source code. A smaller sequence is retained only if executing it fails the same
+ * checks as the original sequence.
+ *
+ * <p>The error of an error-revealing sequence is always observed at its last statement. The
+ * minimizer first tries the data-flow slice of the last statement: the statements whose values flow
+ * into it through the inputs of the retained statements. Since a statement that is not in the slice
+ * may still change the state of a value in the slice, the minimizer then tries the slice that also
+ * retains each statement that takes a retained value as input, together with its own inputs. If
+ * neither slice reproduces the failure, the original sequence is kept.
+ */
+public class ErrorSequenceMinimizer {
+
+  /** The visitor for executions of smaller sequences. */
+  private final ExecutionVisitor visitor;
+
+  /** The check generator for executions of smaller sequences. */
+  private final TestCheckGenerator checkGenerator;
+
+  /**
+   * Creates a minimizer that executes sequences with the given visitor and check generator, which
+   * should be those used to execute the error-revealing sequences.
+   *
+   * @param visitor the visitor for executions
+   * @param checkGenerator the check generator for executions
+   */
+  public ErrorSequenceMinimizer(ExecutionVisitor visitor, TestCheckGenerator checkGenerator) {
+    this.visitor = visitor;
+    this.checkGenerator = new NormalPrefixCheckGenerator(checkGenerator);
+  }
+
+  /**
+   * Returns an executed smaller version of an error-revealing sequence that fails the same checks.
+   *
+   * @param eSeq the executed error-revealing sequence
+   * @return the smaller executed sequence, or {@code eSeq} if no smaller sequence fails the same
+   *     checks
+   */
+  public ExecutableSequence minimize(ExecutableSequence eSeq) {
+    if (!(eSeq.getChecks() instanceof ErrorRevealingChecks)) {
+      return eSeq;
+    }
+    ErrorRevealingChecks checks = (ErrorRevealingChecks) eSeq.getChecks();
+    Sequence sequence = eSeq.sequence;
+
+    TreeSet<Integer> slice = new TreeSet<>();
+    addWithInputs(sequence, sequence.size() - 1, slice);
+    if (slice.size() == sequence.size()) {
+      return eSeq;
+    }
+    ExecutableSequence result = execute(sequence, slice, checks);
+    if (result != null) {
+      return result;
+    }
+
+    // Adds the statements that may change the state of a retained value.
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int i = 0; i < sequence.size(); i++) {
+        if (!slice.contains(i) && usesAny(sequence, i, slice)) {
+          addWithInputs(sequence, i, slice);
+          changed = true;
+        }
+      }
+    }
+    if (slice.size() == sequence.size()) {
+      return eSeq;
+    }
+    result = execute(sequence, slice, checks);
+    return (result != null) ? result : eSeq;
+  }
+
+  /**
+   * Adds a statement, and the statements whose values flow into it, to a set of statement indices.
+   *
+   * @param sequence the sequence
+   * @param index the index of the statement
+   * @param slice the indices of the retained statements, which is modified
+   */
+  private static void addWithInputs(Sequence sequence, int index, TreeSet<Integer> slice) {
+    List<Integer> worklist = new ArrayList<>();
+    worklist.add(index);
+    while (!worklist.isEmpty()) {
+      int i = worklist.remove(worklist.size() - 1);
+      if (slice.add(i)) {
+        worklist.addAll(sequence.getInputsAsAbsoluteIndices(i));
+      }
+    }
+  }
+
+  /**
+   * Indicates whether a statement takes the value of a retained statement as input.
+   *
+   * @param sequence the sequence
+   * @param index the index of the statement
+   * @param slice the indices of the retained statements
+   * @return true if an input of the statement is defined by a retained statement
+   */
+  private static boolean usesAny(Sequence sequence, int index, TreeSet<Integer> slice) {
+    for (int input : sequence.getInputsAsAbsoluteIndices(index)) {
+      if (slice.contains(input)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Executes the slice of a sequence, and returns it if it fails the same checks as the sequence.
+   *
+   * @param sequence the sequence
+   * @param slice the indices of the retained statements
+   * @param checks the checks that the sequence fails
+   * @return the executed slice, or null if it does not fail the same checks
+   */
+  private ExecutableSequence execute(
+      Sequence sequence, TreeSet<Integer> slice, ErrorRevealingChecks checks) {
+    List<Integer> indices = new ArrayList<>(slice);
+    ExecutableSequence candidate = new ExecutableSequence(sequence.getSlice(indices));
+    candidate.execute(visitor, checkGenerator);
+    if (!(candidate.getChecks() instanceof ErrorRevealingChecks) || !candidate.hasFailure()) {
+      return null;
+    }
+    Map<Integer, Integer> indexMap = new HashMap<>();
+    for (int i = 0; i < indices.size(); i++) {
+      indexMap.put(indices.get(i), i);
+    }
+    return checks.hasSameChecks((ErrorRevealingChecks) candidate.getChecks(), indexMap)
+        ? candidate
+        : null;
+  }
+
+  /**
+   * A check generator that generates no checks for a sequence that stops before its last statement,
+   * so that a smaller sequence in which an earlier statement throws an exception is not reported as
+   * flaky.
+   */
+  private static class NormalPrefixCheckGenerator implements TestCheckGenerator {
+
+    /** The generator for sequences whose statements before the last one execute normally. */
+    private final TestCheckGenerator checkGenerator;
+
+    NormalPrefixCheckGenerator(TestCheckGenerator checkGenerator) {
+      this.checkGenerator = checkGenerator;
+    }
+
+    @Override
+    public TestChecks<?> generateTestChecks(ExecutableSequence eseq) {
+      int index = eseq.getNonNormalExecutionIndex();
+      if (index >= 0 && index < eseq.sequence.size() - 1) {
+        return ErrorRevealingChecks.EMPTY;
+      }
+      return checkGenerator.generateTestChecks(eseq);
+    }
+  }
+}
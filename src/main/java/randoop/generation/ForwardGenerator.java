@@ -15,6 +15,7 @@ import randoop.operation.NonreceiverTerm;
 import randoop.operation.Operation;
 import randoop.operation.TypedClassOperation;
 import randoop.operation.TypedOperation;
+import randoop.reflection.OperationModel;
 import randoop.reflection.RandoopInstantiationError;
 import randoop.reflection.TypeInstantiator;
 import randoop.sequence.ExecutableSequence;
@@ -70,6 +71,12 @@ public class ForwardGenerator extends AbstractGenerator {
   // been generated, to add the value to the components.
   private Set<Object> runtimePrimitivesSeen = new LinkedHashSet<>();
 
+  /**
+   * The model whose pending classes under test are loaded when generation needs them; null if the
+   * classes under test were all loaded before generation.
+   */
+  private OperationModel lazyModel = null;
+
   public ForwardGenerator(
       List<TypedOperation> operations,
       Set<TypedOperation> observers,
@@ -95,6 +102,33 @@ public class ForwardGenerator extends AbstractGenerator {
     initializeRuntimePrimitivesSeen();
   }
 
+  /**
+   * Sets the model whose pending classes under test are loaded during generation, and whose
+   * operations are then added to the operations of this generator. Each pending class is selected
+   * as often as one operation; a class is also loaded when no input of its type is found, or when a
+   * new sequence creates a value of its type.
+   *
+   * @param model the model, created with {@link GenInputsAbstract#lazy_model}
+   * @see OperationModel#getPendingClassnames()
+   */
+  public void setLazyModel(OperationModel model) {
+    this.lazyModel = model;
+  }
+
+  /**
+   * Loads a pending class of the lazy model, if the type is one, and adds its operations to the
+   * operations of this generator.
+   *
+   * @param type the type needed by the generator
+   * @return the operations that were added
+   */
+  private List<TypedOperation> addPendingClass(Type type) {
+    List<TypedOperation> added =
+        lazyModel.addPendingClass(type, componentManager, GenInputsAbstract.literals_level);
+    operations.addAll(added);
+    return added;
+  }
+
   /**
    * The runtimePrimitivesSeen set contains primitive values seen during generation/execution and is
    * used to determine new values that should be added to the component set. The component set
@@ -148,6 +182,9 @@ public class ForwardGenerator extends AbstractGenerator {
 
     if (eSeq.sequence.hasActiveFlags()) {
       componentManager.addGeneratedSequence(eSeq.sequence);
+      if (lazyModel != null) {
+        addPendingClass(eSeq.sequence.getLastVariable().getType());
+      }
     }
 
     endTime = System.nanoTime();
@@ -276,12 +313,32 @@ public class ForwardGenerator extends AbstractGenerator {
 
     Log.logLine("-------------------------------------------");
 
-    if (this.operations.isEmpty()) {
+    int pendingClassCount = (lazyModel == null) ? 0 : lazyModel.getPendingClassnames().size();
+    if (this.operations.isEmpty() && pendingClassCount == 0) {
       return null;
     }
 
     // Select a StatementInfo
-    TypedOperation operation = Randomness.randomMember(this.operations);
+    TypedOperation operation;
+    if (pendingClassCount == 0) {
+      operation = Randomness.randomMember(this.operations);
+    } else {
+      int position = Randomness.nextRandomInt(this.operations.size() + pendingClassCount);
+      if (position < this.operations.size()) {
+        operation = this.operations.get(position);
+      } else {
+        String classname = lazyModel.getPendingClassnames().get(position - this.operations.size());
+        Log.logLine("Selected pending class: " + classname);
+        List<TypedOperation> added =
+            lazyModel.addPendingClass(
+                classname, componentManager, GenInputsAbstract.literals_level);
+        if (added.isEmpty()) {
+          return null;
+        }
+        operations.addAll(added);
+        operation = Randomness.randomMember(added);
+      }
+    }
     Log.logLine("Selected operation: " + operation.toString());
 
     if (operation.isGeneric() || operation.hasWildcardTypes()) {
@@ -328,6 +385,11 @@ public class ForwardGenerator extends AbstractGenerator {
 
     if (!sequences.success) {
       operationHistory.add(operation, OperationOutcome.NO_INPUTS_FOUND);
+      if (lazyModel != null) {
+        for (Type inputType : operation.getInputTypes()) {
+          addPendingClass(inputType);
+        }
+      }
       Log.logLine("Failed to find inputs for operation: " + operation);
       return null;
     }
@@ -0,0 +1,28 @@
+package randoop.generation;
+
+import java.util.List;
+import randoop.sequence.ExecutableSequence;
+
+/**
+ * Receives the test sequences that a generator classifies for output while generation is running,
+ * so that they can be written without keeping all of them until generation ends.
+ *
+ * @see AbstractGenerator#setOutputSequenceListener(OutputSequenceListener, int)
+ */
+public interface OutputSequenceListener {
+
+  /**
+   * Called with error-revealing test sequences as soon as they are classified.
+   *
+   * @param sequences the error-revealing test sequences
+   */
+  void errorSequences(List<ExecutableSequence> sequences);
+
+  /**
+   * Called with regression test sequences. Sequences that are subsumed by another sequence at the
+   * time of the call have been removed.
+   *
+   * @param sequences the regression test sequences
+   */
+  void regressionSequences(List<ExecutableSequence> sequences);
+}
@@ -0,0 +1,54 @@
+package randoop.instrument;
+
+import java.util.Arrays;
+
+/**
+ * The covered flags of the classes instrumented by the covered-class agent. Each instrumented class
+ * is given an id by {@link #newClassId()} when it is transformed, and each of its methods and
+ * constructors sets the element of {@link #covered} for that id. The {@link CoveredClassVisitor}
+ * reads and clears the flags of the classes it polls after each sequence.
+ *
+ * <p>The agent jar contains the Randoop classes, and both it and Randoop are loaded by the system
+ * class loader, so the instrumented classes and Randoop share this class.
+ */
+public final class CoveredClassFlags {
+
+  private CoveredClassFlags() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * The covered flag for each instrumented class, indexed by class id. Replaced by a longer array
+   * when more classes are instrumented than it has room for.
+   */
+  public static volatile boolean[] covered = new boolean[1024];
+
+  /** The number of class ids that have been given out. */
+  private static int classCount = 0;
+
+  /**
+   * Returns the id for a newly instrumented class, and makes room for its flag.
+   *
+   * @return the id of the class, an index into {@link #covered}
+   */
+  public static synchronized int newClassId() {
+    int id = classCount++;
+    if (id >= covered.length) {
+      covered = Arrays.copyOf(covered, 2 * covered.length);
+    }
+    return id;
+  }
+
+  /**
+   * Returns the covered flag of a class, and clears it.
+   *
+   * @param id the id of the class
+   * @return true if the class was covered since its flag was last cleared, false otherwise
+   */
+  public static boolean checkAndReset(int id) {
+    boolean[] flags = covered;
+    boolean state = flags[id];
+    flags[id] = false;
+    return state;
+  }
+}
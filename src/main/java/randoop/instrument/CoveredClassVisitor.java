@@ -1,7 +1,6 @@
 package randoop.instrument;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.reflect.Field;
 import java.util.Set;
 import randoop.ExecutionVisitor;
 import randoop.sequence.ExecutableSequence;
@@ -9,11 +8,18 @@ import randoop.sequence.ExecutableSequence;
 /**
  * A {@link ExecutionVisitor} that polls a set of coverage instrumented classes and adds each
  * covered class to an {@link ExecutableSequence} after it is executed.
+ *
+ * <p>The id of each class is read from its instrumentation field once, when the visitor is created.
+ * After each sequence, the visitor reads and clears the flags for those ids in {@link
+ * CoveredClassFlags#covered}.
  */
 public class CoveredClassVisitor implements ExecutionVisitor {
 
   /** The classes to be polled. */
-  private Set<Class<?>> classes;
+  private final Class<?>[] classes;
+
+  /** The instrumentation id of each of {@link #classes}. */
+  private final int[] classIds;
 
   /**
    * Creates a visitor to poll the given classes for coverage by sequence executions.
@@ -21,7 +27,11 @@ public class CoveredClassVisitor implements ExecutionVisitor {
    * @param classes the set of classes to poll for coverage by a sequence
    */
   public CoveredClassVisitor(Set<Class<?>> classes) {
-    this.classes = classes;
+    this.classes = classes.toArray(new Class<?>[0]);
+    this.classIds = new int[this.classes.length];
+    for (int i = 0; i < this.classes.length; i++) {
+      classIds[i] = getClassId(this.classes[i]);
+    }
   }
 
   /**
@@ -31,34 +41,35 @@ public class CoveredClassVisitor implements ExecutionVisitor {
    */
   @Override
   public void visitAfterSequence(ExecutableSequence executableSequence) {
-    for (Class<?> c : classes) {
-      if (checkAndReset(c)) {
-        executableSequence.addCoveredClass(c);
+    boolean[] covered = CoveredClassFlags.covered;
+    for (int i = 0; i < classIds.length; i++) {
+      int id = classIds[i];
+      if (covered[id]) {
+        covered[id] = false;
+        executableSequence.addCoveredClass(classes[i]);
       }
     }
   }
 
   /**
-   * Calls the coverage instrumentation method.
+   * Reads the id that the coverage instrumentation gave to a class.
    *
-   * @param c the class for which method is to be called
-   * @return true if the instrumentation method is true, false otherwise
+   * @param c the instrumented class
+   * @return the id of the class in {@link CoveredClassFlags#covered}
    */
-  private boolean checkAndReset(Class<?> c) {
+  private static int getClassId(Class<?> c) {
     try {
-      Method m = c.getMethod("randoop_checkAndReset");
-      m.setAccessible(true);
-      return (boolean) m.invoke(null);
-    } catch (NoSuchMethodException e) {
-      throw new Error("Cannot find instrumentation method: " + e);
+      Field f = c.getDeclaredField("randoop_classId");
+      f.setAccessible(true);
+      return f.getInt(null);
+    } catch (NoSuchFieldException e) {
+      throw new Error("Cannot find instrumentation field: " + e);
     } catch (SecurityException e) {
-      throw new Error("Security error when accessing instrumentation method: " + e);
+      throw new Error("Security error when accessing instrumentation field: " + e);
     } catch (IllegalAccessException e) {
-      throw new Error("Cannot access instrumentation method: " + e);
+      throw new Error("Cannot access instrumentation field: " + e);
     } catch (IllegalArgumentException e) {
-      throw new Error("Bad argument to instrumentation method: " + e);
-    } catch (InvocationTargetException e) {
-      throw new Error("Bad invocation of instrumentation method: " + e);
+      throw new Error("Bad argument to instrumentation field: " + e);
     }
   }
 
@@ -58,6 +58,19 @@ public abstract class GenInputsAbstract extends CommandHandler {
   @Option("File that lists classes under test")
   public static File classlist = null;
 
+  /**
+   * A jar file, all of whose classes are classes under test. The classes are found in the central
+   * directory of the jar file, and are selected by the access flags in their class files, without
+   * loading them: interfaces, abstract classes, anonymous and local classes, and classes that are
+   * not accessible from the package of the tests (set with {@code --junit-package-name}) are not
+   * tested. A member class is accessible if its declaration, as recorded in the {@code
+   * InnerClasses} attribute of its class file, and the classes that enclose it are accessible.
+   * These classes are tested in addition to any specified using {@code --testclass} or {@code
+   * --classlist}. The jar file must also be on the classpath.
+   */
+  @Option("A jar file, all of whose classes are classes under test")
+  public static List<File> testjar = new ArrayList<>();
+
   // A relative URL like <a href="#specifying-methods"> works when this
   // Javadoc is pasted into the manual, but not in Javadoc proper.
   /**
@@ -130,6 +143,36 @@ public abstract class GenInputsAbstract extends CommandHandler {
   @Option("Ignore class names specified by user that cannot be found")
   public static boolean silently_ignore_bad_class_names = false;
 
+  /**
+   * A directory that caches the model of the classes under test between runs of Randoop: their
+   * operations, literals, annotated test values, and {@code @CheckRep} contracts. A cached model is
+   * used only if the classes under test, the options that select their members, the version of
+   * Java, and the contents of the classpath are unchanged, so that the classes need not be
+   * reflected over again. Messages about ignored classes are printed only when the model is built.
+   */
+  @Option("Directory that caches the model of the classes under test between runs")
+  public static File model_cache_dir = null;
+
+  /**
+   * The number of threads that load the classes under test and extract their members when the model
+   * of the classes is built. The model is the same for any number. Since several classes under test
+   * may then be initialized at the same time, classes whose static initializers use each other may
+   * deadlock.
+   */
+  @Option("Number of threads that build the model of the classes under test")
+  public static int model_workers = 1;
+
+  /**
+   * Load and reflect over each class under test only when test generation first needs it: when the
+   * class is chosen instead of an operation (each class that is not loaded yet is chosen as often
+   * as one operation), when no input is found for a parameter of its type, or when a generated
+   * sequence creates a value of its type. This reduces the startup time and memory of Randoop for a
+   * long list of classes under test, but changes the generated tests. The model cache of {@code
+   * --model-cache-dir} is not used.
+   */
+  @Option("Load the classes under test only when test generation needs them")
+  public static boolean lazy_model = false;
+
   /**
    * (For debugging.) If an error or exception is thrown during type instantiation or input
    * selection, this option allows the error to be passed through to {@link
@@ -187,6 +230,24 @@ public abstract class GenInputsAbstract extends CommandHandler {
   @Option("Whether to check if test sequences are compilable")
   public static boolean check_compilable = true;
 
+  /**
+   * Whether to remember which sequence shapes compiled when checking that sequences are compilable.
+   * The shape of a sequence is the set of its operations together with the declared types of their
+   * arguments, but not the values used. A sequence with a shape that has already been compiled is
+   * classified using the earlier result instead of being compiled. Only used when {@code
+   * --check-compilable} is set.
+   */
+  @Option("Reuse compilation results for sequences with the same shape")
+  public static boolean compilable_cache = false;
+
+  /**
+   * The fraction of compilation-cache hits that are compiled anyway to check the cached result. If
+   * the compiler disagrees, sequences with that shape are always compiled afterwards. Only used
+   * when {@code --compilable-cache} is set.
+   */
+  @Option("Fraction of compilation-cache hits that are checked by the compiler")
+  public static double compilable_cache_verify_ratio = 0.05;
+
   /**
    * Classes that must occur in a test. Randoop will only output tests whose source code has at
    * least one use of a member of a class whose name matches the regular expression.
@@ -218,6 +279,16 @@ public abstract class GenInputsAbstract extends CommandHandler {
   // Defaulting to true sometimes causes unacceptable slowdowns.
   public static boolean minimize_error_test = false;
 
+  /**
+   * Remove statements from each error-revealing test as soon as it is generated: first the
+   * statements whose values do not flow into the failing statement, or, if the failure then no
+   * longer occurs, only those that also do not use a value that flows into it. The smaller test is
+   * kept if executing it fails the same checks. Unlike {@code --minimize-error-test}, this does not
+   * write, compile, or run any source code, but it can remove only whole unrelated statements.
+   */
+  @Option("<boolean> to remove unrelated statements from error-revealing tests during generation")
+  public static boolean minimize_error_sequences = false;
+
   /** The possible values for exception behavior types. */
   public enum BehaviorType {
     /** Occurrence of exception reveals an error. */
@@ -587,6 +658,86 @@ public abstract class GenInputsAbstract extends CommandHandler {
   @Option("If true, use JUnit's reflective invocation; if false, use direct method calls")
   public static boolean junit_reflection_allowed = true;
 
+  /**
+   * Whether to write the JUnit files while tests are still being generated. Each test class is
+   * written by a background thread as soon as it has {@code --testsperfile} tests, and its tests
+   * are then released from memory, which shortens the time after generation and lowers the memory
+   * use. Regression tests are checked for being subsumed by a longer test only when their class is
+   * written, so the output may contain some tests that are subsumed by a test generated later.
+   */
+  @Option("Write JUnit files while tests are being generated")
+  public static boolean stream_tests = false;
+
+  /**
+   * Whether to write the source text of JUnit test classes directly from templates, rather than
+   * building and printing a javaparser syntax tree for each class. This is faster and uses less
+   * memory for large test suites. The code of the tests is written as Randoop renders it, so its
+   * spacing may differ from that of the printed syntax tree. The code is only parsed if {@code
+   * --debug-checks} is set.
+   */
+  @Option("Write JUnit test classes from templates instead of syntax trees")
+  public static boolean junit_template_emitter = false;
+
+  /**
+   * A file to which the regression tests are also written, in a compact binary format. The {@code
+   * replay} command runs the tests in the file by executing their sequences directly, without
+   * compiling them, and reports each test whose checks differ from those recorded when it was
+   * generated. A test is left out of the file if one of its operations cannot be recreated from the
+   * file, such as a generic method whose type arguments include a wildcard. Assertions that are
+   * disabled in the JUnit files because they fail when the tests are run are not disabled in the
+   * corpus.
+   */
+  @Option("Also write regression tests to this binary test corpus file")
+  public static String test_corpus = null;
+
+  /**
+   * Compile each regression test class in memory and run it in the JVM that runs Randoop when
+   * checking it for flaky tests, instead of in a new JVM. This is much faster, but the tests share
+   * the static state of the classes under test with Randoop, and a test that calls {@code
+   * System.exit} stops Randoop. A test class that times out is stopped if possible and run again in
+   * a new JVM; if it cannot be stopped, the remaining classes are run in new JVMs. Ignored if a
+   * javaagent is needed to run the tests, if the tests may use package-private members of the
+   * classes under test, or if {@code --stream-tests} is given, since the tests would then run while
+   * Randoop is still generating tests.
+   */
+  @Option("Run test classes in Randoop's JVM when checking for flaky tests")
+  public static boolean flaky_filter_in_process = false;
+
+  /**
+   * The number of regression test classes that are checked for flaky tests at the same time. The
+   * written test classes are the same for any number. Tests of classes that are checked at the same
+   * time may make each other fail if they share state, such as static fields when they run in the
+   * JVM that runs Randoop, or files outside the working directory of the check.
+   */
+  @Option("Number of test classes to check for flaky tests at the same time")
+  public static int flaky_filter_workers = 1;
+
+  /**
+   * Run the test classes that are checked for flaky tests in JVMs that are kept running between
+   * test classes, instead of in a new JVM for each run of a class. Has an effect only if the tests
+   * are not run in the JVM that runs Randoop (see <code>--flaky-filter-in-process</code>). Each
+   * test class is loaded with the classes under test by a new class loader, but it sees the changes
+   * that previously run classes made to the state of the JVM, such as system properties. A JVM that
+   * crashes or times out is replaced by a new one. If a kept JVM fails to run a class for another
+   * reason, the class is run in a new JVM.
+   */
+  @Option("Reuse the JVMs that run tests during flaky-test filtering")
+  public static boolean flaky_filter_daemon = false;
+
+  /**
+   * A file that caches the results of flaky-test filtering between runs of Randoop. For each
+   * regression test method, the cache records the assertions that were replaced by comments. A test
+   * method that is in the cache has the same assertions replaced by comments and is not run again,
+   * so when tests are regenerated with the same seed, only the new and changed test methods are
+   * run. A cached result is used only if the test method, the other code of its class, the version
+   * of Java, and the class files and jar files of the classpath are unchanged. The cache file and
+   * the files in {@code --junit-output-dir} are not part of the classpath for this purpose. Assumes
+   * that the assertions that fail in a test method do not depend on the other test methods of its
+   * class.
+   */
+  @Option("File that caches the results of flaky-test filtering between runs")
+  public static String flaky_filter_cache = null;
+
   ///////////////////////////////////////////////////////////////////
   @OptionGroup("Runtime environment")
   // We do this rather than using java -D so that we can easily pass these
@@ -683,11 +834,26 @@ public abstract class GenInputsAbstract extends CommandHandler {
       throw new RuntimeException("--null-ratio must be between 0 and 1, inclusive.");
     }
 
+    if (compilable_cache_verify_ratio < 0 || compilable_cache_verify_ratio > 1) {
+      throw new RuntimeException(
+          "--compilable-cache-verify-ratio must be between 0 and 1, inclusive.");
+    }
+
     if (maxsize <= 0) {
       throw new RuntimeException(
           "Maximum sequence size --maxsize must be greater than zero but was " + maxsize);
     }
 
+    if (flaky_filter_workers <= 0) {
+      throw new RuntimeException(
+          "--flaky-filter-workers must be greater than zero but was " + flaky_filter_workers);
+    }
+
+    if (model_workers <= 0) {
+      throw new RuntimeException(
+          "--model-workers must be greater than zero but was " + model_workers);
+    }
+
     if (!literals_file.isEmpty() && literals_level == ClassLiteralsMode.NONE) {
       throw new RuntimeException(
           "Invalid parameter combination: specified a class literal file but --use-class-literals=NONE");
@@ -713,11 +879,11 @@ public abstract class GenInputsAbstract extends CommandHandler {
               timeLimit, attemptedLimit, generatedLimit, outputLimit));
     }
 
-    if (classlist == null && methodlist == null && testclass.isEmpty()) {
+    if (classlist == null && methodlist == null && testclass.isEmpty() && testjar.isEmpty()) {
       throw new RuntimeException(
           "You must specify some classes or methods to test."
               + Globals.lineSep
-              + "Use the --classlist, --testclass, or --methodlist options.");
+              + "Use the --classlist, --testclass, --testjar, or --methodlist options.");
     }
   }
 
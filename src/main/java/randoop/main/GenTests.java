@@ -5,7 +5,6 @@ import static randoop.test.predicate.ExceptionBehaviorPredicate.IS_ERROR;
 import static randoop.test.predicate.ExceptionBehaviorPredicate.IS_INVALID;
 
 import com.github.javaparser.ParseException;
-import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import java.io.File;
 import java.io.IOException;
@@ -13,12 +12,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Pattern;
 import plume.EntryReader;
 import plume.Options;
@@ -33,6 +35,7 @@ import randoop.execution.TestEnvironment;
 import randoop.generation.AbstractGenerator;
 import randoop.generation.ComponentManager;
 import randoop.generation.ForwardGenerator;
+import randoop.generation.OutputSequenceListener;
 import randoop.generation.RandoopGenerationError;
 import randoop.generation.RandoopListenerManager;
 import randoop.generation.SeedSequences;
@@ -40,15 +43,20 @@ import randoop.generation.TestUtils;
 import randoop.instrument.CoveredClassVisitor;
 import randoop.operation.Operation;
 import randoop.operation.OperationParseException;
+import randoop.operation.TypedClassOperation;
 import randoop.operation.TypedOperation;
 import randoop.output.CodeWriter;
 import randoop.output.FailingTestFilter;
+import randoop.output.FlakyTestCache;
 import randoop.output.JUnitCreator;
 import randoop.output.JavaFileWriter;
 import randoop.output.MinimizerWriter;
 import randoop.output.RandoopOutputException;
+import randoop.output.StreamingTestWriter;
+import randoop.output.TestCorpusWriter;
 import randoop.reflection.DefaultReflectionPredicate;
 import randoop.reflection.OperationModel;
+import randoop.reflection.OperationModelCache;
 import randoop.reflection.PackageVisibilityPredicate;
 import randoop.reflection.RandoopInstantiationError;
 import randoop.reflection.RawSignature;
@@ -59,6 +67,7 @@ import randoop.sequence.ExecutableSequence;
 import randoop.sequence.Sequence;
 import randoop.sequence.SequenceExceptionError;
 import randoop.sequence.SequenceExecutionException;
+import randoop.test.CompilabilityCache;
 import randoop.test.CompilableTestPredicate;
 import randoop.test.ContractCheckingGenerator;
 import randoop.test.ContractSet;
@@ -76,7 +85,7 @@ import randoop.test.predicate.AlwaysFalseExceptionPredicate;
 import randoop.test.predicate.ExceptionBehaviorPredicate;
 import randoop.test.predicate.ExceptionPredicate;
 import randoop.types.Type;
-import randoop.util.CollectionsExt;
+import randoop.util.JarIndex;
 import randoop.util.Log;
 import randoop.util.MultiMap;
 import randoop.util.Randomness;
@@ -154,6 +163,12 @@ public class GenTests extends GenInputsAbstract {
   /** The count of sequences that failed to compile */
   private int sequenceCompileFailureCount = 0;
 
+  /** The cache of compilation results for sequence shapes, null if not used */
+  private CompilabilityCache compilabilityCache = null;
+
+  /** The maximum number of sequence shapes held by {@link #compilabilityCache} */
+  private static final int COMPILABILITY_CACHE_SIZE = 100000;
+
   public GenTests() {
     super(command, pitch, commandGrammar, where, summary, notes, input, output, example, options);
   }
@@ -212,19 +227,21 @@ public class GenTests extends GenInputsAbstract {
     Set<String> omitFields = GenInputsAbstract.getStringSetFromFile(omit_field_list, "field list");
     omitFields.addAll(omit_field);
 
-    VisibilityPredicate visibility;
-    if (GenInputsAbstract.junit_package_name == null) {
-      visibility = IS_PUBLIC;
-    } else if (GenInputsAbstract.only_test_public_members) {
-      visibility = IS_PUBLIC;
-      if (GenInputsAbstract.junit_package_name != null) {
-        System.out.println(
-            "Not using package "
-                + GenInputsAbstract.junit_package_name
-                + " since --only-test-public-members is set");
+    VisibilityPredicate visibility = getVisibilityPredicate();
+    for (File jarFile : GenInputsAbstract.testjar) {
+      try (JarIndex index = new JarIndex(jarFile)) {
+        classnames.addAll(index.getTestableClassNames(getVisibilityPackage()));
+      } catch (IOException e) {
+        System.out.printf("%nError reading jar file %s: %s%n", jarFile, e.getMessage());
+        System.exit(1);
       }
-    } else {
-      visibility = new PackageVisibilityPredicate(GenInputsAbstract.junit_package_name);
+    }
+    if (GenInputsAbstract.junit_package_name != null
+        && GenInputsAbstract.only_test_public_members) {
+      System.out.println(
+          "Not using package "
+              + GenInputsAbstract.junit_package_name
+              + " since --only-test-public-members is set");
     }
 
     omitmethods.addAll(readOmitMethods(omitmethods_file));
@@ -244,6 +261,29 @@ public class GenTests extends GenInputsAbstract {
 
     String classpath = Globals.getClassPath();
 
+    OperationModelCache modelCache = null;
+    if (GenInputsAbstract.model_cache_dir != null && !GenInputsAbstract.lazy_model) {
+      List<String> modelOptions = new ArrayList<>();
+      modelOptions.add("classes " + new TreeSet<>(classnames));
+      modelOptions.add("covered " + new TreeSet<>(coveredClassnames));
+      modelOptions.add("methods " + new TreeSet<>(methodSignatures));
+      modelOptions.add("omitmethods " + omitmethods);
+      modelOptions.add("omitfields " + new TreeSet<>(omitFields));
+      modelOptions.add(
+          "visibility "
+              + GenInputsAbstract.only_test_public_members
+              + " "
+              + GenInputsAbstract.junit_package_name);
+      modelOptions.add("literals " + GenInputsAbstract.literals_file.contains("CLASSES"));
+      try {
+        modelCache =
+            new OperationModelCache(GenInputsAbstract.model_cache_dir, classpath, modelOptions);
+      } catch (IOException e) {
+        System.out.printf("%nError reading classpath for operation model cache: %s%n", e);
+        System.exit(1);
+      }
+    }
+
     OperationModel operationModel = null;
     try {
       operationModel =
@@ -255,7 +295,8 @@ public class GenTests extends GenInputsAbstract {
               coveredClassnames,
               methodSignatures,
               classNameErrorHandler,
-              GenInputsAbstract.literals_file);
+              GenInputsAbstract.literals_file,
+              modelCache);
     } catch (SignatureParseException e) {
       System.out.printf("%nError: parse exception thrown %s%n", e);
       System.out.println("Exiting Randoop.");
@@ -289,11 +330,13 @@ public class GenTests extends GenInputsAbstract {
     assert operationModel != null;
 
     List<TypedOperation> operations = operationModel.getOperations();
+    final boolean filterTestsInProcess =
+        canFilterTestsInProcess(operations, operationModel.getPendingClassnames());
 
     /*
-     * Stop if there is only 1 operation. This will be Object().
+     * Stop if there is only 1 operation and no class is left to load. This will be Object().
      */
-    if (operations.size() <= 1) {
+    if (operations.size() <= 1 && operationModel.getPendingClassnames().isEmpty()) {
       System.out.println(NO_OPERATIONS_TO_TEST);
       operationModel.dumpModel(System.out);
       System.exit(1);
@@ -342,6 +385,9 @@ public class GenTests extends GenInputsAbstract {
     AbstractGenerator explorer =
         new ForwardGenerator(
             operations, observers, new GenInputsAbstract.Limits(), componentMgr, listenerMgr);
+    if (GenInputsAbstract.lazy_model) {
+      ((ForwardGenerator) explorer).setLazyModel(operationModel);
+    }
 
     /* log setup. TODO: handle environment variables like other methods in TestUtils do. */
     operationModel.log();
@@ -418,6 +464,93 @@ public class GenTests extends GenInputsAbstract {
       componentMgr.log();
     }
 
+    /* Write regression tests to a test corpus, if requested */
+    TestCorpusWriter corpusWriter = null;
+    if (GenInputsAbstract.test_corpus != null
+        && !GenInputsAbstract.dont_output_tests
+        && !GenInputsAbstract.no_regression_tests) {
+      try {
+        corpusWriter =
+            new TestCorpusWriter(
+                new File(GenInputsAbstract.test_corpus),
+                getVisibilityPackage(),
+                !GenInputsAbstract.no_regression_assertions,
+                observers);
+      } catch (IOException e) {
+        System.out.printf("%nError creating test corpus %s%n", GenInputsAbstract.test_corpus);
+        e.printStackTrace(System.out);
+        System.exit(1);
+      }
+    }
+
+    /* Write tests while they are generated */
+    ExecutorService outputExecutor = null;
+    StreamingTestWriter errorTestWriter = null;
+    StreamingTestWriter regressionTestWriter = null;
+    if (GenInputsAbstract.stream_tests && !GenInputsAbstract.dont_output_tests) {
+      // Check as many regression test classes for flaky tests at a time as the filter allows.
+      outputExecutor =
+          Executors.newFixedThreadPool(
+              GenInputsAbstract.flaky_filter_workers,
+              new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                  Thread thread = new Thread(runnable, "Randoop test writer");
+                  thread.setDaemon(true);
+                  return thread;
+                }
+              });
+      JUnitCreator junitCreator = createJUnitCreator();
+      JavaFileWriter javaFileWriter = new JavaFileWriter(junit_output_dir);
+      if (!GenInputsAbstract.no_error_revealing_tests) {
+        errorTestWriter =
+            new StreamingTestWriter(
+                junitCreator,
+                createErrorTestCodeWriter(javaFileWriter),
+                outputExecutor,
+                GenInputsAbstract.junit_package_name,
+                GenInputsAbstract.error_test_basename,
+                TEST_METHOD_NAME_PREFIX,
+                testsperfile,
+                GenInputsAbstract.junit_reflection_allowed);
+      }
+      if (!GenInputsAbstract.no_regression_tests) {
+        regressionTestWriter =
+            new StreamingTestWriter(
+                junitCreator,
+                createRegressionTestCodeWriter(javaFileWriter, classpath, filterTestsInProcess),
+                outputExecutor,
+                GenInputsAbstract.junit_package_name,
+                GenInputsAbstract.regression_test_basename,
+                TEST_METHOD_NAME_PREFIX,
+                testsperfile,
+                GenInputsAbstract.junit_reflection_allowed);
+      }
+      final StreamingTestWriter errorWriter = errorTestWriter;
+      final StreamingTestWriter regressionWriter = regressionTestWriter;
+      final TestCorpusWriter regressionCorpusWriter = corpusWriter;
+      explorer.setOutputSequenceListener(
+          new OutputSequenceListener() {
+            @Override
+            public void errorSequences(List<ExecutableSequence> sequences) {
+              if (errorWriter != null) {
+                errorWriter.add(sequences);
+              }
+            }
+
+            @Override
+            public void regressionSequences(List<ExecutableSequence> sequences) {
+              if (regressionWriter != null) {
+                regressionWriter.add(sequences);
+              }
+              if (regressionCorpusWriter != null) {
+                addToCorpus(regressionCorpusWriter, sequences);
+              }
+            }
+          },
+          testsperfile);
+    }
+
     /* Generate tests */
     try {
       explorer.createAndClassifySequences();
@@ -442,51 +575,52 @@ public class GenTests extends GenInputsAbstract {
       return true;
     }
 
-    JUnitCreator junitCreator =
-        JUnitCreator.getTestCreator(
-            junit_package_name,
-            beforeAllFixtureBody,
-            afterAllFixtureBody,
-            beforeEachFixtureBody,
-            afterEachFixtureBody);
-
-    JavaFileWriter javaFileWriter = new JavaFileWriter(junit_output_dir);
-    if (!GenInputsAbstract.no_error_revealing_tests) {
-      CodeWriter codeWriter = javaFileWriter;
-      if (GenInputsAbstract.minimize_error_test || GenInputsAbstract.stop_on_error_test) {
-        codeWriter = new MinimizerWriter(javaFileWriter);
+    if (outputExecutor != null) {
+      if (errorTestWriter != null) {
+        finishTestFiles(errorTestWriter, "Error-revealing");
+      }
+      if (regressionTestWriter != null) {
+        finishTestFiles(regressionTestWriter, "Regression");
+      }
+      outputExecutor.shutdown();
+    } else {
+      JUnitCreator junitCreator = createJUnitCreator();
+
+      JavaFileWriter javaFileWriter = new JavaFileWriter(junit_output_dir);
+      if (!GenInputsAbstract.no_error_revealing_tests) {
+        writeTestFiles(
+            junitCreator,
+            explorer.getErrorTestSequences(),
+            createErrorTestCodeWriter(javaFileWriter),
+            GenInputsAbstract.error_test_basename,
+            "Error-revealing");
       }
-      writeTestFiles(
-          junitCreator,
-          explorer.getErrorTestSequences(),
-          codeWriter,
-          GenInputsAbstract.error_test_basename,
-          "Error-revealing");
-    }
 
-    if (!GenInputsAbstract.no_regression_tests) {
-      final TestEnvironment testEnvironment =
-          new TestEnvironment(convertClasspathToAbsolute(classpath));
-      String agentPathString = MethodReplacements.getAgentPath();
-      String agentArgs = MethodReplacements.getAgentArgs();
-      if (agentPathString != null && !agentPathString.isEmpty()) {
-        Path agentPath = Paths.get(agentPathString);
-        testEnvironment.setReplaceCallAgent(agentPath, agentArgs);
+      if (!GenInputsAbstract.no_regression_tests) {
+        writeTestFiles(
+            junitCreator,
+            explorer.getRegressionSequences(),
+            createRegressionTestCodeWriter(javaFileWriter, classpath, filterTestsInProcess),
+            GenInputsAbstract.regression_test_basename,
+            "Regression");
+        if (corpusWriter != null) {
+          addToCorpus(corpusWriter, explorer.getRegressionSequences());
+        }
       }
+    }
 
-      FailingTestFilter codeWriter = new FailingTestFilter(testEnvironment, javaFileWriter);
-      writeTestFiles(
-          junitCreator,
-          explorer.getRegressionSequences(),
-          codeWriter,
-          GenInputsAbstract.regression_test_basename,
-          "Regression");
+    if (corpusWriter != null) {
+      finishCorpus(corpusWriter);
     }
 
     if (GenInputsAbstract.progressdisplay) {
       System.out.printf("%nInvalid tests generated: %d%n", explorer.invalidSequenceCount);
     }
 
+    if (compilabilityCache != null) {
+      Log.logLine(compilabilityCache.statistics());
+    }
+
     if (this.sequenceCompileFailureCount > 0) {
       System.out.printf(
           "%nUncompilable sequences generated (count: %d).%nPlease report at https://github.com/randoop/randoop/issues .%n",
@@ -500,6 +634,161 @@ public class GenTests extends GenInputsAbstract {
     return true;
   }
 
+  /**
+   * Returns the predicate for the classes and members that may be used in the generated tests, as
+   * determined by {@link GenInputsAbstract#junit_package_name} and {@link
+   * GenInputsAbstract#only_test_public_members}.
+   *
+   * @return the visibility predicate for the generated tests
+   */
+  private static VisibilityPredicate getVisibilityPredicate() {
+    return getVisibilityPredicate(getVisibilityPackage());
+  }
+
+  /**
+   * Returns the package whose package-private members may be used in the generated tests, as
+   * determined by {@link GenInputsAbstract#junit_package_name} and {@link
+   * GenInputsAbstract#only_test_public_members}.
+   *
+   * @return the package of the generated tests, or null if only public members may be used
+   */
+  private static String getVisibilityPackage() {
+    if (GenInputsAbstract.only_test_public_members) {
+      return null;
+    }
+    return GenInputsAbstract.junit_package_name;
+  }
+
+  /**
+   * Returns the predicate for the classes and members that may be used by tests in the given
+   * package.
+   *
+   * @param packageName the package of the tests, or null if only public members may be used
+   * @return the visibility predicate for the tests
+   */
+  static VisibilityPredicate getVisibilityPredicate(String packageName) {
+    if (packageName == null) {
+      return IS_PUBLIC;
+    }
+    return new PackageVisibilityPredicate(packageName);
+  }
+
+  /**
+   * Creates the {@link JUnitCreator} for the test classes, which uses the template emitter if
+   * {@link GenInputsAbstract#junit_template_emitter} is set.
+   *
+   * @return the creator for the test classes
+   */
+  private JUnitCreator createJUnitCreator() {
+    JUnitCreator junitCreator =
+        JUnitCreator.getTestCreator(
+            junit_package_name,
+            beforeAllFixtureBody,
+            afterAllFixtureBody,
+            beforeEachFixtureBody,
+            afterEachFixtureBody);
+    if (GenInputsAbstract.junit_template_emitter) {
+      junitCreator.useTemplateEmitter(GenInputsAbstract.debug_checks);
+    }
+    return junitCreator;
+  }
+
+  /**
+   * Creates the {@link CodeWriter} for error-revealing tests, which minimizes the tests if {@link
+   * GenInputsAbstract#minimize_error_test} or {@link GenInputsAbstract#stop_on_error_test} is set.
+   *
+   * @param javaFileWriter the writer for Java files
+   * @return the code writer for error-revealing tests
+   */
+  private static CodeWriter createErrorTestCodeWriter(JavaFileWriter javaFileWriter) {
+    if (GenInputsAbstract.minimize_error_test || GenInputsAbstract.stop_on_error_test) {
+      return new MinimizerWriter(javaFileWriter);
+    }
+    return javaFileWriter;
+  }
+
+  /**
+   * Creates the {@link CodeWriter} for regression tests, which removes the tests that fail when run
+   * with the classpath of this run.
+   *
+   * @param javaFileWriter the writer for Java files
+   * @param classpath the classpath for running the tests
+   * @param inProcess whether the tests may be run in this JVM
+   * @return the code writer for regression tests
+   */
+  private CodeWriter createRegressionTestCodeWriter(
+      JavaFileWriter javaFileWriter, String classpath, boolean inProcess) {
+    String testClasspath = convertClasspathToAbsolute(classpath);
+    final TestEnvironment testEnvironment = new TestEnvironment(testClasspath);
+    String agentPathString = MethodReplacements.getAgentPath();
+    String agentArgs = MethodReplacements.getAgentArgs();
+    if (agentPathString != null && !agentPathString.isEmpty()) {
+      Path agentPath = Paths.get(agentPathString);
+      testEnvironment.setReplaceCallAgent(agentPath, agentArgs);
+    }
+    testEnvironment.setUseDaemon(GenInputsAbstract.flaky_filter_daemon);
+    FailingTestFilter filter =
+        new FailingTestFilter(
+            testEnvironment, javaFileWriter, inProcess, GenInputsAbstract.flaky_filter_workers);
+    if (GenInputsAbstract.flaky_filter_cache != null) {
+      try {
+        File testDirectory =
+            (GenInputsAbstract.junit_output_dir == null)
+                ? null
+                : new File(GenInputsAbstract.junit_output_dir);
+        filter.setCache(
+            new FlakyTestCache(
+                new File(GenInputsAbstract.flaky_filter_cache), testClasspath, testDirectory));
+      } catch (IOException e) {
+        System.out.printf(
+            "%nError reading flaky-test cache %s%n", GenInputsAbstract.flaky_filter_cache);
+        e.printStackTrace(System.out);
+        System.exit(1);
+      }
+    }
+    return filter;
+  }
+
+  /**
+   * Indicates whether the flaky-test filter may run the regression tests in this JVM. It may only
+   * if {@link GenInputsAbstract#flaky_filter_in_process} is set. It may not if {@link
+   * GenInputsAbstract#stream_tests} is set, since the tests would run while tests are generated and
+   * share the state of the classes under test with the generator, or if the tests may use
+   * package-private members of a class under test: a test class loaded by a new class loader is not
+   * in the same runtime package as the class.
+   *
+   * @param operations the operations of the classes under test
+   * @param pendingClassnames the names of the classes under test that are not loaded yet
+   * @return true if the regression tests may be run in this JVM, false otherwise
+   */
+  private static boolean canFilterTestsInProcess(
+      List<TypedOperation> operations, List<String> pendingClassnames) {
+    if (!GenInputsAbstract.flaky_filter_in_process || GenInputsAbstract.stream_tests) {
+      return false;
+    }
+    String testPackage = getVisibilityPackage();
+    if (testPackage == null) {
+      return true;
+    }
+    for (TypedOperation operation : operations) {
+      if (operation instanceof TypedClassOperation) {
+        String name =
+            ((TypedClassOperation) operation).getDeclaringType().getRuntimeClass().getName();
+        int dot = name.lastIndexOf('.');
+        if (testPackage.equals(dot < 0 ? "" : name.substring(0, dot))) {
+          return false;
+        }
+      }
+    }
+    for (String name : pendingClassnames) {
+      int dot = name.lastIndexOf('.');
+      if (testPackage.equals(dot < 0 ? "" : name.substring(0, dot))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Convert each element of the given classpath from a relative to an absolute path.
    *
@@ -554,34 +843,98 @@ public class GenTests extends GenInputsAbstract {
       System.out.printf("%s test count: %d%n", testKind, testSequences.size());
       System.out.printf("Writing JUnit tests...%n");
     }
+    // Create and write the test classes in parallel.
+    ForkJoinPool pool = new ForkJoinPool();
     try {
-      List<File> testFiles = new ArrayList<>();
-
-      // Create and write test classes.
-      LinkedHashMap<String, CompilationUnit> testMap =
-          getTestASTMap(basename, testSequences, junitCreator);
-      for (Map.Entry<String, CompilationUnit> entry : testMap.entrySet()) {
-        String classname = entry.getKey();
-        String classSource = entry.getValue().toString();
-        testFiles.add(
-            codeWriter.writeClassCode(
-                GenInputsAbstract.junit_package_name, classname, classSource));
+      StreamingTestWriter testWriter =
+          new StreamingTestWriter(
+              junitCreator,
+              codeWriter,
+              pool,
+              GenInputsAbstract.junit_package_name,
+              basename,
+              TEST_METHOD_NAME_PREFIX,
+              testsperfile,
+              GenInputsAbstract.junit_reflection_allowed);
+      testWriter.add(testSequences);
+      List<File> testFiles = testWriter.finish();
+      if (GenInputsAbstract.progressdisplay) {
+        System.out.println();
+        for (File f : testFiles) {
+          System.out.printf("Created file %s%n", f.getAbsolutePath());
+        }
       }
+    } catch (RandoopOutputException e) {
+      System.out.printf("%nError writing %s tests%n", testKind.toLowerCase());
+      e.printStackTrace(System.out);
+      System.exit(1);
+    } finally {
+      pool.shutdown();
+    }
+  }
 
-      // Create and write suite or driver class.
-      String driverName;
-      String classSource;
-      if (GenInputsAbstract.junit_reflection_allowed) {
-        driverName = basename;
-        classSource = junitCreator.createTestSuite(driverName, testMap.keySet());
-      } else {
-        driverName = basename + "Driver";
-        classSource = junitCreator.createTestDriver(driverName, testMap.keySet());
+  /**
+   * Writes regression tests to the test corpus. Exits if the corpus cannot be written.
+   *
+   * @param corpusWriter the writer for the test corpus
+   * @param sequences the regression test sequences
+   */
+  private static void addToCorpus(
+      TestCorpusWriter corpusWriter, List<ExecutableSequence> sequences) {
+    try {
+      corpusWriter.addAll(sequences);
+    } catch (IOException e) {
+      System.out.printf("%nError writing test corpus %s%n", GenInputsAbstract.test_corpus);
+      e.printStackTrace(System.out);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Closes the test corpus and reports the number of tests in it. Exits if the corpus cannot be
+   * written.
+   *
+   * @param corpusWriter the writer for the test corpus
+   */
+  private static void finishCorpus(TestCorpusWriter corpusWriter) {
+    try {
+      corpusWriter.close();
+    } catch (IOException e) {
+      System.out.printf("%nError writing test corpus %s%n", GenInputsAbstract.test_corpus);
+      e.printStackTrace(System.out);
+      System.exit(1);
+    }
+    if (GenInputsAbstract.progressdisplay) {
+      System.out.printf(
+          "%nWrote %d regression tests to test corpus %s%n",
+          corpusWriter.getTestCount(), new File(GenInputsAbstract.test_corpus).getAbsolutePath());
+      if (corpusWriter.getSkippedCount() > 0) {
+        System.out.printf(
+            "Left %d regression tests out of the corpus because their operations cannot be stored%n",
+            corpusWriter.getSkippedCount());
+      }
+    }
+  }
+
+  /**
+   * Waits until the {@link StreamingTestWriter} has written all test classes and the suite or
+   * driver class, and reports the files written.
+   *
+   * @param testWriter the writer for the tests
+   * @param testKind a {@code String} indicating the kind of tests for logging and error messages
+   */
+  private void finishTestFiles(StreamingTestWriter testWriter, String testKind) {
+    try {
+      List<File> testFiles = testWriter.finish();
+      if (testWriter.getTestCount() == 0) {
+        if (GenInputsAbstract.progressdisplay) {
+          System.out.printf("%nNo " + testKind.toLowerCase() + " tests to output%n");
+        }
+        return;
       }
-      testFiles.add(
-          codeWriter.writeUnmodifiedClassCode(
-              GenInputsAbstract.junit_package_name, driverName, classSource));
       if (GenInputsAbstract.progressdisplay) {
+        System.out.printf("%n%s test output:%n", testKind);
+        System.out.printf("%s test count: %d%n", testKind, testWriter.getTestCount());
         System.out.println();
         for (File f : testFiles) {
           System.out.printf("Created file %s%n", f.getAbsolutePath());
@@ -805,44 +1158,19 @@ public class GenTests extends GenInputsAbstract {
     Predicate<ExecutableSequence> isOutputTest = baseTest.and(checkTest);
 
     if (GenInputsAbstract.check_compilable) {
-      JUnitCreator junitCreator =
-          JUnitCreator.getTestCreator(
-              junit_package_name,
-              beforeAllFixtureBody,
-              afterAllFixtureBody,
-              beforeEachFixtureBody,
-              afterEachFixtureBody);
-      isOutputTest = isOutputTest.and(new CompilableTestPredicate(junitCreator, this));
+      JUnitCreator junitCreator = createJUnitCreator();
+      if (GenInputsAbstract.compilable_cache) {
+        compilabilityCache =
+            new CompilabilityCache(
+                COMPILABILITY_CACHE_SIZE, GenInputsAbstract.compilable_cache_verify_ratio);
+      }
+      isOutputTest =
+          isOutputTest.and(new CompilableTestPredicate(junitCreator, this, compilabilityCache));
     }
 
     return isOutputTest;
   }
 
-  /**
-   * Creates the JUnit test classes for the given sequences, in AST (abstract syntax tree) form.
-   *
-   * @param junitPrefix the class name prefix
-   * @param sequences the sequences for test methods of the created test classes
-   * @param junitCreator the JUnit creator to create the abstract syntax trees for the test classes
-   * @return mapping from a class name to the abstract syntax tree for the class
-   */
-  private LinkedHashMap<String, CompilationUnit> getTestASTMap(
-      String junitPrefix, List<ExecutableSequence> sequences, JUnitCreator junitCreator) {
-
-    List<List<ExecutableSequence>> sequencePartition =
-        CollectionsExt.formSublists(new ArrayList<>(sequences), testsperfile);
-
-    LinkedHashMap<String, CompilationUnit> testMap = new LinkedHashMap<>();
-    for (int i = 0; i < sequencePartition.size(); i++) {
-      List<ExecutableSequence> partition = sequencePartition.get(i);
-      String testClassName = junitPrefix + i;
-      CompilationUnit classAST =
-          junitCreator.createTestClass(testClassName, TEST_METHOD_NAME_PREFIX, partition);
-      testMap.put(testClassName, classAST);
-    }
-    return testMap;
-  }
-
   /**
    * Creates the test check generator for this run based on the command-line arguments. The goal of
    * the generator is to produce all appropriate checks for each sequence it is applied to.
@@ -870,23 +1198,37 @@ public class GenTests extends GenInputsAbstract {
 
     // And, generate regression tests, unless user says not to.
     if (!GenInputsAbstract.no_regression_tests) {
-      ExceptionPredicate isExpected;
-      if (GenInputsAbstract.no_regression_assertions) {
-        isExpected = new AlwaysFalseExceptionPredicate();
-      } else {
-        isExpected = ExceptionBehaviorPredicate.IS_EXPECTED;
-      }
-      ExpectedExceptionCheckGen expectation = new ExpectedExceptionCheckGen(visibility, isExpected);
-
       RegressionCaptureGenerator regressionVisitor =
-          new RegressionCaptureGenerator(
-              expectation, observerMap, visibility, !GenInputsAbstract.no_regression_assertions);
+          createRegressionCaptureGenerator(
+              visibility, observerMap, !GenInputsAbstract.no_regression_assertions);
 
       testGen = new ExtendGenerator(testGen, regressionVisitor);
     }
     return testGen;
   }
 
+  /**
+   * Creates the generator for the checks of regression tests.
+   *
+   * @param visibility the visibility predicate
+   * @param observerMap the map from types to observer methods
+   * @param includeAssertions whether to include assertions about values and expected exceptions
+   * @return the generator for regression checks
+   */
+  static RegressionCaptureGenerator createRegressionCaptureGenerator(
+      VisibilityPredicate visibility,
+      MultiMap<Type, TypedOperation> observerMap,
+      boolean includeAssertions) {
+    ExceptionPredicate isExpected;
+    if (includeAssertions) {
+      isExpected = ExceptionBehaviorPredicate.IS_EXPECTED;
+    } else {
+      isExpected = new AlwaysFalseExceptionPredicate();
+    }
+    ExpectedExceptionCheckGen expectation = new ExpectedExceptionCheckGen(visibility, isExpected);
+    return new RegressionCaptureGenerator(expectation, observerMap, visibility, includeAssertions);
+  }
+
   /**
    * Print message, then print usage information, then exit.
    *
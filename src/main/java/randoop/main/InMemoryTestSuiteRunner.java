@@ -0,0 +1,278 @@
+package randoop.main;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.junit.internal.TextListener;
+import org.junit.runner.JUnitCore;
+import randoop.compile.SequenceClassLoader;
+import randoop.compile.SequenceCompiler;
+import randoop.compile.SequenceCompilerException;
+
+/**
+ * Compiles versions of a JUnit test suite in memory and runs them in this JVM, as an alternative to
+ * the {@code javac} and {@code java} processes that {@link Minimize} otherwise starts for each
+ * version of the suite.
+ *
+ * <p>Each version of the test class is loaded by a new class loader, which also loads the classes
+ * of the classpath of the suite, so that every run starts with fresh static state, and the test
+ * class can access package-private members of those classes. The classes of the classpath of this
+ * JVM are shared by all runs. Assertions are disabled in the loaded classes, as in a new JVM.
+ *
+ * <p>Versions of the suite can be compiled by several threads at the same time, each of which uses
+ * its own compiler. Since a run redirects the standard output of this JVM, runs are not concurrent.
+ *
+ * <p>A run that does not finish within the timeout is abandoned and its thread is interrupted.
+ * Since the thread may continue to run, the runner is not used after a timeout.
+ */
+final class InMemoryTestSuiteRunner {
+
+  /** The lock held during a run, which redirects the standard output of this JVM. */
+  private static final Object RUN_LOCK = new Object();
+
+  /** The package of the test class, null if the default package. */
+  private final String packageName;
+
+  /** The simple name of the test class. */
+  private final String classname;
+
+  /** The fully-qualified name of the test class. */
+  private final String qualifiedName;
+
+  /** The classpath of the suite, without the classpath of this JVM. */
+  private final URL[] classpath;
+
+  /** The number of milliseconds allowed for a run of the suite. */
+  private final long timeoutMillis;
+
+  /** The options of the compilers. */
+  private final List<String> compilerOptions;
+
+  /** The compiler of each thread, which is reused for all versions of the suite. */
+  private final ThreadLocal<Compiler> compilers =
+      new ThreadLocal<Compiler>() {
+        @Override
+        protected Compiler initialValue() {
+          return new Compiler();
+        }
+      };
+
+  /** Whether a run timed out. */
+  private volatile boolean timedOut = false;
+
+  /**
+   * Creates a runner for versions of the given test class.
+   *
+   * @param packageName the package of the test class, null if the default package
+   * @param classname the simple name of the test class
+   * @param classpath the elements of the classpath of the suite, without the classpath of this JVM
+   * @param timeoutMillis the number of milliseconds allowed for a run of the suite
+   * @throws IllegalStateException if the Java compiler is not available
+   * @throws MalformedURLException if an element of the classpath cannot be converted to a URL
+   */
+  InMemoryTestSuiteRunner(
+      String packageName, String classname, List<File> classpath, long timeoutMillis)
+      throws MalformedURLException {
+    this.packageName = packageName;
+    this.classname = classname;
+    this.qualifiedName = (packageName == null ? "" : packageName + ".") + classname;
+    this.timeoutMillis = timeoutMillis;
+
+    List<URL> urls = new ArrayList<>();
+    StringBuilder compileClasspath = new StringBuilder(System.getProperty("java.class.path"));
+    for (File element : classpath) {
+      urls.add(element.toURI().toURL());
+      compileClasspath.append(File.pathSeparator).append(element.getPath());
+    }
+    this.classpath = urls.toArray(new URL[0]);
+
+    compilerOptions = new ArrayList<>();
+    compilerOptions.add("-classpath");
+    compilerOptions.add(compileClasspath.toString());
+    compilerOptions.add("-proc:none");
+    compilerOptions.add("-Xlint:none");
+    // Creates the compiler of this thread, which fails if the Java compiler is not available.
+    compilers.get();
+  }
+
+  /**
+   * Indicates whether the runner can run another version of the suite.
+   *
+   * @return false if a run timed out, true otherwise
+   */
+  boolean isUsable() {
+    return !timedOut;
+  }
+
+  /**
+   * Compiles and runs a version of the test suite, and returns what the run writes to standard
+   * output, which includes the report of {@code JUnitCore}. Error output is discarded. May be
+   * called by several threads at the same time.
+   *
+   * @param javaSource the source of the test class
+   * @return the standard output of the run, the empty string if the run timed out or the runner is
+   *     no longer usable, or null if the class does not compile
+   */
+  String compileAndRun(String javaSource) {
+    Compiler compiler = compilers.get();
+    try {
+      compiler.compiler.compile(packageName, classname, javaSource);
+    } catch (SequenceCompilerException e) {
+      return null;
+    }
+    synchronized (RUN_LOCK) {
+      if (timedOut) {
+        return "";
+      }
+      return run(compiler.compiledClasses);
+    }
+  }
+
+  /**
+   * Runs the compiled test class and returns what the run writes to standard output.
+   *
+   * @param compiledClasses the class loader that holds the compiled test class
+   * @return the standard output of the run, or the empty string if the run timed out
+   */
+  private String run(SequenceClassLoader compiledClasses) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream originalOut = System.out;
+    PrintStream originalErr = System.err;
+    try (TestClassLoader loader = new TestClassLoader(compiledClasses)) {
+      final Class<?> testClass;
+      try {
+        testClass = loader.loadClass(qualifiedName);
+      } catch (ClassNotFoundException e) {
+        return null;
+      }
+      final PrintStream out = newPrintStream(output);
+      Thread runner =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  JUnitCore junit = new JUnitCore();
+                  junit.addListener(new TextListener(out));
+                  junit.run(testClass);
+                }
+              },
+              "Randoop minimizer test runner");
+      runner.setDaemon(true);
+      runner.setContextClassLoader(loader);
+      System.setOut(out);
+      System.setErr(newPrintStream(new ByteArrayOutputStream()));
+      runner.start();
+      try {
+        runner.join(timeoutMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (runner.isAlive()) {
+        runner.interrupt();
+        timedOut = true;
+        return "";
+      }
+    } catch (IOException e) {
+      // Closing the class loader only releases the files that it opened.
+    } finally {
+      System.setOut(originalOut);
+      System.setErr(originalErr);
+    }
+    return new String(output.toByteArray(), UTF_8);
+  }
+
+  /**
+   * Returns a print stream that writes UTF-8 to the given stream.
+   *
+   * @param out the underlying stream
+   * @return the print stream
+   */
+  private static PrintStream newPrintStream(ByteArrayOutputStream out) {
+    try {
+      return new PrintStream(out, true, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new Error("UTF-8 is not supported", e);
+    }
+  }
+
+  /** The compiler of a thread, and the class loader that holds the class files it produces. */
+  private class Compiler {
+
+    /** The class loader that holds the class files produced by the compiler. */
+    final SequenceClassLoader compiledClasses;
+
+    /** The compiler. */
+    final SequenceCompiler compiler;
+
+    /**
+     * Creates a compiler with the options of the runner.
+     *
+     * @throws IllegalStateException if the Java compiler is not available
+     */
+    Compiler() {
+      // Class files are only read from the compiled classes, not from its parent.
+      compiledClasses = new SequenceClassLoader(null);
+      compiler = new SequenceCompiler(compiledClasses, compilerOptions);
+    }
+  }
+
+  /**
+   * A class loader for one run of the suite. Defines the test class, and any class nested in it,
+   * from the class files produced by the compiler, and loads the other classes of the classpath of
+   * the suite itself.
+   */
+  private class TestClassLoader extends URLClassLoader {
+
+    /** The class loader that holds the class files produced by the compiler. */
+    private final SequenceClassLoader compiledClasses;
+
+    /**
+     * Creates a class loader for the classpath of the suite.
+     *
+     * @param compiledClasses the class loader that holds the compiled test class
+     */
+    TestClassLoader(SequenceClassLoader compiledClasses) {
+      super(classpath, InMemoryTestSuiteRunner.class.getClassLoader());
+      this.compiledClasses = compiledClasses;
+      setDefaultAssertionStatus(false);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(qualifiedName) && !name.startsWith(qualifiedName + "$")) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> c = findLoadedClass(name);
+        if (c == null) {
+          byte[] bytes;
+          try (InputStream in =
+              compiledClasses.getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (in == null) {
+              throw new ClassNotFoundException(name);
+            }
+            bytes = IOUtils.toByteArray(in);
+          } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+          }
+          c = defineClass(name, bytes, 0, bytes.length);
+        }
+        if (resolve) {
+          resolveClass(c);
+        }
+        return c;
+      }
+    }
+  }
+}
@@ -19,6 +19,7 @@ public class Main {
     handlers.add(new GenTests());
     handlers.add(new Help());
     handlers.add(new Minimize());
+    handlers.add(new Replay());
   }
 
   // The main method simply calls nonStaticMain.
@@ -34,7 +34,9 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.StringReader;
+import java.net.MalformedURLException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
@@ -53,8 +55,10 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -123,6 +127,31 @@ public class Minimize extends CommandHandler {
   @Option("Verbose, flag for verbose output")
   public static boolean verboseminimizer = false;
 
+  /**
+   * The number of versions of the test suite that are checked at the same time. With more than one
+   * worker, versions that would otherwise be checked one after another are checked together, which
+   * can take less time on a machine with idle processors but also checks versions that turn out not
+   * to be needed. Versions are only checked at the same time when they are run in the JVM of the
+   * minimizer; see {@code --minimizeinprocess}.
+   */
+  @SuppressWarnings("WeakerAccess")
+  @Option("Number of versions of the test suite to check at the same time")
+  public static int minimizeworkers = 1;
+
+  /**
+   * Compile and run the versions of the test suite in the JVM of the minimizer, instead of in new
+   * {@code javac} and {@code java} processes, if the test suite fails the same way there. This is
+   * faster, but the code under test then runs in the JVM of the minimizer: if it calls {@code
+   * System.exit}, the minimizer is terminated, and it may change static state that affects later
+   * versions of the test suite.
+   */
+  @SuppressWarnings("WeakerAccess")
+  @Option("Run the versions of the test suite in the JVM of the minimizer")
+  public static boolean minimizeinprocess = false;
+
+  /** The number of versions of the test suite checked by the last minimization. */
+  private static volatile int numberOfChecks = 0;
+
   Minimize() {
     super(
         "minimize",
@@ -187,6 +216,13 @@ public class Minimize extends CommandHandler {
           "Minimizer timout must be positive, was given as " + Minimize.minimizetimeout + ".");
     }
 
+    if (Minimize.minimizeworkers <= 0) {
+      throw new RandoopUsageError(
+          "Number of minimizer workers must be positive, was given as "
+              + Minimize.minimizeworkers
+              + ".");
+    }
+
     // File object pointing to the file to be minimized.
     final File originalFile = new File(suitepath);
 
@@ -228,6 +264,16 @@ public class Minimize extends CommandHandler {
     return success;
   }
 
+  /**
+   * Returns the number of versions of the test suite that were compiled and run by the last call to
+   * {@link #mainMinimize(File, String, int, boolean)} that completed the minimization.
+   *
+   * @return the number of versions of the test suite checked by the last minimization
+   */
+  public static int getNumberOfChecks() {
+    return numberOfChecks;
+  }
+
   /**
    * Minimize the input test file.
    *
@@ -315,26 +361,36 @@ public class Minimize extends CommandHandler {
     String runResult = runJavaFile(minimizedFile, classPath, packageName, timeoutLimit);
     Map<String, String> expectedOutput = normalizeJUnitOutput(runResult);
 
-    // Minimize the Java test suite.
-    minimizeTestSuite(
-        compilationUnit,
-        packageName,
-        minimizedFile,
-        classPath,
-        expectedOutput,
-        timeoutLimit,
-        verboseOutput);
-
-    // Cleanup: simplify type names and sort the import statements.
-    compilationUnit =
-        simplifyTypeNames(
-            compilationUnit,
-            packageName,
+    // Run later versions of the suite in this JVM, if requested and it runs the same way there.
+    InMemoryTestSuiteRunner inMemoryRunner = null;
+    if (minimizeinprocess) {
+      inMemoryRunner =
+          createInMemoryRunner(
+              minimizedFile, classPath, packageName, expectedOutput, timeoutLimit, verboseOutput);
+    }
+
+    SuiteChecker checker =
+        new SuiteChecker(
             minimizedFile,
             classPath,
+            packageName,
             expectedOutput,
             timeoutLimit,
-            verboseOutput);
+            inMemoryRunner,
+            minimizeworkers);
+    try {
+      // Minimize the Java test suite.
+      minimizeTestSuite(compilationUnit, checker, verboseOutput);
+
+      // Cleanup: simplify type names and sort the import statements.
+      compilationUnit = simplifyTypeNames(compilationUnit, checker, verboseOutput);
+    } finally {
+      checker.shutdown();
+    }
+    numberOfChecks = checker.getNumberOfChecks();
+    if (verboseOutput) {
+      System.out.println("Checked " + checker.getNumberOfChecks() + " versions of the test suite.");
+    }
 
     writeToFile(compilationUnit, minimizedFile);
 
@@ -351,22 +407,12 @@ public class Minimize extends CommandHandler {
    * Visit and minimize every JUnit test method within a compilation unit.
    *
    * @param compilationUnit the compilation unit to minimize; is modified by side effect
-   * @param packageName the package that the Java file is in
-   * @param file the Java file that is being minimized; is modified by side effect
-   * @param classpath classpath used to compile and run the Java file
-   * @param expectedOutput expected JUnit output when the Java file is compiled and run
-   * @param timeoutLimit number of seconds allowed for the whole test suite to run
+   * @param checker the checker for versions of the Java file
    * @param verboseOutput whether or not to output information about minimization status
    * @throws IOException thrown if minimized method can't be written to file
    */
   private static void minimizeTestSuite(
-      CompilationUnit compilationUnit,
-      String packageName,
-      File file,
-      String classpath,
-      Map<String, String> expectedOutput,
-      int timeoutLimit,
-      boolean verboseOutput)
+      CompilationUnit compilationUnit, SuiteChecker checker, boolean verboseOutput)
       throws IOException {
     System.out.println("Minimizing test suite.");
 
@@ -380,14 +426,7 @@ public class Minimize extends CommandHandler {
 
           // Minimize the method only if it is a JUnit test method.
           if (isTestMethod(method)) {
-            minimizeMethod(
-                method,
-                compilationUnit,
-                packageName,
-                file,
-                classpath,
-                expectedOutput,
-                timeoutLimit);
+            minimizeMethod(method, compilationUnit, checker);
             printProgress(++numberOfMinimizedTests, numberOfTestMethods, method.getName());
           }
         }
@@ -414,26 +453,19 @@ public class Minimize extends CommandHandler {
   }
 
   /**
-   * Minimize a method by minimizing each statement in turn.
+   * Minimize a method by minimizing each statement in turn, from last to first. After a statement
+   * or a chunk of statements is removed, the minimizer tries to remove a chunk of twice as many
+   * statements at once, so that a long run of removable statements takes a number of checks that is
+   * logarithmic in its length.
    *
    * @param method the method to minimize; is modified by side effect
    * @param compilationUnit compilation unit for the Java file that we are minimizing; is modified
    *     by side effect
-   * @param packageName the package that the Java file is in
-   * @param file the Java file that is being minimized; is modified by side effect
-   * @param classpath classpath needed to compile and run the Java file
-   * @param expectedOutput expected output from running the JUnit test suite
-   * @param timeoutLimit number of seconds allowed for the whole test suite to run
+   * @param checker the checker for versions of the Java file
    * @throws IOException thrown if write to file fails
    */
   private static void minimizeMethod(
-      MethodDeclaration method,
-      CompilationUnit compilationUnit,
-      String packageName,
-      File file,
-      String classpath,
-      Map<String, String> expectedOutput,
-      int timeoutLimit)
+      MethodDeclaration method, CompilationUnit compilationUnit, SuiteChecker checker)
       throws IOException {
     List<Statement> statements = method.getBody().getStmts();
 
@@ -445,48 +477,203 @@ public class Minimize extends CommandHandler {
     Set<String> primitiveAndWrappedTypes = new HashSet<>();
     new PrimitiveAndWrappedTypeVarNameCollector().visit(compilationUnit, primitiveAndWrappedTypes);
 
+    // Map from the statements of a version of the method to whether the
+    // test suite fails the same way with that version.
+    Map<List<String>, Boolean> results = new HashMap<>();
+    results.put(getStatementsKey(statements), true);
+
+    // The number of statements in the next chunk to remove, if greater than 1.
+    int chunkSize = 1;
+
     // Iterate through the list of statements, from last to first.
-    for (int i = statements.size() - 1; i >= 0; i--) {
-      Statement currStmt = statements.get(i);
+    int i = statements.size() - 1;
+    while (i >= 0) {
+      if (chunkSize > 1) {
+        int removed =
+            removeStatementChunk(
+                statements,
+                i,
+                chunkSize,
+                compilationUnit,
+                checker,
+                results,
+                primitiveValues,
+                primitiveAndWrappedTypes);
+        if (removed > 0) {
+          i -= removed;
+          chunkSize = 2 * removed;
+          continue;
+        }
+      }
 
-      // Remove the current statement. We will re-insert simplifications
-      // of it.
-      statements.remove(i);
+      Statement currStmt = statements.get(i);
 
-      // Obtain a list of possible replacements for the current statement.
-      List<Statement> replacements = getStatementReplacements(currStmt, primitiveValues);
-      boolean replacementFound = false;
-      for (Statement stmt : replacements) {
-        // Add replacement statement to the method's body.
-        // If stmt is null, don't add anything since null represents
+      // Obtain the versions of the method with the possible replacements
+      // for the current statement, from most to least minimized.
+      List<List<Statement>> candidates = new ArrayList<>();
+      for (Statement stmt : getStatementReplacements(currStmt, primitiveValues)) {
+        List<Statement> candidate = new ArrayList<>(statements);
+        // If stmt is null, the statement is removed, since null represents
         // removal of the statement.
-        if (stmt != null) {
-          statements.add(i, stmt);
+        if (stmt == null) {
+          candidate.remove(i);
+        } else {
+          candidate.set(i, stmt);
         }
+        candidates.add(candidate);
+      }
 
-        // Write, compile, and run the new Java file.
-        writeToFile(compilationUnit, file);
-        if (checkCorrectlyMinimized(file, classpath, packageName, expectedOutput, timeoutLimit)) {
-          // No compilation or runtime issues, obtained output is the same as the expected output.
-          // Use simplification of this statement and continue with next statement.
-          replacementFound = true;
+      int passing = findFirstPassing(statements, candidates, compilationUnit, checker, results);
+      if (passing >= 0) {
+        // Use simplification of this statement and continue with next statement.
+        setStatements(statements, candidates.get(passing));
 
-          // Assertions are never simplified, only removed. If currStmt is an assertion, then stmt is null.
-          storeValueFromAssertion(currStmt, primitiveValues, primitiveAndWrappedTypes);
-          break; // break replacement loop; continue statements loop.
-        } else {
-          // Issue encountered, remove the faulty replacement.
-          if (stmt != null) {
-            statements.remove(i);
-          }
+        // Assertions are never simplified, only removed. If currStmt is an assertion, then it was removed.
+        storeValueFromAssertion(currStmt, primitiveValues, primitiveAndWrappedTypes);
+      }
+      // Otherwise, no correct simplification was found, and the original statement is kept.
+
+      // The first replacement is the removal of the statement.
+      chunkSize = (passing == 0) ? 2 : 1;
+      i--;
+    }
+  }
+
+  /**
+   * Remove a chunk of consecutive statements that ends with a given statement, if the test suite
+   * fails the same way without it. As in the ddmin algorithm of delta debugging, if a chunk cannot
+   * be removed, the chunk of half its size is tried, down to chunks of two statements.
+   *
+   * @param statements the statements of the method; is modified by side effect
+   * @param last the index of the last statement of the chunk
+   * @param chunkSize the size of the first chunk to try
+   * @param compilationUnit compilation unit for the Java file that we are minimizing
+   * @param checker the checker for versions of the Java file
+   * @param results the results of checking versions of the method, by their statements; is modified
+   *     by side effect
+   * @param primitiveValues a map of variable names to variable values; modified if a removed
+   *     statement is a passing assertion, asserting a variable's value
+   * @param primitiveAndWrappedTypeVars set containing the names of all primitive and wrapped type
+   *     variables
+   * @return the number of statements removed, 0 if no chunk was removed
+   * @throws IOException thrown if write to file fails
+   */
+  private static int removeStatementChunk(
+      List<Statement> statements,
+      int last,
+      int chunkSize,
+      CompilationUnit compilationUnit,
+      SuiteChecker checker,
+      Map<List<String>, Boolean> results,
+      Map<String, String> primitiveValues,
+      Set<String> primitiveAndWrappedTypeVars)
+      throws IOException {
+    List<Integer> sizes = new ArrayList<>();
+    List<List<Statement>> candidates = new ArrayList<>();
+    for (int size = Math.min(chunkSize, last + 1); size > 1; size /= 2) {
+      List<Statement> candidate = new ArrayList<>(statements.subList(0, last + 1 - size));
+      candidate.addAll(statements.subList(last + 1, statements.size()));
+      sizes.add(size);
+      candidates.add(candidate);
+    }
+
+    int passing = findFirstPassing(statements, candidates, compilationUnit, checker, results);
+    if (passing < 0) {
+      return 0;
+    }
+    int size = sizes.get(passing);
+    List<Statement> removed = new ArrayList<>(statements.subList(last + 1 - size, last + 1));
+    // As if the statements were removed one at a time, from last to first.
+    Collections.reverse(removed);
+    for (Statement stmt : removed) {
+      storeValueFromAssertion(stmt, primitiveValues, primitiveAndWrappedTypeVars);
+    }
+    setStatements(statements, candidates.get(passing));
+    return size;
+  }
+
+  /**
+   * Return the index of the first version of a method with which the test suite fails the same way
+   * as the original test suite. The versions are checked in order, in batches of the size of {@link
+   * SuiteChecker#getBatchSize()}. A version that is in {@code results} is not checked again.
+   *
+   * @param statements the statements of the method, which are restored before this method returns
+   * @param candidates the statements of each version of the method
+   * @param compilationUnit compilation unit for the Java file that we are minimizing
+   * @param checker the checker for versions of the Java file
+   * @param results the results of checking versions of the method, by their statements; is modified
+   *     by side effect
+   * @return the index of the first correct version in {@code candidates}, or -1 if there is none
+   * @throws IOException thrown if write to file fails
+   */
+  private static int findFirstPassing(
+      List<Statement> statements,
+      List<List<Statement>> candidates,
+      CompilationUnit compilationUnit,
+      SuiteChecker checker,
+      Map<List<String>, Boolean> results)
+      throws IOException {
+    List<Statement> original = new ArrayList<>(statements);
+    int next = 0;
+    while (next < candidates.size()) {
+      // Collect the next batch of versions that have not been checked yet.
+      List<Integer> indices = new ArrayList<>();
+      List<List<String>> keys = new ArrayList<>();
+      List<String> sources = new ArrayList<>();
+      int knownPassing = -1;
+      while (next < candidates.size() && sources.size() < checker.getBatchSize()) {
+        List<String> key = getStatementsKey(candidates.get(next));
+        Boolean result = results.get(key);
+        if (result == null) {
+          setStatements(statements, candidates.get(next));
+          indices.add(next);
+          keys.add(key);
+          sources.add(compilationUnit.toString());
+        } else if (result) {
+          knownPassing = next;
+          break;
         }
+        next++;
       }
+      setStatements(statements, original);
 
-      if (!replacementFound) {
-        // No correct simplification found. Add back the original statement to the list of statements.
-        statements.add(i, currStmt);
+      List<Boolean> checked = checker.check(sources);
+      for (int i = 0; i < checked.size(); i++) {
+        results.put(keys.get(i), checked.get(i));
+        if (checked.get(i)) {
+          return indices.get(i);
+        }
+      }
+      if (knownPassing >= 0) {
+        return knownPassing;
       }
     }
+    return -1;
+  }
+
+  /**
+   * Return the key of a version of a method in the results of checking versions of the method.
+   *
+   * @param statements the statements of the version
+   * @return the text of the statements
+   */
+  private static List<String> getStatementsKey(List<Statement> statements) {
+    List<String> key = new ArrayList<>();
+    for (Statement stmt : statements) {
+      key.add(stmt.toString());
+    }
+    return key;
+  }
+
+  /**
+   * Replace the statements of a method.
+   *
+   * @param statements the statements of the method; is modified by side effect
+   * @param replacement the new statements
+   */
+  private static void setStatements(List<Statement> statements, List<Statement> replacement) {
+    statements.clear();
+    statements.addAll(replacement);
   }
 
   /**
@@ -766,12 +953,13 @@ public class Minimize extends CommandHandler {
 
   /**
    * Return a statement that contains only the right hand side of a given statement. Returns null if
-   * there are multiple variable declarations in a single statement, such as {@code int i, j, k; }.
+   * there are multiple variable declarations in a single statement, such as {@code int i, j, k; },
+   * or if the variable is declared without an initializer.
    *
    * @param vdExpr variable declaration expression that represents the statement to simplify
    * @return a {@code Statement} object that is equal to the right-hand-side of {@code vdExpr}.
    *     Returns {@code null} if more than one variable is declared in the {@code
-   *     VariableDeclarationExpr}.
+   *     VariableDeclarationExpr}, or if there is no right-hand-side.
    */
   private static Statement removeLeftHandSideSimplification(VariableDeclarationExpr vdExpr) {
     if (vdExpr.getVars().size() > 1) {
@@ -784,6 +972,9 @@ public class Minimize extends CommandHandler {
     VariableDeclarationExpr resultExpr = (VariableDeclarationExpr) vdExpr.clone();
     List<VariableDeclarator> vars = resultExpr.getVars();
     VariableDeclarator vd = vars.get(0);
+    if (vd.getInit() == null) {
+      return null;
+    }
 
     // Return a new statement with only the right hand side.
     return new ExpressionStmt(vd.getInit());
@@ -798,23 +989,13 @@ public class Minimize extends CommandHandler {
    *
    * @param compilationUnit compilation unit containing an AST for a Java file, the compilation unit
    *     will be modified if a correct minimization of the method is found
-   * @param packageName the package that the Java file is in
-   * @param file the Java file to simplify; is modified by side effect
-   * @param classpath classpath needed to compile and run the Java file
-   * @param expectedOutput expected standard output from running the JUnit test suite
-   * @param timeoutLimit number of seconds allowed for the whole test suite to run
+   * @param checker the checker for versions of the Java file
    * @param verboseOutput whether or not to output information about minimization status
    * @return {@code CompilationUnit} with fully-qualified type names simplified to simple type names
    * @throws IOException thrown if write to file fails
    */
   private static CompilationUnit simplifyTypeNames(
-      CompilationUnit compilationUnit,
-      String packageName,
-      File file,
-      String classpath,
-      Map<String, String> expectedOutput,
-      int timeoutLimit,
-      boolean verboseOutput)
+      CompilationUnit compilationUnit, SuiteChecker checker, boolean verboseOutput)
       throws IOException {
     if (verboseOutput) {
       System.out.println("Adding imports and simplifying type names.");
@@ -852,8 +1033,7 @@ public class Minimize extends CommandHandler {
       new FieldAccessTypeNameSimplifyVisitor().visit(compUnitWithSimpleTypeNames, type);
 
       // Check that the simplification is correct.
-      writeToFile(compUnitWithSimpleTypeNames, file);
-      if (checkCorrectlyMinimized(file, classpath, packageName, expectedOutput, timeoutLimit)) {
+      if (checker.check(compUnitWithSimpleTypeNames.toString())) {
         result = compUnitWithSimpleTypeNames;
       }
     }
@@ -894,6 +1074,74 @@ public class Minimize extends CommandHandler {
     return expectedOutput.equals(normalizeJUnitOutput(runResult));
   }
 
+  /**
+   * Create a runner that compiles and runs versions of the Java file in this JVM, instead of in new
+   * {@code javac} and {@code java} processes. Only used if {@link #minimizeinprocess} is set. The
+   * runner is used only if the Java file fails in the same way in this JVM as in a new process, and
+   * if it does not call {@code System.exit}, which would terminate this JVM. Otherwise, versions of
+   * the file are run in new processes. The code under test may still call {@code System.exit}.
+   *
+   * @param file the Java file being minimized, already compiled and run in new processes
+   * @param classpath classpath needed to compile/run the Java file
+   * @param packageName the package that the Java file is in
+   * @param expectedOutput expected output of running the JUnit test suite
+   * @param timeoutLimit number of seconds allowed for the whole test suite to run
+   * @param verboseOutput whether or not to output information about minimization status
+   * @return the runner, or null if versions of the file must be run in new processes
+   * @throws IOException if the file cannot be read
+   */
+  private static InMemoryTestSuiteRunner createInMemoryRunner(
+      File file,
+      String classpath,
+      String packageName,
+      Map<String, String> expectedOutput,
+      int timeoutLimit,
+      boolean verboseOutput)
+      throws IOException {
+    String source = new String(Files.readAllBytes(file.toPath()), UTF_8);
+    if (source.contains("System.exit")) {
+      return null;
+    }
+
+    // The same classpath as for running the Java file in a new process.
+    List<File> suiteClasspath = new ArrayList<>();
+    File executionDir = getExecutionDirectory(file, packageName);
+    if (executionDir == null || executionDir.toString().isEmpty()) {
+      executionDir = new File(".");
+    }
+    suiteClasspath.add(executionDir);
+    if (file.getParentFile() != null) {
+      suiteClasspath.add(file.getParentFile());
+    }
+    if (classpath != null) {
+      for (String element : classpath.split(PATH_SEPARATOR)) {
+        if (!element.isEmpty()) {
+          suiteClasspath.add(new File(element));
+        }
+      }
+    }
+
+    InMemoryTestSuiteRunner runner;
+    try {
+      runner =
+          new InMemoryTestSuiteRunner(
+              packageName,
+              FilenameUtils.removeExtension(file.getName()),
+              suiteClasspath,
+              timeoutLimit * 1000L);
+    } catch (IllegalStateException | MalformedURLException e) {
+      return null;
+    }
+    String runResult = runner.compileAndRun(source);
+    if (runResult == null || !expectedOutput.equals(normalizeJUnitOutput(runResult))) {
+      if (verboseOutput) {
+        System.out.println("Test suite runs differently in this JVM; using new processes.");
+      }
+      return null;
+    }
+    return runner;
+  }
+
   /**
    * Compile a Java file and return the compilation exit value.
    *
@@ -1081,6 +1329,9 @@ public class Minimize extends CommandHandler {
    * {@code String} representation of the output, we remove any extraneous information such as line
    * numbers. The resulting output is a map from method name to the method's failure stack trace.
    *
+   * <p>The frames of reflection and of the JUnit runners, and the frames below them, are removed
+   * from each stack trace, since they depend on how the suite is run rather than on the tests.
+   *
    * @param input the {@code String} produced from running a JUnit test suite
    * @return a map from method name to the method's failure stack trace. The stack trace will not
    *     contain any line numbers.
@@ -1094,6 +1345,8 @@ public class Minimize extends CommandHandler {
     StringBuilder result = new StringBuilder();
     // JUnit output starts with index 1 for first failure.
     int index = 1;
+    // Whether the frames of the current stack trace are below the test method.
+    boolean inRunnerFrames = false;
 
     try {
       for (String line; (line = bufReader.readLine()) != null; ) {
@@ -1112,12 +1365,26 @@ public class Minimize extends CommandHandler {
           // Set the method name to the current line.
           methodName = line;
           index += 1;
+          inRunnerFrames = false;
         } else if (line.isEmpty()) {
           // Reached an empty line which marks the end of the JUnit
           // output.
           resultMap.put(methodName, result.toString());
           break;
         } else if (methodName != null) {
+          if (line.startsWith("Caused by: ")) {
+            inRunnerFrames = false;
+          } else if (line.startsWith("\tat org.junit.runners.")
+              || line.startsWith("\tat org.junit.internal.runners.")) {
+            inRunnerFrames = true;
+          }
+          if (inRunnerFrames
+              || line.startsWith("\tat sun.reflect.")
+              || line.startsWith("\tat jdk.internal.reflect.")
+              || line.startsWith("\tat java.lang.reflect.")
+              || line.matches("\\s*\\.\\.\\. \\d+ more")) {
+            continue;
+          }
           // Look for a left-parentheses which marks the position
           // where a line number will appear.
           int lParenIndex = line.indexOf('(');
@@ -1219,6 +1486,189 @@ public class Minimize extends CommandHandler {
     compilationUnit.setImports(imports);
   }
 
+  /**
+   * Checks versions of the Java file being minimized: a version is correct if it fails the same way
+   * as the original file. Versions are run in this JVM if the original file runs the same way
+   * there, and otherwise are written to the minimized file and run in new processes.
+   *
+   * <p>When versions are run in this JVM, a list of versions is checked in batches, and the
+   * versions in a batch are compiled at the same time by a pool of workers.
+   */
+  private static class SuiteChecker {
+
+    /** The minimized file, to which versions that are run in new processes are written. */
+    private final File file;
+
+    /** Classpath needed to compile and run the Java file. */
+    private final String classpath;
+
+    /** The package that the Java file is in. */
+    private final String packageName;
+
+    /** Expected output of running the JUnit test suite. */
+    private final Map<String, String> expectedOutput;
+
+    /** Number of seconds allowed for the whole test suite to run. */
+    private final int timeoutLimit;
+
+    /** The runner for versions of the suite in this JVM, or null to run them in new processes. */
+    private final InMemoryTestSuiteRunner inMemoryRunner;
+
+    /** The number of versions in a batch. */
+    private final int workers;
+
+    /** The pool of workers, or null if versions are checked one at a time. */
+    private final ExecutorService executor;
+
+    /** The number of versions that have been checked. */
+    private final AtomicInteger numberOfChecks = new AtomicInteger();
+
+    /**
+     * Creates a checker for versions of a Java file.
+     *
+     * @param file the minimized file
+     * @param classpath classpath needed to compile and run the Java file
+     * @param packageName the package that the Java file is in
+     * @param expectedOutput expected output of running the JUnit test suite
+     * @param timeoutLimit number of seconds allowed for the whole test suite to run
+     * @param inMemoryRunner the runner for versions of the suite in this JVM, or null to run them
+     *     in new processes
+     * @param workers the number of versions to compile at the same time
+     */
+    SuiteChecker(
+        File file,
+        String classpath,
+        String packageName,
+        Map<String, String> expectedOutput,
+        int timeoutLimit,
+        InMemoryTestSuiteRunner inMemoryRunner,
+        int workers) {
+      this.file = file;
+      this.classpath = classpath;
+      this.packageName = packageName;
+      this.expectedOutput = expectedOutput;
+      this.timeoutLimit = timeoutLimit;
+      this.inMemoryRunner = inMemoryRunner;
+      this.workers = workers;
+      if (inMemoryRunner == null || workers == 1) {
+        this.executor = null;
+      } else {
+        this.executor =
+            Executors.newFixedThreadPool(
+                workers,
+                new ThreadFactory() {
+                  @Override
+                  public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Randoop minimizer worker");
+                    thread.setDaemon(true);
+                    return thread;
+                  }
+                });
+      }
+    }
+
+    /**
+     * Returns the number of versions that have been checked.
+     *
+     * @return the number of versions that have been compiled and run
+     */
+    int getNumberOfChecks() {
+      return numberOfChecks.get();
+    }
+
+    /** Stops the pool of workers. */
+    void shutdown() {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+
+    /**
+     * Returns the number of versions that should be checked at a time.
+     *
+     * @return the number of workers if versions are run in this JVM, and 1 otherwise
+     */
+    int getBatchSize() {
+      return (executor != null && inMemoryRunner.isUsable()) ? workers : 1;
+    }
+
+    /**
+     * Checks a batch of versions of the Java file, on the pool of workers if there is more than one
+     * version.
+     *
+     * @param sources the sources of the versions
+     * @return for each version, whether it is correct
+     * @throws IOException if a version cannot be written to the minimized file, or the minimization
+     *     is interrupted
+     */
+    List<Boolean> check(List<String> sources) throws IOException {
+      if (sources.size() == 1) {
+        return Collections.singletonList(check(sources.get(0)));
+      }
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (final String source : sources) {
+        futures.add(
+            executor.submit(
+                new Callable<Boolean>() {
+                  @Override
+                  public Boolean call() throws IOException {
+                    return check(source);
+                  }
+                }));
+      }
+      List<Boolean> results = new ArrayList<>();
+      try {
+        for (Future<Boolean> future : futures) {
+          results.add(future.get());
+        }
+      } catch (InterruptedException e) {
+        for (Future<Boolean> future : futures) {
+          future.cancel(true);
+        }
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Minimization was interrupted");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IOException("Exception checking a version of the test suite", cause);
+      }
+      return results;
+    }
+
+    /**
+     * Checks a version of the Java file. The version should not have compilation errors or run-time
+     * errors, and should fail in the same way as the original file.
+     *
+     * @param source the source of the version
+     * @return true if the version is correct
+     * @throws IOException if the version cannot be written to the minimized file
+     */
+    boolean check(String source) throws IOException {
+      numberOfChecks.incrementAndGet();
+      if (inMemoryRunner != null && inMemoryRunner.isUsable()) {
+        String runResult = inMemoryRunner.compileAndRun(source);
+        if (runResult == null) {
+          // The version does not compile.
+          return false;
+        }
+        if (!runResult.isEmpty()) {
+          return expectedOutput.equals(normalizeJUnitOutput(runResult));
+        }
+        // The run timed out, and is repeated in a new process.
+      }
+      synchronized (this) {
+        try (BufferedWriter bw = Files.newBufferedWriter(file.toPath(), UTF_8)) {
+          bw.write(source);
+        }
+        return checkCorrectlyMinimized(file, classpath, packageName, expectedOutput, timeoutLimit);
+      }
+    }
+  }
+
   /** Contains the standard output, standard error, and exit status from running a process. */
   private static class Outputs {
     /** The standard output. */
@@ -0,0 +1,145 @@
+package randoop.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import plume.Option;
+import plume.OptionGroup;
+import plume.Options;
+import randoop.DummyVisitor;
+import randoop.Globals;
+import randoop.operation.OperationParseException;
+import randoop.operation.TypedClassOperation;
+import randoop.operation.TypedOperation;
+import randoop.output.TestCorpusReader;
+import randoop.sequence.ExecutableSequence;
+import randoop.test.TestCheckGenerator;
+import randoop.types.Type;
+import randoop.util.MultiMap;
+
+/**
+ * Replays a binary test corpus written with {@code gentests --test-corpus}. Each test sequence is
+ * executed in this JVM, without compiling a test class, and the checks created for the execution
+ * are compared with the checks recorded when the test was generated. The regression checks are
+ * created with the visibility and observer methods recorded in the corpus, and with the default
+ * classification of exceptions.
+ *
+ * <p>The classes under test must be on the classpath.
+ */
+public class Replay extends CommandHandler {
+
+  /** The test corpus file to replay. */
+  @SuppressWarnings("WeakerAccess")
+  @OptionGroup(value = "Test corpus replay options")
+  @Option("Binary test corpus file to replay")
+  public static String corpus;
+
+  /** Print the expected and actual checks of each test whose checks differ. */
+  @SuppressWarnings("WeakerAccess")
+  @Option("Print the checks of each test whose checks differ")
+  public static boolean verbosereplay = false;
+
+  Replay() {
+    super(
+        "replay",
+        "Replay a binary test corpus.",
+        "replay",
+        "",
+        "Runs the regression tests in a binary test corpus without compiling them.",
+        null,
+        "Path to a test corpus file written with gentests --test-corpus. The classes under test must be on the classpath.",
+        "The number of tests whose checks differ from the checks recorded in the corpus.",
+        "java -cp $(RANDOOP_JAR):myclasspath randoop.main.Main replay --corpus=tests.corpus",
+        new Options(Replay.class));
+  }
+
+  /**
+   * Checks that the corpus has been specified by the command-line options and replays it.
+   *
+   * @param args parameters, specified in command-line style
+   * @return true if every test of the corpus has the recorded checks
+   */
+  @Override
+  public boolean handle(String[] args) {
+    try {
+      String[] nonargs = foptions.parse(args);
+      if (nonargs.length > 0) {
+        throw new Options.ArgException("Unrecognized arguments: " + Arrays.toString(nonargs));
+      }
+    } catch (Options.ArgException ae) {
+      throw new RandoopUsageError(ae.getMessage());
+    }
+
+    if (Replay.corpus == null) {
+      throw new RandoopUsageError("Use --corpus to specify a test corpus file to replay.");
+    }
+
+    try (TestCorpusReader reader = new TestCorpusReader(new File(corpus))) {
+      int failureCount = replay(reader, verbosereplay);
+      System.out.printf(
+          "Replayed %d tests: %d passed, %d failed.%n",
+          reader.size(), reader.size() - failureCount, failureCount);
+      return failureCount == 0;
+    } catch (IOException e) {
+      System.out.printf("Error reading test corpus %s: %s%n", corpus, e.getMessage());
+      return false;
+    } catch (OperationParseException e) {
+      System.out.printf("Error recreating a test of corpus %s: %s%n", corpus, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Executes each test of the corpus and compares its checks with the recorded checks.
+   *
+   * @param reader the reader for the corpus
+   * @param verbose whether to print the checks of each test whose checks differ
+   * @return the number of tests whose checks differ from the recorded checks
+   * @throws IOException if the corpus cannot be read
+   * @throws OperationParseException if an operation of a test cannot be recreated
+   */
+  public static int replay(TestCorpusReader reader, boolean verbose)
+      throws IOException, OperationParseException {
+    MultiMap<Type, TypedOperation> observerMap = new MultiMap<>();
+    for (TypedOperation observer : reader.getObservers()) {
+      observerMap.add(((TypedClassOperation) observer).getDeclaringType(), observer);
+    }
+    TestCheckGenerator checkGenerator =
+        GenTests.createRegressionCaptureGenerator(
+            GenTests.getVisibilityPredicate(reader.getVisibilityPackage()),
+            observerMap,
+            reader.hasRegressionAssertions());
+    DummyVisitor visitor = new DummyVisitor();
+
+    int failureCount = 0;
+    for (int i = 0; i < reader.size(); i++) {
+      TestCorpusReader.CorpusTest test = reader.get(i);
+      ExecutableSequence eseq = new ExecutableSequence(test.getSequence());
+      eseq.execute(visitor, checkGenerator);
+      if (!test.hasExpectedChecks(eseq.getChecks())) {
+        failureCount++;
+        System.out.printf("Test %d of the corpus has different checks.%n", i);
+        if (verbose) {
+          System.out.println(eseq.toCodeString());
+          printChecks("Expected", test.getExpectedChecks());
+          printChecks("Actual", test.describe(eseq.getChecks()));
+        }
+      }
+    }
+    return failureCount;
+  }
+
+  /**
+   * Prints the code of checks.
+   *
+   * @param kind the kind of the checks
+   * @param checks the code of the checks
+   */
+  private static void printChecks(String kind, List<String> checks) {
+    System.out.printf("%s checks:%n", kind);
+    for (String check : checks) {
+      System.out.println("  " + check.replace("\n", Globals.lineSep + "  "));
+    }
+  }
+}
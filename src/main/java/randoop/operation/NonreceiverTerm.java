@@ -3,7 +3,6 @@ package randoop.operation;
 import java.io.PrintStream;
 import java.util.List;
 import java.util.Objects;
-import plume.UtilMDE;
 import randoop.ExecutionOutcome;
 import randoop.NormalExecution;
 import randoop.main.GenInputsAbstract;
@@ -436,7 +435,7 @@ public final class NonreceiverTerm extends CallableOperation {
                   + " but the string given was not enclosed in quotation marks.";
           throw new OperationParseException(msg);
         }
-        value = UtilMDE.unescapeNonJava(valString.substring(1, valString.length() - 1));
+        value = StringEscapeUtils.unescapeJava(valString.substring(1, valString.length() - 1));
         if (!Value.stringLengthOK((String) value)) {
           throw new OperationParseException(
               "Error when parsing String; length is greater than "
@@ -16,7 +16,16 @@ import randoop.types.TypeTuple;
  * not done in reflection.
  */
 public class TypedClassOperationWithCast extends TypedClassOperation {
-  TypedClassOperationWithCast(
+
+  /**
+   * Creates an operation that casts the result of the call to the output type.
+   *
+   * @param op the operation
+   * @param declaringType the declaring type of the operation
+   * @param inputTypes the input types of the operation
+   * @param outputType the output type of the operation
+   */
+  public TypedClassOperationWithCast(
       CallableOperation op,
       ClassOrInterfaceType declaringType,
       TypeTuple inputTypes,
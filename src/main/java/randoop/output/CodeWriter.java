@@ -2,7 +2,10 @@ package randoop.output;
 
 import java.io.File;
 
-/** Interface for a method {@code writeClassCode} that writes a class to a file. */
+/**
+ * Interface for a method {@code writeClassCode} that writes a class to a file. The methods may be
+ * called concurrently for different classes.
+ */
 public interface CodeWriter {
 
   /**
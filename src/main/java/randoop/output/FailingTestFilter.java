@@ -2,23 +2,34 @@ package randoop.output;
 
 import static randoop.execution.RunCommand.CommandException;
 import static randoop.execution.RunCommand.Status;
-import static randoop.reflection.SignatureParser.DOT_DELIMITED_IDS;
-import static randoop.reflection.SignatureParser.ID_STRING;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import plume.UtilMDE;
 import randoop.BugInRandoopException;
 import randoop.Globals;
 import randoop.compile.FileCompiler;
+import randoop.compile.SequenceClassLoader;
+import randoop.compile.SequenceCompiler;
+import randoop.compile.SequenceCompilerException;
 import randoop.execution.TestEnvironment;
+import randoop.execution.TestResults;
 import randoop.main.GenTests;
 import randoop.main.RandoopUsageError;
 
@@ -29,20 +40,39 @@ import randoop.main.RandoopUsageError;
  *
  * <p>Writes the class, and then compiles and runs the tests to determine whether there are failing
  * assertions. Each failing assertion is replaced by a comment containing the code for the failing
- * assertion. Creates a clean temporary directory for each compilation/run of a test class to avoid
- * state effects due to files in the working directory.
+ * assertion.
+ *
+ * <p>The class that is run has each assertion of a test method wrapped so that its failure is
+ * collected by a JUnit {@code ErrorCollector} rule, and the method continues. A run therefore
+ * reports every failing assertion of a method, and usually one run finds all failing assertions of
+ * the class and a second one confirms that the edited class passes. The results of a run are read
+ * as {@link TestResults}, rather than from the console output of JUnit.
+ *
+ * <p>If the test environment allows it, a test class is compiled in memory, loaded by a new {@link
+ * SequenceClassLoader}, and run in this JVM. Otherwise, it is compiled to a clean temporary
+ * directory, which is also the working directory of a new JVM that runs the tests, to avoid state
+ * effects due to files in the working directory.
  */
 public class FailingTestFilter implements CodeWriter {
 
+  /** The prefix of an assertion statement in a test method. */
+  private static final String ASSERTION_PREFIX = "org.junit.Assert.";
+
+  /** The name of the {@code ErrorCollector} field added to the class that is run. */
+  private static final String COLLECTOR_NAME = "randoopFailureCollector";
+
   /**
-   * A pattern matching the JUnit4 message indicating the total count of failures. Capturing group 1
-   * is the number of failures.
+   * A pattern matching the first line of a method declaration. Capturing group 1 is non-null if the
+   * method is static, and group 2 is the method name.
    */
-  private static final Pattern FAILURE_MESSAGE_PATTERN =
-      Pattern.compile("There\\s+(?:was|were)\\s+(\\d+)\\s+failure(?:s|):");
+  private static final Pattern METHOD_HEADER_PATTERN =
+      Pattern.compile("\\s*public\\s+(static\\s+)?void\\s+(\\w+)\\s*\\(.*");
+
+  /** The prefix of a line that is commented out because it failed. */
+  private static final String FLAKY_PREFIX = "// flaky: ";
 
-  private static final Pattern FAILURE_HEADER_PATTERN =
-      Pattern.compile("\\d+\\)\\s+(" + ID_STRING + ")\\(" + DOT_DELIMITED_IDS + "\\)");
+  /** The name of the results file in the working directory of a test run in a new JVM. */
+  private static final String RESULTS_FILE_NAME = "randoop-test-results.txt";
 
   /** The {@link randoop.execution.TestEnvironment} for running the test classes. */
   private final TestEnvironment testEnvironment;
@@ -50,16 +80,78 @@ public class FailingTestFilter implements CodeWriter {
   /** The underlying {@link randoop.output.JavaFileWriter} for writing a test class. */
   private final JavaFileWriter javaFileWriter;
 
+  /** Whether test classes are compiled and run in this JVM, rather than in a new one. */
+  private final boolean inProcess;
+
+  /** The permits for checking a test class, one for each class that may be checked at a time. */
+  private final Semaphore workers;
+
+  /** The cache of the results of previous runs of test methods, or null if there is none. */
+  private FlakyTestCache cache = null;
+
   /**
    * Create a {@link FailingTestFilter} for which tests will be run in the environment and which
-   * uses the given {@link JavaFileWriter} to output test classes.
+   * uses the given {@link JavaFileWriter} to output test classes. Tests are run in a new JVM.
    *
    * @param testEnvironment the {@link TestEnvironment} for executing tests during filtering
    * @param javaFileWriter the {@link JavaFileWriter} to write {@code .java} files for the classes
    */
   public FailingTestFilter(TestEnvironment testEnvironment, JavaFileWriter javaFileWriter) {
+    this(testEnvironment, javaFileWriter, false, 1);
+  }
+
+  /**
+   * Create a {@link FailingTestFilter} for which tests will be run in the environment and which
+   * uses the given {@link JavaFileWriter} to output test classes.
+   *
+   * <p>Tests may only be run in this JVM if they use no package-private members, since a test class
+   * loaded by a new class loader is not in the same runtime package as the classes under test.
+   *
+   * @param testEnvironment the {@link TestEnvironment} for executing tests during filtering
+   * @param javaFileWriter the {@link JavaFileWriter} to write {@code .java} files for the classes
+   * @param allowInProcess whether to run tests in this JVM, if the environment does not require a
+   *     new one
+   */
+  public FailingTestFilter(
+      TestEnvironment testEnvironment, JavaFileWriter javaFileWriter, boolean allowInProcess) {
+    this(testEnvironment, javaFileWriter, allowInProcess, 1);
+  }
+
+  /**
+   * Create a {@link FailingTestFilter} for which tests will be run in the environment and which
+   * uses the given {@link JavaFileWriter} to output test classes, and that checks up to the given
+   * number of classes at the same time.
+   *
+   * @param testEnvironment the {@link TestEnvironment} for executing tests during filtering
+   * @param javaFileWriter the {@link JavaFileWriter} to write {@code .java} files for the classes
+   * @param allowInProcess whether to run tests in this JVM, if the environment does not require a
+   *     new one
+   * @param workers the number of classes that may be checked at the same time, at least one
+   */
+  public FailingTestFilter(
+      TestEnvironment testEnvironment,
+      JavaFileWriter javaFileWriter,
+      boolean allowInProcess,
+      int workers) {
+    if (workers <= 0) {
+      throw new IllegalArgumentException("number of workers must be positive: " + workers);
+    }
     this.testEnvironment = testEnvironment;
     this.javaFileWriter = javaFileWriter;
+    this.inProcess = allowInProcess && !testEnvironment.requiresSubprocess();
+    this.workers = new Semaphore(workers, true);
+  }
+
+  /**
+   * Sets the cache of the commented lines of test methods that were checked before. Test methods
+   * that are in the cache have the cached lines replaced by comments and are not run, and the
+   * results of the other test methods are added to the cache. Assumes that the assertions that fail
+   * in a test method do not depend on the other test methods of its class.
+   *
+   * @param cache the cache, or null to run all test methods
+   */
+  public void setCache(FlakyTestCache cache) {
+    this.cache = cache;
   }
 
   /**
@@ -67,41 +159,147 @@ public class FailingTestFilter implements CodeWriter {
    *
    * <p>Replaces failing assertions by comments.
    *
-   * <p>Assumes output from JUnit4 {@code org.junit.runner.JUnitCore} runner used in {@link
-   * TestEnvironment}.
+   * <p>At most the number of classes given to the constructor are checked at the same time, each in
+   * its own working directory, so that a class is written the same whether or not other classes are
+   * checked concurrently. By default classes are run one at a time, so that concurrently running
+   * tests do not make each other fail.
    */
   @Override
   public File writeClassCode(String packageName, String classname, String classSource)
       throws RandoopOutputException {
+    try {
+      workers.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RandoopOutputException(
+          "Interrupted while waiting to check test class " + classname);
+    }
+    try {
+      if (cache == null) {
+        classSource =
+            removeFailingAssertions(
+                packageName, classname, classSource, Collections.<String>emptySet());
+      } else {
+        classSource = removeFailingAssertionsWithCache(packageName, classname, classSource);
+      }
+    } finally {
+      workers.release();
+    }
+    return javaFileWriter.writeClassCode(packageName, classname, classSource);
+  }
 
+  /**
+   * Replaces the cached failing lines of the test methods in the cache by comments, and runs the
+   * other test methods until they pass. The lines that are commented in those methods are added to
+   * the cache.
+   *
+   * @param packageName the package name of the test class
+   * @param classname the simple name of the test class
+   * @param classSource the source code of the test class
+   * @return the source code of the class in which failing assertions are comments
+   * @throws RandoopOutputException if the cache file cannot be written
+   */
+  private String removeFailingAssertionsWithCache(
+      String packageName, String classname, String classSource) throws RandoopOutputException {
+    String[] javaCodeLines = classSource.split(Globals.lineSep, -1);
+    List<TestMethod> methods = findTestMethods(javaCodeLines);
+
+    // The lines that are not in a test method.
+    List<String> classContext = new ArrayList<>();
+    int start = 0;
+    for (TestMethod method : methods) {
+      classContext.addAll(Arrays.asList(javaCodeLines).subList(start, method.header));
+      start = method.end;
+    }
+    classContext.addAll(Arrays.asList(javaCodeLines).subList(start, javaCodeLines.length));
+
+    Set<String> cachedMethods = new HashSet<>();
+    Map<TestMethod, String> uncachedMethods = new LinkedHashMap<>();
+    for (TestMethod method : methods) {
+      String key =
+          cache.getKey(
+              classContext, Arrays.asList(javaCodeLines).subList(method.header + 1, method.end));
+      SortedSet<Integer> offsets = cache.get(key);
+      if (offsets == null) {
+        uncachedMethods.put(method, key);
+        continue;
+      }
+      for (int offset : offsets) {
+        int i = method.header + offset;
+        if (i < method.end) {
+          javaCodeLines[i] = FLAKY_PREFIX + javaCodeLines[i];
+        }
+      }
+      cachedMethods.add(method.name);
+    }
+    classSource = UtilMDE.join(javaCodeLines, Globals.lineSep);
+    if (uncachedMethods.isEmpty() && !cachedMethods.isEmpty()) {
+      return classSource;
+    }
+
+    classSource = removeFailingAssertions(packageName, classname, classSource, cachedMethods);
+
+    String[] filteredLines = classSource.split(Globals.lineSep, -1);
+    Map<String, SortedSet<Integer>> newEntries = new LinkedHashMap<>();
+    for (Map.Entry<TestMethod, String> entry : uncachedMethods.entrySet()) {
+      TestMethod method = entry.getKey();
+      SortedSet<Integer> offsets = new TreeSet<>();
+      for (int i = method.header + 1; i < method.end; i++) {
+        if (!filteredLines[i].equals(javaCodeLines[i])) {
+          offsets.add(i - method.header);
+        }
+      }
+      newEntries.put(entry.getValue(), offsets);
+    }
+    try {
+      cache.putAll(newEntries);
+    } catch (IOException e) {
+      throw new RandoopOutputException("Unable to write flaky-test cache", e);
+    }
+    return classSource;
+  }
+
+  /**
+   * Runs a test class until it passes, replacing failing assertions by comments after each run.
+   *
+   * @param packageName the package name of the test class
+   * @param classname the simple name of the test class
+   * @param classSource the source code of the test class
+   * @param ignoredMethods the names of the test methods that are not run
+   * @return the source code of the class in which failing assertions are comments
+   */
+  private String removeFailingAssertions(
+      String packageName, String classname, String classSource, Set<String> ignoredMethods) {
     String qualifiedClassname = (packageName.isEmpty() ? "" : packageName + ".") + classname;
 
     int pass = 0; // Used to create unique working directory name.
     boolean passing = false;
 
     while (!passing) {
-      Path workingDirectory = createWorkingDirectory(classname, pass);
-
-      compileTestClass(packageName, classname, classSource, workingDirectory);
-
-      Status status;
-      try {
-        status = testEnvironment.runTest(qualifiedClassname, workingDirectory.toFile());
-      } catch (CommandException e) {
-        throw new BugInRandoopException("Error filtering regression tests", e);
+      String collectingSource = collectAssertionFailures(classname, classSource);
+      if (!ignoredMethods.isEmpty()) {
+        collectingSource = ignoreTestMethods(collectingSource, ignoredMethods);
+      }
+      TestResults results = null;
+      if (inProcess && !testEnvironment.hasRunawayTest()) {
+        results = runTestClassInProcess(packageName, classname, collectingSource);
+      }
+      if (results == null) {
+        // the class timed out in this JVM, and is run again in isolation
+        Path workingDirectory = createWorkingDirectory(classname, pass);
+        compileTestClass(packageName, classname, collectingSource, workingDirectory);
+        results = runTestClass(qualifiedClassname, workingDirectory);
+        UtilMDE.deleteDir(workingDirectory.toFile());
       }
 
-      if (status.exitStatus == 0) {
+      if (results.isEmpty()) {
         passing = true;
-      } else if (status.timedOut) {
-        throw new Error("Timed out: " + qualifiedClassname);
       } else {
-        classSource = commentFailingAssertions(packageName, classname, classSource, status);
+        classSource = commentFailingAssertions(classname, classSource, results);
       }
       pass++;
-      UtilMDE.deleteDir(workingDirectory.toFile());
     }
-    return javaFileWriter.writeClassCode(packageName, classname, classSource);
+    return classSource;
   }
 
   @Override
@@ -111,53 +309,160 @@ public class FailingTestFilter implements CodeWriter {
   }
 
   /**
-   * Comments out lines with failing assertions. Uses the failures in the {@code status} from
-   * running JUnit with {@code javaCode} to identify lines with failing assertions.
+   * Returns the source of a class in which the failure of each assertion of a test method is
+   * collected by an {@code ErrorCollector} rule, so that the method continues after the failure.
+   * The line numbers of the class are unchanged: the rule is declared on the line of the class
+   * header, and each assertion is wrapped on its own line. If the class header is not found,
+   * returns the class unchanged.
    *
-   * @param packageName the package name of the test class
    * @param classname the name of the test class
    * @param javaCode the source code for the test class, each assertion must be on its own line
-   * @param status the {@link randoop.execution.RunCommand.Status} for running the test with JUnit
-   * @return the class source edited so that failing assertions are replaced by comments
-   * @throws BugInRandoopException if {@code status} contains output for a failure not involving a
-   *     Randoop-generated test method
+   * @return the source code in which failures of assertions are collected
    */
-  private String commentFailingAssertions(
-      String packageName, String classname, String javaCode, Status status) {
-
-    /* Iterator to move through JUnit output. (JUnit only writes to standard output.) */
-    Iterator<String> lineIterator = status.standardOutputLines.iterator();
-
-    /*
-     * First, find the message that indicates the number of failures in the run.
-     */
-    Match failureCountMatch;
-    try {
-      failureCountMatch = readUntilMatch(lineIterator, FAILURE_MESSAGE_PATTERN);
-    } catch (NotMatchedException e) {
-      if (status.errorOutputLines.size() == 1) {
-        String stderr = status.errorOutputLines.get(0);
-        if (stderr.equals("Error: Could not find or load main class org.junit.runner.JUnitCore")) {
-          throw new RandoopUsageError(
-              "Classpath does not contain JUnit.  "
-                  + "Please correct the classpath and re-run Randoop.");
+  private static String collectAssertionFailures(String classname, String javaCode) {
+    String[] javaCodeLines = javaCode.split(Globals.lineSep, -1);
+    Pattern classHeaderPattern =
+        Pattern.compile("\\s*public\\s+class\\s+" + Pattern.quote(classname) + "\\b.*\\{\\s*");
+    boolean hasCollector = false;
+    boolean inTestMethod = false;
+    for (int i = 0; i < javaCodeLines.length; i++) {
+      String line = javaCodeLines[i];
+      if (!hasCollector) {
+        if (classHeaderPattern.matcher(line).matches()) {
+          javaCodeLines[i] =
+              line
+                  + " @org.junit.Rule public org.junit.rules.ErrorCollector "
+                  + COLLECTOR_NAME
+                  + " = new org.junit.rules.ErrorCollector();";
+          hasCollector = true;
         }
+        continue;
+      }
+      Matcher methodHeader = METHOD_HEADER_PATTERN.matcher(line);
+      if (methodHeader.matches()) {
+        inTestMethod =
+            methodHeader.group(1) == null
+                && methodHeader.group(2).matches(GenTests.TEST_METHOD_NAME_PREFIX + "\\d+");
+        continue;
+      }
+      String statement = line.trim();
+      if (inTestMethod && statement.startsWith(ASSERTION_PREFIX) && statement.endsWith(");")) {
+        javaCodeLines[i] =
+            line.substring(0, line.indexOf(statement))
+                + "try { "
+                + statement
+                + " } catch (java.lang.AssertionError randoopAssertionError) { "
+                + COLLECTOR_NAME
+                + ".addError(randoopAssertionError); }";
       }
-      throw new BugInRandoopException(
-          // Including javaCode is a bit too verbose.
-          // String.format("%s %s status=%s%n%s", packageName, classname, status, javaCode)
-          String.format(
-              "Did not find \"%s\" in %s.%s status=%s",
-              FAILURE_MESSAGE_PATTERN.pattern(), packageName, classname, status));
     }
-    int totalFailures = Integer.parseInt(failureCountMatch.group);
-    if (totalFailures < 0) {
-      throw new BugInRandoopException("JUnit has non-zero exit status, but no failure found");
+    return hasCollector ? UtilMDE.join(javaCodeLines, Globals.lineSep) : javaCode;
+  }
+
+  /**
+   * Returns the source of a class in which the given test methods are annotated to be ignored by
+   * JUnit. The line numbers of the class are unchanged.
+   *
+   * @param javaCode the source code for the test class
+   * @param methodNames the names of the test methods to ignore
+   * @return the source code in which the methods are ignored
+   */
+  private static String ignoreTestMethods(String javaCode, Set<String> methodNames) {
+    String[] javaCodeLines = javaCode.split(Globals.lineSep, -1);
+    for (int i = 0; i < javaCodeLines.length; i++) {
+      String line = javaCodeLines[i];
+      Matcher methodHeader = METHOD_HEADER_PATTERN.matcher(line);
+      if (methodHeader.matches() && methodNames.contains(methodHeader.group(2))) {
+        int start = line.indexOf("public");
+        javaCodeLines[i] = line.substring(0, start) + "@org.junit.Ignore " + line.substring(start);
+      }
     }
+    return UtilMDE.join(javaCodeLines, Globals.lineSep);
+  }
 
-    /*
-     * Then read the rest of the file to find each failure.
+  /**
+   * Returns the test methods of a class, in order. A test method extends from its declaration to
+   * the first line that closes a block at the indentation of the declaration, or else to the next
+   * method declaration.
+   *
+   * @param javaCodeLines the lines of the test class
+   * @return the test methods of the class
+   */
+  private static List<TestMethod> findTestMethods(String[] javaCodeLines) {
+    List<TestMethod> methods = new ArrayList<>();
+    for (int i = 0; i < javaCodeLines.length; i++) {
+      Matcher methodHeader = METHOD_HEADER_PATTERN.matcher(javaCodeLines[i]);
+      if (!methodHeader.matches()
+          || methodHeader.group(1) != null
+          || !methodHeader.group(2).matches(GenTests.TEST_METHOD_NAME_PREFIX + "\\d+")) {
+        continue;
+      }
+      String line = javaCodeLines[i];
+      String closing = line.substring(0, line.indexOf("public")) + "}";
+      int end = i + 1;
+      while (end < javaCodeLines.length
+          && !javaCodeLines[end].equals(closing)
+          && !METHOD_HEADER_PATTERN.matcher(javaCodeLines[end]).matches()) {
+        end++;
+      }
+      methods.add(new TestMethod(methodHeader.group(2), i, end));
+      i = end - 1;
+    }
+    return methods;
+  }
+
+  /** The location of a test method in the lines of its class. */
+  private static class TestMethod {
+
+    /** The name of the method. */
+    final String name;
+
+    /** The index of the line of the method declaration. */
+    final int header;
+
+    /** The index of the line after the last statement of the method. */
+    final int end;
+
+    /**
+     * Creates the location of a test method.
+     *
+     * @param name the name of the method
+     * @param header the index of the line of the method declaration
+     * @param end the index of the line after the last statement of the method
      */
+    TestMethod(String name, int header, int end) {
+      this.name = name;
+      this.header = header;
+      this.end = end;
+    }
+  }
+
+  /**
+   * Comments out lines with failing assertions, which are the lines of the failures in the {@code
+   * results} of running the test class.
+   *
+   * @param classname the name of the test class
+   * @param javaCode the source code for the test class, each assertion must be on its own line
+   * @param results the results of running the test class
+   * @return the class source edited so that failing assertions are replaced by comments
+   * @throws BugInRandoopException if there is a failure not involving a Randoop-generated test
+   *     method
+   */
+  private String commentFailingAssertions(String classname, String javaCode, TestResults results) {
+    for (String failure : results.getUnlocatedFailures()) {
+      if (failure.contains("initializationError")) {
+        throw new BugInRandoopException(
+            "Check configuration of test environment: "
+                + "initialization error of test in flaky-test filter: "
+                + failure);
+      } else {
+        throw new BugInRandoopException(
+            "Failure not located in a test method of "
+                + classname
+                + " in flaky-test filter: "
+                + failure);
+      }
+    }
 
     /*
      * Split Java code text so that we can match the line number for the assertion with the code.
@@ -165,84 +470,31 @@ public class FailingTestFilter implements CodeWriter {
      */
     String[] javaCodeLines = javaCode.split(Globals.lineSep);
 
-    for (int failureCount = 0; failureCount < totalFailures; failureCount++) {
-      /*
-       * Read until beginning of failure
-       */
-      Match failureHeaderMatch = readUntilMatch(lineIterator, FAILURE_HEADER_PATTERN);
-      String line = failureHeaderMatch.line;
-      String methodName = failureHeaderMatch.group;
-
-      /*
-       * If the method name in the failure message is not a test method, throw an exception.
-       */
+    for (Map.Entry<String, SortedSet<Integer>> entry : results.getFailingLines().entrySet()) {
+      String methodName = entry.getKey();
       if (!methodName.matches(GenTests.TEST_METHOD_NAME_PREFIX + "\\d+")) {
-        if (line.contains("initializationError")) {
-          throw new BugInRandoopException(
-              "Check configuration of test environment: "
-                  + "initialization error of test in flaky-test filter: "
-                  + line);
-        } else {
+        throw new BugInRandoopException(
+            "Bad method name " + methodName + " in flaky-test filter of " + classname);
+      }
+      for (int lineNumber : entry.getValue()) {
+        if (lineNumber > javaCodeLines.length) {
           throw new BugInRandoopException(
-              "Bad method name " + methodName + " in flaky-test filter: " + line);
+              "Line number "
+                  + lineNumber
+                  + " of failure of "
+                  + methodName
+                  + " out of range [1,"
+                  + (javaCodeLines.length + 1)
+                  + "]");
         }
+        javaCodeLines[lineNumber - 1] = FLAKY_PREFIX + javaCodeLines[lineNumber - 1];
       }
-
-      /*
-       * Search for the stacktrace entry corresponding to the test method, and capture the line
-       * number.
-       */
-      String qualifiedClassname = ((packageName.isEmpty()) ? "" : packageName + ".") + classname;
-      Pattern linePattern =
-          Pattern.compile(
-              String.format(
-                  "\\s+at\\s+%s\\.%s\\(%s\\.java:(\\d+)\\)",
-                  qualifiedClassname, methodName, classname));
-
-      Match failureLineMatch = readUntilMatch(lineIterator, linePattern);
-      int lineNumber = Integer.parseInt(failureLineMatch.group);
-      if (lineNumber < 1 || lineNumber > javaCodeLines.length) {
-        throw new BugInRandoopException(
-            "Line number "
-                + lineNumber
-                + " read from JUnit out of range [1,"
-                + (javaCodeLines.length + 1)
-                + "]: "
-                + failureLineMatch.line);
-      }
-      javaCodeLines[lineNumber - 1] = "// flaky: " + javaCodeLines[lineNumber - 1];
     }
 
     // XXX For efficiency, have this method return the array and redo writeClass so that it writes from array (?).
     return UtilMDE.join(javaCodeLines, Globals.lineSep);
   }
 
-  /**
-   * Reads lines of the JUnit output using the iterator until finding a match for the pattern, and
-   * then returns a pair containing the line and the text matching the first group of the pattern.
-   * Assumes that there is a match, and that the pattern has at least one group.
-   *
-   * @param lineIterator the iterator for reading from the JUnit output
-   * @param pattern the pattern for a regex with at least one group
-   * @return the pair containing the line and the text matching the first group
-   * @throws BugInRandoopException if the iterator has no more lines, but the pattern hasn't been
-   *     matched
-   */
-  private Match readUntilMatch(Iterator<String> lineIterator, Pattern pattern) {
-    while (lineIterator.hasNext()) {
-      String line = lineIterator.next();
-      Matcher matcher = pattern.matcher(line);
-      if (matcher.matches()) {
-        return new Match(line, matcher.group(1));
-      }
-    }
-    throw new NotMatchedException();
-  }
-
-  private static class NotMatchedException extends RuntimeException {
-    private static final long serialVersionUID = 20171024;
-  }
-
   /**
    * Compiles the Java files in the list of files and writes the resulting class files to the
    * directory.
@@ -259,7 +511,9 @@ public class FailingTestFilter implements CodeWriter {
     // which will compile from source, once it is able to write the class file to disk.
     List<File> sourceFiles = new ArrayList<>();
     try {
-      sourceFiles.add(javaFileWriter.writeClassCode(packageName, classname, classSource));
+      // The source is written to the working directory, since it is not the class that is output.
+      JavaFileWriter sourceWriter = new JavaFileWriter(destinationDir.toString());
+      sourceFiles.add(sourceWriter.writeClassCode(packageName, classname, classSource));
     } catch (RandoopOutputException e) {
       throw new BugInRandoopException("Output error during flaky-test filtering", e);
     }
@@ -275,6 +529,87 @@ public class FailingTestFilter implements CodeWriter {
     }
   }
 
+  /**
+   * Runs the compiled test class in a new JVM, and reads the results that it writes.
+   *
+   * @param qualifiedClassname the fully-qualified name of the test class
+   * @param workingDirectory the working directory, which contains the compiled test class
+   * @return the results of running the test class
+   * @throws BugInRandoopException if the tests cannot be run or do not write their results
+   */
+  private TestResults runTestClass(String qualifiedClassname, Path workingDirectory) {
+    File resultsFile = workingDirectory.resolve(RESULTS_FILE_NAME).toFile();
+    Status status;
+    try {
+      status = testEnvironment.runTest(qualifiedClassname, workingDirectory.toFile(), resultsFile);
+    } catch (CommandException e) {
+      throw new BugInRandoopException("Error filtering regression tests", e);
+    }
+    if (status.timedOut) {
+      throw new Error("Timed out: " + qualifiedClassname);
+    }
+    if (!resultsFile.exists()) {
+      for (String stderr : status.errorOutputLines) {
+        if (stderr.contains("NoClassDefFoundError: org/junit/")) {
+          throw new RandoopUsageError(
+              "Classpath does not contain JUnit.  "
+                  + "Please correct the classpath and re-run Randoop.");
+        }
+      }
+      throw new BugInRandoopException(
+          String.format("Did not find test results of %s status=%s", qualifiedClassname, status));
+    }
+    try {
+      return TestResults.read(resultsFile);
+    } catch (IOException e) {
+      throw new BugInRandoopException("Error reading results of " + qualifiedClassname, e);
+    }
+  }
+
+  /**
+   * Compiles the test class in memory, loads it with a new class loader, and runs it in this JVM.
+   * Assertions are enabled in the test class, as in a test run by a new JVM.
+   *
+   * @param packageName the package name for the test class
+   * @param classname the name of the test class
+   * @param classSource the text of the test class
+   * @return the results of running the test class, or null if it timed out
+   * @throws BugInRandoopException if the class does not compile or cannot be loaded
+   */
+  private TestResults runTestClassInProcess(
+      String packageName, String classname, String classSource) {
+    String qualifiedClassname = (packageName.isEmpty() ? "" : packageName + ".") + classname;
+    String compilerPackageName = packageName.isEmpty() ? null : packageName;
+    SequenceClassLoader classLoader = new SequenceClassLoader(getClass().getClassLoader());
+    classLoader.setDefaultAssertionStatus(true);
+    List<String> options = new ArrayList<>();
+    // line numbers are needed to locate the failing assertions:
+    options.add("-g:source,lines");
+    options.add("-proc:none");
+    options.add("-Xlint:none");
+    SequenceCompiler compiler = new SequenceCompiler(classLoader, options);
+    Class<?> testClass;
+    try {
+      compiler.compile(compilerPackageName, classname, classSource);
+      testClass = compiler.loadClass(compilerPackageName, classname);
+    } catch (SequenceCompilerException e) {
+      throw new BugInRandoopException(
+          String.format(
+              "Compilation error during flaky-test filtering of %s: code = %n%s",
+              qualifiedClassname, classSource),
+          e);
+    } catch (ClassNotFoundException e) {
+      throw new BugInRandoopException(
+          "Cannot load class " + qualifiedClassname + " during flaky-test filtering", e);
+    }
+
+    try {
+      return testEnvironment.runTestInProcess(testClass);
+    } catch (TimeoutException e) {
+      return null;
+    }
+  }
+
   /**
    * Creates a temporary directory by concatenating the class name and a pass count to form the
    * directory name.
@@ -296,25 +631,4 @@ public class FailingTestFilter implements CodeWriter {
       throw new Error("unreachable statement");
     }
   }
-
-  /** The line and first group from the match of a {@code Pattern}. */
-  private static class Match {
-
-    /** The line that matched the pattern. */
-    final String line;
-
-    /** The substring that matched the group. */
-    final String group;
-
-    /**
-     * Creates a {@link Match} record with the given line and group.
-     *
-     * @param line the matched line
-     * @param group the matched group substring
-     */
-    Match(String line, String group) {
-      this.line = line;
-      this.group = group;
-    }
-  }
 }
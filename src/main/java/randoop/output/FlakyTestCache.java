@@ -0,0 +1,163 @@
+package randoop.output;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import randoop.Globals;
+import randoop.util.Digests;
+
+/**
+ * An on-disk cache of the results of flaky-test filtering. The cache maps a key for a test method
+ * to the lines of the method that {@link FailingTestFilter} replaced by comments, as offsets from
+ * the line of the method declaration. A method with no such lines is cached with the empty set.
+ *
+ * <p>The key of a method is a digest of the statements of the method, of the rest of its class
+ * other than the test methods, and of the classpath on which the tests are run and the version of
+ * Java. A digest of a classpath covers the contents of its jar files and of the class files and jar
+ * files in its directories, so that the cached results are not used after the classes under test
+ * change. The cache file and the directory of the generated tests are not part of the digest.
+ *
+ * <p>The cache file is a text file with a line for each method: the key, a tab, and the offsets
+ * separated by commas. New entries are appended to the file, so it can be shared by runs on
+ * different classpaths. Malformed lines are ignored.
+ */
+public class FlakyTestCache {
+
+  /** The cache file. */
+  private final File file;
+
+  /** The digest of the classpath and the Java version, which is part of each key. */
+  private final String classpathDigest;
+
+  /** The offsets of the commented lines of each method, by key. */
+  private final Map<String, SortedSet<Integer>> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a cache that reads and extends the given file, for tests run on the given classpath.
+   * The file is created when the first entry is added.
+   *
+   * @param file the cache file
+   * @param classpath the classpath on which the test classes are run
+   * @param testDirectory the directory to which the test classes are written, or null
+   * @throws IOException if the file or an element of the classpath cannot be read
+   */
+  public FlakyTestCache(File file, String classpath, File testDirectory) throws IOException {
+    this.file = file;
+    List<File> excluded = new ArrayList<>();
+    excluded.add(file);
+    if (testDirectory != null) {
+      excluded.add(testDirectory);
+    }
+    this.classpathDigest = Digests.digestClasspath(classpath, excluded);
+    if (file.exists()) {
+      read();
+    }
+  }
+
+  /**
+   * Returns the key of a test method.
+   *
+   * @param classContext the lines of the test class that are not in a test method
+   * @param methodBody the lines of the method after its declaration
+   * @return the key for the method
+   */
+  String getKey(List<String> classContext, List<String> methodBody) {
+    MessageDigest digest = Digests.newDigest();
+    Digests.update(digest, classpathDigest);
+    for (String line : classContext) {
+      Digests.update(digest, line);
+    }
+    // Separates the context from the method body.
+    digest.update((byte) 0);
+    for (String line : methodBody) {
+      Digests.update(digest, line);
+    }
+    return Digests.toHex(digest.digest());
+  }
+
+  /**
+   * Returns the cached offsets of the commented lines of a test method.
+   *
+   * @param key the key of the method
+   * @return the offsets of the commented lines from the method declaration, or null if the method
+   *     is not in the cache
+   */
+  SortedSet<Integer> get(String key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Adds entries to the cache, and appends them to the cache file.
+   *
+   * @param newEntries the offsets of the commented lines of methods, by key
+   * @throws IOException if the cache file cannot be written
+   */
+  synchronized void putAll(Map<String, SortedSet<Integer>> newEntries) throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (Map.Entry<String, SortedSet<Integer>> entry : newEntries.entrySet()) {
+      if (entries.containsKey(entry.getKey())) {
+        continue;
+      }
+      entries.put(entry.getKey(), Collections.unmodifiableSortedSet(entry.getValue()));
+      text.append(entry.getKey()).append('\t');
+      String separator = "";
+      for (int offset : entry.getValue()) {
+        text.append(separator).append(offset);
+        separator = ",";
+      }
+      text.append(Globals.lineSep);
+    }
+    if (text.length() == 0) {
+      return;
+    }
+    try (Writer out =
+        new OutputStreamWriter(
+            Files.newOutputStream(
+                file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+            UTF_8)) {
+      out.write(text.toString());
+    }
+  }
+
+  /**
+   * Reads the entries of the cache file.
+   *
+   * @throws IOException if the file cannot be read
+   */
+  private void read() throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(file.toPath(), UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) {
+          continue;
+        }
+        SortedSet<Integer> offsets = new TreeSet<>();
+        try {
+          for (String offset : line.substring(tab + 1).split(",")) {
+            if (!offset.isEmpty()) {
+              offsets.add(Integer.parseInt(offset));
+            }
+          }
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        entries.put(line.substring(0, tab), Collections.unmodifiableSortedSet(offsets));
+      }
+    }
+  }
+}
@@ -42,10 +42,10 @@ import com.github.javaparser.ast.type.VoidType;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import randoop.BugInRandoopException;
 import randoop.Globals;
 import randoop.sequence.ExecutableSequence;
@@ -58,7 +58,7 @@ public class JUnitCreator {
   /**
    * classMethodCounts maps test class names to the number of methods in each class. This is used to
    * generate lists of method names for a class, since current convention is that a test method is
-   * named "test"+i for some integer i.
+   * named "test"+i for some integer i. Concurrent, since test classes may be created in parallel.
    */
   private Map<String, Integer> classMethodCounts;
 
@@ -74,6 +74,12 @@ public class JUnitCreator {
   /** The Java text for AfterEach method of generated test class. */
   private BlockStmt afterEachBody = null;
 
+  /**
+   * The emitter for the source text of test classes, or null if the source text is printed from
+   * abstract syntax trees. See {@link #useTemplateEmitter(boolean)}.
+   */
+  private JUnitTemplateEmitter templateEmitter = null;
+
   /** The JUnit annotation for the BeforeAll option */
   private static final String BEFORE_ALL = "BeforeClass";
 
@@ -122,7 +128,7 @@ public class JUnitCreator {
 
   private JUnitCreator(String packageName) {
     this.packageName = packageName;
-    this.classMethodCounts = new LinkedHashMap<>();
+    this.classMethodCounts = new ConcurrentHashMap<>();
   }
 
   /**
@@ -161,6 +167,64 @@ public class JUnitCreator {
     this.afterEachBody = text;
   }
 
+  /**
+   * Makes {@link #createTestClassSource(String, String, List)} write the source text of test
+   * classes from text templates, instead of printing the abstract syntax tree built by {@link
+   * #createTestClass(String, String, List)}. The text has the same syntax tree, but the code of the
+   * tests is not reformatted.
+   *
+   * @param checkSyntax whether to parse the code of each test, and omit tests with lexical errors
+   *     as {@link #createTestClass(String, String, List)} does
+   */
+  public void useTemplateEmitter(boolean checkSyntax) {
+    StringBuilder header = new StringBuilder();
+    if (packageName != null && !packageName.isEmpty()) {
+      header.append(new PackageDeclaration(new NameExpr(packageName)).toString());
+    }
+    List<ImportDeclaration> imports = createImports();
+    for (ImportDeclaration importDeclaration : imports) {
+      header.append(importDeclaration.toString());
+    }
+    if (!imports.isEmpty()) {
+      header.append(Globals.lineSep);
+    }
+    List<String> fixtures = new ArrayList<>();
+    for (MethodDeclaration fixture : createFixtures()) {
+      fixtures.add(fixture.toString());
+    }
+    this.templateEmitter = new JUnitTemplateEmitter(header.toString(), fixtures, checkSyntax);
+  }
+
+  /**
+   * Returns the package name of the test classes.
+   *
+   * @return the package name of the test classes, null if they are in the default package
+   */
+  public String getPackageName() {
+    return packageName == null || packageName.isEmpty() ? null : packageName;
+  }
+
+  /**
+   * Creates the source text of a JUnit test class for the given sequences. Uses templates if {@link
+   * #useTemplateEmitter(boolean)} has been called, and otherwise prints the abstract syntax tree
+   * created by {@link #createTestClass(String, String, List)}.
+   *
+   * @param testClassName the name of the test class
+   * @param testMethodPrefix the prefix of the test method names
+   * @param sequences the sequences for the test methods
+   * @return the source text of the test class
+   */
+  public String createTestClassSource(
+      String testClassName, String testMethodPrefix, List<ExecutableSequence> sequences) {
+    if (templateEmitter == null) {
+      return createTestClass(testClassName, testMethodPrefix, sequences).toString();
+    }
+    this.classMethodCounts.put(testClassName, sequences.size());
+    StringBuilder source = new StringBuilder();
+    templateEmitter.emitTestClass(source, testClassName, testMethodPrefix, sequences);
+    return source.toString();
+  }
+
   public CompilationUnit createTestClass(
       String testClassName, String testMethodPrefix, List<ExecutableSequence> sequences) {
     this.classMethodCounts.put(testClassName, sequences.size());
@@ -169,25 +233,7 @@ public class JUnitCreator {
     if (packageName != null && !packageName.isEmpty()) {
       compilationUnit.setPackage(new PackageDeclaration(new NameExpr(packageName)));
     }
-
-    List<ImportDeclaration> imports = new ArrayList<>();
-    if (afterEachBody != null) {
-      imports.add(new ImportDeclaration(new NameExpr("org.junit.After"), false, false));
-    }
-    if (afterAllBody != null) {
-      imports.add(new ImportDeclaration(new NameExpr("org.junit.AfterClass"), false, false));
-    }
-    if (beforeEachBody != null) {
-      imports.add(new ImportDeclaration(new NameExpr("org.junit.Before"), false, false));
-    }
-    if (beforeAllBody != null) {
-      imports.add(new ImportDeclaration(new NameExpr("org.junit.BeforeClass"), false, false));
-    }
-    imports.add(new ImportDeclaration(new NameExpr("org.junit.FixMethodOrder"), false, false));
-    imports.add(new ImportDeclaration(new NameExpr("org.junit.Test"), false, false));
-    imports.add(
-        new ImportDeclaration(new NameExpr("org.junit.runners.MethodSorters"), false, false));
-    compilationUnit.setImports(imports);
+    compilationUnit.setImports(createImports());
 
     // class declaration
     ClassOrInterfaceDeclaration classDeclaration =
@@ -208,7 +254,57 @@ public class JUnitCreator {
             new PrimitiveType(PrimitiveType.Primitive.Boolean),
             debugVariable);
     bodyDeclarations.add(debugField);
+    bodyDeclarations.addAll(createFixtures());
+
+    NameGenerator methodNameGen =
+        new NameGenerator(testMethodPrefix, 1, numDigits(sequences.size()));
+    for (ExecutableSequence eseq : sequences) {
+      MethodDeclaration testMethod = createTestMethod(testClassName, methodNameGen.next(), eseq);
+      if (testMethod != null) {
+        bodyDeclarations.add(testMethod);
+      }
+    }
+    classDeclaration.setMembers(bodyDeclarations);
+    List<TypeDeclaration> types = new ArrayList<>();
+    types.add(classDeclaration);
+    compilationUnit.setTypes(types);
 
+    return compilationUnit;
+  }
+
+  /**
+   * Creates the import declarations for a test class.
+   *
+   * @return the import declarations for a test class
+   */
+  private List<ImportDeclaration> createImports() {
+    List<ImportDeclaration> imports = new ArrayList<>();
+    if (afterEachBody != null) {
+      imports.add(new ImportDeclaration(new NameExpr("org.junit.After"), false, false));
+    }
+    if (afterAllBody != null) {
+      imports.add(new ImportDeclaration(new NameExpr("org.junit.AfterClass"), false, false));
+    }
+    if (beforeEachBody != null) {
+      imports.add(new ImportDeclaration(new NameExpr("org.junit.Before"), false, false));
+    }
+    if (beforeAllBody != null) {
+      imports.add(new ImportDeclaration(new NameExpr("org.junit.BeforeClass"), false, false));
+    }
+    imports.add(new ImportDeclaration(new NameExpr("org.junit.FixMethodOrder"), false, false));
+    imports.add(new ImportDeclaration(new NameExpr("org.junit.Test"), false, false));
+    imports.add(
+        new ImportDeclaration(new NameExpr("org.junit.runners.MethodSorters"), false, false));
+    return imports;
+  }
+
+  /**
+   * Creates the fixture methods for a test class.
+   *
+   * @return the fixture method declarations
+   */
+  private List<MethodDeclaration> createFixtures() {
+    List<MethodDeclaration> bodyDeclarations = new ArrayList<>();
     if (beforeAllBody != null) {
       MethodDeclaration fixture =
           createFixture(
@@ -239,21 +335,7 @@ public class JUnitCreator {
         bodyDeclarations.add(fixture);
       }
     }
-
-    NameGenerator methodNameGen =
-        new NameGenerator(testMethodPrefix, 1, numDigits(sequences.size()));
-    for (ExecutableSequence eseq : sequences) {
-      MethodDeclaration testMethod = createTestMethod(testClassName, methodNameGen.next(), eseq);
-      if (testMethod != null) {
-        bodyDeclarations.add(testMethod);
-      }
-    }
-    classDeclaration.setMembers(bodyDeclarations);
-    List<TypeDeclaration> types = new ArrayList<>();
-    types.add(classDeclaration);
-    compilationUnit.setTypes(types);
-
-    return compilationUnit;
+    return bodyDeclarations;
   }
 
   /**
@@ -324,7 +406,9 @@ public class JUnitCreator {
     List<AnnotationExpr> annotations = new ArrayList<>();
     annotations.add(new MarkerAnnotationExpr(new NameExpr(annotation)));
     method.setAnnotations(annotations);
-    method.setBody(body);
+    // Use a copy, since setting the body changes its parent, and the fixture is shared by all test
+    // classes, which may be created concurrently.
+    method.setBody((BlockStmt) body.clone());
     return method;
   }
 
@@ -0,0 +1,177 @@
+package randoop.output;
+
+import static randoop.output.NameGenerator.numDigits;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseException;
+import com.github.javaparser.TokenMgrError;
+import java.util.List;
+import randoop.BugInRandoopException;
+import randoop.Globals;
+import randoop.sequence.ExecutableSequence;
+
+/**
+ * Writes the source text of a JUnit test class without building an abstract syntax tree for the
+ * class. The declarations are the same as those printed from the tree created by {@link
+ * JUnitCreator#createTestClass(String, String, java.util.List)}, and the text has the same syntax
+ * tree.
+ *
+ * <p>The package declaration, imports and fixture methods are printed once, when the emitter is
+ * created. The class and test method declarations are written from templates. The code of a test
+ * sequence (see {@link ExecutableSequence#toCodeLines()}) is written as it is rendered, indented as
+ * the body of the test method. It is not reformatted as javaparser would print it, so the spacing
+ * within a statement may differ from that of the tree. If the emitter checks syntax, the code of
+ * each test is also parsed, and a test whose code has a lexical error is omitted, as from the tree.
+ *
+ * <p>An emitter may be used by several threads at once.
+ */
+final class JUnitTemplateEmitter {
+
+  /** The line separator used by javaparser when printing. */
+  private static final String EOL = Globals.lineSep;
+
+  /** The indentation for each nesting level, as printed by javaparser. */
+  private static final String INDENT = "    ";
+
+  /** The package declaration and imports. */
+  private final String header;
+
+  /** The debug field and fixture methods, indented as members of the class. */
+  private final String fixtures;
+
+  /** Whether to parse the code of each test before it is written. */
+  private final boolean checkSyntax;
+
+  /**
+   * Creates an emitter for test classes with the given header and fixtures.
+   *
+   * @param header the printed package declaration and imports, including the blank line after them
+   * @param fixtureMethods the printed fixture method declarations
+   * @param checkSyntax whether to parse the code of each test before it is written, which is slower
+   */
+  JUnitTemplateEmitter(String header, List<String> fixtureMethods, boolean checkSyntax) {
+    this.header = header;
+    this.checkSyntax = checkSyntax;
+    StringBuilder members = new StringBuilder();
+    members.append(EOL).append(INDENT).append("public static boolean debug = false;").append(EOL);
+    for (String fixture : fixtureMethods) {
+      members.append(EOL);
+      appendIndented(members, fixture, INDENT);
+      members.append(EOL);
+    }
+    this.fixtures = members.toString();
+  }
+
+  /**
+   * Writes the source text of a test class for the given sequences.
+   *
+   * @param out the destination for the text
+   * @param testClassName the name of the test class
+   * @param testMethodPrefix the prefix of the test method names
+   * @param sequences the sequences for the test methods
+   */
+  void emitTestClass(
+      StringBuilder out,
+      String testClassName,
+      String testMethodPrefix,
+      List<ExecutableSequence> sequences) {
+    out.append(header);
+    out.append("@FixMethodOrder(MethodSorters.NAME_ASCENDING)").append(EOL);
+    out.append("public class ").append(testClassName).append(" {").append(EOL);
+    out.append(fixtures);
+
+    NameGenerator methodNameGen =
+        new NameGenerator(testMethodPrefix, 1, numDigits(sequences.size()));
+    StringBuilder method = new StringBuilder();
+    for (ExecutableSequence eseq : sequences) {
+      method.setLength(0);
+      if (appendTestMethod(method, testClassName, methodNameGen.next(), eseq)) {
+        out.append(EOL).append(method).append(EOL);
+      }
+    }
+    out.append("}").append(EOL);
+  }
+
+  /**
+   * Appends the declaration of the test method for the sequence, indented as a member of the class.
+   * Behaves like {@link JUnitCreator#createTestMethod}, which creates the tree for the method.
+   *
+   * @param method the destination for the text
+   * @param className the name of the test class
+   * @param methodName the name of the test method
+   * @param testSequence the test sequence
+   * @return true if the method was written, false if syntax is checked and the code of the sequence
+   *     has a lexical error
+   */
+  private boolean appendTestMethod(
+      StringBuilder method, String className, String methodName, ExecutableSequence testSequence) {
+    String bodyIndent = INDENT + INDENT;
+    method.append(INDENT).append("@Test").append(EOL);
+    method.append(INDENT).append("public void ").append(methodName);
+    method.append("() throws Throwable {").append(EOL);
+    method.append(bodyIndent).append("if (debug)").append(EOL);
+    method.append(bodyIndent).append(INDENT).append("System.out.format(\"%n%s%n\", \"");
+    method.append(className).append('.').append(methodName).append("\");").append(EOL);
+    if (checkSyntax && !isParsable(className, methodName, testSequence)) {
+      return false;
+    }
+    for (String line : testSequence.toCodeLines()) {
+      appendIndented(method, line, bodyIndent);
+      if (!line.endsWith(EOL)) {
+        method.append(EOL);
+      }
+    }
+    method.append(INDENT).append("}");
+    return true;
+  }
+
+  /**
+   * Parses the code of the test sequence as a block, as {@link JUnitCreator#createTestMethod} does.
+   *
+   * @param className the name of the test class
+   * @param methodName the name of the test method
+   * @param testSequence the test sequence
+   * @return true if the code parses, false if it has a lexical error
+   * @throws BugInRandoopException if the code has a parse error
+   */
+  private static boolean isParsable(
+      String className, String methodName, ExecutableSequence testSequence) {
+    String sequenceBlockString = "{ " + testSequence.toCodeString() + " }";
+    try {
+      JavaParser.parseBlock(sequenceBlockString);
+    } catch (ParseException e) {
+      System.out.println(
+          "Parse error while creating test method " + className + "." + methodName + " for block ");
+      System.out.println(sequenceBlockString);
+      throw new BugInRandoopException("Parse error while creating test method", e);
+    } catch (TokenMgrError e) {
+      System.out.println(
+          "Lexical error while creating test method " + className + "." + methodName);
+      System.out.println("Exception: " + e.getMessage());
+      System.out.println(sequenceBlockString);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Appends the text with each non-empty line indented. The printer used by javaparser does not
+   * indent empty lines, so this gives the same text as printing at a deeper nesting level.
+   *
+   * @param b the destination for the text
+   * @param text the text, with lines separated by {@link Globals#lineSep}
+   * @param indent the indentation to add to each non-empty line
+   */
+  private static void appendIndented(StringBuilder b, String text, String indent) {
+    int start = 0;
+    while (start < text.length()) {
+      int end = text.indexOf(EOL, start);
+      int next = (end < 0) ? text.length() : end + EOL.length();
+      if (end != start) {
+        b.append(indent);
+      }
+      b.append(text, start, next);
+      start = next;
+    }
+  }
+}
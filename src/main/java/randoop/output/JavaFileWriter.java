@@ -65,7 +65,8 @@ public class JavaFileWriter implements CodeWriter {
   private File createOutputDir(String packageName) throws RandoopOutputException {
     File dir = getDir(packageName);
     if (!dir.exists()) {
-      boolean success = dir.mkdirs();
+      // Another thread may create the directory at the same time.
+      boolean success = dir.mkdirs() || dir.isDirectory();
       if (!success) {
         throw new RandoopOutputException("Unable to create directory: " + dir.getAbsolutePath());
       }
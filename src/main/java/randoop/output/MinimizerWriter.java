@@ -26,10 +26,11 @@ public class MinimizerWriter implements CodeWriter {
   /**
    * {@inheritDoc}
    *
-   * <p>Writes both the original class and the minimized class. Returns the original class.
+   * <p>Writes both the original class and the minimized class. Returns the original class. Classes
+   * are minimized one at a time, since minimization runs the tests.
    */
   @Override
-  public File writeClassCode(String packageName, String classname, String classCode)
+  public synchronized File writeClassCode(String packageName, String classname, String classCode)
       throws RandoopOutputException {
 
     // Write the original class.
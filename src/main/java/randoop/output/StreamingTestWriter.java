@@ -0,0 +1,237 @@
+package randoop.output;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import randoop.BugInRandoopException;
+import randoop.sequence.ExecutableSequence;
+
+/**
+ * Writes JUnit test classes while the tests are still being generated. Test sequences are added as
+ * they are generated, and each time there are enough sequences for a test class, the class is
+ * created with a {@link JUnitCreator} and written with a {@link CodeWriter} by a task on the given
+ * executor. The sequences are not held once their class has been written. The suite or driver class
+ * is written by {@link #finish()}.
+ *
+ * <p>Test classes are named and filled exactly as when all sequences are written at once: the
+ * classes are numbered from 0 with the basename as prefix, and each class except the last has the
+ * given number of tests.
+ *
+ * <p>If the executor runs tasks concurrently, test classes are created and written in parallel. The
+ * files are the same as when the classes are written one at a time.
+ */
+public class StreamingTestWriter {
+
+  /**
+   * Carries a {@link RandoopOutputException} out of a write task, since a {@link Callable} may only
+   * throw an {@link Exception}.
+   */
+  private static class WriteException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    WriteException(RandoopOutputException cause) {
+      super(cause);
+    }
+  }
+
+  /** The creator for the test classes, used only on the executor */
+  private final JUnitCreator junitCreator;
+
+  /** The writer for the test classes, used only on the executor */
+  private final CodeWriter codeWriter;
+
+  /** The executor that creates and writes the test classes */
+  private final ExecutorService executor;
+
+  /** The package of the test classes */
+  private final String packageName;
+
+  /** The prefix of the test class names */
+  private final String basename;
+
+  /** The prefix of the test method names */
+  private final String methodPrefix;
+
+  /** The number of tests in each test class */
+  private final int testsPerFile;
+
+  /** Whether to write a JUnit suite, rather than a test driver with a main method */
+  private final boolean junitReflectionAllowed;
+
+  /** The sequences that have not been given to a test class yet */
+  private List<ExecutableSequence> pending = new ArrayList<>();
+
+  /** The names of the test classes, in order */
+  private final Set<String> classNames = new LinkedHashSet<>();
+
+  /** The pending and completed writes, in the order the files were created */
+  private final List<Future<File>> writes = new ArrayList<>();
+
+  /** The number of test sequences added */
+  private int testCount = 0;
+
+  /**
+   * Creates a writer for test classes.
+   *
+   * @param junitCreator the creator for the test classes
+   * @param codeWriter the writer for the test classes
+   * @param executor the executor that creates and writes the test classes
+   * @param packageName the package of the test classes
+   * @param basename the prefix of the test class names
+   * @param methodPrefix the prefix of the test method names
+   * @param testsPerFile the number of tests in each test class
+   * @param junitReflectionAllowed if true, a JUnit suite is written, otherwise a test driver
+   */
+  public StreamingTestWriter(
+      JUnitCreator junitCreator,
+      CodeWriter codeWriter,
+      ExecutorService executor,
+      String packageName,
+      String basename,
+      String methodPrefix,
+      int testsPerFile,
+      boolean junitReflectionAllowed) {
+    if (testsPerFile <= 0) {
+      throw new IllegalArgumentException("testsPerFile must be positive: " + testsPerFile);
+    }
+    this.junitCreator = junitCreator;
+    this.codeWriter = codeWriter;
+    this.executor = executor;
+    this.packageName = packageName;
+    this.basename = basename;
+    this.methodPrefix = methodPrefix;
+    this.testsPerFile = testsPerFile;
+    this.junitReflectionAllowed = junitReflectionAllowed;
+  }
+
+  /**
+   * Adds test sequences, and starts writing each test class that is full.
+   *
+   * @param sequences the test sequences to add
+   */
+  public void add(List<ExecutableSequence> sequences) {
+    for (ExecutableSequence sequence : sequences) {
+      pending.add(sequence);
+      testCount++;
+      if (pending.size() == testsPerFile) {
+        writeTestClass();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of test sequences that have been added.
+   *
+   * @return the number of test sequences added
+   */
+  public int getTestCount() {
+    return testCount;
+  }
+
+  /**
+   * Writes the remaining sequences and the suite or driver class, and waits until all classes have
+   * been written. Writes nothing more if no sequences were added.
+   *
+   * @return the files written, in the order they were created
+   * @throws RandoopOutputException if there is an error while writing a class
+   */
+  public List<File> finish() throws RandoopOutputException {
+    if (!pending.isEmpty()) {
+      writeTestClass();
+    }
+    List<File> files = waitForWrites();
+    // The driver uses the test classes created by the junitCreator, so it is written last.
+    if (testCount > 0) {
+      writeDriver();
+      files.addAll(waitForWrites());
+    }
+    return files;
+  }
+
+  /**
+   * Waits until the writes that have been started are complete.
+   *
+   * @return the files written, in the order they were created
+   * @throws RandoopOutputException if there is an error while writing a class
+   */
+  private List<File> waitForWrites() throws RandoopOutputException {
+    List<File> files = new ArrayList<>();
+    for (Future<File> write : writes) {
+      try {
+        files.add(write.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new BugInRandoopException("Interrupted while writing test classes", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof WriteException) {
+          throw (RandoopOutputException) cause.getCause();
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new BugInRandoopException("Error while writing test classes", cause);
+      }
+    }
+    writes.clear();
+    return files;
+  }
+
+  /** Starts writing a test class for the pending sequences. */
+  private void writeTestClass() {
+    final String className = basename + classNames.size();
+    final List<ExecutableSequence> sequences = pending;
+    classNames.add(className);
+    pending = new ArrayList<>();
+    writes.add(
+        executor.submit(
+            new Callable<File>() {
+              @Override
+              public File call() throws WriteException {
+                String classSource =
+                    junitCreator.createTestClassSource(className, methodPrefix, sequences);
+                try {
+                  return codeWriter.writeClassCode(packageName, className, classSource);
+                } catch (RandoopOutputException e) {
+                  throw new WriteException(e);
+                }
+              }
+            }));
+  }
+
+  /** Starts writing the suite or driver class for the test classes. */
+  private void writeDriver() {
+    final Set<String> testClassNames = new LinkedHashSet<>(classNames);
+    writes.add(
+        executor.submit(
+            new Callable<File>() {
+              @Override
+              public File call() throws WriteException {
+                String driverName;
+                String classSource;
+                if (junitReflectionAllowed) {
+                  driverName = basename;
+                  classSource = junitCreator.createTestSuite(driverName, testClassNames);
+                } else {
+                  driverName = basename + "Driver";
+                  classSource = junitCreator.createTestDriver(driverName, testClassNames);
+                }
+                try {
+                  return codeWriter.writeUnmodifiedClassCode(packageName, driverName, classSource);
+                } catch (RandoopOutputException e) {
+                  throw new WriteException(e);
+                }
+              }
+            }));
+  }
+}
@@ -0,0 +1,337 @@
+package randoop.output;
+
+import java.util.ArrayList;
+import java.util.List;
+import randoop.operation.ArrayCreation;
+import randoop.operation.NonreceiverTerm;
+import randoop.operation.OperationParseException;
+import randoop.operation.OperationParser;
+import randoop.operation.TypedClassOperation;
+import randoop.operation.TypedClassOperationWithCast;
+import randoop.operation.TypedOperation;
+import randoop.test.Check;
+import randoop.test.TestChecks;
+import randoop.types.ArrayType;
+import randoop.types.ClassOrInterfaceType;
+import randoop.types.GenericClassType;
+import randoop.types.InstantiatedType;
+import randoop.types.NonParameterizedType;
+import randoop.types.ReferenceArgument;
+import randoop.types.ReferenceType;
+import randoop.types.Type;
+import randoop.types.TypeArgument;
+import randoop.types.TypeTuple;
+
+/**
+ * Constants and encodings shared by {@link TestCorpusWriter} and {@link TestCorpusReader}.
+ *
+ * <p>A test corpus file has the following layout. All integers are big-endian, and a "varint" is an
+ * unsigned integer written 7 bits at a time, low bits first, with the high bit of each byte set if
+ * more bytes follow.
+ *
+ * <pre>
+ *   header:     int MAGIC, int VERSION, byte flags, varint (visibility package string + 1),
+ *               varint observer count, varint observer operation ...
+ *   records:    one per test, see below
+ *   strings:    varint count, int offset of each string and of the end of the last string,
+ *               UTF-8 bytes of each string
+ *   operations: varint count, operation ...
+ *   index:      long offset of each record
+ *   trailer:    long offset of strings, long offset of index, int record count, int MAGIC
+ * </pre>
+ *
+ * An operation is a byte kind, the varint index of the string given to {@link
+ * OperationParser#parse(String)}, the varint number of types and the varint string index of each
+ * type. The types of a class operation are its declaring type, input types and output type; the
+ * type of a null initialization or an array creation is its output type. An empty string stands for
+ * the type of the parsed operation at the same position, for a type that cannot be written as text.
+ * A record is the varint number of statements, then for each statement the varint operation index,
+ * the varint number of inputs and, for each input, the varint distance back to the statement that
+ * declares it; then the varint number of checks and the varint string index of the code of each
+ * check.
+ *
+ * <p>Operations, types and checks are stored once in the tables, so that a record is a short list
+ * of small numbers. The offsets of the strings are relative to the first string, so that a reader
+ * can decode a string when it is used without reading the strings before it.
+ */
+final class TestCorpusFormat {
+
+  /** The first and last int of a test corpus file: "RNDC" in ASCII. */
+  static final int MAGIC = 0x524e4443;
+
+  /** The version of the format. */
+  static final int VERSION = 2;
+
+  /** The number of bytes in the trailer. */
+  static final int TRAILER_SIZE = 8 + 8 + 4 + 4;
+
+  /** The flag for a corpus whose regression tests include assertions. */
+  static final int REGRESSION_ASSERTIONS_FLAG = 1;
+
+  /** The kind of an operation that is parsed with {@link OperationParser}, and has no types. */
+  static final byte TERM_OPERATION = 0;
+
+  /** The kind of an operation of a class, whose types are stored with it. */
+  static final byte CLASS_OPERATION = 1;
+
+  /** The kind of an operation of a class that casts its result, whose types are stored with it. */
+  static final byte CAST_CLASS_OPERATION = 2;
+
+  /** The kind of an initialization to null, whose output type is stored with it. */
+  static final byte NULL_OPERATION = 3;
+
+  /** The kind of an array creation, whose output type is stored with it. */
+  static final byte ARRAY_OPERATION = 4;
+
+  private TestCorpusFormat() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * Returns the string for an operation that is given to {@link OperationParser#parse(String)}.
+   *
+   * @param operation the operation
+   * @return the parsable string for the operation
+   */
+  static String toParsableString(TypedOperation operation) {
+    return operation.getOperation().getClass().getSimpleName()
+        + " : "
+        + operation.toParsableString();
+  }
+
+  /**
+   * Returns the kind of an operation, which determines how it is recreated.
+   *
+   * @param operation the operation
+   * @return the kind of the operation
+   */
+  static byte kindOf(TypedOperation operation) {
+    if (operation instanceof TypedClassOperationWithCast) {
+      return CAST_CLASS_OPERATION;
+    }
+    if (operation instanceof TypedClassOperation) {
+      return CLASS_OPERATION;
+    }
+    if (operation.getOperation() instanceof NonreceiverTerm
+        && ((NonreceiverTerm) operation.getOperation()).getValue() == null) {
+      return NULL_OPERATION;
+    }
+    if (operation.getOperation() instanceof ArrayCreation) {
+      return ARRAY_OPERATION;
+    }
+    return TERM_OPERATION;
+  }
+
+  /**
+   * Returns the types that are stored with an operation of the given kind.
+   *
+   * @param kind the kind of the operation
+   * @param operation the operation
+   * @return the types stored with the operation
+   */
+  static List<Type> typesOf(byte kind, TypedOperation operation) {
+    List<Type> types = new ArrayList<>();
+    if (kind == CLASS_OPERATION || kind == CAST_CLASS_OPERATION) {
+      types.add(((TypedClassOperation) operation).getDeclaringType());
+      for (Type type : operation.getInputTypes()) {
+        types.add(type);
+      }
+    }
+    if (kind != TERM_OPERATION) {
+      types.add(operation.getOutputType());
+    }
+    return types;
+  }
+
+  /**
+   * Creates the operation with the given description.
+   *
+   * @param kind the kind of the operation
+   * @param parsable the string for {@link OperationParser#parse(String)}
+   * @param types the types stored with the operation, in the order of {@link #typesOf}; an element
+   *     is null if the type is the one of the parsed operation at the same position
+   * @return the operation
+   * @throws OperationParseException if the operation or its types cannot be created
+   */
+  static TypedOperation createOperation(byte kind, String parsable, List<Type> types)
+      throws OperationParseException {
+    if (kind == NULL_OPERATION || kind == ARRAY_OPERATION) {
+      if (types.size() != 1 || types.get(0) == null) {
+        throw new OperationParseException("Missing output type for operation: " + parsable);
+      }
+      if (kind == NULL_OPERATION) {
+        return TypedOperation.createNullOrZeroInitializationForType(types.get(0));
+      }
+      if (!(types.get(0) instanceof ArrayType)) {
+        throw new OperationParseException("Array creation for non-array type: " + types.get(0));
+      }
+      return TypedOperation.createArrayCreation((ArrayType) types.get(0));
+    }
+    TypedOperation operation = OperationParser.parse(parsable);
+    if (kind == TERM_OPERATION) {
+      return operation;
+    }
+    if (!(operation instanceof TypedClassOperation)
+        || types.size() != operation.getInputTypes().size() + 2) {
+      throw new OperationParseException("Types do not match operation: " + parsable);
+    }
+    List<Type> parsedTypes = typesOf(CLASS_OPERATION, operation);
+    for (int i = 0; i < types.size(); i++) {
+      if (types.get(i) != null) {
+        parsedTypes.set(i, types.get(i));
+      }
+    }
+    if (!(parsedTypes.get(0) instanceof ClassOrInterfaceType)) {
+      throw new OperationParseException("Declaring type is not a class: " + parsedTypes.get(0));
+    }
+    ClassOrInterfaceType declaringType = (ClassOrInterfaceType) parsedTypes.get(0);
+    TypeTuple inputTypes = new TypeTuple(parsedTypes.subList(1, parsedTypes.size() - 1));
+    Type outputType = parsedTypes.get(parsedTypes.size() - 1);
+    if (kind == CAST_CLASS_OPERATION) {
+      return new TypedClassOperationWithCast(
+          operation.getOperation(), declaringType, inputTypes, outputType);
+    }
+    return new TypedClassOperation(operation.getOperation(), declaringType, inputTypes, outputType);
+  }
+
+  /**
+   * Returns the text for a type, which {@link #parseType(String)} converts back to the type. Class
+   * names are in {@code Class.getName()} format, type arguments follow in angle brackets, and each
+   * array dimension adds {@code []}.
+   *
+   * @param type the type
+   * @return the text for the type, or null if it contains a wildcard or type variable
+   */
+  static String typeText(Type type) {
+    if (type.isVoid() || type.isPrimitive()) {
+      return type.getRuntimeClass().getName();
+    }
+    if (type instanceof ArrayType) {
+      String component = typeText(((ArrayType) type).getComponentType());
+      return (component == null) ? null : component + "[]";
+    }
+    if (type instanceof NonParameterizedType || type instanceof GenericClassType) {
+      return type.getRuntimeClass().getName();
+    }
+    if (type instanceof InstantiatedType) {
+      StringBuilder b = new StringBuilder();
+      b.append(type.getRuntimeClass().getName()).append('<');
+      List<TypeArgument> arguments = ((InstantiatedType) type).getTypeArguments();
+      for (int i = 0; i < arguments.size(); i++) {
+        if (!(arguments.get(i) instanceof ReferenceArgument)) {
+          return null;
+        }
+        String argument = typeText(((ReferenceArgument) arguments.get(i)).getReferenceType());
+        if (argument == null) {
+          return null;
+        }
+        if (i > 0) {
+          b.append(',');
+        }
+        b.append(argument);
+      }
+      return b.append('>').toString();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the type for text created by {@link #typeText(Type)}.
+   *
+   * @param text the text for the type
+   * @return the type
+   * @throws OperationParseException if the text is malformed or names a class that is not found
+   */
+  static Type parseType(String text) throws OperationParseException {
+    int[] position = {0};
+    Type type = parseType(text, position);
+    if (position[0] != text.length()) {
+      throw new OperationParseException("Malformed type: " + text);
+    }
+    return type;
+  }
+
+  /**
+   * Parses the type that starts at the given position in the text, and advances the position to the
+   * end of it.
+   *
+   * @param text the text containing the type
+   * @param position a one-element array containing the position
+   * @return the type
+   * @throws OperationParseException if the text is malformed or names a class that is not found
+   */
+  private static Type parseType(String text, int[] position) throws OperationParseException {
+    int start = position[0];
+    int end = start;
+    while (end < text.length() && "<>,[".indexOf(text.charAt(end)) < 0) {
+      end++;
+    }
+    String name = text.substring(start, end);
+    Type type;
+    try {
+      type = Type.forName(name);
+    } catch (ClassNotFoundException e) {
+      throw new OperationParseException("Class not found: " + name);
+    }
+    if (end < text.length() && text.charAt(end) == '<') {
+      if (!(type instanceof GenericClassType)) {
+        throw new OperationParseException("Type arguments for non-generic type: " + text);
+      }
+      List<ReferenceType> arguments = new ArrayList<>();
+      do {
+        position[0] = end + 1;
+        Type argument = parseType(text, position);
+        if (!(argument instanceof ReferenceType)) {
+          throw new OperationParseException("Type argument is not a reference type: " + text);
+        }
+        arguments.add((ReferenceType) argument);
+        end = position[0];
+      } while (end < text.length() && text.charAt(end) == ',');
+      if (end == text.length() || text.charAt(end) != '>') {
+        throw new OperationParseException("Malformed type: " + text);
+      }
+      end++;
+      try {
+        type = ((GenericClassType) type).instantiate(arguments);
+      } catch (IllegalArgumentException e) {
+        throw new OperationParseException("Bad type arguments in " + text + ": " + e.getMessage());
+      }
+    }
+    while (text.startsWith("[]", end)) {
+      type = ArrayType.ofComponentType(type);
+      end += 2;
+    }
+    position[0] = end;
+    return type;
+  }
+
+  /**
+   * Returns the code of the checks, which are compared when a test is replayed. Each element is the
+   * code of one check before and after the statement it checks, separated by a newline. The
+   * exception check, if any, comes first.
+   *
+   * @param checks the checks
+   * @return the code of the checks
+   */
+  static List<String> describeChecks(TestChecks<?> checks) {
+    List<String> descriptions = new ArrayList<>();
+    if (checks.getExceptionCheck() != null) {
+      descriptions.add(describeCheck(checks.getExceptionCheck()));
+    }
+    for (Check check : checks.checks()) {
+      descriptions.add(describeCheck(check));
+    }
+    return descriptions;
+  }
+
+  /**
+   * Returns the code of the check, before and after the statement it checks, separated by a
+   * newline.
+   *
+   * @param check the check
+   * @return the code of the check
+   */
+  private static String describeCheck(Check check) {
+    return check.toCodeStringPreStatement() + "\n" + check.toCodeStringPostStatement();
+  }
+}
@@ -0,0 +1,405 @@
+package randoop.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import randoop.operation.OperationParseException;
+import randoop.operation.TypedOperation;
+import randoop.sequence.Sequence;
+import randoop.sequence.Variable;
+import randoop.test.TestChecks;
+import randoop.types.Type;
+
+/**
+ * Reads a binary test corpus file written by {@link TestCorpusWriter}. The file is memory-mapped,
+ * and a test, and each string it uses, is decoded only when it is requested, so that a corpus with
+ * millions of tests can be read one test at a time. The tests may be read in any order, using the
+ * index at the end of the file.
+ *
+ * <p>The classes used by the tests must be on the classpath. An operation is recreated the first
+ * time a test uses it.
+ */
+public class TestCorpusReader implements Closeable {
+
+  /** A test read from the corpus. */
+  public static class CorpusTest {
+
+    /** The sequence of the test. */
+    private final Sequence sequence;
+
+    /** The code of the expected checks, as created by {@link TestCorpusFormat#describeChecks}. */
+    private final List<String> expectedChecks;
+
+    CorpusTest(Sequence sequence, List<String> expectedChecks) {
+      this.sequence = sequence;
+      this.expectedChecks = expectedChecks;
+    }
+
+    /**
+     * Returns the sequence of the test.
+     *
+     * @return the sequence of the test
+     */
+    public Sequence getSequence() {
+      return sequence;
+    }
+
+    /**
+     * Returns the code of the expected checks. Each element is the code of one check before and
+     * after the statement it checks, separated by a newline.
+     *
+     * @return the code of the expected checks
+     */
+    public List<String> getExpectedChecks() {
+      return expectedChecks;
+    }
+
+    /**
+     * Returns the code of the checks in the same form as {@link #getExpectedChecks()}.
+     *
+     * @param checks the checks of an execution of the sequence
+     * @return the code of the checks
+     */
+    public List<String> describe(TestChecks<?> checks) {
+      return TestCorpusFormat.describeChecks(checks);
+    }
+
+    /**
+     * Indicates whether the given checks are the expected checks of the test.
+     *
+     * @param checks the checks of an execution of the sequence
+     * @return true if the checks have the same code as the expected checks, in any order
+     */
+    public boolean hasExpectedChecks(TestChecks<?> checks) {
+      List<String> actual = describe(checks);
+      return actual.size() == expectedChecks.size()
+          && actual.containsAll(expectedChecks)
+          && expectedChecks.containsAll(actual);
+    }
+  }
+
+  /** The size of the regions of the file that are mapped to read tests. */
+  private static final long WINDOW_SIZE = 1L << 28;
+
+  /** The channel for the file. */
+  private final FileChannel channel;
+
+  /** The offset in the file of the string table, which follows the last record. */
+  private final long recordsEnd;
+
+  /** The offsets of the records. */
+  private final LongBuffer index;
+
+  /** The number of tests in the corpus. */
+  private final int testCount;
+
+  /** The offsets of the strings in {@link #stringTable}, followed by the end of the last string. */
+  private final IntBuffer stringOffsets;
+
+  /** The UTF-8 bytes of the strings. */
+  private final ByteBuffer stringTable;
+
+  /** The encoded operations, each of which starts at the offset in {@link #operationOffsets}. */
+  private final ByteBuffer operationTable;
+
+  /** The offsets of the operations in {@link #operationTable}. */
+  private final int[] operationOffsets;
+
+  /** The operations that have been recreated, by index. */
+  private final TypedOperation[] operations;
+
+  /** The types that have been recreated, by string index. */
+  private final Map<Integer, Type> types = new HashMap<>();
+
+  /** The package of the tests, or null if only public members may be used. */
+  private final String visibilityPackage;
+
+  /** Whether the regression tests include assertions. */
+  private final boolean regressionAssertions;
+
+  /** The indices of the observer operations. */
+  private final int[] observerIds;
+
+  /** The offset of the mapped region of the records. */
+  private long windowStart = 0;
+
+  /** The mapped region of the records, or null if none is mapped. */
+  private ByteBuffer window = null;
+
+  /**
+   * Opens a corpus file and reads its header and tables.
+   *
+   * @param file the corpus file
+   * @throws IOException if the file cannot be read or is not a test corpus
+   */
+  public TestCorpusReader(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    this.channel = raf.getChannel();
+    try {
+      long size = channel.size();
+      if (size < 8 + TestCorpusFormat.TRAILER_SIZE) {
+        throw new IOException("Not a test corpus: " + file);
+      }
+      ByteBuffer trailer =
+          channel.map(
+              FileChannel.MapMode.READ_ONLY,
+              size - TestCorpusFormat.TRAILER_SIZE,
+              TestCorpusFormat.TRAILER_SIZE);
+      recordsEnd = trailer.getLong();
+      long indexOffset = trailer.getLong();
+      testCount = trailer.getInt();
+      if (trailer.getInt() != TestCorpusFormat.MAGIC
+          || recordsEnd > indexOffset
+          || indexOffset + 8L * testCount != size - TestCorpusFormat.TRAILER_SIZE) {
+        throw new IOException("Not a test corpus: " + file);
+      }
+      index =
+          channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, 8L * testCount).asLongBuffer();
+
+      ByteBuffer tables =
+          channel.map(FileChannel.MapMode.READ_ONLY, recordsEnd, indexOffset - recordsEnd);
+      int stringCount = readVarInt(tables);
+      stringOffsets = take(tables, 4 * (stringCount + 1)).asIntBuffer();
+      stringTable = take(tables, stringOffsets.get(stringCount));
+      operationTable = tables.slice();
+      operationOffsets = new int[readVarInt(operationTable)];
+      for (int i = 0; i < operationOffsets.length; i++) {
+        operationOffsets[i] = operationTable.position();
+        operationTable.get();
+        readVarInt(operationTable);
+        int typeCount = readVarInt(operationTable);
+        for (int j = 0; j < typeCount; j++) {
+          readVarInt(operationTable);
+        }
+      }
+      operations = new TypedOperation[operationOffsets.length];
+
+      ByteBuffer header = getRecord(0, (int) Math.min(recordsEnd, WINDOW_SIZE));
+      if (header.getInt() != TestCorpusFormat.MAGIC) {
+        throw new IOException("Not a test corpus: " + file);
+      }
+      int version = header.getInt();
+      if (version != TestCorpusFormat.VERSION) {
+        throw new IOException("Unsupported test corpus version " + version + ": " + file);
+      }
+      regressionAssertions = (header.get() & TestCorpusFormat.REGRESSION_ASSERTIONS_FLAG) != 0;
+      int packageId = readVarInt(header);
+      visibilityPackage = (packageId == 0) ? null : getString(packageId - 1);
+      observerIds = new int[readVarInt(header)];
+      for (int i = 0; i < observerIds.length; i++) {
+        observerIds[i] = readVarInt(header);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      if (e instanceof IOException) {
+        throw e;
+      }
+      throw new IOException("Malformed test corpus: " + file, e);
+    }
+  }
+
+  /**
+   * Returns the number of tests in the corpus.
+   *
+   * @return the number of tests
+   */
+  public int size() {
+    return testCount;
+  }
+
+  /**
+   * Returns the package of the tests, if members visible in the package may be used.
+   *
+   * @return the package of the tests, or null if only public members may be used
+   */
+  public String getVisibilityPackage() {
+    return visibilityPackage;
+  }
+
+  /**
+   * Indicates whether the regression tests include assertions.
+   *
+   * @return true if the regression tests include assertions, false otherwise
+   */
+  public boolean hasRegressionAssertions() {
+    return regressionAssertions;
+  }
+
+  /**
+   * Returns the observer methods used for the regression checks.
+   *
+   * @return the observer methods
+   * @throws OperationParseException if an observer cannot be recreated
+   */
+  public List<TypedOperation> getObservers() throws OperationParseException {
+    List<TypedOperation> observers = new ArrayList<>();
+    for (int id : observerIds) {
+      observers.add(getOperation(id));
+    }
+    return observers;
+  }
+
+  /**
+   * Reads a test from the corpus.
+   *
+   * @param i the index of the test, from 0
+   * @return the test
+   * @throws OperationParseException if an operation of the test cannot be recreated
+   * @throws IOException if the file cannot be read
+   */
+  public CorpusTest get(int i) throws OperationParseException, IOException {
+    if (i < 0 || i >= testCount) {
+      throw new IndexOutOfBoundsException("No test " + i + " in corpus of size " + testCount);
+    }
+    long start = index.get(i);
+    long end = (i + 1 < testCount) ? index.get(i + 1) : recordsEnd;
+    ByteBuffer record = getRecord(start, (int) (end - start));
+
+    Sequence sequence = new Sequence();
+    int statementCount = readVarInt(record);
+    for (int s = 0; s < statementCount; s++) {
+      TypedOperation operation = getOperation(readVarInt(record));
+      int inputCount = readVarInt(record);
+      List<Variable> inputs = new ArrayList<>(inputCount);
+      for (int j = 0; j < inputCount; j++) {
+        inputs.add(sequence.getVariable(s - readVarInt(record)));
+      }
+      sequence = sequence.extend(operation, inputs);
+    }
+    int checkCount = readVarInt(record);
+    List<String> checks = new ArrayList<>(checkCount);
+    for (int j = 0; j < checkCount; j++) {
+      checks.add(getString(readVarInt(record)));
+    }
+    return new CorpusTest(sequence, Collections.unmodifiableList(checks));
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Returns a buffer for the record at the given offset, mapping a new region of the file if the
+   * record is not in the mapped region.
+   *
+   * @param start the offset of the record
+   * @param length the length of the record
+   * @return a buffer containing exactly the record
+   * @throws IOException if the file cannot be mapped
+   */
+  private ByteBuffer getRecord(long start, int length) throws IOException {
+    if (window == null || start < windowStart || start + length > windowStart + window.capacity()) {
+      long size = Math.min(Math.max(WINDOW_SIZE, length), recordsEnd - start);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+      windowStart = start;
+    }
+    ByteBuffer record = window.duplicate();
+    record.position((int) (start - windowStart));
+    record.limit(record.position() + length);
+    return record.slice();
+  }
+
+  /**
+   * Returns the operation with the given index, recreating it if this is the first use.
+   *
+   * @param id the index of the operation
+   * @return the operation
+   * @throws OperationParseException if the operation cannot be recreated
+   */
+  private TypedOperation getOperation(int id) throws OperationParseException {
+    TypedOperation operation = operations[id];
+    if (operation == null) {
+      ByteBuffer entry = operationTable.duplicate();
+      entry.position(operationOffsets[id]);
+      byte kind = entry.get();
+      String parsable = getString(readVarInt(entry));
+      int typeCount = readVarInt(entry);
+      List<Type> operationTypes = new ArrayList<>(typeCount);
+      for (int i = 0; i < typeCount; i++) {
+        operationTypes.add(getType(readVarInt(entry)));
+      }
+      operation = TestCorpusFormat.createOperation(kind, parsable, operationTypes);
+      operations[id] = operation;
+    }
+    return operation;
+  }
+
+  /**
+   * Returns the type whose text is the string with the given index.
+   *
+   * @param id the index of the string
+   * @return the type, or null if the string is empty and the type is that of the parsed operation
+   * @throws OperationParseException if the type cannot be recreated
+   */
+  private Type getType(int id) throws OperationParseException {
+    Type type = types.get(id);
+    if (type == null) {
+      String text = getString(id);
+      if (text.isEmpty()) {
+        return null;
+      }
+      type = TestCorpusFormat.parseType(text);
+      types.put(id, type);
+    }
+    return type;
+  }
+
+  /**
+   * Decodes the string with the given index from the string table.
+   *
+   * @param id the index of the string
+   * @return the string
+   */
+  private String getString(int id) {
+    int start = stringOffsets.get(id);
+    byte[] bytes = new byte[stringOffsets.get(id + 1) - start];
+    ByteBuffer b = stringTable.duplicate();
+    b.position(start);
+    b.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the next bytes of a buffer as a buffer of their own, and advances past them.
+   *
+   * @param b the buffer to read from
+   * @param length the number of bytes
+   * @return a buffer containing exactly the bytes
+   */
+  private static ByteBuffer take(ByteBuffer b, int length) {
+    ByteBuffer part = b.duplicate();
+    part.limit(part.position() + length);
+    b.position(b.position() + length);
+    return part.slice();
+  }
+
+  /**
+   * Reads a non-negative integer written 7 bits at a time, low bits first.
+   *
+   * @param b the buffer to read from
+   * @return the integer
+   */
+  private static int readVarInt(ByteBuffer b) {
+    int value = 0;
+    int shift = 0;
+    byte next;
+    do {
+      next = b.get();
+      value |= (next & 0x7f) << shift;
+      shift += 7;
+    } while ((next & 0x80) != 0);
+    return value;
+  }
+}
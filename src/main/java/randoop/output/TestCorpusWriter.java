@@ -0,0 +1,315 @@
+package randoop.output;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import randoop.operation.OperationParseException;
+import randoop.operation.TypedOperation;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.sequence.Variable;
+import randoop.test.RegressionChecks;
+import randoop.types.Type;
+
+/**
+ * Writes regression tests to a binary test corpus file, which {@link TestCorpusReader} reads. A
+ * test is stored as the operations and input wiring of its sequence, together with the code of its
+ * expected checks, so that it can be replayed by executing the sequence without compiling a test
+ * class. See {@link TestCorpusFormat} for the layout of the file.
+ *
+ * <p>A test can be stored only if each of its operations can be recreated from the file. An
+ * operation cannot if one of its types has a wildcard or type variable that does not come from the
+ * declaration of the method or constructor. {@link #add(ExecutableSequence)} skips the tests that
+ * use such an operation.
+ */
+public class TestCorpusWriter implements Closeable {
+
+  /** The stream for the file. */
+  private final DataOutputStream out;
+
+  /** The number of bytes written to the file. */
+  private long position;
+
+  /** The buffer for the record of a test. */
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+  /** The offsets of the records in the file, in the first {@link #testCount} elements. */
+  private long[] offsets = new long[1024];
+
+  /** The number of tests written. */
+  private int testCount = 0;
+
+  /** The number of tests that could not be stored. */
+  private int skippedCount = 0;
+
+  /** The UTF-8 bytes of the strings in the string table. */
+  private final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+
+  /** The offset of each string in {@link #strings}, by index in the string table. */
+  private int[] stringOffsets = new int[1024];
+
+  /** Map from a string to its index in the string table. */
+  private final Map<String, Integer> stringIds = new HashMap<>();
+
+  /** The operation table, encoded. */
+  private final ByteArrayOutputStream operations = new ByteArrayOutputStream();
+
+  /** Map from an operation to its index in the operation table, or -1 if it cannot be stored. */
+  private final Map<TypedOperation, Integer> operationIds = new HashMap<>();
+
+  /** The number of operations in the operation table. */
+  private int operationCount = 0;
+
+  /**
+   * Creates a corpus file and writes its header. The header records the settings that determine the
+   * regression checks of the tests, so that replay creates the checks in the same way.
+   *
+   * @param file the corpus file
+   * @param visibilityPackage the package of the tests, if members visible in the package may be
+   *     used, or null if only public members may be used
+   * @param regressionAssertions whether the regression tests include assertions
+   * @param observers the observer methods used for regression checks
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if an observer cannot be stored
+   */
+  public TestCorpusWriter(
+      File file,
+      String visibilityPackage,
+      boolean regressionAssertions,
+      Collection<TypedOperation> observers)
+      throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    record.reset();
+    DataOutputStream header = new DataOutputStream(record);
+    header.writeInt(TestCorpusFormat.MAGIC);
+    header.writeInt(TestCorpusFormat.VERSION);
+    header.writeByte(regressionAssertions ? TestCorpusFormat.REGRESSION_ASSERTIONS_FLAG : 0);
+    writeVarInt(record, (visibilityPackage == null) ? 0 : stringId(visibilityPackage) + 1);
+    writeVarInt(record, observers.size());
+    for (TypedOperation observer : observers) {
+      int id = operationId(observer);
+      if (id < 0) {
+        out.close();
+        throw new IllegalArgumentException("Observer cannot be stored in corpus: " + observer);
+      }
+      writeVarInt(record, id);
+    }
+    writeRecord();
+  }
+
+  /**
+   * Writes a regression test to the corpus.
+   *
+   * @param test an executed regression test
+   * @return true if the test was written, false if it uses an operation that cannot be stored
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if the test is not a regression test
+   */
+  public boolean add(ExecutableSequence test) throws IOException {
+    if (!(test.getChecks() instanceof RegressionChecks)) {
+      throw new IllegalArgumentException("Not a regression test: " + test.getChecks());
+    }
+    Sequence sequence = test.sequence;
+    record.reset();
+    writeVarInt(record, sequence.size());
+    for (int i = 0; i < sequence.size(); i++) {
+      int id = operationId(sequence.getStatement(i).getOperation());
+      if (id < 0) {
+        skippedCount++;
+        return false;
+      }
+      writeVarInt(record, id);
+      List<Variable> inputs = sequence.getInputs(i);
+      writeVarInt(record, inputs.size());
+      for (Variable input : inputs) {
+        writeVarInt(record, i - input.getDeclIndex());
+      }
+    }
+    List<String> checks = TestCorpusFormat.describeChecks(test.getChecks());
+    writeVarInt(record, checks.size());
+    for (String check : checks) {
+      writeVarInt(record, stringId(check));
+    }
+
+    if (testCount == offsets.length) {
+      offsets = Arrays.copyOf(offsets, 2 * testCount);
+    }
+    offsets[testCount++] = position;
+    writeRecord();
+    return true;
+  }
+
+  /**
+   * Writes regression tests to the corpus.
+   *
+   * @param tests executed regression tests
+   * @throws IOException if the file cannot be written
+   */
+  public void addAll(List<ExecutableSequence> tests) throws IOException {
+    for (ExecutableSequence test : tests) {
+      add(test);
+    }
+  }
+
+  /**
+   * Returns the number of tests written.
+   *
+   * @return the number of tests written
+   */
+  public int getTestCount() {
+    return testCount;
+  }
+
+  /**
+   * Returns the number of tests that were not written because they use an operation that cannot be
+   * stored.
+   *
+   * @return the number of tests that were skipped
+   */
+  public int getSkippedCount() {
+    return skippedCount;
+  }
+
+  /**
+   * Writes the tables, index and trailer, and closes the file.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    long stringsOffset = position;
+    record.reset();
+    int stringCount = stringIds.size();
+    writeVarInt(record, stringCount);
+    DataOutputStream stringIndex = new DataOutputStream(record);
+    for (int i = 0; i < stringCount; i++) {
+      stringIndex.writeInt(stringOffsets[i]);
+    }
+    stringIndex.writeInt(strings.size());
+    strings.writeTo(record);
+    writeVarInt(record, operationCount);
+    operations.writeTo(record);
+    writeRecord();
+
+    long indexOffset = position;
+    for (int i = 0; i < testCount; i++) {
+      out.writeLong(offsets[i]);
+    }
+    out.writeLong(stringsOffset);
+    out.writeLong(indexOffset);
+    out.writeInt(testCount);
+    out.writeInt(TestCorpusFormat.MAGIC);
+    out.close();
+  }
+
+  /**
+   * Appends the buffered record to the file.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  private void writeRecord() throws IOException {
+    record.writeTo(out);
+    position += record.size();
+  }
+
+  /**
+   * Returns the index of the operation in the operation table, adding it if it is new.
+   *
+   * @param operation the operation
+   * @return the index of the operation, or -1 if it cannot be recreated from the corpus
+   */
+  private int operationId(TypedOperation operation) {
+    Integer id = operationIds.get(operation);
+    if (id == null) {
+      id = addOperation(operation);
+      operationIds.put(operation, id);
+    }
+    return id;
+  }
+
+  /**
+   * Adds the operation to the operation table if it can be recreated from its encoding.
+   *
+   * @param operation the operation
+   * @return the index of the operation, or -1 if it cannot be recreated from the corpus
+   */
+  private int addOperation(TypedOperation operation) {
+    byte kind = TestCorpusFormat.kindOf(operation);
+    String parsable = TestCorpusFormat.toParsableString(operation);
+    List<Type> types = TestCorpusFormat.typesOf(kind, operation);
+    ByteArrayOutputStream entry = new ByteArrayOutputStream();
+    entry.write(kind);
+    writeVarInt(entry, stringId(parsable));
+    writeVarInt(entry, types.size());
+    List<Type> recreatedTypes = new ArrayList<>();
+    TypedOperation recreated;
+    try {
+      for (Type type : types) {
+        String text = TestCorpusFormat.typeText(type);
+        if (text == null) {
+          // Use the type of the parsed operation, and check below that it is the same.
+          writeVarInt(entry, stringId(""));
+          recreatedTypes.add(null);
+        } else {
+          writeVarInt(entry, stringId(text));
+          recreatedTypes.add(TestCorpusFormat.parseType(text));
+        }
+      }
+      recreated = TestCorpusFormat.createOperation(kind, parsable, recreatedTypes);
+    } catch (OperationParseException | RuntimeException e) {
+      return -1;
+    }
+    if (!recreated.equals(operation) || recreated.getClass() != operation.getClass()) {
+      return -1;
+    }
+    operations.write(entry.toByteArray(), 0, entry.size());
+    return operationCount++;
+  }
+
+  /**
+   * Returns the index of the string in the string table, adding it if it is new.
+   *
+   * @param s the string
+   * @return the index of the string
+   */
+  private int stringId(String s) {
+    Integer id = stringIds.get(s);
+    if (id == null) {
+      id = stringIds.size();
+      stringIds.put(s, id);
+      if (id == stringOffsets.length) {
+        stringOffsets = Arrays.copyOf(stringOffsets, 2 * id);
+      }
+      stringOffsets[id] = strings.size();
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      strings.write(bytes, 0, bytes.length);
+    }
+    return id;
+  }
+
+  /**
+   * Writes a non-negative integer 7 bits at a time, low bits first, setting the high bit of each
+   * byte but the last.
+   *
+   * @param b the destination
+   * @param value the integer
+   */
+  private static void writeVarInt(ByteArrayOutputStream b, int value) {
+    while ((value & ~0x7f) != 0) {
+      b.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    b.write(value);
+  }
+}
@@ -0,0 +1,90 @@
+package randoop.reflection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import randoop.BugInRandoopException;
+import randoop.util.Log;
+
+/**
+ * Runs the tasks that load and visit classes while an {@link OperationModel} is built. The tasks
+ * are run on a fork-join pool, and their results are returned in the order of the tasks, so that a
+ * model built from the results does not depend on the number of threads.
+ *
+ * <p>With one thread, each task is run by the calling thread when its result is requested, so that
+ * the classes are loaded and visited in the same order as if there were no tasks. Tasks are also
+ * run this way when logging is on, so that the log is not interleaved.
+ */
+final class ClassTasks {
+
+  private ClassTasks() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * Runs tasks with the given number of threads.
+   *
+   * @param tasks the tasks
+   * @param workers the number of threads
+   * @param <T> the type of the results of the tasks
+   * @return the results of the tasks, in the order of the tasks
+   */
+  static <T> List<Future<T>> invokeAll(List<Callable<T>> tasks, int workers) {
+    if (workers == 1 || tasks.size() <= 1 || Log.isLoggingOn()) {
+      List<Future<T>> results = new ArrayList<>();
+      for (Callable<T> task : tasks) {
+        results.add(new DeferredTask<>(task));
+      }
+      return results;
+    }
+    ForkJoinPool pool = new ForkJoinPool(workers);
+    try {
+      return pool.invokeAll(tasks);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns the result of a task, and rethrows an unchecked exception or error thrown by the task.
+   *
+   * @param result the result of the task
+   * @param <T> the type of the result
+   * @return the value computed by the task
+   */
+  static <T> T getResult(Future<T> result) {
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new BugInRandoopException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BugInRandoopException("Interrupted while building the operation model", e);
+    }
+  }
+
+  /** A task that is run by the first thread that requests its result. */
+  private static class DeferredTask<T> extends FutureTask<T> {
+
+    DeferredTask(Callable<T> task) {
+      super(task);
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+      run();
+      return super.get();
+    }
+  }
+}
@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import randoop.operation.TypedClassOperation;
 import randoop.types.ClassOrInterfaceType;
@@ -23,6 +24,10 @@ import randoop.util.Log;
  * If the operation is a method, a pattern matches the operation if This class provides methods that
  * (1) test the raw signature of an operation, and (2) test the raw signature of an operation and,
  * for an inherited method, that of the same operation in superclasses.
+ *
+ * <p>The patterns are compiled into a {@link PatternSet}, and the result for each raw signature is
+ * remembered, since the same methods of supertypes are checked for many classes. A predicate may be
+ * used by several threads.
  */
 public class OmitMethodsPredicate {
 
@@ -32,6 +37,18 @@ public class OmitMethodsPredicate {
   /** {@code Pattern}s to match operations that should be omitted. */
   private final List<Pattern> omitPatterns;
 
+  /** The compiled {@link #omitPatterns}. */
+  private final PatternSet patternSet;
+
+  /** Whether an omit pattern matches each raw signature that has been checked. */
+  private final ConcurrentHashMap<String, Boolean> exactResults = new ConcurrentHashMap<>();
+
+  /**
+   * The result of {@link #shouldOmit(TypedClassOperation)} for each raw signature that has been
+   * checked.
+   */
+  private final ConcurrentHashMap<String, Boolean> results = new ConcurrentHashMap<>();
+
   /**
    * @param omitPatterns a list of regular expressions for method signatures. Null or the empty
    *     least mean to do no omissions.
@@ -42,6 +59,7 @@ public class OmitMethodsPredicate {
     } else {
       this.omitPatterns = new ArrayList<>(omitPatterns);
     }
+    this.patternSet = new PatternSet(this.omitPatterns);
   }
 
   /**
@@ -65,18 +83,16 @@ public class OmitMethodsPredicate {
 
     String signature = operation.getRawSignature().toString();
 
-    for (Pattern pattern : omitPatterns) {
-      boolean result = pattern.matcher(signature).find();
+    Boolean result = exactResults.get(signature);
+    if (result == null) {
+      result = patternSet.find(signature);
+      exactResults.put(signature, result);
       if (Log.isLoggingOn()) {
         Log.logLine(
-            String.format(
-                "Comparing '%s' against pattern '%s' = %b%n", signature, pattern, result));
-      }
-      if (result) {
-        return true;
+            String.format("Comparing '%s' against omit patterns = %b%n", signature, result));
       }
     }
-    return false;
+    return result;
   }
 
   /**
@@ -94,7 +110,25 @@ public class OmitMethodsPredicate {
     }
 
     RawSignature signature = operation.getRawSignature();
+    String key = signature.toString();
+    Boolean result = results.get(key);
+    if (result == null) {
+      result = shouldOmitInSupertypes(operation, signature);
+      results.put(key, result);
+    }
+    return result;
+  }
 
+  /**
+   * Indicates whether an omit pattern matches the raw signature of the method in either the
+   * declaring class of the method or a supertype, without using the remembered results.
+   *
+   * @param operation the operation for the method
+   * @param signature the raw signature of the operation
+   * @return true if the signature of the method in the current class or a superclass is matched by
+   *     an omit pattern, false otherwise
+   */
+  private boolean shouldOmitInSupertypes(TypedClassOperation operation, RawSignature signature) {
     /*
      * Search the type and its supertypes that have the method.
      */
@@ -15,10 +15,17 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import randoop.BugInRandoopException;
 import randoop.Globals;
@@ -39,10 +46,12 @@ import randoop.main.ClassNameErrorHandler;
 import randoop.main.GenInputsAbstract;
 import randoop.operation.MethodCall;
 import randoop.operation.OperationParseException;
+import randoop.operation.OperationParser;
 import randoop.operation.TypedClassOperation;
 import randoop.operation.TypedOperation;
 import randoop.sequence.Sequence;
 import randoop.test.ContractSet;
+import randoop.types.ArrayType;
 import randoop.types.ClassOrInterfaceType;
 import randoop.types.Type;
 import randoop.util.Log;
@@ -64,6 +73,9 @@ import randoop.util.MultiMap;
  */
 public class OperationModel {
 
+  /** The number of signatures parsed by one task of {@link #addOperationsUsingSignatures}. */
+  private static final int SIGNATURE_BLOCK_SIZE = 1000;
+
   /** The set of class declaration types for this model. */
   private Set<ClassOrInterfaceType> classTypes;
 
@@ -88,8 +100,35 @@ public class OperationModel {
   /** For debugging only */
   private List<Pattern> omitMethods;
 
+  /** The classes under test to which the class visitors were applied. */
+  private final List<Class<?>> classesUnderTest;
+
+  /**
+   * The parsable strings of operations read from an {@link OperationModelCache} that have not been
+   * added to {@link #operations} yet. Null if there are none.
+   */
+  private List<String> pendingOperations = null;
+
+  /**
+   * The visibility predicate for extracting the input types of {@link #classesUnderTest}, if they
+   * have not been added to {@link #inputTypes} yet. Null if there are none.
+   */
+  private VisibilityPredicate pendingInputTypesVisibility = null;
+
+  /**
+   * The names of the classes under test that have not been loaded yet, if the model is lazy. The
+   * order of the names changes as classes are loaded.
+   */
+  private final List<String> pendingClassnames = new ArrayList<>();
+
+  /** The index of each name in {@link #pendingClassnames}. */
+  private final Map<String, Integer> pendingClassIndices = new HashMap<>();
+
+  /** How the pending classes are loaded and visited; null if the model is not lazy. */
+  private PendingClassContext pendingClassContext = null;
+
   /** Create an empty model of test context. */
-  private OperationModel() {
+  OperationModel() {
     // TreeSet here for deterministic coverage in the systemTest runNaiveCollectionsTest()
     classTypes = new TreeSet<>();
     inputTypes = new TreeSet<>();
@@ -110,6 +149,7 @@ public class OperationModel {
 
     coveredClassesGoal = new LinkedHashSet<>();
     operations = new TreeSet<>();
+    classesUnderTest = new ArrayList<>();
   }
 
   /**
@@ -140,26 +180,105 @@ public class OperationModel {
       ClassNameErrorHandler errorHandler,
       List<String> literalsFileList)
       throws SignatureParseException, NoSuchMethodException {
-
-    OperationModel model = new OperationModel();
-
-    // for debugging only
-    model.omitMethods = omitmethods;
-
-    model.addClassTypes(
+    return createModel(
         visibility,
         reflectionPredicate,
+        omitmethods,
         classnames,
         coveredClassesGoalNames,
+        methodSignatures,
         errorHandler,
-        literalsFileList);
+        literalsFileList,
+        null);
+  }
+
+  /**
+   * Factory method to construct an operation model for a particular set of classes, which reads the
+   * model from a cache if it is there, and writes it to the cache otherwise. The operations for the
+   * method signatures are not cached.
+   *
+   * @param visibility the {@link VisibilityPredicate} to test accessibility of classes and class
+   *     members
+   * @param reflectionPredicate the reflection predicate to determine which classes and class
+   *     members are used
+   * @param omitmethods the patterns for operations that should be omitted
+   * @param classnames the names of classes under test
+   * @param coveredClassesGoalNames the coverage goal: the names of classes to be tested by the
+   *     covered class heuristic
+   * @param methodSignatures the signatures of methods to be added to the model
+   * @param errorHandler the handler for bad file name errors
+   * @param literalsFileList the list of literals file names
+   * @param cache the cache for the model, whose key must cover all of the other arguments; null if
+   *     the model is not cached
+   * @return the {@link OperationModel} constructed with the given arguments
+   * @throws SignatureParseException if a method signature is ill-formed
+   * @throws NoSuchMethodException if an attempt is made to load a non-existent method
+   */
+  public static OperationModel createModel(
+      VisibilityPredicate visibility,
+      ReflectionPredicate reflectionPredicate,
+      List<Pattern> omitmethods,
+      Set<String> classnames,
+      Set<String> coveredClassesGoalNames,
+      Set<String> methodSignatures,
+      ClassNameErrorHandler errorHandler,
+      List<String> literalsFileList,
+      OperationModelCache cache)
+      throws SignatureParseException, NoSuchMethodException {
 
     OmitMethodsPredicate omitPredicate = new OmitMethodsPredicate(omitmethods);
 
-    model.addOperationsFromClasses(
-        model.classTypes, visibility, reflectionPredicate, omitPredicate);
+    int workers = GenInputsAbstract.model_workers;
+    OperationModel model = null;
+    if (GenInputsAbstract.lazy_model) {
+      model = new OperationModel();
+      model.pendingClassContext =
+          new PendingClassContext(
+              visibility,
+              reflectionPredicate,
+              omitPredicate,
+              coveredClassesGoalNames,
+              errorHandler,
+              literalsFileList.contains("CLASSES"));
+      for (String classname : classnames) {
+        model.pendingClassIndices.put(classname, model.pendingClassnames.size());
+        model.pendingClassnames.add(classname);
+      }
+      model.addCoveredClasses(
+          visibility, new LinkedHashSet<String>(), coveredClassesGoalNames, errorHandler);
+    } else if (cache != null) {
+      model = cache.read(visibility, reflectionPredicate, omitPredicate, workers);
+    }
+    if (model == null) {
+      model = new OperationModel();
+      model.addClassTypes(
+          visibility,
+          reflectionPredicate,
+          classnames,
+          coveredClassesGoalNames,
+          errorHandler,
+          literalsFileList,
+          workers);
+      Map<ClassOrInterfaceType, Collection<TypedOperation>> classOperations =
+          model.addOperationsFromClasses(
+              model.classTypes, visibility, reflectionPredicate, omitPredicate, workers);
+      if (cache != null) {
+        try {
+          if (!cache.write(model, model.classesUnderTest, classOperations)) {
+            System.out.println(
+                "Not caching the operation model, since its literals cannot be stored.");
+          }
+        } catch (IOException e) {
+          System.out.printf("Cannot write operation model cache file %s: %s%n", cache.getFile(), e);
+        }
+      }
+    }
+
+    // for debugging only
+    model.omitMethods = omitmethods;
+
     model.addOperationsUsingSignatures(
-        methodSignatures, visibility, reflectionPredicate, omitPredicate);
+        methodSignatures, visibility, reflectionPredicate, omitPredicate, workers);
     model.addObjectConstructor();
 
     return model;
@@ -186,28 +305,146 @@ public class OperationModel {
       } else {
         literalmap = LiteralFileReader.parse(filename);
       }
+      addLiterals(compMgr, literalmap, literalsLevel);
+    }
+  }
 
-      for (ClassOrInterfaceType type : literalmap.keySet()) {
-        Package pkg = (literalsLevel == ClassLiteralsMode.PACKAGE ? type.getPackage() : null);
-        for (Sequence seq : literalmap.getValues(type)) {
-          switch (literalsLevel) {
-            case CLASS:
-              compMgr.addClassLevelLiteral(type, seq);
-              break;
-            case PACKAGE:
-              assert pkg != null;
-              compMgr.addPackageLevelLiteral(pkg, seq);
-              break;
-            case ALL:
-              compMgr.addGeneratedSequence(seq);
-              break;
-            default:
-              throw new Error(
-                  "Unexpected error in GenTests.  Please report at https://github.com/randoop/randoop/issues .");
+  /**
+   * Adds a (1-element) sequence for each literal in a map to the component manager.
+   *
+   * @param compMgr the component manager
+   * @param literalmap the literals, by the class in which they occur
+   * @param literalsLevel the level of literals to add
+   */
+  private static void addLiterals(
+      ComponentManager compMgr,
+      MultiMap<ClassOrInterfaceType, Sequence> literalmap,
+      ClassLiteralsMode literalsLevel) {
+    for (ClassOrInterfaceType type : literalmap.keySet()) {
+      Package pkg = (literalsLevel == ClassLiteralsMode.PACKAGE ? type.getPackage() : null);
+      for (Sequence seq : literalmap.getValues(type)) {
+        switch (literalsLevel) {
+          case CLASS:
+            compMgr.addClassLevelLiteral(type, seq);
+            break;
+          case PACKAGE:
+            assert pkg != null;
+            compMgr.addPackageLevelLiteral(pkg, seq);
+            break;
+          case ALL:
+            compMgr.addGeneratedSequence(seq);
+            break;
+          default:
+            throw new Error(
+                "Unexpected error in GenTests.  Please report at https://github.com/randoop/randoop/issues .");
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the names of the classes under test that have not been loaded yet. This is empty unless
+   * the model was created with {@link GenInputsAbstract#lazy_model}.
+   *
+   * @return the names of the classes under test that are not loaded yet
+   */
+  public List<String> getPendingClassnames() {
+    return Collections.unmodifiableList(pendingClassnames);
+  }
+
+  /**
+   * Loads a pending class under test and adds it to this model, if the type is a pending class or
+   * an array of one.
+   *
+   * @param type the type that is needed by the generator
+   * @param compMgr the component manager for the test values and literals of the class
+   * @param literalsLevel the level of the literals of the class
+   * @return the operations that were added to this model
+   * @see #addPendingClass(String, ComponentManager, ClassLiteralsMode)
+   */
+  public List<TypedOperation> addPendingClass(
+      Type type, ComponentManager compMgr, ClassLiteralsMode literalsLevel) {
+    if (pendingClassnames.isEmpty()) {
+      return new ArrayList<>();
+    }
+    while (type.isArray()) {
+      type = ((ArrayType) type).getComponentType();
+    }
+    if (!type.isClassOrInterfaceType()) {
+      return new ArrayList<>();
+    }
+    return addPendingClass(type.getRuntimeClass().getName(), compMgr, literalsLevel);
+  }
+
+  /**
+   * Loads a pending class under test and adds it to this model: its class types, input types,
+   * operations, and {@link randoop.CheckRep} contracts. Its annotated test values are added to the
+   * component manager as seed sequences, and its literals are added at the given level.
+   *
+   * @param classname the name of the class
+   * @param compMgr the component manager for the test values and literals of the class
+   * @param literalsLevel the level of the literals of the class
+   * @return the operations that were added to this model, empty if the class is not pending or is
+   *     ignored
+   */
+  public List<TypedOperation> addPendingClass(
+      String classname, ComponentManager compMgr, ClassLiteralsMode literalsLevel) {
+    List<TypedOperation> addedOperations = new ArrayList<>();
+    Integer index = pendingClassIndices.remove(classname);
+    if (index == null) {
+      return addedOperations;
+    }
+    String lastClassname = pendingClassnames.remove(pendingClassnames.size() - 1);
+    if (index < pendingClassnames.size()) {
+      pendingClassnames.set(index, lastClassname);
+      pendingClassIndices.put(lastClassname, index);
+    }
+
+    PendingClassContext context = pendingClassContext;
+    Class<?> c = getClass(classname, context.errorHandler);
+    if (c == null
+        || classesUnderTest.contains(c)
+        || !isClassUnderTest(c, classname, context.visibility, context.coveredClassesGoalNames)) {
+      return addedOperations;
+    }
+    classesUnderTest.add(c);
+
+    ClassMembers members =
+        new ClassMembers(
+            c, context.visibility, context.reflectionPredicate, context.extractLiterals);
+    Set<Sequence> testValues = new LinkedHashSet<>();
+    ReflectionManager mgr = new ReflectionManager(context.visibility);
+    mgr.add(new TestValueExtractor(testValues));
+    mgr.add(new CheckRepExtractor(this.contracts));
+    mgr.apply(c);
+
+    inputTypes.addAll(members.inputTypes);
+    for (Sequence sequence : testValues) {
+      if (annotatedTestValues.add(sequence)) {
+        compMgr.addSeedSequence(sequence);
+      }
+    }
+    for (ClassOrInterfaceType type : members.literalMap.keySet()) {
+      for (Sequence sequence : members.literalMap.getValues(type)) {
+        classLiteralMap.add(type, sequence);
+      }
+    }
+    addLiterals(compMgr, members.literalMap, literalsLevel);
+
+    for (ClassOrInterfaceType classType : members.classTypes) {
+      if (classTypes.add(classType)) {
+        OperationExtractor extractor =
+            new OperationExtractor(
+                classType, context.reflectionPredicate, context.omitPredicate, context.visibility);
+        mgr.apply(extractor, classType.getRuntimeClass());
+        for (TypedOperation operation : extractor.getOperations()) {
+          if (operations.add(operation)) {
+            addedOperations.add(operation);
           }
         }
       }
     }
+    return addedOperations;
   }
 
   /**
@@ -257,6 +494,14 @@ public class OperationModel {
    */
   public Set<Type> getInputTypes() {
     // TODO this is not used, should it be? or should it even be here?
+    if (pendingInputTypesVisibility != null) {
+      ReflectionManager mgr = new ReflectionManager(pendingInputTypesVisibility);
+      mgr.add(new TypeExtractor(this.inputTypes, pendingInputTypesVisibility));
+      for (Class<?> c : classesUnderTest) {
+        mgr.apply(c);
+      }
+      pendingInputTypesVisibility = null;
+    }
     return inputTypes;
   }
 
@@ -266,6 +511,7 @@ public class OperationModel {
    * @return the operations of this model
    */
   public List<TypedOperation> getOperations() {
+    addPendingOperations();
     return new ArrayList<>(operations);
   }
 
@@ -304,6 +550,7 @@ public class OperationModel {
    * @param out the Writer on which to produce output
    */
   public void logOperations(Writer out) {
+    addPendingOperations();
     try {
       out.write("Operations: " + Globals.lineSep);
       for (TypedOperation t : operations) {
@@ -341,7 +588,7 @@ public class OperationModel {
     try {
       out.write(String.format("Model with hashcode %s:%n", hashCode()));
       out.write(String.format("  classTypes = %s%n", classTypes));
-      out.write(String.format("  inputTypes = %s%n", inputTypes));
+      out.write(String.format("  inputTypes = %s%n", getInputTypes()));
       out.write(String.format("  coveredClassesGoal = %s%n", coveredClassesGoal));
       out.write(String.format("  classLiteralMap = %s%n", classLiteralMap));
       out.write(String.format("  annotatedTestValues = %s%n", annotatedTestValues));
@@ -354,6 +601,52 @@ public class OperationModel {
     }
   }
 
+  /**
+   * Returns the map from class types to the literals extracted from their classes.
+   *
+   * @return the map for class literals
+   */
+  MultiMap<ClassOrInterfaceType, Sequence> getClassLiteralMap() {
+    return classLiteralMap;
+  }
+
+  /**
+   * Sets the operations of this model that are read from a cache, which are only created when the
+   * operations are first requested.
+   *
+   * @param operations the parsable strings of the operations
+   */
+  void setPendingOperations(List<String> operations) {
+    pendingOperations = operations;
+  }
+
+  /**
+   * Sets the classes under test of this model, whose input types are only extracted when they are
+   * first requested.
+   *
+   * @param classes the classes under test to which the class visitors were applied
+   * @param visibility the visibility predicate for the input types
+   */
+  void setPendingInputTypes(List<Class<?>> classes, VisibilityPredicate visibility) {
+    classesUnderTest.addAll(classes);
+    pendingInputTypesVisibility = visibility;
+  }
+
+  /** Creates the operations read from a cache, and adds them to the operations of this model. */
+  private void addPendingOperations() {
+    if (pendingOperations == null) {
+      return;
+    }
+    for (String operation : pendingOperations) {
+      try {
+        operations.add(OperationParser.parse(operation));
+      } catch (OperationParseException e) {
+        throw new BugInRandoopException("Cannot create cached operation " + operation, e);
+      }
+    }
+    pendingOperations = null;
+  }
+
   /**
    * Gathers class types to be used in a run of Randoop and adds them to this {@code
    * OperationModel}. Specifically, collects types for classes-under-test, objects for covered-class
@@ -361,6 +654,12 @@ public class OperationModel {
    * converting from strings to {@code Class} objects. Also collects annotated test values, and
    * class literal values used in test generation.
    *
+   * <p>The classes under test are loaded, and their declarations, input types, and literals are
+   * collected, by the given number of threads. The results for each class are added to this model
+   * in the order of the class names, together with the annotated test values and contracts of the
+   * class, which are collected by the calling thread, so that the model does not depend on the
+   * number of threads.
+   *
    * @param visibility the visibility predicate
    * @param reflectionPredicate the predicate to determine which reflection objects are used
    * @param classnames the names of classes-under-test
@@ -368,57 +667,132 @@ public class OperationModel {
    *     heuristic
    * @param errorHandler the handler for bad class names
    * @param literalsFileList the list of literals file names
+   * @param workers the number of threads that load and visit the classes under test
    */
   private void addClassTypes(
-      VisibilityPredicate visibility,
-      ReflectionPredicate reflectionPredicate,
+      final VisibilityPredicate visibility,
+      final ReflectionPredicate reflectionPredicate,
       Set<String> classnames,
       Set<String> coveredClassesGoalNames,
       ClassNameErrorHandler errorHandler,
-      List<String> literalsFileList) {
+      List<String> literalsFileList,
+      int workers) {
+    final boolean extractLiterals = literalsFileList.contains("CLASSES");
     ReflectionManager mgr = new ReflectionManager(visibility);
-    mgr.add(new DeclarationExtractor(this.classTypes, reflectionPredicate));
-    mgr.add(new TypeExtractor(this.inputTypes, visibility));
     mgr.add(new TestValueExtractor(this.annotatedTestValues));
     mgr.add(new CheckRepExtractor(this.contracts));
-    if (literalsFileList.contains("CLASSES")) {
-      mgr.add(new ClassLiteralExtractor(this.classLiteralMap));
+
+    List<Callable<Class<?>>> loadTasks = new ArrayList<>();
+    for (final String classname : classnames) {
+      loadTasks.add(
+          new Callable<Class<?>>() {
+            @Override
+            public Class<?> call() throws ClassNotFoundException {
+              return TypeNames.getTypeForName(classname);
+            }
+          });
     }
+    List<Future<Class<?>>> loadedClasses = ClassTasks.invokeAll(loadTasks, workers);
 
     // Collect classes under test
     Set<Class<?>> visitedClasses = new LinkedHashSet<>(); // consider each class just once
-    for (String classname : classnames) {
-      Class<?> c = getClass(classname, errorHandler);
+    List<String> names = new ArrayList<>(classnames);
+    List<Callable<ClassMembers>> visitTasks = new ArrayList<>();
+    List<Class<?>> visitedClassesUnderTest = new ArrayList<>();
+    for (int i = 0; i < names.size(); i++) {
+      String classname = names.get(i);
+      Class<?> c = getClass(classname, loadedClasses.get(i), errorHandler);
       // Note that c could be null if errorHandler just warns on bad names
       if (c != null && !visitedClasses.contains(c)) {
         visitedClasses.add(c);
 
-        // ignore interfaces and non-visible classes
-        if (!visibility.isVisible(c)) {
-          System.out.println(
-              "Ignoring non-visible " + c + " specified via --classlist or --testclass.");
-        } else if (c.isInterface()) {
-          System.out.println(
-              "Ignoring "
-                  + c
-                  + " specified via --classlist or --testclass; provide classes, not interfaces.");
-        } else if (Modifier.isAbstract(c.getModifiers()) && !c.isEnum()) {
-          System.out.println(
-              "Ignoring abstract " + c + " specified via --classlist or --testclass.");
-          // TODO: Why is this code here?  It's needed in order to make tests pass.
-          if (coveredClassesGoalNames.contains(classname)) {
-            coveredClassesGoal.add(c);
-          }
-        } else {
-          mgr.apply(c);
-          if (coveredClassesGoalNames.contains(classname)) {
-            coveredClassesGoal.add(c);
-          }
+        if (isClassUnderTest(c, classname, visibility, coveredClassesGoalNames)) {
+          final Class<?> visitedClass = c;
+          visitTasks.add(
+              new Callable<ClassMembers>() {
+                @Override
+                public ClassMembers call() {
+                  return new ClassMembers(
+                      visitedClass, visibility, reflectionPredicate, extractLiterals);
+                }
+              });
+          visitedClassesUnderTest.add(c);
+        }
+      }
+    }
+
+    List<Future<ClassMembers>> visitResults = ClassTasks.invokeAll(visitTasks, workers);
+    for (int i = 0; i < visitResults.size(); i++) {
+      ClassMembers members = ClassTasks.getResult(visitResults.get(i));
+      classTypes.addAll(members.classTypes);
+      inputTypes.addAll(members.inputTypes);
+      for (ClassOrInterfaceType type : members.literalMap.keySet()) {
+        for (Sequence sequence : members.literalMap.getValues(type)) {
+          classLiteralMap.add(type, sequence);
         }
       }
+      mgr.apply(visitedClassesUnderTest.get(i));
+      classesUnderTest.add(visitedClassesUnderTest.get(i));
     }
 
-    // Collect covered classes
+    addCoveredClasses(visibility, classnames, coveredClassesGoalNames, errorHandler);
+  }
+
+  /**
+   * Indicates whether a class that is named as a class under test is visited, and prints a message
+   * if it is ignored. Adds the class to the covered classes if it is also named as a covered class.
+   *
+   * @param c the class
+   * @param classname the name of the class
+   * @param visibility the visibility predicate
+   * @param coveredClassesGoalNames the names of classes used as goals in the covered-class
+   *     heuristic
+   * @return true if the class is visited, false if it is ignored
+   */
+  private boolean isClassUnderTest(
+      Class<?> c,
+      String classname,
+      VisibilityPredicate visibility,
+      Set<String> coveredClassesGoalNames) {
+    // ignore interfaces and non-visible classes
+    if (!visibility.isVisible(c)) {
+      System.out.println(
+          "Ignoring non-visible " + c + " specified via --classlist or --testclass.");
+      return false;
+    } else if (c.isInterface()) {
+      System.out.println(
+          "Ignoring "
+              + c
+              + " specified via --classlist or --testclass; provide classes, not interfaces.");
+      return false;
+    } else if (Modifier.isAbstract(c.getModifiers()) && !c.isEnum()) {
+      System.out.println("Ignoring abstract " + c + " specified via --classlist or --testclass.");
+      // TODO: Why is this code here?  It's needed in order to make tests pass.
+      if (coveredClassesGoalNames.contains(classname)) {
+        coveredClassesGoal.add(c);
+      }
+      return false;
+    }
+    if (coveredClassesGoalNames.contains(classname)) {
+      coveredClassesGoal.add(c);
+    }
+    return true;
+  }
+
+  /**
+   * Adds the covered classes that are not classes under test.
+   *
+   * @param visibility the visibility predicate
+   * @param classnames the names of classes-under-test
+   * @param coveredClassesGoalNames the names of classes used as goals in the covered-class
+   *     heuristic
+   * @param errorHandler the handler for bad class names
+   */
+  private void addCoveredClasses(
+      VisibilityPredicate visibility,
+      Set<String> classnames,
+      Set<String> coveredClassesGoalNames,
+      ClassNameErrorHandler errorHandler) {
     for (String classname : coveredClassesGoalNames) {
       if (!classnames.contains(classname)) {
         Class<?> c = getClass(classname, errorHandler);
@@ -436,6 +810,94 @@ public class OperationModel {
     }
   }
 
+  /**
+   * The declarations, input types, and literals of a class under test, which are collected
+   * separately for each class so that classes can be visited by several threads.
+   */
+  private static class ClassMembers {
+
+    /** The class declaration types. */
+    final Set<ClassOrInterfaceType> classTypes = new TreeSet<>();
+
+    /** The input types. */
+    final Set<Type> inputTypes = new TreeSet<>();
+
+    /** The literals of the class, empty if literals are not extracted. */
+    final MultiMap<ClassOrInterfaceType, Sequence> literalMap = new MultiMap<>();
+
+    /**
+     * Visits a class under test.
+     *
+     * @param c the class
+     * @param visibility the visibility predicate
+     * @param reflectionPredicate the predicate to determine which reflection objects are used
+     * @param extractLiterals whether to extract the literals of the class
+     */
+    ClassMembers(
+        Class<?> c,
+        VisibilityPredicate visibility,
+        ReflectionPredicate reflectionPredicate,
+        boolean extractLiterals) {
+      ReflectionManager mgr = new ReflectionManager(visibility);
+      mgr.add(new DeclarationExtractor(classTypes, reflectionPredicate));
+      mgr.add(new TypeExtractor(inputTypes, visibility));
+      if (extractLiterals) {
+        mgr.add(new ClassLiteralExtractor(literalMap));
+      }
+      mgr.apply(c);
+    }
+  }
+
+  /** The arguments of {@link #createModel} that are used to load the pending classes under test. */
+  private static class PendingClassContext {
+    final VisibilityPredicate visibility;
+    final ReflectionPredicate reflectionPredicate;
+    final OmitMethodsPredicate omitPredicate;
+    final Set<String> coveredClassesGoalNames;
+    final ClassNameErrorHandler errorHandler;
+    final boolean extractLiterals;
+
+    PendingClassContext(
+        VisibilityPredicate visibility,
+        ReflectionPredicate reflectionPredicate,
+        OmitMethodsPredicate omitPredicate,
+        Set<String> coveredClassesGoalNames,
+        ClassNameErrorHandler errorHandler,
+        boolean extractLiterals) {
+      this.visibility = visibility;
+      this.reflectionPredicate = reflectionPredicate;
+      this.omitPredicate = omitPredicate;
+      this.coveredClassesGoalNames = coveredClassesGoalNames;
+      this.errorHandler = errorHandler;
+      this.extractLiterals = extractLiterals;
+    }
+  }
+
+  /**
+   * Returns the class loaded by a task. May return null if errorHandler just warns on bad names.
+   *
+   * @param classname the name of the class
+   * @param loadedClass the result of the task that loads the class
+   * @param errorHandler the handler for bad class names
+   * @return the class, or null if it cannot be loaded
+   */
+  private static Class<?> getClass(
+      String classname, Future<Class<?>> loadedClass, ClassNameErrorHandler errorHandler) {
+    try {
+      return loadedClass.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ClassNotFoundException) {
+        errorHandler.handle(classname);
+      } else {
+        errorHandler.handle(classname, e.getCause().getCause());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      errorHandler.handle(classname, e);
+    }
+    return null;
+  }
+
   /* May return null if errorHandler just warns on bad names. */
   private static Class<?> getClass(String classname, ClassNameErrorHandler errorHandler) {
     try {
@@ -449,45 +911,141 @@ public class OperationModel {
   }
 
   /**
-   * Adds operations to this {@link OperationModel} from all of the given classes.
+   * Adds operations to this {@link OperationModel} from all of the given classes. The operations of
+   * the classes are extracted by the given number of threads.
    *
    * @param classTypes the set of declaring class types for the operations, must be non-null
    * @param visibility the visibility predicate
    * @param reflectionPredicate the reflection predicate
    * @param omitPredicate the predicate for omitting operations
+   * @param workers the number of threads that extract operations
+   * @return the operations added for each class type
    */
-  private void addOperationsFromClasses(
-      Set<ClassOrInterfaceType> classTypes,
-      VisibilityPredicate visibility,
-      ReflectionPredicate reflectionPredicate,
-      OmitMethodsPredicate omitPredicate) {
-    ReflectionManager mgr = new ReflectionManager(visibility);
-    for (ClassOrInterfaceType classType : classTypes) {
-      OperationExtractor extractor =
-          new OperationExtractor(classType, reflectionPredicate, omitPredicate, visibility);
-      mgr.apply(extractor, classType.getRuntimeClass());
-      operations.addAll(extractor.getOperations());
+  Map<ClassOrInterfaceType, Collection<TypedOperation>> addOperationsFromClasses(
+      Collection<ClassOrInterfaceType> classTypes,
+      final VisibilityPredicate visibility,
+      final ReflectionPredicate reflectionPredicate,
+      final OmitMethodsPredicate omitPredicate,
+      int workers) {
+    final ReflectionManager mgr = new ReflectionManager(visibility);
+    List<ClassOrInterfaceType> types = new ArrayList<>(classTypes);
+    List<Callable<Collection<TypedOperation>>> tasks = new ArrayList<>();
+    for (final ClassOrInterfaceType classType : types) {
+      tasks.add(
+          new Callable<Collection<TypedOperation>>() {
+            @Override
+            public Collection<TypedOperation> call() {
+              OperationExtractor extractor =
+                  new OperationExtractor(classType, reflectionPredicate, omitPredicate, visibility);
+              mgr.apply(extractor, classType.getRuntimeClass());
+              return extractor.getOperations();
+            }
+          });
     }
+    List<Future<Collection<TypedOperation>>> results = ClassTasks.invokeAll(tasks, workers);
+
+    Map<ClassOrInterfaceType, Collection<TypedOperation>> classOperations = new HashMap<>();
+    for (int i = 0; i < types.size(); i++) {
+      Collection<TypedOperation> classTypeOperations = ClassTasks.getResult(results.get(i));
+      operations.addAll(classTypeOperations);
+      classOperations.put(types.get(i), classTypeOperations);
+    }
+    return classOperations;
   }
 
   /**
    * Adds an operation to this {@link OperationModel} for each of the method signatures.
    *
+   * <p>The signatures are parsed in blocks of {@link #SIGNATURE_BLOCK_SIZE}, which may run in
+   * parallel. Every signature is parsed even if an earlier one is bad, so that all the errors in a
+   * method list are reported at once.
+   *
    * @param methodSignatures the set of signatures
    * @param visibility the visibility predicate
    * @param reflectionPredicate the reflection predicate
    * @param omitPredicate the predicate for omitting operations
-   * @throws SignatureParseException if any signature is syntactically invalid
+   * @param workers the number of threads that parse the signatures
+   * @throws SignatureParseException if any signature is syntactically invalid; if more than one is,
+   *     the exception lists them all, and has the exception for each as a suppressed exception
    */
   private void addOperationsUsingSignatures(
       Set<String> methodSignatures,
+      final VisibilityPredicate visibility,
+      final ReflectionPredicate reflectionPredicate,
+      final OmitMethodsPredicate omitPredicate,
+      int workers)
+      throws SignatureParseException {
+    List<String> signatures = new ArrayList<>(methodSignatures);
+    List<Callable<SignatureResults>> tasks = new ArrayList<>();
+    for (int start = 0; start < signatures.size(); start += SIGNATURE_BLOCK_SIZE) {
+      final List<String> block =
+          signatures.subList(start, Math.min(start + SIGNATURE_BLOCK_SIZE, signatures.size()));
+      tasks.add(
+          new Callable<SignatureResults>() {
+            @Override
+            public SignatureResults call() {
+              return parseSignatures(block, visibility, reflectionPredicate, omitPredicate);
+            }
+          });
+    }
+
+    List<Exception> errors = new ArrayList<>();
+    for (Future<SignatureResults> result : ClassTasks.invokeAll(tasks, workers)) {
+      SignatureResults results = ClassTasks.getResult(result);
+      operations.addAll(results.operations);
+      errors.addAll(results.errors);
+    }
+
+    if (errors.size() == 1) {
+      Exception error = errors.get(0);
+      if (error instanceof SignatureParseException) {
+        throw (SignatureParseException) error;
+      }
+      throw (IllegalArgumentException) error;
+    }
+    if (!errors.isEmpty()) {
+      StringBuilder message = new StringBuilder();
+      message.append(errors.size()).append(" method signatures could not be parsed:");
+      for (Exception error : errors) {
+        message.append(Globals.lineSep).append("  ").append(error.getMessage());
+      }
+      SignatureParseException exception = new SignatureParseException(message.toString());
+      for (Exception error : errors) {
+        exception.addSuppressed(error);
+      }
+      throw exception;
+    }
+  }
+
+  /** The operations for a block of signatures, and the errors for the signatures that are bad. */
+  private static class SignatureResults {
+    final List<TypedOperation> operations = new ArrayList<>();
+    final List<Exception> errors = new ArrayList<>();
+  }
+
+  /**
+   * Parses a block of signatures, and creates the operations that are not omitted.
+   *
+   * @param signatures the signatures
+   * @param visibility the visibility predicate
+   * @param reflectionPredicate the reflection predicate
+   * @param omitPredicate the predicate for omitting operations
+   * @return the operations, in the order of the signatures, and the parse errors
+   */
+  private static SignatureResults parseSignatures(
+      List<String> signatures,
       VisibilityPredicate visibility,
       ReflectionPredicate reflectionPredicate,
-      OmitMethodsPredicate omitPredicate)
-      throws SignatureParseException {
-    for (String sig : methodSignatures) {
-      AccessibleObject accessibleObject =
-          SignatureParser.parse(sig, visibility, reflectionPredicate);
+      OmitMethodsPredicate omitPredicate) {
+    SignatureResults results = new SignatureResults();
+    for (String sig : signatures) {
+      AccessibleObject accessibleObject;
+      try {
+        accessibleObject = SignatureParser.parse(sig, visibility, reflectionPredicate);
+      } catch (SignatureParseException | IllegalArgumentException e) {
+        results.errors.add(e);
+        continue;
+      }
       if (accessibleObject != null) {
         TypedClassOperation operation;
         if (accessibleObject instanceof Constructor) {
@@ -496,10 +1054,11 @@ public class OperationModel {
           operation = TypedOperation.forMethod((Method) accessibleObject);
         }
         if (!omitPredicate.shouldOmit(operation)) {
-          operations.add(operation);
+          results.operations.add(operation);
         }
       }
     }
+    return results;
   }
 
   /** Creates and adds the Object class default constructor call to the concrete operations. */
@@ -0,0 +1,355 @@
+package randoop.reflection;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import randoop.contract.CheckRepContract;
+import randoop.contract.ObjectContract;
+import randoop.operation.OperationParseException;
+import randoop.operation.OperationParser;
+import randoop.operation.TypedOperation;
+import randoop.sequence.Sequence;
+import randoop.sequence.SequenceParseException;
+import randoop.types.ClassOrInterfaceType;
+import randoop.util.Digests;
+import randoop.util.MultiMap;
+
+/**
+ * An on-disk cache of {@link OperationModel} objects, so that a run of Randoop need not load and
+ * reflect over every class under test to build its model. The cache is a directory with a file for
+ * each model, named by its key. The key is a digest of the classpath, as computed by {@link
+ * Digests#digestClasspath(String, List)}, and of the options that determine the model. The files of
+ * the cache are not part of the digest, even if the cache is in a directory of the classpath.
+ *
+ * <p>A cache file holds the class types of the model, grouped with the parsable strings of their
+ * operations, together with the names of the covered classes, the {@link randoop.CheckRep} methods,
+ * and the parsable strings of the class literals and of the annotated test values. The operations
+ * are only created from their strings when they are first requested from the model. The input types
+ * of the model are extracted from the classes under test when they are first requested.
+ *
+ * <p>A class whose operations cannot all be recreated from their parsable strings, for instance
+ * because it has bridge methods, is stored without operations, and its operations are extracted by
+ * reflection when the model is read. A model with literals or test values that cannot be recreated
+ * from their parsable strings is not stored.
+ */
+public class OperationModelCache {
+
+  /** The first bytes of a cache file. */
+  private static final int MAGIC = 0x52444f4d;
+
+  /** The version of the format of the cache files. */
+  private static final int VERSION = 1;
+
+  /** The number of operations stored for a class whose operations are extracted by reflection. */
+  private static final int EXTRACT_OPERATIONS = -1;
+
+  /** The cache file for the key. */
+  private final File file;
+
+  /**
+   * Creates a cache in the given directory for the model of classes on the given classpath,
+   * determined by the given options.
+   *
+   * @param directory the directory of the cache files
+   * @param classpath the classpath of the classes of the model
+   * @param options the options that determine the model, each as a string
+   * @throws IOException if an element of the classpath cannot be read
+   */
+  public OperationModelCache(File directory, String classpath, List<String> options)
+      throws IOException {
+    MessageDigest digest = Digests.newDigest();
+    Digests.update(digest, Integer.toString(VERSION));
+    Digests.update(
+        digest, Digests.digestClasspath(classpath, Collections.singletonList(directory)));
+    for (String option : options) {
+      Digests.update(digest, option);
+    }
+    this.file = new File(directory, Digests.toHex(digest.digest()) + ".model");
+  }
+
+  /**
+   * Returns the cache file for the model.
+   *
+   * @return the cache file, which may not exist
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Reads the model from the cache.
+   *
+   * @param visibility the visibility predicate of the model
+   * @param reflectionPredicate the reflection predicate of the model
+   * @param omitPredicate the predicate for operations that are omitted from the model
+   * @param workers the number of threads that extract operations by reflection
+   * @return the model, without operations from method signatures, or null if it is not in the cache
+   *     or cannot be read
+   */
+  OperationModel read(
+      VisibilityPredicate visibility,
+      ReflectionPredicate reflectionPredicate,
+      OmitMethodsPredicate omitPredicate,
+      int workers) {
+    if (!file.exists()) {
+      return null;
+    }
+    OperationModel model = new OperationModel();
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("not a cache file of this version of Randoop");
+      }
+
+      List<Class<?>> classesUnderTest = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        classesUnderTest.add(TypeNames.getTypeForName(readString(in)));
+      }
+      model.setPendingInputTypes(classesUnderTest, visibility);
+
+      List<String> operations = new ArrayList<>();
+      List<ClassOrInterfaceType> extractedTypes = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        ClassOrInterfaceType classType = ClassOrInterfaceType.forClass(loadClass(readString(in)));
+        model.getClassTypes().add(classType);
+        int count = in.readInt();
+        if (count == EXTRACT_OPERATIONS) {
+          extractedTypes.add(classType);
+        }
+        for (int j = 0; j < count; j++) {
+          operations.add(readString(in));
+        }
+      }
+      model.setPendingOperations(operations);
+      model.addOperationsFromClasses(
+          extractedTypes, visibility, reflectionPredicate, omitPredicate, workers);
+
+      for (int i = in.readInt(); i > 0; i--) {
+        model.getCoveredClassesGoal().add(TypeNames.getTypeForName(readString(in)));
+      }
+
+      for (int i = in.readInt(); i > 0; i--) {
+        Class<?> declaringClass = loadClass(readString(in));
+        model.getContracts().add(new CheckRepContract(declaringClass.getMethod(readString(in))));
+      }
+
+      MultiMap<ClassOrInterfaceType, Sequence> classLiteralMap = model.getClassLiteralMap();
+      for (int i = in.readInt(); i > 0; i--) {
+        ClassOrInterfaceType type = ClassOrInterfaceType.forClass(loadClass(readString(in)));
+        for (int j = in.readInt(); j > 0; j--) {
+          classLiteralMap.add(type, Sequence.parse(readString(in)));
+        }
+      }
+
+      for (int i = in.readInt(); i > 0; i--) {
+        model.getAnnotatedTestValues().add(Sequence.parse(readString(in)));
+      }
+    } catch (IOException
+        | ClassNotFoundException
+        | NoSuchMethodException
+        | SequenceParseException
+        | RuntimeException e) {
+      System.out.printf("Ignoring operation model cache file %s: %s%n", file, e);
+      return null;
+    }
+    return model;
+  }
+
+  /**
+   * Writes a model to the cache. The file is written under a temporary name and then renamed, so
+   * that another run of Randoop never reads an incomplete file.
+   *
+   * @param model the model, without operations from method signatures
+   * @param classesUnderTest the classes to which the class visitors of the model were applied
+   * @param classOperations the operations of each class type of the model
+   * @return true if the model was written, false if its literals or test values cannot be stored
+   * @throws IOException if the cache file cannot be written
+   */
+  boolean write(
+      OperationModel model,
+      List<Class<?>> classesUnderTest,
+      Map<ClassOrInterfaceType, Collection<TypedOperation>> classOperations)
+      throws IOException {
+    MultiMap<ClassOrInterfaceType, Sequence> classLiteralMap = model.getClassLiteralMap();
+    for (ClassOrInterfaceType type : classLiteralMap.keySet()) {
+      for (Sequence sequence : classLiteralMap.getValues(type)) {
+        if (!isParsable(sequence)) {
+          return false;
+        }
+      }
+    }
+    for (Sequence sequence : model.getAnnotatedTestValues()) {
+      if (!isParsable(sequence)) {
+        return false;
+      }
+    }
+
+    File directory = file.getAbsoluteFile().getParentFile();
+    Files.createDirectories(directory.toPath());
+    File temporaryFile = File.createTempFile("randoop", ".model.tmp", directory);
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath())))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeInt(classesUnderTest.size());
+        for (Class<?> c : classesUnderTest) {
+          writeString(out, c.getName());
+        }
+
+        out.writeInt(model.getClassTypes().size());
+        for (ClassOrInterfaceType classType : model.getClassTypes()) {
+          writeString(out, classType.getRuntimeClass().getName());
+          List<String> operations = getParsableStrings(classOperations.get(classType));
+          if (operations == null) {
+            out.writeInt(EXTRACT_OPERATIONS);
+          } else {
+            out.writeInt(operations.size());
+            for (String operation : operations) {
+              writeString(out, operation);
+            }
+          }
+        }
+
+        out.writeInt(model.getCoveredClassesGoal().size());
+        for (Class<?> c : model.getCoveredClassesGoal()) {
+          writeString(out, c.getName());
+        }
+
+        List<Method> checkRepMethods = new ArrayList<>();
+        for (ObjectContract contract : model.getContracts().getWithArity(1)) {
+          if (contract instanceof CheckRepContract) {
+            checkRepMethods.add(((CheckRepContract) contract).checkRepMethod);
+          }
+        }
+        out.writeInt(checkRepMethods.size());
+        for (Method method : checkRepMethods) {
+          writeString(out, method.getDeclaringClass().getName());
+          writeString(out, method.getName());
+        }
+
+        out.writeInt(classLiteralMap.keySet().size());
+        for (ClassOrInterfaceType type : classLiteralMap.keySet()) {
+          writeString(out, type.getRuntimeClass().getName());
+          out.writeInt(classLiteralMap.getValues(type).size());
+          for (Sequence sequence : classLiteralMap.getValues(type)) {
+            writeString(out, sequence.toParsableString());
+          }
+        }
+
+        out.writeInt(model.getAnnotatedTestValues().size());
+        for (Sequence sequence : model.getAnnotatedTestValues()) {
+          writeString(out, sequence.toParsableString());
+        }
+      }
+      Files.move(
+          temporaryFile.toPath(),
+          file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile.toPath());
+    }
+    return true;
+  }
+
+  /**
+   * Returns the parsable strings of operations, as read by {@link OperationParser#parse(String)}.
+   *
+   * @param operations the operations
+   * @return the parsable strings of the operations, or null if an operation is not recreated from
+   *     its string
+   */
+  private static List<String> getParsableStrings(Collection<TypedOperation> operations) {
+    List<String> strings = new ArrayList<>();
+    if (operations == null) {
+      return strings;
+    }
+    for (TypedOperation operation : operations) {
+      String string =
+          operation.getOperation().getClass().getSimpleName()
+              + " : "
+              + operation.toParsableString();
+      try {
+        if (!OperationParser.parse(string).equals(operation)) {
+          return null;
+        }
+      } catch (OperationParseException | RuntimeException e) {
+        return null;
+      }
+      strings.add(string);
+    }
+    return strings;
+  }
+
+  /**
+   * Indicates whether a sequence is recreated from its parsable string.
+   *
+   * @param sequence the sequence
+   * @return true if parsing {@link Sequence#toParsableString()} yields an equal sequence
+   */
+  private static boolean isParsable(Sequence sequence) {
+    try {
+      return Sequence.parse(sequence.toParsableString()).equals(sequence);
+    } catch (SequenceParseException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Loads a class without initializing it, as the class visitors do for the classes they visit.
+   *
+   * @param name the binary name of the class
+   * @return the class
+   * @throws ClassNotFoundException if the class is not found
+   */
+  private static Class<?> loadClass(String name) throws ClassNotFoundException {
+    return Class.forName(name, false, OperationModelCache.class.getClassLoader());
+  }
+
+  /**
+   * Writes a string of any length in UTF-8, preceded by its length in bytes.
+   *
+   * @param out the stream
+   * @param string the string
+   * @throws IOException if the string cannot be written
+   */
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+   *
+   * @param in the stream
+   * @return the string
+   * @throws IOException if the string cannot be read
+   */
+  private String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > file.length()) {
+      throw new IOException("malformed string length " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
@@ -0,0 +1,269 @@
+package randoop.reflection;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A set of regular expressions, compiled so that the time to determine whether any of them is found
+ * in a string does not grow with the number of expressions. The patterns that match a literal
+ * string, such as those created from method signatures by quoting, are searched for at once with an
+ * Aho-Corasick automaton. The other patterns are combined into a single alternation, except for
+ * those with flags, back references, or comments, which are tried one at a time.
+ *
+ * <p>{@link #find(String)} returns the same result as calling {@link
+ * java.util.regex.Matcher#find()} for each pattern. A {@code PatternSet} is immutable and may be
+ * used by several threads.
+ */
+final class PatternSet {
+
+  /** The characters that have a special meaning in a regular expression. */
+  private static final String METACHARACTERS = ".^$*+?()[]{}|";
+
+  /**
+   * The goto function of the automaton for the literal patterns: the state reached from each state
+   * on each character. The start state is 0.
+   */
+  private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+
+  /** The failure function of the automaton: the state for the longest proper suffix of a state. */
+  private int[] failures;
+
+  /** Whether a literal pattern ends at each state of the automaton, or at a suffix of it. */
+  private boolean[] accepting;
+
+  /** Whether there are literal patterns. */
+  private final boolean hasLiterals;
+
+  /** The alternation of the patterns that are combined, or null if there are none. */
+  private final Pattern combined;
+
+  /** The patterns that are neither literal nor combined. */
+  private final List<Pattern> separate = new ArrayList<>();
+
+  /**
+   * Compiles a set of patterns.
+   *
+   * @param patterns the patterns
+   */
+  PatternSet(List<Pattern> patterns) {
+    List<String> literals = new ArrayList<>();
+    List<Pattern> combinable = new ArrayList<>();
+    for (Pattern pattern : patterns) {
+      String literal = getLiteral(pattern);
+      if (literal != null) {
+        literals.add(literal);
+      } else if (isCombinable(pattern)) {
+        combinable.add(pattern);
+      } else {
+        separate.add(pattern);
+      }
+    }
+    hasLiterals = !literals.isEmpty();
+    buildAutomaton(literals);
+    combined = combine(combinable);
+  }
+
+  /**
+   * Indicates whether any of the patterns is found in a string.
+   *
+   * @param input the string
+   * @return true if some pattern is found in the string, false otherwise
+   */
+  boolean find(String input) {
+    if (hasLiterals && findLiteral(input)) {
+      return true;
+    }
+    if (combined != null && combined.matcher(input).find()) {
+      return true;
+    }
+    for (Pattern pattern : separate) {
+      if (pattern.matcher(input).find()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the string matched by a pattern that has no flags and matches only a literal string,
+   * such as a pattern whose metacharacters are all escaped or quoted.
+   *
+   * @param pattern the pattern
+   * @return the string matched by the pattern, or null if it is not a literal pattern
+   */
+  static String getLiteral(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return null;
+    }
+    String regex = pattern.pattern();
+    StringBuilder literal = new StringBuilder();
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 == regex.length()) {
+          return null;
+        }
+        char escaped = regex.charAt(i + 1);
+        if (escaped == 'Q') {
+          int end = regex.indexOf("\\E", i + 2);
+          if (end < 0) {
+            end = regex.length();
+          }
+          literal.append(regex, i + 2, end);
+          i = end + 2;
+          continue;
+        }
+        // A backslash before a character other than a letter or digit quotes it.
+        if (Character.isLetterOrDigit(escaped)) {
+          return null;
+        }
+        literal.append(escaped);
+        i += 2;
+      } else if (METACHARACTERS.indexOf(c) >= 0) {
+        return null;
+      } else {
+        literal.append(c);
+        i++;
+      }
+    }
+    return literal.toString();
+  }
+
+  /**
+   * Indicates whether a pattern may be an alternative of the combined pattern. A pattern with flags
+   * is not, nor a pattern with back references, whose group numbers would change, nor a pattern
+   * with a {@code #} that might start a comment that would extend past the alternative.
+   *
+   * @param pattern the pattern
+   * @return true if the pattern may be combined, false otherwise
+   */
+  private static boolean isCombinable(Pattern pattern) {
+    String regex = pattern.pattern();
+    if (pattern.flags() != 0 || regex.indexOf('#') >= 0) {
+      return false;
+    }
+    for (int i = 0; i + 1 < regex.length(); i++) {
+      if (regex.charAt(i) == '\\') {
+        char escaped = regex.charAt(i + 1);
+        if (Character.isDigit(escaped) || escaped == 'k') {
+          return false;
+        }
+        i++;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Combines patterns into an alternation. If they cannot be combined, for instance because they
+   * have groups with the same name, they are added to {@link #separate}.
+   *
+   * @param patterns the patterns
+   * @return the alternation of the patterns, or null if there are no patterns or they cannot be
+   *     combined
+   */
+  private Pattern combine(List<Pattern> patterns) {
+    if (patterns.isEmpty()) {
+      return null;
+    }
+    if (patterns.size() == 1) {
+      return patterns.get(0);
+    }
+    StringBuilder alternation = new StringBuilder();
+    for (Pattern pattern : patterns) {
+      if (alternation.length() > 0) {
+        alternation.append('|');
+      }
+      alternation.append("(?:").append(pattern.pattern()).append(')');
+    }
+    try {
+      return Pattern.compile(alternation.toString());
+    } catch (PatternSyntaxException e) {
+      separate.addAll(patterns);
+      return null;
+    }
+  }
+
+  /**
+   * Builds the Aho-Corasick automaton for the literal patterns.
+   *
+   * @param literals the strings matched by the literal patterns
+   */
+  private void buildAutomaton(List<String> literals) {
+    transitions.add(new HashMap<Character, Integer>());
+    List<Boolean> ends = new ArrayList<>();
+    ends.add(false);
+    for (String literal : literals) {
+      int state = 0;
+      for (int i = 0; i < literal.length(); i++) {
+        Integer next = transitions.get(state).get(literal.charAt(i));
+        if (next == null) {
+          next = transitions.size();
+          transitions.add(new HashMap<Character, Integer>());
+          ends.add(false);
+          transitions.get(state).put(literal.charAt(i), next);
+        }
+        state = next;
+      }
+      ends.set(state, true);
+    }
+
+    failures = new int[transitions.size()];
+    accepting = new boolean[transitions.size()];
+    accepting[0] = ends.get(0);
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (int child : transitions.get(0).values()) {
+      accepting[child] = ends.get(child) || accepting[0];
+      queue.add(child);
+    }
+    // The states are visited in order of depth, so the failure of a state is set before its
+    // children are visited.
+    while (!queue.isEmpty()) {
+      int state = queue.remove();
+      for (Map.Entry<Character, Integer> transition : transitions.get(state).entrySet()) {
+        int child = transition.getValue();
+        int failure = failures[state];
+        while (failure != 0 && !transitions.get(failure).containsKey(transition.getKey())) {
+          failure = failures[failure];
+        }
+        Integer next = transitions.get(failure).get(transition.getKey());
+        failures[child] = (next == null) ? 0 : next;
+        accepting[child] = ends.get(child) || accepting[failures[child]];
+        queue.add(child);
+      }
+    }
+  }
+
+  /**
+   * Indicates whether any of the literal patterns occurs in a string.
+   *
+   * @param input the string
+   * @return true if a literal pattern occurs in the string, false otherwise
+   */
+  private boolean findLiteral(String input) {
+    if (accepting[0]) {
+      return true; // the empty pattern
+    }
+    int state = 0;
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      Integer next = transitions.get(state).get(c);
+      while (next == null && state != 0) {
+        state = failures[state];
+        next = transitions.get(state).get(c);
+      }
+      state = (next == null) ? 0 : next;
+      if (accepting[state]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
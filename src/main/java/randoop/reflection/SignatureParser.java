@@ -35,6 +35,9 @@ public class SignatureParser {
   private static final Pattern SIGNATURE_PATTERN =
       Pattern.compile("(" + DOT_DELIMITED_IDS + ")\\(([^)]*)\\)");
 
+  /** Regex for the separator of the argument types of a signature. */
+  private static final Pattern ARGUMENT_SEPARATOR = Pattern.compile("\\s*,\\s*");
+
   /**
    * Parses a fully-qualified signature and returns the corresponding {@code
    * java.lang.reflect.AccessibleObject}.
@@ -76,7 +79,7 @@ public class SignatureParser {
     if (argString.isEmpty()) {
       arguments = new String[0];
     } else {
-      arguments = argString.split("\\s*,\\s*");
+      arguments = ARGUMENT_SEPARATOR.split(argString);
     }
 
     /*
@@ -105,11 +108,11 @@ public class SignatureParser {
      */
     Class<?> clazz;
     try {
-      clazz = Class.forName(qualifiedClassname);
+      clazz = TypeNames.getTypeForName(qualifiedClassname);
     } catch (ClassNotFoundException first) {
       // could be that qualified name is package-name.class-name
       try {
-        clazz = Class.forName(qualifiedName);
+        clazz = TypeNames.getTypeForName(qualifiedName);
         isConstructor = true;
       } catch (ClassNotFoundException e) {
         throw new SignatureParseException(
@@ -1,8 +1,13 @@
 package randoop.reflection;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import randoop.operation.TypedClassOperation;
 import randoop.types.ClassOrInterfaceType;
@@ -23,12 +28,61 @@ import randoop.types.TypeVariable;
 import randoop.util.Log;
 import randoop.util.Randomness;
 
-/** Function object to instantiate type parameters from a set of input types. */
+/**
+ * Function object to instantiate type parameters from a set of input types.
+ *
+ * <p>The input types that match a type, and the candidate types for a type variable, are remembered
+ * between calls to {@link #instantiate(TypedClassOperation)}. The set of input types may grow
+ * between calls, and the remembered lists are then extended by the new input types that belong in
+ * them, keeping the order of the set. The substitutions enumerated for type parameters with generic
+ * bounds are remembered until the set changes.
+ */
 public class TypeInstantiator {
 
   /** The set of input types for this model */
   private final Set<Type> inputTypes;
 
+  /** The input types as of the last call to {@link #updateInputTypes()}, in iteration order. */
+  private List<Type> knownTypes = new ArrayList<>();
+
+  /** The index of each type in {@link #knownTypes}. */
+  private Map<Type, Integer> typeIndices = new IdentityHashMap<>();
+
+  /** The input types that instantiate each pattern type, as selected by {@link #selectMatch}. */
+  private final Map<ClassOrInterfaceType, List<InstantiatedType>> matches = new HashMap<>();
+
+  /** The candidate types selected by {@link #selectCandidates(TypeVariable)} for each key. */
+  private final Map<List<Object>, Candidates> candidates = new HashMap<>();
+
+  /**
+   * The substitutions for type parameters with generic bounds computed by {@link
+   * #collectBoundedSubstitutions(List, List, Substitution)}, for the current input types.
+   */
+  private final Map<List<Object>, List<Substitution<ReferenceType>>> boundedSubstitutions =
+      new HashMap<>();
+
+  /** The candidate types for a type variable, with the bounds that they satisfy. */
+  private static class Candidates {
+
+    /** The type variable. */
+    final TypeVariable argument;
+
+    /** The lower bound tested for the variable. */
+    final ParameterBound lowerBound;
+
+    /** The upper bound tested for the variable. */
+    final ParameterBound upperBound;
+
+    /** The input types that satisfy the bounds, in the order of the input types. */
+    List<ReferenceType> types = new ArrayList<>();
+
+    Candidates(TypeVariable argument, ParameterBound lowerBound, ParameterBound upperBound) {
+      this.argument = argument;
+      this.lowerBound = lowerBound;
+      this.upperBound = upperBound;
+    }
+  }
+
   /**
    * Creates a {@link TypeInstantiator} object using the given types to construct instantiating
    * substitutions.
@@ -43,6 +97,8 @@ public class TypeInstantiator {
     assert operation.isGeneric() || operation.hasWildcardTypes()
         : "operation must be generic or have wildcards";
 
+    updateInputTypes();
+
     // Need to allow for backtracking, because choice of instantiation for declaring type may fail
     // for generic operation --- OR maybe not.
 
@@ -191,19 +247,36 @@ public class TypeInstantiator {
    */
   private Substitution<ReferenceType> selectMatch(
       ClassOrInterfaceType declaringType, ClassOrInterfaceType patternType) {
-    List<InstantiatedType> matches = new ArrayList<>();
-    for (Type type : inputTypes) {
-      if (type.isParameterized() && ((InstantiatedType) type).isInstantiationOf(patternType)) {
-        matches.add((InstantiatedType) type);
-      }
+    List<InstantiatedType> typeMatches = matches.get(patternType);
+    if (typeMatches == null) {
+      typeMatches = getMatches(knownTypes, patternType);
+      matches.put(patternType, typeMatches);
     }
-    if (matches.isEmpty()) {
+    if (typeMatches.isEmpty()) {
       return null;
     }
-    InstantiatedType selectedType = Randomness.randomSetMember(matches);
+    InstantiatedType selectedType = Randomness.randomSetMember(typeMatches);
     return selectedType.getInstantiatingSubstitution(declaringType);
   }
 
+  /**
+   * Returns the types in a list that instantiate a pattern type.
+   *
+   * @param types the types
+   * @param patternType the generic type from which match is to be determined
+   * @return the types that are instantiations of {@code patternType}, in the order of {@code types}
+   */
+  private static List<InstantiatedType> getMatches(
+      List<Type> types, ClassOrInterfaceType patternType) {
+    List<InstantiatedType> typeMatches = new ArrayList<>();
+    for (Type type : types) {
+      if (type.isParameterized() && ((InstantiatedType) type).isInstantiationOf(patternType)) {
+        typeMatches.add((InstantiatedType) type);
+      }
+    }
+    return typeMatches;
+  }
+
   /**
    * Selects an existing type that instantiates the given generic declaring type and returns the
    * instantiating substitution.
@@ -345,35 +418,18 @@ public class TypeInstantiator {
     List<Substitution<ReferenceType>> substitutionList = new ArrayList<>();
     if (!genericParameters.isEmpty()) {
       // if there are type parameters with generic bounds
-      if (!nongenericParameters.isEmpty()) {
-        // if there are type parameters with non-generic bounds, these may be variables in
-        // generic-bounded parameters
-
-        List<List<ReferenceType>> nonGenCandidates = getCandidateTypeLists(nongenericParameters);
-        if (nonGenCandidates.isEmpty()) {
-          return new ArrayList<>();
-        }
-        ListEnumerator<ReferenceType> enumerator = new ListEnumerator<>(nonGenCandidates);
-        while (enumerator.hasNext()) {
-          // choose instantiating substitution for non-generic bounded parameters
-          Substitution<ReferenceType> initialSubstitution =
-              substitution.extend(Substitution.forArgs(nongenericParameters, enumerator.next()));
-          // apply selected substitution to all generic-bounded parameters
-          List<TypeVariable> parameters = new ArrayList<>();
-          for (TypeVariable variable : genericParameters) {
-            ReferenceType paramType = variable.apply(initialSubstitution);
-            if (paramType.isVariable()) {
-              parameters.add(variable);
-            }
-          }
-          // choose instantiation for parameters with generic-bounds
-          substitutionList.addAll(collectSubstitutions(parameters, initialSubstitution));
+      List<Object> key = null;
+      if (!hasCaptureVariable(genericParameters)) {
+        key = Arrays.<Object>asList(genericParameters, nongenericParameters, substitution);
+        substitutionList = boundedSubstitutions.get(key);
+      }
+      if (substitutionList == null) {
+        substitutionList =
+            collectBoundedSubstitutions(genericParameters, nongenericParameters, substitution);
+        if (key != null) {
+          substitutionList = Collections.unmodifiableList(substitutionList);
+          boundedSubstitutions.put(key, substitutionList);
         }
-      } else {
-        // if no parameters with non-generic bounds, choose instantiation for parameters
-        // with generic bounds
-        TypeCheck typeCheck = TypeCheck.forParameters(genericParameters);
-        substitutionList = getInstantiations(genericParameters, substitution, typeCheck);
       }
       if (substitutionList.isEmpty()) {
         return substitutionList;
@@ -403,6 +459,71 @@ public class TypeInstantiator {
     return substitutionList;
   }
 
+  /**
+   * Collects the list of substitutions that extend a substitution for type parameters, some of
+   * which have generic bounds. Unlike {@link #collectSubstitutions(List, Substitution)}, makes no
+   * random choices, so the result depends only on the arguments and the input types.
+   *
+   * @param genericParameters the type parameters with generic bounds, not empty
+   * @param nongenericParameters the type parameters with non-generic bounds that are not capture
+   *     variables
+   * @param substitution the substitution to be extended
+   * @return the list of substitutions, empty if none are found
+   */
+  private List<Substitution<ReferenceType>> collectBoundedSubstitutions(
+      List<TypeVariable> genericParameters,
+      List<TypeVariable> nongenericParameters,
+      Substitution<ReferenceType> substitution) {
+    List<Substitution<ReferenceType>> substitutionList = new ArrayList<>();
+    if (!nongenericParameters.isEmpty()) {
+      // if there are type parameters with non-generic bounds, these may be variables in
+      // generic-bounded parameters
+
+      List<List<ReferenceType>> nonGenCandidates = getCandidateTypeLists(nongenericParameters);
+      if (nonGenCandidates.isEmpty()) {
+        return new ArrayList<>();
+      }
+      ListEnumerator<ReferenceType> enumerator = new ListEnumerator<>(nonGenCandidates);
+      while (enumerator.hasNext()) {
+        // choose instantiating substitution for non-generic bounded parameters
+        Substitution<ReferenceType> initialSubstitution =
+            substitution.extend(Substitution.forArgs(nongenericParameters, enumerator.next()));
+        // apply selected substitution to all generic-bounded parameters
+        List<TypeVariable> parameters = new ArrayList<>();
+        for (TypeVariable variable : genericParameters) {
+          ReferenceType paramType = variable.apply(initialSubstitution);
+          if (paramType.isVariable()) {
+            parameters.add(variable);
+          }
+        }
+        // choose instantiation for parameters with generic-bounds
+        substitutionList.addAll(collectSubstitutions(parameters, initialSubstitution));
+      }
+    } else {
+      // if no parameters with non-generic bounds, choose instantiation for parameters
+      // with generic bounds
+      TypeCheck typeCheck = TypeCheck.forParameters(genericParameters);
+      substitutionList = getInstantiations(genericParameters, substitution, typeCheck);
+    }
+    return substitutionList;
+  }
+
+  /**
+   * Indicates whether a list of type variables has a capture variable. Capture variables are
+   * created anew by each capture conversion, so results for them are not remembered.
+   *
+   * @param variables the type variables
+   * @return true if one of the variables is a capture variable, false otherwise
+   */
+  private static boolean hasCaptureVariable(List<TypeVariable> variables) {
+    for (TypeVariable variable : variables) {
+      if (variable.isCaptureVariable()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Selects types independently for a list of type parameters, and extends the given substitution
    * by the substitution of the selected types for the parameters.
@@ -497,10 +618,42 @@ public class TypeInstantiator {
     ParameterBound lowerBound = selectLowerBound(argument);
     ParameterBound upperBound = selectUpperBound(argument);
 
+    List<Object> key;
+    if (lowerBound.getTypeParameters().isEmpty() && upperBound.getTypeParameters().isEmpty()) {
+      // The bounds do not depend on the variable, so neither do the candidates.
+      key = Arrays.asList(lowerBound.getClass(), lowerBound, upperBound.getClass(), upperBound);
+    } else if (!argument.isCaptureVariable()) {
+      key = Collections.<Object>singletonList(argument);
+    } else {
+      return getCandidates(argument, lowerBound, upperBound, knownTypes);
+    }
+    Candidates typeCandidates = candidates.get(key);
+    if (typeCandidates == null) {
+      typeCandidates = new Candidates(argument, lowerBound, upperBound);
+      typeCandidates.types = getCandidates(argument, lowerBound, upperBound, knownTypes);
+      candidates.put(key, typeCandidates);
+    }
+    return typeCandidates.types;
+  }
+
+  /**
+   * Returns the types in a list that satisfy the bounds of a type argument.
+   *
+   * @param argument the type argument
+   * @param lowerBound the lower bound to test
+   * @param upperBound the upper bound to test
+   * @param types the types
+   * @return the reference types that satisfy the bounds, in the order of {@code types}
+   */
+  private static List<ReferenceType> getCandidates(
+      TypeVariable argument,
+      ParameterBound lowerBound,
+      ParameterBound upperBound,
+      List<Type> types) {
     List<TypeVariable> typeVariableList = new ArrayList<>();
     typeVariableList.add(argument);
     List<ReferenceType> typeList = new ArrayList<>();
-    for (Type inputType : inputTypes) {
+    for (Type inputType : types) {
       if (inputType.isReferenceType()) {
         ReferenceType inputRefType = (ReferenceType) inputType;
         Substitution<ReferenceType> substitution =
@@ -514,6 +667,78 @@ public class TypeInstantiator {
     return typeList;
   }
 
+  /**
+   * Brings the remembered matches and candidates up to date with the input types. If types have
+   * been added to the input types, adds those that belong in each list at their position in the
+   * input types, and forgets the remembered substitutions. If a type has been removed, forgets
+   * everything.
+   */
+  private void updateInputTypes() {
+    if (inputTypes.size() == knownTypes.size()) {
+      return;
+    }
+    List<Type> types = new ArrayList<>(inputTypes);
+    Map<Type, Integer> indices = new IdentityHashMap<>();
+    List<Type> newTypes = new ArrayList<>();
+    for (Type type : types) {
+      if (!typeIndices.containsKey(type)) {
+        newTypes.add(type);
+      }
+      indices.put(type, indices.size());
+    }
+    boolean removed = types.size() - newTypes.size() != knownTypes.size();
+    knownTypes = types;
+    typeIndices = indices;
+    boundedSubstitutions.clear();
+    if (removed) {
+      matches.clear();
+      candidates.clear();
+      return;
+    }
+
+    for (Map.Entry<ClassOrInterfaceType, List<InstantiatedType>> entry : matches.entrySet()) {
+      List<InstantiatedType> newMatches = getMatches(newTypes, entry.getKey());
+      if (!newMatches.isEmpty()) {
+        entry.setValue(merge(entry.getValue(), newMatches));
+      }
+    }
+    for (Candidates typeCandidates : candidates.values()) {
+      List<ReferenceType> newCandidates =
+          getCandidates(
+              typeCandidates.argument,
+              typeCandidates.lowerBound,
+              typeCandidates.upperBound,
+              newTypes);
+      if (!newCandidates.isEmpty()) {
+        typeCandidates.types = merge(typeCandidates.types, newCandidates);
+      }
+    }
+  }
+
+  /**
+   * Merges two lists of input types that are each in the order of {@link #knownTypes}.
+   *
+   * @param list1 the first list
+   * @param list2 the second list
+   * @param <T> the type of the elements
+   * @return a new list of the elements of both lists, in the order of {@link #knownTypes}
+   */
+  private <T extends Type> List<T> merge(List<T> list1, List<T> list2) {
+    List<T> result = new ArrayList<>(list1.size() + list2.size());
+    int i = 0;
+    int j = 0;
+    while (i < list1.size() && j < list2.size()) {
+      if (typeIndices.get(list1.get(i)) < typeIndices.get(list2.get(j))) {
+        result.add(list1.get(i++));
+      } else {
+        result.add(list2.get(j++));
+      }
+    }
+    result.addAll(list1.subList(i, list1.size()));
+    result.addAll(list2.subList(j, list2.size()));
+    return result;
+  }
+
   /**
    * Chooses the upper bound of the given argument to test in {@link
    * #selectCandidates(TypeVariable)}. If the bound contains a type parameter other than the given
@@ -1,6 +1,9 @@
 package randoop.reflection;
 
 import java.lang.reflect.Array;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import randoop.types.PrimitiveTypes;
 
 /**
@@ -10,9 +13,19 @@ import randoop.types.PrimitiveTypes;
  *   <li>get string names for classes and primitive types, and
  *   <li>get the {@link Class} object for a string representing a class or primitive type.
  * </ul>
+ *
+ * <p>The class for each name is remembered, as is each name for which no class is found, since a
+ * long method list or a file of sequences names the same classes many times.
  */
 public class TypeNames {
 
+  /** The class for each name that has been found by {@link #getTypeForName(String)}. */
+  private static final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+  /** The names for which {@link #getTypeForName(String)} found no class. */
+  private static final Set<String> missingClasses =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
   /**
    * Returns {@link Class} object for a fully-qualified class name or primitive type name.
    *
@@ -23,13 +36,27 @@ public class TypeNames {
    * @throws ClassNotFoundException if string is not a recognized type
    */
   public static Class<?> getTypeForName(String typeName) throws ClassNotFoundException {
-    if (isArrayType(typeName)) {
-      return getArrayType(typeName);
+    Class<?> c = classes.get(typeName);
+    if (c != null) {
+      return c;
+    }
+    if (missingClasses.contains(typeName)) {
+      throw new ClassNotFoundException(typeName);
     }
-    Class<?> c = PrimitiveTypes.classForName(typeName);
-    if (c == null) {
-      c = Class.forName(typeName);
+    try {
+      if (isArrayType(typeName)) {
+        c = getArrayType(typeName);
+      } else {
+        c = PrimitiveTypes.classForName(typeName);
+        if (c == null) {
+          c = Class.forName(typeName);
+        }
+      }
+    } catch (ClassNotFoundException e) {
+      missingClasses.add(typeName);
+      throw e;
     }
+    classes.put(typeName, c);
     return c;
   }
 
@@ -3,6 +3,7 @@ package randoop.sequence;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -66,7 +67,10 @@ import randoop.util.ProgressDisplay;
  *         <li>{@link #getResult}
  *         <li>{@link #getValue}
  *       </ul>
- *
+ *   <li>The {@code execute} methods, which set the checks, must be called by the thread that
+ *       generates the sequence, before the sequence is given to other threads. The methods that
+ *       render the code, such as {@link #toCodeLines()} and {@link #toCodeString()}, may then be
+ *       called from any thread, for instance by the threads that write test classes.
  * </ul>
  */
 public class ExecutableSequence {
@@ -77,6 +81,13 @@ public class ExecutableSequence {
   /** The checks for this sequence */
   private TestChecks<?> checks;
 
+  /**
+   * The code for this sequence, including the checks, as returned by {@link #toCodeLines()} and
+   * {@link #toCodeString()}. Null until the code is first requested, and reset when the checks
+   * change. The code is immutable, so threads that render the sequence share it safely.
+   */
+  private volatile RenderedCode code;
+
   /**
    * Contains the runtime objects created and exceptions thrown (if any) during execution of this
    * sequence. Invariant: sequence.size() == executionResults.size(). Transient because it can
@@ -146,16 +157,42 @@ public class ExecutableSequence {
   }
 
   /**
-   * Return this sequence as code. Similar to {@link Sequence#toCodeString()} except includes the
-   * checks.
+   * Return this sequence as code, one element for each statement that is printed. Each element is
+   * the code for the statement together with its checks, and may span several lines. {@link
+   * #toCodeString()} is the concatenation of the elements, each followed by a line separator.
    *
    * <p>If for a given statement there is a check of type {@link randoop.test.ExceptionCheck}, that
    * check's pre-statement code is printed immediately before the statement, and its post-statement
    * code is printed immediately after the statement.
    *
-   * @return the sequence as a string
+   * @return the code for the statements of the sequence, which must not be modified
    */
-  private List<String> toCodeLines() {
+  public List<String> toCodeLines() {
+    return getRenderedCode().lines;
+  }
+
+  /**
+   * Returns the code for the sequence and its checks, rendering it if it has not been rendered for
+   * the current underlying sequence and checks.
+   *
+   * @return the code for the sequence
+   */
+  private RenderedCode getRenderedCode() {
+    // The lines are rendered at most once for the sequence and checks.
+    RenderedCode result = code;
+    if (result == null || result.sequence != sequence) {
+      result = new RenderedCode(sequence, Collections.unmodifiableList(renderCodeLines()));
+      code = result;
+    }
+    return result;
+  }
+
+  /**
+   * Renders the code for the statements of the sequence, as described in {@link #toCodeLines()}.
+   *
+   * @return the code for the statements of the sequence
+   */
+  private List<String> renderCodeLines() {
     List<String> lines = new ArrayList<>();
     for (int i = 0; i < sequence.size(); i++) {
 
@@ -201,11 +238,9 @@ public class ExecutableSequence {
    * @return the sequence as a string
    */
   public String toCodeString() {
-    StringBuilder b = new StringBuilder();
-    for (String line : toCodeLines()) {
-      b.append(line).append(Globals.lineSep);
-    }
-    return b.toString();
+    // The code is rendered at most once for the sequence and checks, whether it is used to check
+    // compilation, for logging, or to write the test.
+    return getRenderedCode().getString();
   }
 
   /**
@@ -215,9 +250,7 @@ public class ExecutableSequence {
    * @return the string representation of the statement
    */
   public String statementToCodeString(int i) {
-    StringBuilder oneStatement = new StringBuilder();
-    sequence.appendCode(oneStatement, i);
-    return oneStatement.toString();
+    return sequence.getStatementCode(i);
   }
 
   /**
@@ -250,7 +283,6 @@ public class ExecutableSequence {
    *         <li>After executing the i-th statement and calling the visitor's {@code visitAfter}
    *             method, a {@code ContractViolation} check is present at index i.
    *       </ul>
-   *
    * </ul>
    *
    * @param visitor the {@code ExecutionVisitor}
@@ -310,6 +342,7 @@ public class ExecutableSequence {
 
     // This is the only client call to generateTestChecks().
     checks = gen.generateTestChecks(this);
+    code = null;
   }
 
   public Object[] getRuntimeInputs(List<Variable> inputs) {
@@ -681,4 +714,40 @@ public class ExecutableSequence {
   public int size() {
     return sequence.size();
   }
+
+  /** The code for an underlying sequence and its checks. */
+  private static final class RenderedCode {
+
+    /** The underlying sequence for which the code was rendered. */
+    final Sequence sequence;
+
+    /** The code for each printed statement, together with its checks. */
+    final List<String> lines;
+
+    /** The concatenation of {@link #lines}, null until it is first requested. */
+    private volatile String string;
+
+    RenderedCode(Sequence sequence, List<String> lines) {
+      this.sequence = sequence;
+      this.lines = lines;
+    }
+
+    /**
+     * Returns the lines, each followed by a line separator.
+     *
+     * @return the code as a single string
+     */
+    String getString() {
+      String result = string;
+      if (result == null) {
+        StringBuilder b = new StringBuilder();
+        for (String line : lines) {
+          b.append(line).append(Globals.lineSep);
+        }
+        result = b.toString();
+        string = result;
+      }
+      return result;
+    }
+  }
 }
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +66,30 @@ public final class Sequence implements WeightedElement {
    */
   private List<Integer> outputIndices;
 
+  /**
+   * The code for the statements of this sequence: the code of the last statement, linked to the
+   * code for the preceding statements. Null until the code is first requested. See {@link
+   * #getStatementCode()}.
+   *
+   * <p>The code of a sequence may be requested from several threads, for instance by the threads
+   * that write test classes. The code is immutable once built, and is published through volatile
+   * fields; threads that render the same code at the same time compute equal values.
+   */
+  private transient volatile StatementCode statementCode;
+
+  /**
+   * The code for each statement of this sequence, indexed by statement position. Null until the
+   * code of a statement is first requested by position. See {@link #getStatementCodeArray()}.
+   */
+  private transient volatile String[] statementCodeArray;
+
+  /**
+   * The sequence that this sequence extends by one statement, if the code of this sequence has not
+   * been rendered yet. Used so that the code of the prefix is rendered only once. Set to null once
+   * the code of this sequence is rendered.
+   */
+  private transient volatile Sequence codePrefix;
+
   /** Create a new, empty sequence. */
   public Sequence() {
     this(new ArrayListSimpleList<Statement>(), 0, 0);
@@ -197,10 +222,14 @@ public final class Sequence implements WeightedElement {
     }
     Statement statement = new Statement(operation, indexList);
     int newNetSize = (operation.isNonreceivingValue()) ? this.savedNetSize : this.savedNetSize + 1;
-    return new Sequence(
-        new OneMoreElementList<>(this.statements, statement),
-        this.savedHashCode + statement.hashCode(),
-        newNetSize);
+    Sequence extension =
+        new Sequence(
+            new OneMoreElementList<>(this.statements, statement),
+            this.savedHashCode + statement.hashCode(),
+            newNetSize);
+    // The statements of this sequence are rendered the same way in the extension.
+    extension.codePrefix = (this.statementCode != null || this.codePrefix != null) ? this : null;
+    return extension;
   }
 
   /**
@@ -359,6 +388,7 @@ public final class Sequence implements WeightedElement {
    * @return a string containing Java code for this sequence
    */
   public String toCodeString() {
+    String[] code = getStatementCodeArray();
     StringBuilder b = new StringBuilder();
     for (int i = 0; i < size(); i++) {
       // Don't dump primitive initializations, if using literals.
@@ -369,7 +399,7 @@ public final class Sequence implements WeightedElement {
           continue;
         }
       }
-      appendCode(b, i);
+      b.append(code[i]);
       b.append(Globals.lineSep);
     }
     return b.toString();
@@ -385,8 +415,8 @@ public final class Sequence implements WeightedElement {
   private String toFullCodeString() {
     // XXX can we do this so that substitutions don't happen?
     StringBuilder b = new StringBuilder();
-    for (int i = 0; i < size(); i++) {
-      appendCode(b, i);
+    for (String code : getStatementCodeArray()) {
+      b.append(code);
     }
     return b.toString();
   }
@@ -868,9 +898,89 @@ public final class Sequence implements WeightedElement {
    * @param index the position of the statement to print in this {@code Sequence}.
    */
   public void appendCode(StringBuilder b, int index) {
-    // Get strings representing the inputs to this statement.
-    // Example: { "var2", "(int)3" }
-    getStatement(index).appendCode(getVariable(index), getInputs(index), b);
+    b.append(getStatementCode(index));
+  }
+
+  /**
+   * Returns the code for the statement at the given index.
+   *
+   * @param index the position of the statement in this {@code Sequence}
+   * @return the code for the statement
+   */
+  public String getStatementCode(int index) {
+    checkIndex(index);
+    return getStatementCodeArray()[index];
+  }
+
+  /**
+   * Returns the code for each of the statements of this sequence. The array is built on the first
+   * call, so that the code of each statement is found in constant time afterwards. Callers must not
+   * modify the array.
+   *
+   * @return the array of code for the statements, indexed by statement position
+   */
+  private String[] getStatementCodeArray() {
+    String[] result = statementCodeArray;
+    if (result == null) {
+      // Built completely before it is published, so other threads never see a partial array.
+      result = new String[size()];
+      StatementCode code = getStatementCode();
+      for (int i = size() - 1; i >= 0; i--) {
+        result[i] = code.text;
+        code = code.previous;
+      }
+      statementCodeArray = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the code for the last statement of this sequence, linked to the code of the preceding
+   * statements. The code is rendered on the first call. If this sequence was created by extending a
+   * sequence whose code is known, or will be needed, only the last statement is rendered and the
+   * code of the prefix is shared.
+   *
+   * @return the code for the statements of this sequence, null if this sequence is empty
+   */
+  private StatementCode getStatementCode() {
+    StatementCode result = statementCode;
+    if (result != null || size() == 0) {
+      return result;
+    }
+
+    // Find the longest chain of prefixes without code, iteratively to avoid deep recursion.
+    List<Sequence> unrendered = new ArrayList<>();
+    Sequence current = this;
+    while (current != null && current.statementCode == null) {
+      unrendered.add(current);
+      current = current.codePrefix;
+    }
+
+    // The code of the longest rendered prefix, and the first statement index without code.
+    StatementCode code = null;
+    int start = 0;
+    if (current != null) {
+      code = current.statementCode;
+      start = current.size();
+    }
+
+    // Render forward from the shortest prefix without code.
+    for (int s = unrendered.size() - 1; s >= 0; s--) {
+      Sequence sequence = unrendered.get(s);
+      for (int i = start; i < sequence.size(); i++) {
+        StringBuilder b = new StringBuilder();
+        // Get strings representing the inputs to this statement.
+        // Example: { "var2", "(int)3" }
+        sequence.getStatement(i).appendCode(sequence.getVariable(i), sequence.getInputs(i), b);
+        code = new StatementCode(b.toString(), code);
+      }
+      // The code is published before the prefix is dropped: a thread that then finds no prefix
+      // renders the sequence from its first statement.
+      sequence.statementCode = code;
+      sequence.codePrefix = null;
+      start = sequence.size();
+    }
+    return code;
   }
 
   /**
@@ -1010,7 +1120,6 @@ public final class Sequence implements WeightedElement {
           throw new SequenceParseException(msg, statements, statementCount);
         }
 
-        System.out.println("operation string: " + opStr);
         // Parse operation.
         TypedOperation operation;
         try {
@@ -1143,6 +1252,43 @@ public final class Sequence implements WeightedElement {
     return new Sequence(statements.getSublist(index));
   }
 
+  /**
+   * Returns the sequence of the statements of this sequence at the given indices, in order. The
+   * statement at the k-th of the indices becomes the k-th statement of the new sequence, and its
+   * inputs refer to the corresponding statements of the new sequence.
+   *
+   * @param indices the increasing indices of the statements to retain, which must include the
+   *     inputs of each retained statement
+   * @return the sequence of the retained statements
+   * @throws IllegalArgumentException if the indices are not increasing, or an input of a retained
+   *     statement is not retained
+   */
+  public Sequence getSlice(List<Integer> indices) {
+    Map<Integer, Integer> newIndices = new HashMap<>();
+    ArrayListSimpleList<Statement> slice = new ArrayListSimpleList<>(indices.size());
+    int previous = -1;
+    for (int index : indices) {
+      checkIndex(index);
+      if (index <= previous) {
+        throw new IllegalArgumentException("Indices are not increasing: " + indices);
+      }
+      previous = index;
+      int newIndex = slice.size();
+      List<RelativeNegativeIndex> inputs = new ArrayList<>();
+      for (int input : getInputsAsAbsoluteIndices(index)) {
+        Integer newInput = newIndices.get(input);
+        if (newInput == null) {
+          throw new IllegalArgumentException(
+              "Input " + input + " of statement " + index + " is not retained");
+        }
+        inputs.add(new RelativeNegativeIndex(newInput - newIndex));
+      }
+      slice.add(new Statement(statements.get(index).getOperation(), inputs));
+      newIndices.put(index, newIndex);
+    }
+    return new Sequence(slice);
+  }
+
   /** Write this sequence to the Randoop log. */
   public void log() {
     if (!Log.isLoggingOn()) {
@@ -1181,6 +1327,24 @@ public final class Sequence implements WeightedElement {
     return this.statements.get(this.statements.size() - 1).getOperation();
   }
 
+  /**
+   * The code for a statement of a sequence, linked to the code for the preceding statements. A
+   * sequence and the sequences that extend it share the code for their common statements.
+   */
+  private static final class StatementCode {
+
+    /** The code of the statement. */
+    final String text;
+
+    /** The code of the preceding statement, null if this is the first statement. */
+    final StatementCode previous;
+
+    StatementCode(String text, StatementCode previous) {
+      this.text = text;
+      this.previous = previous;
+    }
+  }
+
   /**
    * Used internally (i.e. in package randoop.sequence) to represent inputs to a statement.
    *
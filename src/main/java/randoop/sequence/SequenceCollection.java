@@ -52,6 +52,9 @@ public class SequenceCollection {
 
   private Set<Type> sequenceTypes = new TreeSet<>();
 
+  /** The instantiator for {@link #sequenceTypes}, which remembers its work as the types grow. */
+  private final TypeInstantiator instantiator = new TypeInstantiator(sequenceTypes);
+
   /** Number of sequences in the collection: sum of sizes of all values in sequenceMap. */
   private int sequenceCount = 0;
 
@@ -257,7 +260,13 @@ public class SequenceCollection {
     return result;
   }
 
+  /**
+   * Returns the type instantiator for the types of the sequences in this collection. The same
+   * instantiator is returned by each call.
+   *
+   * @return the type instantiator for this collection
+   */
   public TypeInstantiator getTypeInstantiator() {
-    return new TypeInstantiator(sequenceTypes);
+    return instantiator;
   }
 }
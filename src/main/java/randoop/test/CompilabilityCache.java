@@ -0,0 +1,234 @@
+package randoop.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import randoop.operation.TypedOperation;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.sequence.Statement;
+import randoop.sequence.Variable;
+import randoop.types.Type;
+
+/**
+ * Remembers whether sequences of a given <i>shape</i> compiled, so that {@link
+ * CompilableTestPredicate} can avoid calling the compiler for a sequence whose shape it has seen
+ * before.
+ *
+ * <p>The shape of a sequence is the set of its statement signatures. A statement signature consists
+ * of the operation (including its declaring type, input types and output type, so casts and generic
+ * instantiations are distinguished) together with the declared types of the variables that are
+ * passed to it. Values of primitive and {@code String} initializations are omitted, but an
+ * initialization to null is kept because a null argument may make an overloaded call ambiguous.
+ * Variable names and statement order are not part of the shape of the statements.
+ *
+ * <p>The code of the checks of an {@link ExecutableSequence} is compiled with its statements, and
+ * may decide whether it compiles; for example, an exception check catches a checked exception. So
+ * the shape of an executable sequence also includes the code of each of its checks, verbatim.
+ *
+ * <p>Because the shape is an abstraction of the sequence, a cached verdict may be wrong. To guard
+ * against this, a fraction of the cache hits, given by the verification ratio, are answered by the
+ * compiler anyway. If the compiler disagrees with the cached verdict, the shape is marked as
+ * unreliable and sequences with that shape are always compiled from then on. Verification is
+ * deterministic (every n-th hit) so that it does not disturb {@link randoop.util.Randomness}.
+ */
+public class CompilabilityCache {
+
+  /** The verdict for a shape. */
+  enum Verdict {
+    /** Sequences with the shape compiled. */
+    COMPILABLE,
+    /** Sequences with the shape failed to compile. */
+    NOT_COMPILABLE,
+    /** The compiler has given different verdicts for sequences with the shape. */
+    UNRELIABLE
+  }
+
+  /** The recorded verdicts, least recently used first. */
+  private final Map<String, Verdict> verdicts;
+
+  /** The fraction of cache hits that are checked by the compiler. */
+  private final double verifyRatio;
+
+  /** The number of lookups that found a usable verdict. */
+  private int hitCount = 0;
+
+  /** The number of lookups that did not find a usable verdict. */
+  private int missCount = 0;
+
+  /** The number of cache hits that were checked by the compiler. */
+  private int verifiedCount = 0;
+
+  /** The number of verified cache hits for which the compiler disagreed with the cache. */
+  private int mismatchCount = 0;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxSize the maximum number of shapes to remember, must be positive
+   * @param verifyRatio the fraction of cache hits to check using the compiler, in [0, 1]
+   */
+  public CompilabilityCache(final int maxSize, double verifyRatio) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive: " + maxSize);
+    }
+    if (verifyRatio < 0 || verifyRatio > 1) {
+      throw new IllegalArgumentException("verify ratio must be in [0, 1]: " + verifyRatio);
+    }
+    this.verifyRatio = verifyRatio;
+    this.verdicts =
+        new LinkedHashMap<String, Verdict>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+            return size() > maxSize;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached verdict for the given shape, or null if the compiler must be called, either
+   * because no usable verdict is known or because this hit has been selected for verification.
+   *
+   * @param shape the shape of a sequence, as computed by {@link #shapeOf(ExecutableSequence)}
+   * @return {@code Boolean.TRUE} if the shape is known to compile, {@code Boolean.FALSE} if it is
+   *     known not to compile, or null if the sequence should be compiled
+   */
+  public Boolean lookup(String shape) {
+    Verdict verdict = verdicts.get(shape);
+    if (verdict == null || verdict == Verdict.UNRELIABLE) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    if (isVerificationHit()) {
+      verifiedCount++;
+      return null;
+    }
+    return verdict == Verdict.COMPILABLE;
+  }
+
+  /**
+   * Records the verdict of the compiler for a sequence with the given shape.
+   *
+   * @param shape the shape of the compiled sequence, as computed by {@link
+   *     #shapeOf(ExecutableSequence)}
+   * @param compilable the verdict of the compiler
+   */
+  public void record(String shape, boolean compilable) {
+    Verdict verdict = compilable ? Verdict.COMPILABLE : Verdict.NOT_COMPILABLE;
+    Verdict previous = verdicts.get(shape);
+    if (previous == null) {
+      verdicts.put(shape, verdict);
+    } else if (previous != verdict && previous != Verdict.UNRELIABLE) {
+      mismatchCount++;
+      verdicts.put(shape, Verdict.UNRELIABLE);
+    }
+  }
+
+  /**
+   * Indicates whether the current hit should be verified, so that the number of verified hits is
+   * {@code verifyRatio} times the number of hits, rounded down.
+   *
+   * @return true if the current hit should be checked by the compiler, false otherwise
+   */
+  private boolean isVerificationHit() {
+    return (long) (hitCount * verifyRatio) > (long) ((hitCount - 1) * verifyRatio);
+  }
+
+  /**
+   * Returns the shape of the given executable sequence: the shape of its statements, followed by
+   * the code of its checks. See the class documentation for what a shape includes.
+   *
+   * @param sequence the executable sequence
+   * @return the shape of the sequence and its checks
+   */
+  public static String shapeOf(ExecutableSequence sequence) {
+    String shape = shapeOf(sequence.sequence);
+    TestChecks<?> checks = sequence.getChecks();
+    if (checks == null) {
+      return shape;
+    }
+    Set<String> checkCode = new TreeSet<>();
+    Check exceptionCheck = checks.getExceptionCheck();
+    if (exceptionCheck != null) {
+      checkCode.add(codeOf(exceptionCheck));
+    }
+    for (Check check : checks.checks()) {
+      checkCode.add(codeOf(check));
+    }
+    StringBuilder b = new StringBuilder(shape);
+    for (String code : checkCode) {
+      b.append("check: ").append(code).append('\n');
+    }
+    return b.toString();
+  }
+
+  /**
+   * Returns the code of a check, as it is placed around the statement it checks.
+   *
+   * @param check the check
+   * @return the pre-statement and post-statement code of the check
+   */
+  private static String codeOf(Check check) {
+    return check.toCodeStringPreStatement() + " ... " + check.toCodeStringPostStatement();
+  }
+
+  /**
+   * Returns the shape of the statements of the given sequence. See the class documentation for what
+   * a shape includes.
+   *
+   * @param sequence the sequence
+   * @return the shape of the sequence
+   */
+  public static String shapeOf(Sequence sequence) {
+    Set<String> statementSignatures = new TreeSet<>();
+    for (int i = 0; i < sequence.size(); i++) {
+      statementSignatures.add(statementSignature(sequence, i));
+    }
+    StringBuilder b = new StringBuilder();
+    for (String signature : statementSignatures) {
+      b.append(signature).append('\n');
+    }
+    return b.toString();
+  }
+
+  /**
+   * Returns the signature of the statement at the given index of the sequence.
+   *
+   * @param sequence the sequence
+   * @param index the index of the statement
+   * @return the signature of the statement
+   */
+  private static String statementSignature(Sequence sequence, int index) {
+    Statement statement = sequence.getStatement(index);
+    TypedOperation operation = statement.getOperation();
+    if (operation.isNonreceivingValue()) {
+      Type type = operation.getOutputType();
+      return type.getName() + (statement.isNullInitialization() ? " = null" : " = value");
+    }
+    StringBuilder b = new StringBuilder();
+    b.append(operation.toString());
+    if (operation.isUncheckedCast()) {
+      b.append(" unchecked");
+    }
+    b.append(" :");
+    for (Variable input : sequence.getInputs(index)) {
+      b.append(' ').append(input.getType().getName());
+    }
+    return b.toString();
+  }
+
+  /**
+   * Returns a summary of the number of hits, misses and verification mismatches.
+   *
+   * @return a description of the cache statistics
+   */
+  public String statistics() {
+    return String.format(
+        "compilability cache: %d hits, %d misses, %d verified, %d mismatches, %d shapes",
+        hitCount, missCount, verifiedCount, mismatchCount, verdicts.size());
+  }
+}
@@ -1,7 +1,6 @@
 package randoop.test;
 
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.PackageDeclaration;
 import java.util.ArrayList;
 import java.util.List;
 import randoop.ExceptionalExecution;
@@ -32,6 +31,9 @@ public class CompilableTestPredicate extends DefaultPredicate<ExecutableSequence
   /** The {@link GenTests} instance that created this predicate */
   private final GenTests genTests;
 
+  /** The cache of compilation verdicts for sequence shapes, null if no caching */
+  private final CompilabilityCache cache;
+
   /**
    * Creates a predicate using the given {@link JUnitCreator} to construct the test class for each
    * sequence.
@@ -40,6 +42,20 @@ public class CompilableTestPredicate extends DefaultPredicate<ExecutableSequence
    * @param genTests the {@link GenTests} instance to report compilation failures
    */
   public CompilableTestPredicate(JUnitCreator junitCreator, GenTests genTests) {
+    this(junitCreator, genTests, null);
+  }
+
+  /**
+   * Creates a predicate using the given {@link JUnitCreator} to construct the test class for each
+   * sequence, and that uses the given {@link CompilabilityCache} to avoid compiling sequences whose
+   * shape has already been compiled.
+   *
+   * @param junitCreator the {@link JUnitCreator} for this Randoop run
+   * @param genTests the {@link GenTests} instance to report compilation failures
+   * @param cache the cache of compilation verdicts, null if every sequence should be compiled
+   */
+  public CompilableTestPredicate(
+      JUnitCreator junitCreator, GenTests genTests, CompilabilityCache cache) {
     SequenceClassLoader sequenceClassLoader = new SequenceClassLoader(getClass().getClassLoader());
     List<String> options = new ArrayList<>();
     // only need to know an error exists:
@@ -57,6 +73,7 @@ public class CompilableTestPredicate extends DefaultPredicate<ExecutableSequence
     this.junitCreator = junitCreator;
     this.nameGenerator = new NameGenerator("RandoopTemporarySeqTest");
     this.genTests = genTests;
+    this.cache = cache;
   }
 
   /**
@@ -68,15 +85,7 @@ public class CompilableTestPredicate extends DefaultPredicate<ExecutableSequence
    */
   @Override
   public boolean test(ExecutableSequence sequence) {
-    String testClassName = nameGenerator.next();
-    String methodNamePrefix = "test";
-    List<ExecutableSequence> sequences = new ArrayList<>();
-    sequences.add(sequence);
-    CompilationUnit source =
-        junitCreator.createTestClass(testClassName, methodNamePrefix, sequences);
-    PackageDeclaration pkg = source.getPackage();
-    String packageName = pkg == null ? null : pkg.getPackageName();
-    boolean result = testSource(testClassName, source, packageName);
+    boolean result = compileUsingCache(sequence);
     if (!result && genTests != null) {
       // get result from last line of sequence
       ExecutionOutcome sequenceResult = sequence.getResult(sequence.size() - 1);
@@ -92,6 +101,43 @@ public class CompilableTestPredicate extends DefaultPredicate<ExecutableSequence
     return result;
   }
 
+  /**
+   * Determines whether the sequence is compilable, using the cached verdict for its shape if there
+   * is one, and otherwise compiling it.
+   *
+   * @param sequence the sequence to compile
+   * @return true if the sequence can be compiled, false otherwise
+   */
+  private boolean compileUsingCache(ExecutableSequence sequence) {
+    if (cache == null) {
+      return compile(sequence);
+    }
+    String shape = CompilabilityCache.shapeOf(sequence);
+    Boolean cachedResult = cache.lookup(shape);
+    if (cachedResult != null) {
+      return cachedResult;
+    }
+    boolean result = compile(sequence);
+    cache.record(shape, result);
+    return result;
+  }
+
+  /**
+   * Creates the test class for the sequence and compiles it.
+   *
+   * @param sequence the sequence to compile
+   * @return true if the sequence can be compiled, false otherwise
+   */
+  private boolean compile(ExecutableSequence sequence) {
+    String testClassName = nameGenerator.next();
+    String methodNamePrefix = "test";
+    List<ExecutableSequence> sequences = new ArrayList<>();
+    sequences.add(sequence);
+    String sourceText =
+        junitCreator.createTestClassSource(testClassName, methodNamePrefix, sequences);
+    return compiler.isCompilable(junitCreator.getPackageName(), testClassName, sourceText);
+  }
+
   /**
    * Test the source text directly. This is here to allow the mechanics of the predicate to be
    * tested directly. Otherwise, we have to create a broken {@link ExecutableSequence}, which may
@@ -2,8 +2,10 @@ package randoop.test;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import randoop.sequence.Variable;
 
 /**
  * ErrorRevealingChecks represent failing checks for a particular test sequence. Each check may
@@ -126,6 +128,119 @@ public class ErrorRevealingChecks implements TestChecks<ErrorRevealingChecks> {
     return common;
   }
 
+  /**
+   * Indicates whether the given checks, for a sequence obtained by removing statements from the
+   * sequence of these checks, are the same as these checks. Each check must be of the same kind as
+   * a check of this set, for the same contract, condition, or exception, and refer to the
+   * corresponding variables or statement.
+   *
+   * @param other the checks of the smaller sequence
+   * @param indexMap the index in the smaller sequence of each statement of the sequence of these
+   *     checks that it retains
+   * @return true if {@code other} contains a corresponding check for each check of this set and no
+   *     other checks, false otherwise
+   */
+  public boolean hasSameChecks(ErrorRevealingChecks other, Map<Integer, Integer> indexMap) {
+    if (checks.size() != other.checks.size()) {
+      return false;
+    }
+    for (Check check : checks) {
+      boolean found = false;
+      for (Check otherCheck : other.checks) {
+        if (isSameCheck(check, otherCheck, indexMap)) {
+          found = true;
+          break;
+        }
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indicates whether a check of a smaller sequence corresponds to a check of the original
+   * sequence.
+   *
+   * @param check the check of the original sequence
+   * @param other the check of the smaller sequence
+   * @param indexMap the index in the smaller sequence of each retained statement
+   * @return true if the checks are of the same kind and refer to corresponding statements
+   */
+  private static boolean isSameCheck(Check check, Check other, Map<Integer, Integer> indexMap) {
+    if (check.getClass() != other.getClass()) {
+      return false;
+    }
+    if (check instanceof ObjectCheck) {
+      ObjectCheck objectCheck = (ObjectCheck) check;
+      ObjectCheck otherCheck = (ObjectCheck) other;
+      return objectCheck.contract.getClass() == otherCheck.contract.getClass()
+          && objectCheck.contract.toCodeString().equals(otherCheck.contract.toCodeString())
+          && isSameVariables(objectCheck.vars, otherCheck.vars, indexMap);
+    }
+    if (check instanceof PostConditionCheck) {
+      PostConditionCheck conditionCheck = (PostConditionCheck) check;
+      PostConditionCheck otherCheck = (PostConditionCheck) other;
+      return conditionCheck
+              .postcondition
+              .getConditionString()
+              .equals(otherCheck.postcondition.getConditionString())
+          && conditionCheck.postcondition.getComment().equals(otherCheck.postcondition.getComment())
+          && isSameVariables(conditionCheck.inputVariables, otherCheck.inputVariables, indexMap);
+    }
+    if (check instanceof NoExceptionCheck) {
+      return isSameIndex(
+          ((NoExceptionCheck) check).statementIdx,
+          ((NoExceptionCheck) other).statementIdx,
+          indexMap);
+    }
+    if (check instanceof ExceptionCheck) {
+      ExceptionCheck exceptionCheck = (ExceptionCheck) check;
+      ExceptionCheck otherCheck = (ExceptionCheck) other;
+      return exceptionCheck.exception.getClass() == otherCheck.exception.getClass()
+          && isSameIndex(exceptionCheck.statementIndex, otherCheck.statementIndex, indexMap);
+    }
+    return false;
+  }
+
+  /**
+   * Indicates whether variables of a smaller sequence correspond to variables of the original
+   * sequence.
+   *
+   * @param vars the variables of the original sequence
+   * @param otherVars the variables of the smaller sequence
+   * @param indexMap the index in the smaller sequence of each retained statement
+   * @return true if each variable is defined by the statement that corresponds to the statement
+   *     that defines the variable at the same position
+   */
+  private static boolean isSameVariables(
+      Variable[] vars, Variable[] otherVars, Map<Integer, Integer> indexMap) {
+    if (vars.length != otherVars.length) {
+      return false;
+    }
+    for (int i = 0; i < vars.length; i++) {
+      if (!isSameIndex(vars[i].index, otherVars[i].index, indexMap)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indicates whether a statement index of a smaller sequence corresponds to a statement index of
+   * the original sequence.
+   *
+   * @param index the index in the original sequence
+   * @param otherIndex the index in the smaller sequence
+   * @param indexMap the index in the smaller sequence of each retained statement
+   * @return true if the statement at {@code index} is retained at {@code otherIndex}
+   */
+  private static boolean isSameIndex(int index, int otherIndex, Map<Integer, Integer> indexMap) {
+    Integer mappedIndex = indexMap.get(index);
+    return mappedIndex != null && mappedIndex == otherIndex;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -32,10 +32,10 @@ import randoop.sequence.Variable;
 public class ObjectCheck implements Check {
 
   /** The contract that is checked. */
-  private final ObjectContract contract;
+  final ObjectContract contract;
 
   /** The variables for the contract */
-  private final Variable[] vars;
+  final Variable[] vars;
 
   /**
    * Creates an {@link ObjectCheck} for the given contract using the variables as input.
@@ -10,10 +10,10 @@ import randoop.sequence.Variable;
 public class PostConditionCheck implements Check {
 
   /** The post-condition */
-  private final Condition postcondition;
+  final Condition postcondition;
 
   /** The input variables for the condition */
-  private final Variable[] inputVariables;
+  final Variable[] inputVariables;
 
   /**
    * Creates a {@link PostConditionCheck}
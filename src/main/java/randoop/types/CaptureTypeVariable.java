@@ -3,6 +3,7 @@ package randoop.types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a type variable introduced by capture conversion over a wildcard type argument.
@@ -18,7 +19,7 @@ import java.util.Objects;
 class CaptureTypeVariable extends TypeVariable {
 
   /** The ID counter for capture conversion variables */
-  private static int count = 0;
+  private static final AtomicInteger count = new AtomicInteger(0);
 
   /** The integer ID of this capture variable */
   private final int varID;
@@ -34,7 +35,7 @@ class CaptureTypeVariable extends TypeVariable {
    */
   CaptureTypeVariable(WildcardArgument wildcard) {
     super();
-    this.varID = count++;
+    this.varID = count.getAndIncrement();
     this.wildcard = wildcard;
 
     if (wildcard.hasUpperBound()) {
@@ -1,7 +1,9 @@
 package randoop.types;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -22,12 +24,53 @@ import java.util.Set;
  * InterfaceType} do not exist as subclasses of this class, Rather, the subclasses of this type
  * distinguish between types with parameters ({@link ParameterizedType}), and types without ({@link
  * NonParameterizedType}).
+ *
+ * <p>The type for a {@code Class} object is created by {@link #forClass(Class)} and shared. The
+ * results of {@link #isSubtypeOf(Type)} and {@link #getMatchingSupertype(GenericClassType)} are
+ * remembered for types that have no type variables or wildcards, since they walk the supertypes of
+ * the type, creating each from its reflective form. These are kept in {@link TypeCache} objects of
+ * bounded size, and the queries are keyed by lists of the classes that make up the types rather
+ * than by the types themselves. Since types are shared, a type is not changed once it is created:
+ * substitution and capture conversion return new types.
  */
 public abstract class ClassOrInterfaceType extends ReferenceType {
 
   private static boolean debug = false;
 
-  /** The enclosing type: non-null only if this is a member class. */
+  /** The maximum number of class types in {@link #classTypes}. */
+  private static final int CLASS_TYPES_SIZE = 4096;
+
+  /** The maximum number of answers in {@link #subtypeResults} and {@link #matchingSupertypes}. */
+  private static final int QUERY_RESULTS_SIZE = 16384;
+
+  /** The type created by {@link #forClass(Class)} for recently used classes. */
+  private static final TypeCache<Class<?>, ClassOrInterfaceType> classTypes =
+      new TypeCache<>(CLASS_TYPES_SIZE);
+
+  /**
+   * The result of the supertype search in {@link #isSubtypeOf(Type)} for recent pairs of types
+   * without type variables or wildcards, keyed by the list of the {@link #keyOf(Type) keys} of the
+   * two types.
+   */
+  private static final TypeCache<List<Object>, Boolean> subtypeResults =
+      new TypeCache<>(QUERY_RESULTS_SIZE);
+
+  /**
+   * The result of {@link #getMatchingSupertype(GenericClassType)} for recent types without type
+   * variables or wildcards and goal types, or {@link #NO_SUPERTYPE} if there is no matching
+   * supertype. The key is the list of the {@link #keyOf(Type) key} of the type and the class of the
+   * goal type.
+   */
+  private static final TypeCache<List<Object>, Object> matchingSupertypes =
+      new TypeCache<>(QUERY_RESULTS_SIZE);
+
+  /** The value in {@link #matchingSupertypes} for a goal type that has no match. */
+  private static final Object NO_SUPERTYPE = new Object();
+
+  /**
+   * The enclosing type: non-null only if this is a member class. It is only set on a new type,
+   * before the type is returned.
+   */
   private ClassOrInterfaceType enclosingType = null;
 
   /**
@@ -44,6 +87,24 @@ public abstract class ClassOrInterfaceType extends ReferenceType {
       throw new IllegalArgumentException("type must be a class or interface, got " + classType);
     }
 
+    ClassOrInterfaceType type = classTypes.get(classType);
+    if (type == null) {
+      type = createForClass(classType);
+      ClassOrInterfaceType previous = classTypes.putIfAbsent(classType, type);
+      if (previous != null) {
+        type = previous;
+      }
+    }
+    return type;
+  }
+
+  /**
+   * Creates the {@code ClassOrInterfaceType} object for a class or interface.
+   *
+   * @param classType the class type to translate
+   * @return a new {@code ClassOrInterfaceType} object for the given class type
+   */
+  private static ClassOrInterfaceType createForClass(Class<?> classType) {
     ClassOrInterfaceType type;
     if (classType.getTypeParameters().length > 0) {
       type = ParameterizedType.forClass(classType);
@@ -138,7 +199,8 @@ public abstract class ClassOrInterfaceType extends ReferenceType {
    * Applies capture conversion to the enclosing type of this type and adds the result as the
    * enclosing class of the given type.
    *
-   * @param type this type with capture conversion applied
+   * @param type this type with capture conversion applied, which must be a new type rather than
+   *     this type, since types are shared
    * @return the type with converted enclosing type
    */
   final ClassOrInterfaceType applyCaptureConversion(ClassOrInterfaceType type) {
@@ -228,6 +290,28 @@ public abstract class ClassOrInterfaceType extends ReferenceType {
    * @return the instantiated type matching the goal type, or null
    */
   public InstantiatedType getMatchingSupertype(GenericClassType goalType) {
+    List<Object> typeKey = isGround(this) ? keyOf(this) : null;
+    if (typeKey == null) {
+      return findMatchingSupertype(goalType);
+    }
+    List<Object> key = Arrays.<Object>asList(typeKey, goalType.getRuntimeClass());
+    Object result = matchingSupertypes.get(key);
+    if (result == null) {
+      InstantiatedType supertype = findMatchingSupertype(goalType);
+      result = (supertype == null) ? NO_SUPERTYPE : supertype;
+      matchingSupertypes.putIfAbsent(key, result);
+    }
+    return (result == NO_SUPERTYPE) ? null : (InstantiatedType) result;
+  }
+
+  /**
+   * Searches the supertypes of this type for the one that instantiates the goal type, as described
+   * for {@link #getMatchingSupertype(GenericClassType)}.
+   *
+   * @param goalType the generic class type
+   * @return the instantiated type matching the goal type, or null
+   */
+  private InstantiatedType findMatchingSupertype(GenericClassType goalType) {
     if (goalType.isInterface()) {
       for (ClassOrInterfaceType interfaceType : this.getInterfaces()) {
         if (goalType.getRuntimeClass().isAssignableFrom(interfaceType.getRuntimeClass())) {
@@ -409,6 +493,86 @@ public abstract class ClassOrInterfaceType extends ReferenceType {
    */
   @Override
   public boolean isSubtypeOf(Type otherType) {
+    if (!isGround(this) || !otherType.isReferenceType() || !isGround((ReferenceType) otherType)) {
+      return searchSupertypes(otherType);
+    }
+    List<Object> typeKey = keyOf(this);
+    List<Object> otherKey = keyOf(otherType);
+    if (typeKey == null || otherKey == null) {
+      return searchSupertypes(otherType);
+    }
+    List<Object> key = Arrays.<Object>asList(typeKey, otherKey);
+    Boolean result = subtypeResults.get(key);
+    if (result == null) {
+      result = searchSupertypes(otherType);
+      subtypeResults.putIfAbsent(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the key of a type without type variables or wildcards in {@link #subtypeResults} and
+   * {@link #matchingSupertypes}: the list of its runtime class, the key of its enclosing type if it
+   * is an inner class, and the keys of its type arguments, or of its component type if it is an
+   * array. Unlike the type, the key is made of classes only and cannot change.
+   *
+   * @param type the type
+   * @return the key of the type, or null if the type is not made of classes only
+   */
+  private static List<Object> keyOf(Type type) {
+    if (!type.isArray() && !type.isClassOrInterfaceType() && !type.isPrimitive()) {
+      return null;
+    }
+    List<Object> key = new ArrayList<>();
+    key.add(type.getRuntimeClass());
+    if (type.isArray()) {
+      List<Object> componentKey = keyOf(((ArrayType) type).getComponentType());
+      if (componentKey == null) {
+        return null;
+      }
+      key.add(componentKey);
+    } else if (type.isClassOrInterfaceType()) {
+      ClassOrInterfaceType classType = (ClassOrInterfaceType) type;
+      if (classType.isMemberClass() && !classType.isStatic()) {
+        List<Object> enclosingKey = keyOf(classType.enclosingType);
+        if (enclosingKey == null) {
+          return null;
+        }
+        key.add(enclosingKey);
+      }
+      for (TypeArgument argument : classType.getTypeArguments()) {
+        if (!(argument instanceof ReferenceArgument)) {
+          return null;
+        }
+        List<Object> argumentKey = keyOf(((ReferenceArgument) argument).getReferenceType());
+        if (argumentKey == null) {
+          return null;
+        }
+        key.add(argumentKey);
+      }
+    }
+    return Collections.unmodifiableList(key);
+  }
+
+  /**
+   * Indicates whether a type has no type variables or wildcards, so that the results of queries
+   * about its supertypes do not change and may be remembered.
+   *
+   * @param type the type
+   * @return true if the type has no type variables or wildcards, false otherwise
+   */
+  private static boolean isGround(ReferenceType type) {
+    return !type.isGeneric() && !type.hasWildcard();
+  }
+
+  /**
+   * Tests whether this type is a subtype of the given type by searching the supertypes of this
+   * type, as described for {@link #isSubtypeOf(Type)}.
+   *
+   * @param otherType the possible supertype
+   * @return true if this type is a subtype of the given type, false otherwise
+   */
+  private boolean searchSupertypes(Type otherType) {
     if (debug) {
       System.out.printf("isSubtypeOf(%s, %s)%n", this, otherType);
     }
@@ -2,6 +2,7 @@ package randoop.types;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -11,8 +12,27 @@ import java.util.Objects;
  */
 public class GenericClassType extends ParameterizedType {
 
+  /**
+   * The maximum number of classes in {@link #genericInterfaces} and {@link #genericSuperclasses}.
+   */
+  private static final int GENERIC_SUPERTYPES_SIZE = 4096;
+
+  /**
+   * The directly-implemented interfaces of recently used generic classes, converted from {@code
+   * Class.getGenericInterfaces()} and instantiated by {@link #getInterfaces(Substitution)}.
+   */
+  private static final TypeCache<Class<?>, List<ClassOrInterfaceType>> genericInterfaces =
+      new TypeCache<>(GENERIC_SUPERTYPES_SIZE);
+
+  /**
+   * The superclass of recently used generic classes that have one, converted from {@code
+   * Class.getGenericSuperclass()} and instantiated by {@link #getSuperclass(Substitution)}.
+   */
+  private static final TypeCache<Class<?>, ClassOrInterfaceType> genericSuperclasses =
+      new TypeCache<>(GENERIC_SUPERTYPES_SIZE);
+
   /** The rawtype of the generic class. */
-  private Class<?> rawType;
+  private final Class<?> rawType;
 
   /** The type parameters of the generic class. */
   private List<TypeVariable> parameters;
@@ -82,7 +102,10 @@ public class GenericClassType extends ParameterizedType {
 
   @Override
   public GenericClassType applyCaptureConversion() {
-    return (GenericClassType) applyCaptureConversion(this);
+    if (!this.isMemberClass() || this.isStatic()) {
+      return this;
+    }
+    return (GenericClassType) applyCaptureConversion(new GenericClassType(rawType));
   }
 
   /**
@@ -115,9 +138,18 @@ public class GenericClassType extends ParameterizedType {
    * @return the list of instantiated directly-implemented interface types of this type
    */
   List<ClassOrInterfaceType> getInterfaces(Substitution<ReferenceType> substitution) {
+    List<ClassOrInterfaceType> genericTypes = genericInterfaces.get(rawType);
+    if (genericTypes == null) {
+      genericTypes = new ArrayList<>();
+      for (java.lang.reflect.Type type : rawType.getGenericInterfaces()) {
+        genericTypes.add(ClassOrInterfaceType.forType(type));
+      }
+      genericTypes = Collections.unmodifiableList(genericTypes);
+      genericInterfaces.putIfAbsent(rawType, genericTypes);
+    }
     List<ClassOrInterfaceType> interfaces = new ArrayList<>();
-    for (java.lang.reflect.Type type : rawType.getGenericInterfaces()) {
-      interfaces.add(ClassOrInterfaceType.forType(type).apply(substitution));
+    for (ClassOrInterfaceType type : genericTypes) {
+      interfaces.add(type.apply(substitution));
     }
     return interfaces;
   }
@@ -163,11 +195,16 @@ public class GenericClassType extends ParameterizedType {
    * @return the instantiated type
    */
   ClassOrInterfaceType getSuperclass(Substitution<ReferenceType> substitution) {
-    java.lang.reflect.Type superclass = this.rawType.getGenericSuperclass();
+    ClassOrInterfaceType superclass = genericSuperclasses.get(rawType);
     if (superclass == null) {
-      return JavaTypes.OBJECT_TYPE;
+      java.lang.reflect.Type type = this.rawType.getGenericSuperclass();
+      if (type == null) {
+        return JavaTypes.OBJECT_TYPE;
+      }
+      superclass = ClassOrInterfaceType.forType(type);
+      genericSuperclasses.putIfAbsent(rawType, superclass);
     }
-    return ClassOrInterfaceType.forType(superclass).apply(substitution);
+    return superclass.apply(substitution);
   }
 
   @Override
@@ -61,7 +61,11 @@ public class NonParameterizedType extends ClassOrInterfaceType {
 
   @Override
   public NonParameterizedType applyCaptureConversion() {
-    return (NonParameterizedType) applyCaptureConversion(this);
+    if (!this.isMemberClass() || this.isStatic()) {
+      return this;
+    }
+    return (NonParameterizedType)
+        applyCaptureConversion(new NonParameterizedType(this.runtimeType));
   }
 
   @Override
@@ -0,0 +1,64 @@
+package randoop.types;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map of bounded size that drops its least recently used entry when it is full. Used for the
+ * types and supertype queries that are remembered across models, so that a long run over many
+ * classes does not keep every type it has seen. It may be used by several threads, such as the
+ * workers that build an operation model.
+ *
+ * @param <K> the type of the keys, which must not change once they are in the map
+ * @param <V> the type of the values
+ */
+final class TypeCache<K, V> {
+
+  /** The entries, in order of access. */
+  private final Map<K, V> entries;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxSize the maximum number of entries
+   */
+  TypeCache(final int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("cache size must be positive: " + maxSize);
+    }
+    this.entries =
+        new LinkedHashMap<K, V>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+          }
+        };
+  }
+
+  /**
+   * Returns the value for a key, or null if there is none.
+   *
+   * @param key the key
+   * @return the value for the key, or null
+   */
+  synchronized V get(K key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Adds a value for a key, unless the key already has a value.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the value that the key already had, or null if the given value was added
+   */
+  synchronized V putIfAbsent(K key, V value) {
+    V previous = entries.get(key);
+    if (previous == null) {
+      entries.put(key, value);
+    }
+    return previous;
+  }
+}
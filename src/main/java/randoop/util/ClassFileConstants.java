@@ -1,34 +1,21 @@
 package randoop.util;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import org.apache.bcel.Const;
-import org.apache.bcel.classfile.ClassParser;
-import org.apache.bcel.classfile.Constant;
-import org.apache.bcel.classfile.ConstantClass;
-import org.apache.bcel.classfile.ConstantDouble;
-import org.apache.bcel.classfile.ConstantFieldref;
-import org.apache.bcel.classfile.ConstantFloat;
-import org.apache.bcel.classfile.ConstantInteger;
-import org.apache.bcel.classfile.ConstantInterfaceMethodref;
-import org.apache.bcel.classfile.ConstantLong;
-import org.apache.bcel.classfile.ConstantMethodref;
-import org.apache.bcel.classfile.ConstantNameAndType;
-import org.apache.bcel.classfile.ConstantPool;
-import org.apache.bcel.classfile.ConstantString;
-import org.apache.bcel.classfile.ConstantUtf8;
-import org.apache.bcel.classfile.JavaClass;
-import org.apache.bcel.classfile.Method;
-import org.apache.bcel.generic.ClassGen;
-import org.apache.bcel.generic.ConstantPoolGen;
-import org.apache.bcel.generic.ConstantPushInstruction;
-import org.apache.bcel.generic.Instruction;
-import org.apache.bcel.generic.InstructionList;
-import org.apache.bcel.generic.MethodGen;
 import org.apache.bcel.util.ClassPath;
 import randoop.operation.NonreceiverTerm;
 import randoop.reflection.TypeNames;
@@ -58,6 +45,21 @@ public class ClassFileConstants {
   static short s = 32000;
   static char c = 'a';
 
+  /** The name of the attribute with the code of a method. */
+  private static final byte[] CODE = "Code".getBytes(StandardCharsets.US_ASCII);
+
+  /** The name of the attribute that describes the member classes referenced by a class file. */
+  private static final byte[] INNER_CLASSES = "InnerClasses".getBytes(StandardCharsets.US_ASCII);
+
+  /** The tag of a {@code CONSTANT_Dynamic} entry of the constant pool, from Java 11. */
+  private static final byte CONSTANT_Dynamic = 17;
+
+  /** The tag of a {@code CONSTANT_Module} entry of the constant pool, from Java 9. */
+  private static final byte CONSTANT_Module = 19;
+
+  /** The tag of a {@code CONSTANT_Package} entry of the constant pool, from Java 9. */
+  private static final byte CONSTANT_Package = 20;
+
   public static class ConstantSet {
     public String classname;
     public Set<Integer> ints = new TreeSet<>();
@@ -132,424 +134,481 @@ public class ClassFileConstants {
    * @see #getConstants(String)
    */
   public static ConstantSet getConstants(String classname, ConstantSet result) {
-
-    ClassParser cp;
-    JavaClass jc;
     try {
-      String classfileBase = classname.replace('.', '/');
-      InputStream is = ClassPath.SYSTEM_CLASS_PATH.getInputStream(classfileBase, ".class");
-      cp = new ClassParser(is, classname);
-      jc = cp.parse();
+      return getConstants(readClassFile(classname), result);
     } catch (java.io.IOException e) {
       throw new Error("IOException while reading '" + classname + "': " + e.getMessage());
     }
-    result.classname = jc.getClassName();
-
-    // Get all of the constants from the pool
-    ConstantPool constant_pool = jc.getConstantPool();
-    for (Constant c : constant_pool.getConstantPool()) {
-      // System.out.printf ("*Constant = %s%n", c);
-      if (c == null
-          || c instanceof ConstantClass
-          || c instanceof ConstantFieldref
-          || c instanceof ConstantInterfaceMethodref
-          || c instanceof ConstantMethodref
-          || c instanceof ConstantNameAndType
-          || c instanceof ConstantUtf8) {
-        continue;
+  }
+
+  /**
+   * Adds all the constants found in the given class file into the given ConstantSet, and returns
+   * it. The class file is read directly from the buffer, from its current position: the constant
+   * pool for the string, int, long, float, and double constants, and the code of each method for
+   * the immediate arguments of {@code bipush} and {@code sipush}.
+   *
+   * @param classfile the contents of the class file, which may be a mapped file
+   * @param result the set of constants to which constants are added
+   * @return the set of constants with new constants of given type added
+   * @throws IOException if the class file is malformed
+   */
+  public static ConstantSet getConstants(ByteBuffer classfile, ConstantSet result)
+      throws IOException {
+    ByteBuffer in = classfile.slice();
+    try {
+      int[] offsets = readConstantPool(in, result);
+
+      in.getShort(); // access flags
+      int classIndex = in.getShort() & 0xffff;
+      result.classname = getUtf8(in, offsets, in.getShort(offsets[classIndex] + 1) & 0xffff);
+      result.classname = result.classname.replace('/', '.');
+      in.getShort(); // superclass
+      skip(in, 2 * (in.getShort() & 0xffff)); // interfaces
+
+      skipMembers(in, offsets, null); // fields
+      skipMembers(in, offsets, result); // methods
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("truncated or malformed class file", e);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the access flags of the class in a class file, without reading the rest of the class
+   * file. For a member class, these are the flags of the class file rather than those of its
+   * declaration: a protected class is public, and a private class is package-private. Use {@link
+   * #getClassAccess(ByteBuffer)} for the flags of the declaration.
+   *
+   * @param classfile the contents of the class file, from its current position
+   * @return the access flags, such as {@code ACC_PUBLIC}, {@code ACC_INTERFACE}, and {@code
+   *     ACC_ABSTRACT}
+   * @throws IOException if the class file is malformed
+   */
+  public static int getAccessFlags(ByteBuffer classfile) throws IOException {
+    ByteBuffer in = classfile.slice();
+    try {
+      readConstantPool(in, null);
+      return in.getShort() & 0xffff;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("truncated or malformed class file", e);
+    }
+  }
+
+  /** The access flags of a class and of its declaration, as read from its class file. */
+  public static class ClassAccess {
+
+    /** The access flags of the class file. */
+    public final int accessFlags;
+
+    /**
+     * The access flags of the declaration of the class. For a member class, these are read from the
+     * {@code InnerClasses} attribute and may be private or protected; otherwise, they are the
+     * access flags of the class file.
+     */
+    public final int declaredFlags;
+
+    /** The binary name of the class that declares this member class, or null. */
+    public final String outerClassName;
+
+    ClassAccess(int accessFlags, int declaredFlags, String outerClassName) {
+      this.accessFlags = accessFlags;
+      this.declaredFlags = declaredFlags;
+      this.outerClassName = outerClassName;
+    }
+  }
+
+  /**
+   * Returns the access flags of the class in a class file and of its declaration. The declaration
+   * of a member class is found in the {@code InnerClasses} attribute of its class file, which is
+   * read after the fields and methods; the code of the methods is skipped.
+   *
+   * @param classfile the contents of the class file, from its current position
+   * @return the access flags of the class and of its declaration
+   * @throws IOException if the class file is malformed
+   */
+  public static ClassAccess getClassAccess(ByteBuffer classfile) throws IOException {
+    ByteBuffer in = classfile.slice();
+    try {
+      int[] offsets = readConstantPool(in, null);
+      int accessFlags = in.getShort() & 0xffff;
+      String classname = getClassName(in, offsets, in.getShort() & 0xffff);
+      in.getShort(); // superclass
+      skip(in, 2 * (in.getShort() & 0xffff)); // interfaces
+      skipMembers(in, offsets, null); // fields
+      skipMembers(in, offsets, null); // methods
+
+      int attributeCount = in.getShort() & 0xffff;
+      for (int i = 0; i < attributeCount; i++) {
+        int nameIndex = in.getShort() & 0xffff;
+        int length = in.getInt();
+        int end = in.position() + length;
+        if (isUtf8(in, offsets, nameIndex, INNER_CLASSES)) {
+          int classCount = in.getShort() & 0xffff;
+          for (int j = 0; j < classCount; j++) {
+            int innerIndex = in.getShort() & 0xffff;
+            int outerIndex = in.getShort() & 0xffff;
+            in.getShort(); // simple name
+            int innerFlags = in.getShort() & 0xffff;
+            if (classname.equals(getClassName(in, offsets, innerIndex))) {
+              String outerClassName =
+                  outerIndex == 0 ? null : getClassName(in, offsets, outerIndex);
+              return new ClassAccess(accessFlags, innerFlags, outerClassName);
+            }
+          }
+        }
+        in.position(end);
       }
-      if (c instanceof ConstantString) {
-        result.strings.add((String) ((ConstantString) c).getConstantValue(constant_pool));
-      } else if (c instanceof ConstantDouble) {
-        result.doubles.add((Double) ((ConstantDouble) c).getConstantValue(constant_pool));
-      } else if (c instanceof ConstantFloat) {
-        result.floats.add((Float) ((ConstantFloat) c).getConstantValue(constant_pool));
-      } else if (c instanceof ConstantInteger) {
-        result.ints.add((Integer) ((ConstantInteger) c).getConstantValue(constant_pool));
-      } else if (c instanceof ConstantLong) {
-        result.longs.add((Long) ((ConstantLong) c).getConstantValue(constant_pool));
-      } else {
-        throw new RuntimeException("Unrecognized constant of type " + c.getClass() + ": " + c);
+      return new ClassAccess(accessFlags, accessFlags, null);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("truncated or malformed class file", e);
+    }
+  }
+
+  /**
+   * Decodes the binary name of a {@code CONSTANT_Class} entry of the constant pool.
+   *
+   * @param in the class file
+   * @param offsets the offset of each entry of the constant pool
+   * @param index the index of the entry
+   * @return the binary name of the class, with dots for slashes
+   * @throws IOException if the entry is not a {@code CONSTANT_Class} entry
+   */
+  private static String getClassName(ByteBuffer in, int[] offsets, int index) throws IOException {
+    if (in.get(offsets[index]) != Const.CONSTANT_Class) {
+      throw new IOException("constant " + index + " is not a class");
+    }
+    return getUtf8(in, offsets, in.getShort(offsets[index] + 1) & 0xffff).replace('/', '.');
+  }
+
+  /**
+   * Reads the header and the constant pool of a class file. If a set of constants is given, adds
+   * the string, int, long, float, and double constants of the pool to it.
+   *
+   * @param in the class file, positioned at its start
+   * @param result the set of constants to which constants are added, or null
+   * @return the offset of each entry of the constant pool, so that the names of classes and the
+   *     values of strings can be decoded after the pool is read
+   * @throws IOException if the class file is malformed
+   */
+  private static int[] readConstantPool(ByteBuffer in, ConstantSet result) throws IOException {
+    if (in.getInt() != 0xCAFEBABE) {
+      throw new IOException("not a class file");
+    }
+    in.getInt(); // minor and major version
+
+    int poolCount = in.getShort() & 0xffff;
+    int[] offsets = new int[poolCount];
+    List<Integer> stringIndices = new ArrayList<>();
+    for (int i = 1; i < poolCount; i++) {
+      offsets[i] = in.position();
+      byte tag = in.get();
+      switch (tag) {
+        case Const.CONSTANT_Utf8:
+          skip(in, in.getShort() & 0xffff);
+          break;
+        case Const.CONSTANT_Integer:
+          int intValue = in.getInt();
+          if (result != null) {
+            result.ints.add(intValue);
+          }
+          break;
+        case Const.CONSTANT_Float:
+          float floatValue = in.getFloat();
+          if (result != null) {
+            result.floats.add(floatValue);
+          }
+          break;
+        case Const.CONSTANT_Long:
+          long longValue = in.getLong();
+          if (result != null) {
+            result.longs.add(longValue);
+          }
+          i++; // a long takes two entries of the pool
+          break;
+        case Const.CONSTANT_Double:
+          double doubleValue = in.getDouble();
+          if (result != null) {
+            result.doubles.add(doubleValue);
+          }
+          i++; // a double takes two entries of the pool
+          break;
+        case Const.CONSTANT_String:
+          stringIndices.add(in.getShort() & 0xffff);
+          break;
+        case Const.CONSTANT_Class:
+        case Const.CONSTANT_MethodType:
+        case CONSTANT_Module:
+        case CONSTANT_Package:
+          skip(in, 2);
+          break;
+        case Const.CONSTANT_MethodHandle:
+          skip(in, 3);
+          break;
+        case Const.CONSTANT_Fieldref:
+        case Const.CONSTANT_Methodref:
+        case Const.CONSTANT_InterfaceMethodref:
+        case Const.CONSTANT_NameAndType:
+        case CONSTANT_Dynamic:
+        case Const.CONSTANT_InvokeDynamic:
+          skip(in, 4);
+          break;
+        default:
+          throw new IOException("Unrecognized constant with tag " + tag);
+      }
+    }
+    if (result != null) {
+      for (int index : stringIndices) {
+        result.strings.add(getUtf8(in, offsets, index));
       }
     }
+    return offsets;
+  }
 
-    ClassGen gen = new ClassGen(jc);
-    ConstantPoolGen pool = gen.getConstantPool();
-
-    // Process the code in each method looking for literals
-    for (Method m : jc.getMethods()) {
-      MethodGen mg = new MethodGen(m, jc.getClassName(), pool);
-      InstructionList il = mg.getInstructionList();
-      if (il != null) {
-        for (Instruction inst : il.getInstructions()) {
-          switch (inst.getOpcode()) {
-
-              // Compare two objects, no literals
-            case Const.IF_ACMPEQ:
-            case Const.IF_ACMPNE:
-              break;
-
-              // These instructions compare the integer on the top of the stack
-              // to zero. There are no literals here (except 0)
-            case Const.IFEQ:
-            case Const.IFNE:
-            case Const.IFLT:
-            case Const.IFGE:
-            case Const.IFGT:
-            case Const.IFLE:
-              {
-                break;
-              }
-
-              // InstanceOf pushes either 0 or 1 on the stack depending on
-              // whether
-              // the object on top of stack is of the specified type.
-              // If were interested in class literals, this would be interesting
-            case Const.INSTANCEOF:
-              break;
-
-              // Duplicates the item on the top of stack. No literal.
-            case Const.DUP:
-              {
-                break;
-              }
-
-              // Duplicates the item on the top of the stack and inserts it 2
-              // values down in the stack. No literals
-            case Const.DUP_X1:
-              {
-                break;
-              }
-
-              // Duplicates either the top 2 category 1 values or a single
-              // category 2 value and inserts it 2 or 3 values down on the
-              // stack.
-            case Const.DUP2_X1:
-              {
-                break;
-              }
-
-              // Duplicate either one category 2 value or two category 1 values.
-            case Const.DUP2:
-              {
-                break;
-              }
-
-              // Dup the category 1 value on the top of the stack and insert it
-              // either
-              // two or three values down on the stack.
-            case Const.DUP_X2:
-              {
-                break;
-              }
-
-            case Const.DUP2_X2:
-              {
-                break;
-              }
-
-              // Pop instructions discard the top of the stack.
-            case Const.POP:
-              {
-                break;
-              }
-
-              // Pops either the top 2 category 1 values or a single category 2
-              // value
-              // from the top of the stack.
-            case Const.POP2:
-              {
-                break;
-              }
-
-              // Swaps the two category 1 types on the top of the stack.
-            case Const.SWAP:
-              {
-                break;
-              }
-
-              // Compares two integers on the stack
-            case Const.IF_ICMPEQ:
-            case Const.IF_ICMPGE:
-            case Const.IF_ICMPGT:
-            case Const.IF_ICMPLE:
-            case Const.IF_ICMPLT:
-            case Const.IF_ICMPNE:
-              {
-                break;
-              }
-
-              // Get the value of a field
-            case Const.GETFIELD:
-              {
-                break;
-              }
-
-              // stores the top of stack into a field
-            case Const.PUTFIELD:
-              {
-                break;
-              }
-
-              // Pushes the value of a static field on the stack
-            case Const.GETSTATIC:
-              {
-                break;
-              }
-
-              // Pops a value off of the stack into a static field
-            case Const.PUTSTATIC:
-              {
-                break;
-              }
-
-              // pushes a local onto the stack
-            case Const.DLOAD:
-            case Const.DLOAD_0:
-            case Const.DLOAD_1:
-            case Const.DLOAD_2:
-            case Const.DLOAD_3:
-            case Const.FLOAD:
-            case Const.FLOAD_0:
-            case Const.FLOAD_1:
-            case Const.FLOAD_2:
-            case Const.FLOAD_3:
-            case Const.ILOAD:
-            case Const.ILOAD_0:
-            case Const.ILOAD_1:
-            case Const.ILOAD_2:
-            case Const.ILOAD_3:
-            case Const.LLOAD:
-            case Const.LLOAD_0:
-            case Const.LLOAD_1:
-            case Const.LLOAD_2:
-            case Const.LLOAD_3:
-              {
-                break;
-              }
-
-              // Pops a value off of the stack into a local
-            case Const.DSTORE:
-            case Const.DSTORE_0:
-            case Const.DSTORE_1:
-            case Const.DSTORE_2:
-            case Const.DSTORE_3:
-            case Const.FSTORE:
-            case Const.FSTORE_0:
-            case Const.FSTORE_1:
-            case Const.FSTORE_2:
-            case Const.FSTORE_3:
-            case Const.ISTORE:
-            case Const.ISTORE_0:
-            case Const.ISTORE_1:
-            case Const.ISTORE_2:
-            case Const.ISTORE_3:
-            case Const.LSTORE:
-            case Const.LSTORE_0:
-            case Const.LSTORE_1:
-            case Const.LSTORE_2:
-            case Const.LSTORE_3:
-              {
-                break;
-              }
-
-              // Push a value from the runtime constant pool. We'll get these
-              // values when processing the constant pool itself
-            case Const.LDC:
-            case Const.LDC_W:
-            case Const.LDC2_W:
-              {
-                break;
-              }
-
-              // Push the length of an array on the stack
-            case Const.ARRAYLENGTH:
-              {
-                break;
-              }
-
-              // Push small constants (-1..5) on the stack. These literals are
-              // too common to bother mentioning
-            case Const.DCONST_0:
-            case Const.DCONST_1:
-            case Const.FCONST_0:
-            case Const.FCONST_1:
-            case Const.FCONST_2:
-            case Const.ICONST_0:
-            case Const.ICONST_1:
-            case Const.ICONST_2:
-            case Const.ICONST_3:
-            case Const.ICONST_4:
-            case Const.ICONST_5:
-            case Const.ICONST_M1:
-            case Const.LCONST_0:
-            case Const.LCONST_1:
-              {
-                break;
-              }
-
-            case Const.BIPUSH:
-            case Const.SIPUSH:
-              {
-                ConstantPushInstruction cpi = (ConstantPushInstruction) inst;
-                result.ints.add((Integer) cpi.getValue());
-                break;
-              }
-
-              // Primitive Binary operators.
-            case Const.DADD:
-            case Const.DCMPG:
-            case Const.DCMPL:
-            case Const.DDIV:
-            case Const.DMUL:
-            case Const.DREM:
-            case Const.DSUB:
-            case Const.FADD:
-            case Const.FCMPG:
-            case Const.FCMPL:
-            case Const.FDIV:
-            case Const.FMUL:
-            case Const.FREM:
-            case Const.FSUB:
-            case Const.IADD:
-            case Const.IAND:
-            case Const.IDIV:
-            case Const.IMUL:
-            case Const.IOR:
-            case Const.IREM:
-            case Const.ISHL:
-            case Const.ISHR:
-            case Const.ISUB:
-            case Const.IUSHR:
-            case Const.IXOR:
-            case Const.LADD:
-            case Const.LAND:
-            case Const.LCMP:
-            case Const.LDIV:
-            case Const.LMUL:
-            case Const.LOR:
-            case Const.LREM:
-            case Const.LSHL:
-            case Const.LSHR:
-            case Const.LSUB:
-            case Const.LUSHR:
-            case Const.LXOR:
-              break;
-
-            case Const.LOOKUPSWITCH:
-            case Const.TABLESWITCH:
-              break;
-
-            case Const.ANEWARRAY:
-            case Const.NEWARRAY:
-              {
-                break;
-              }
-
-            case Const.MULTIANEWARRAY:
-              {
-                break;
-              }
-
-              // push the value at an index in an array
-            case Const.AALOAD:
-            case Const.BALOAD:
-            case Const.CALOAD:
-            case Const.DALOAD:
-            case Const.FALOAD:
-            case Const.IALOAD:
-            case Const.LALOAD:
-            case Const.SALOAD:
-              {
-                break;
-              }
-
-              // Pop the top of stack into an array location
-            case Const.AASTORE:
-            case Const.BASTORE:
-            case Const.CASTORE:
-            case Const.DASTORE:
-            case Const.FASTORE:
-            case Const.IASTORE:
-            case Const.LASTORE:
-            case Const.SASTORE:
-              break;
-
-            case Const.ARETURN:
-            case Const.DRETURN:
-            case Const.FRETURN:
-            case Const.IRETURN:
-            case Const.LRETURN:
-            case Const.RETURN:
-              {
-                break;
-              }
-
-              // subroutine calls.
-            case Const.INVOKESTATIC:
-            case Const.INVOKEVIRTUAL:
-            case Const.INVOKESPECIAL:
-            case Const.INVOKEINTERFACE:
-              break;
-
-              // Throws an exception.
-            case Const.ATHROW:
-              break;
-
-              // Opcodes that don't need any modifications. Here for reference
-            case Const.ACONST_NULL:
-            case Const.ALOAD:
-            case Const.ALOAD_0:
-            case Const.ALOAD_1:
-            case Const.ALOAD_2:
-            case Const.ALOAD_3:
-            case Const.ASTORE:
-            case Const.ASTORE_0:
-            case Const.ASTORE_1:
-            case Const.ASTORE_2:
-            case Const.ASTORE_3:
-            case Const.CHECKCAST:
-            case Const.D2F: // double to float
-            case Const.D2I: // double to integer
-            case Const.D2L: // double to long
-            case Const.DNEG: // Negate double on top of stack
-            case Const.F2D: // float to double
-            case Const.F2I: // float to integer
-            case Const.F2L: // float to long
-            case Const.FNEG: // Negate float on top of stack
-            case Const.GOTO:
-            case Const.GOTO_W:
-            case Const.I2B: // integer to byte
-            case Const.I2C: // integer to char
-            case Const.I2D: // integer to double
-            case Const.I2F: // integer to float
-            case Const.I2L: // integer to long
-            case Const.I2S: // integer to short
-            case Const.IFNONNULL:
-            case Const.IFNULL:
-            case Const.IINC: // increment local variable by a constant
-            case Const.INEG: // negate integer on top of stack
-            case Const.JSR: // pushes return address on the stack,
-            case Const.JSR_W:
-            case Const.L2D: // long to double
-            case Const.L2F: // long to float
-            case Const.L2I: // long to int
-            case Const.LNEG: // negate long on top of stack
-            case Const.MONITORENTER:
-            case Const.MONITOREXIT:
-            case Const.NEW:
-            case Const.NOP:
-            case Const.RET: // this is the internal JSR return
-              break;
-
-              // Make sure we didn't miss anything
-            default:
-              throw new Error("instruction " + inst + " unsupported");
+  /**
+   * Reads the fields or methods of a class file. If a set of constants is given, adds the literals
+   * in the code of each method to it.
+   *
+   * @param in the class file, positioned at the count of the members
+   * @param offsets the offset of each entry of the constant pool
+   * @param result the set of constants for the literals in the code, or null to skip the code
+   * @throws IOException if the class file is malformed
+   */
+  private static void skipMembers(ByteBuffer in, int[] offsets, ConstantSet result)
+      throws IOException {
+    int memberCount = in.getShort() & 0xffff;
+    for (int i = 0; i < memberCount; i++) {
+      skip(in, 6); // access flags, name, and descriptor
+      int attributeCount = in.getShort() & 0xffff;
+      for (int j = 0; j < attributeCount; j++) {
+        int nameIndex = in.getShort() & 0xffff;
+        int length = in.getInt();
+        int end = in.position() + length;
+        if (result != null && isUtf8(in, offsets, nameIndex, CODE)) {
+          skip(in, 4); // max stack and max locals
+          int codeLength = in.getInt();
+          addCodeConstants(in, in.position(), codeLength, result);
+        }
+        in.position(end);
+      }
+    }
+  }
+
+  /**
+   * Adds the immediate arguments of the {@code bipush} and {@code sipush} instructions of the code
+   * of a method to a set of constants. Other instructions have no literals, or only refer to
+   * literals in the constant pool.
+   *
+   * @param in the class file
+   * @param start the offset of the first instruction of the code
+   * @param length the length of the code
+   * @param result the set of constants to which the literals are added
+   * @throws IOException if the code has an unknown instruction
+   */
+  private static void addCodeConstants(ByteBuffer in, int start, int length, ConstantSet result)
+      throws IOException {
+    int pc = 0;
+    while (pc < length) {
+      int opcode = in.get(start + pc) & 0xff;
+      switch (opcode) {
+        case Const.BIPUSH:
+          result.ints.add((int) in.get(start + pc + 1));
+          pc += 2;
+          break;
+        case Const.SIPUSH:
+          result.ints.add((int) in.getShort(start + pc + 1));
+          pc += 3;
+          break;
+        case Const.TABLESWITCH:
+          {
+            // The operands are aligned to a multiple of four bytes from the start of the code.
+            int operands = (pc + 4) & ~3;
+            int low = in.getInt(start + operands + 4);
+            int high = in.getInt(start + operands + 8);
+            pc = operands + 12 + 4 * (high - low + 1);
+            break;
+          }
+        case Const.LOOKUPSWITCH:
+          {
+            int operands = (pc + 4) & ~3;
+            int pairCount = in.getInt(start + operands + 4);
+            pc = operands + 8 + 8 * pairCount;
+            break;
           }
+        case Const.WIDE:
+          pc += ((in.get(start + pc + 1) & 0xff) == Const.IINC) ? 6 : 4;
+          break;
+        default:
+          if (INSTRUCTION_LENGTHS[opcode] == 0) {
+            throw new IOException("instruction " + opcode + " unsupported");
+          }
+          pc += INSTRUCTION_LENGTHS[opcode];
+      }
+    }
+  }
+
+  /** The length of each instruction, or 0 if it is unknown or its length is not fixed. */
+  private static final byte[] INSTRUCTION_LENGTHS = new byte[256];
+
+  static {
+    Arrays.fill(INSTRUCTION_LENGTHS, 0, Const.BREAKPOINT + 1, (byte) 1);
+    for (int opcode : new int[] {Const.BIPUSH, Const.LDC, Const.ILOAD, Const.LLOAD, Const.FLOAD}) {
+      INSTRUCTION_LENGTHS[opcode] = 2;
+    }
+    for (int opcode : new int[] {Const.DLOAD, Const.ALOAD, Const.ISTORE, Const.LSTORE}) {
+      INSTRUCTION_LENGTHS[opcode] = 2;
+    }
+    for (int opcode : new int[] {Const.FSTORE, Const.DSTORE, Const.ASTORE, Const.RET}) {
+      INSTRUCTION_LENGTHS[opcode] = 2;
+    }
+    INSTRUCTION_LENGTHS[Const.NEWARRAY] = 2;
+    Arrays.fill(INSTRUCTION_LENGTHS, Const.IFEQ, Const.JSR + 1, (byte) 3);
+    Arrays.fill(INSTRUCTION_LENGTHS, Const.GETSTATIC, Const.INVOKESTATIC + 1, (byte) 3);
+    for (int opcode :
+        new int[] {
+          Const.SIPUSH,
+          Const.LDC_W,
+          Const.LDC2_W,
+          Const.IINC,
+          Const.NEW,
+          Const.ANEWARRAY,
+          Const.CHECKCAST,
+          Const.INSTANCEOF,
+          Const.IFNULL,
+          Const.IFNONNULL
+        }) {
+      INSTRUCTION_LENGTHS[opcode] = 3;
+    }
+    INSTRUCTION_LENGTHS[Const.MULTIANEWARRAY] = 4;
+    for (int opcode :
+        new int[] {Const.INVOKEINTERFACE, Const.INVOKEDYNAMIC, Const.GOTO_W, Const.JSR_W}) {
+      INSTRUCTION_LENGTHS[opcode] = 5;
+    }
+    for (int opcode : new int[] {Const.TABLESWITCH, Const.LOOKUPSWITCH, Const.WIDE}) {
+      INSTRUCTION_LENGTHS[opcode] = 0;
+    }
+  }
+
+  /**
+   * Returns the contents of the class file of a class, as found on the system class path. A class
+   * file in a directory is mapped into memory rather than read.
+   *
+   * @param classname the name of the class
+   * @return the contents of the class file
+   * @throws IOException if the class file is not found or cannot be read
+   */
+  private static ByteBuffer readClassFile(String classname) throws IOException {
+    String classfileBase = classname.replace('.', '/');
+    ClassPath.ClassFile classFile;
+    try {
+      classFile = ClassPath.SYSTEM_CLASS_PATH.getClassFile(classfileBase, ".class");
+    } catch (IOException e) {
+      // The classes of the JDK are not on the system class path in Java 9 and later.
+      try (InputStream is = ClassLoader.getSystemResourceAsStream(classfileBase + ".class")) {
+        if (is == null) {
+          throw e;
         }
+        return ByteBuffer.wrap(readAll(is));
       }
     }
-    return result;
+    File file = new File(classFile.getPath());
+    if (file.isFile()) {
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    }
+    try (InputStream is = classFile.getInputStream()) {
+      return ByteBuffer.wrap(readAll(is));
+    }
+  }
+
+  /**
+   * Reads the rest of a stream.
+   *
+   * @param is the stream
+   * @return the bytes of the stream
+   * @throws IOException if the stream cannot be read
+   */
+  static byte[] readAll(InputStream is) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = is.read(buffer)) > 0) {
+      bytes.write(buffer, 0, count);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Advances the position of a buffer.
+   *
+   * @param in the buffer
+   * @param count the number of bytes to skip
+   */
+  private static void skip(ByteBuffer in, int count) {
+    in.position(in.position() + count);
+  }
+
+  /**
+   * Decodes a {@code CONSTANT_Utf8} entry of the constant pool, which is in modified UTF-8.
+   *
+   * @param in the class file
+   * @param offsets the offset of each entry of the constant pool
+   * @param index the index of the entry
+   * @return the string of the entry
+   * @throws IOException if the entry is not a {@code CONSTANT_Utf8} entry
+   */
+  private static String getUtf8(ByteBuffer in, int[] offsets, int index) throws IOException {
+    int offset = offsets[index];
+    if (in.get(offset) != Const.CONSTANT_Utf8) {
+      throw new IOException("constant " + index + " is not a string");
+    }
+    int length = in.getShort(offset + 1) & 0xffff;
+    char[] chars = new char[length];
+    int count = 0;
+    int position = offset + 3;
+    int end = position + length;
+    while (position < end) {
+      int b = in.get(position) & 0xff;
+      if (b < 0x80) {
+        chars[count++] = (char) b;
+        position++;
+      } else if ((b & 0xe0) == 0xc0) {
+        chars[count++] = (char) (((b & 0x1f) << 6) | (in.get(position + 1) & 0x3f));
+        position += 2;
+      } else {
+        chars[count++] =
+            (char)
+                (((b & 0x0f) << 12)
+                    | ((in.get(position + 1) & 0x3f) << 6)
+                    | (in.get(position + 2) & 0x3f));
+        position += 3;
+      }
+    }
+    return new String(chars, 0, count);
+  }
+
+  /**
+   * Indicates whether an entry of the constant pool is a {@code CONSTANT_Utf8} entry with the given
+   * ASCII value, without decoding it.
+   *
+   * @param in the class file
+   * @param offsets the offset of each entry of the constant pool
+   * @param index the index of the entry
+   * @param value the ASCII value
+   * @return true if the entry has the value, false otherwise
+   */
+  private static boolean isUtf8(ByteBuffer in, int[] offsets, int index, byte[] value) {
+    int offset = offsets[index];
+    if (in.get(offset) != Const.CONSTANT_Utf8
+        || (in.getShort(offset + 1) & 0xffff) != value.length) {
+      return false;
+    }
+    for (int i = 0; i < value.length; i++) {
+      if (in.get(offset + 3 + i) != value[i]) {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
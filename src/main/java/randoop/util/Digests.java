@@ -0,0 +1,154 @@
+package randoop.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Computes the SHA-256 digests that key the on-disk caches of Randoop. A digest of a classpath
+ * covers the version of Java and the contents of the jar files of the classpath and of the class
+ * files and jar files in its directories, so that cached results are not used after the classes on
+ * the classpath change. Other files in the directories, such as generated tests and the caches
+ * themselves, are not part of the digest.
+ */
+public final class Digests {
+
+  private Digests() {
+    throw new Error("Do not instantiate");
+  }
+
+  /**
+   * Returns a new SHA-256 digest.
+   *
+   * @return the digest
+   */
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new Error("SHA-256 is not supported", e);
+    }
+  }
+
+  /**
+   * Adds a string, followed by a separator, to a digest.
+   *
+   * @param digest the digest
+   * @param text the string
+   */
+  public static void update(MessageDigest digest, String text) {
+    digest.update(text.getBytes(UTF_8));
+    digest.update((byte) '\n');
+  }
+
+  /**
+   * Returns a digest of the Java version and of the contents of the elements of a classpath,
+   * ignoring the given files and directories, which are typically written by Randoop within a
+   * directory of the classpath.
+   *
+   * @param classpath the classpath
+   * @param excluded the files and directories whose contents are ignored
+   * @return the hexadecimal digest
+   * @throws IOException if an element of the classpath cannot be read
+   */
+  public static String digestClasspath(String classpath, List<File> excluded) throws IOException {
+    final Set<Path> excludedPaths = new HashSet<>();
+    for (File file : excluded) {
+      excludedPaths.add(file.toPath().toAbsolutePath().normalize());
+    }
+    final MessageDigest digest = newDigest();
+    update(digest, System.getProperty("java.version"));
+    for (String element : classpath.split(File.pathSeparator)) {
+      update(digest, element);
+      final Path path = new File(element).toPath();
+      if (Files.isRegularFile(path)) {
+        updateWithFile(digest, path);
+      } else if (Files.isDirectory(path)) {
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree(
+            path,
+            new SimpleFileVisitor<Path>() {
+              @Override
+              public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (excludedPaths.contains(dir.toAbsolutePath().normalize())) {
+                  return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+              }
+
+              @Override
+              public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()
+                    && isClassOrJarFile(file)
+                    && !excludedPaths.contains(file.toAbsolutePath().normalize())) {
+                  files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+              }
+            });
+        Collections.sort(files);
+        for (Path file : files) {
+          update(digest, path.relativize(file).toString());
+          updateWithFile(digest, file);
+        }
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Indicates whether a file in a directory of a classpath may hold classes.
+   *
+   * @param file the file
+   * @return true if the file is a class file or a jar file, false otherwise
+   */
+  private static boolean isClassOrJarFile(Path file) {
+    String name = file.getFileName().toString();
+    return name.endsWith(".class") || name.endsWith(".jar");
+  }
+
+  /**
+   * Returns the hexadecimal representation of a digest.
+   *
+   * @param bytes the digest
+   * @return the hexadecimal digits of the bytes
+   */
+  public static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(2 * bytes.length);
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b & 0xff));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Adds the contents of a file to a digest.
+   *
+   * @param digest the digest
+   * @param file the file
+   * @throws IOException if the file cannot be read
+   */
+  private static void updateWithFile(MessageDigest digest, Path file) throws IOException {
+    byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(file)) {
+      int count;
+      while ((count = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, count);
+      }
+    }
+  }
+}
@@ -0,0 +1,481 @@
+package randoop.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import randoop.util.ClassFileConstants.ClassAccess;
+
+/**
+ * An index of the classes in a jar file, read from the central directory at the end of the jar
+ * file, which is mapped into memory. The index holds the name of each class and of its package. The
+ * access flags of a class are read from its class file, without loading the class, when they are
+ * first requested; a class file that is stored uncompressed is read in place.
+ *
+ * <p>A jar file that is too large to be mapped, and an entry whose sizes or offset are only given
+ * in a ZIP64 extra field, are read through {@link ZipFile} instead, which the index keeps open
+ * until it is closed.
+ *
+ * <p>Entries under {@code META-INF/}, such as the versioned classes of a multi-release jar, are not
+ * indexed.
+ */
+public class JarIndex implements Closeable {
+
+  /** The signature of the end of central directory record. */
+  private static final int END_SIGNATURE = 0x06054b50;
+
+  /** The signature of the ZIP64 end of central directory locator. */
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+  /** The signature of the ZIP64 end of central directory record. */
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+  /** The signature of a central directory file header. */
+  private static final int HEADER_SIGNATURE = 0x02014b50;
+
+  /** The signature of a local file header. */
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+  /** The length of the end of central directory record, without its comment. */
+  private static final int END_LENGTH = 22;
+
+  /** The compression method of a stored entry. */
+  private static final int STORED = 0;
+
+  /** The compression method of a deflated entry. */
+  private static final int DEFLATED = 8;
+
+  /** The {@code ACC_ENUM} access flag of a class file. */
+  private static final int ACC_ENUM = 0x4000;
+
+  /** The jar file. */
+  private final File jarFile;
+
+  /** The jar file, mapped into memory, or null if it is read through {@link #zipFile}. */
+  private MappedByteBuffer jar;
+
+  /** The jar file, opened when a class file cannot be read from {@link #jar}, or null. */
+  private ZipFile zipFile;
+
+  /** The binary names of the classes, in the order of the central directory. */
+  private final List<String> classnames = new ArrayList<>();
+
+  /** The index of each class in {@link #classnames}. */
+  private final Map<String, Integer> classIndices = new HashMap<>();
+
+  /** The name of the entry of each class. */
+  private final List<String> entryNames = new ArrayList<>();
+
+  /** The offset of the central directory header of each class, if the jar file is mapped. */
+  private final List<Integer> headerOffsets = new ArrayList<>();
+
+  /** The access flags of each class and of its declaration, or null if they have not been read. */
+  private final ClassAccess[] accesses;
+
+  /** The names of the packages of the classes. */
+  private final Set<String> packageNames = new TreeSet<>();
+
+  /**
+   * Reads the central directory of a jar file. If the jar file is too large to be mapped, or its
+   * central directory cannot be read in place, it is read through {@link ZipFile}.
+   *
+   * @param jarFile the jar file
+   * @throws IOException if the jar file cannot be read or is malformed
+   */
+  public JarIndex(File jarFile) throws IOException {
+    this.jarFile = jarFile;
+    try (FileChannel channel = FileChannel.open(jarFile.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() <= Integer.MAX_VALUE) {
+        jar = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        jar.order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    if (jar != null) {
+      try {
+        readCentralDirectory();
+      } catch (IOException e) {
+        jar = null;
+        classnames.clear();
+        classIndices.clear();
+        entryNames.clear();
+        headerOffsets.clear();
+        packageNames.clear();
+      }
+    }
+    if (jar == null) {
+      zipFile = new ZipFile(jarFile);
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        addEntry(entries.nextElement().getName(), -1);
+      }
+    }
+    accesses = new ClassAccess[classnames.size()];
+  }
+
+  /**
+   * Reads the central directory of the mapped jar file.
+   *
+   * @throws IOException if the central directory is malformed or needs ZIP64 offsets that do not
+   *     fit in the mapped jar file
+   */
+  private void readCentralDirectory() throws IOException {
+    try {
+      int end = findEnd();
+      long entryCount = jar.getShort(end + 10) & 0xffff;
+      long directoryOffset = jar.getInt(end + 16) & 0xffffffffL;
+      if (entryCount == 0xffff || directoryOffset == 0xffffffffL) {
+        int locator = end - 20;
+        if (locator < 0 || jar.getInt(locator) != ZIP64_LOCATOR_SIGNATURE) {
+          throw new IOException("missing ZIP64 end of central directory locator");
+        }
+        int zip64End = toOffset(jar.getLong(locator + 8));
+        if (jar.getInt(zip64End) != ZIP64_END_SIGNATURE) {
+          throw new IOException("missing ZIP64 end of central directory record");
+        }
+        entryCount = jar.getLong(zip64End + 32);
+        directoryOffset = jar.getLong(zip64End + 48);
+      }
+
+      int offset = toOffset(directoryOffset);
+      for (long i = 0; i < entryCount; i++) {
+        if (jar.getInt(offset) != HEADER_SIGNATURE) {
+          throw new IOException("malformed central directory entry at " + offset);
+        }
+        int nameLength = jar.getShort(offset + 28) & 0xffff;
+        int extraLength = jar.getShort(offset + 30) & 0xffff;
+        int commentLength = jar.getShort(offset + 32) & 0xffff;
+        addEntry(getString(offset + 46, nameLength), offset);
+        offset += 46 + nameLength + extraLength + commentLength;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("truncated or malformed jar file " + jarFile, e);
+    }
+  }
+
+  /**
+   * Adds an entry of the jar file to the index if it is a class file.
+   *
+   * @param name the name of the entry
+   * @param headerOffset the offset of its central directory header, or -1 if the jar file is not
+   *     mapped
+   */
+  private void addEntry(String name, int headerOffset) {
+    if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.contains("-")) {
+      String classname = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+      classIndices.put(classname, classnames.size());
+      classnames.add(classname);
+      entryNames.add(name);
+      if (headerOffset >= 0) {
+        headerOffsets.add(headerOffset);
+      }
+      packageNames.add(getPackageName(classname));
+    }
+  }
+
+  /**
+   * Returns the binary names of the classes in the jar file, in the order of its central directory.
+   *
+   * @return the names of the classes
+   */
+  public List<String> getClassNames() {
+    return Collections.unmodifiableList(classnames);
+  }
+
+  /**
+   * Returns the names of the packages of the classes in the jar file. The unnamed package is the
+   * empty string.
+   *
+   * @return the names of the packages, in sorted order
+   */
+  public Set<String> getPackageNames() {
+    return Collections.unmodifiableSet(packageNames);
+  }
+
+  /**
+   * Returns the names of the classes in a package of the jar file, not including its subpackages.
+   *
+   * @param packageName the name of the package, or the empty string for the unnamed package
+   * @return the names of the classes of the package
+   */
+  public List<String> getClassNamesInPackage(String packageName) {
+    List<String> result = new ArrayList<>();
+    for (String classname : classnames) {
+      if (packageName.equals(getPackageName(classname))) {
+        result.add(classname);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the names of the classes in the jar file that may be tested by tests in the given
+   * package: the classes that are visible from the package and are not interfaces, abstract
+   * classes, anonymous classes, or local classes. Enums are tested even if they are abstract. A
+   * member class is visible if its declaration, as given by the {@code InnerClasses} attribute of
+   * its class file, and those of the classes that enclose it are visible: a private member class is
+   * never visible, and a protected one is only visible from its own package.
+   *
+   * @param packageName the package of the tests, or null if only public classes may be tested
+   * @return the names of the classes, in the order of the central directory
+   * @throws IOException if a class file cannot be read
+   */
+  public List<String> getTestableClassNames(String packageName) throws IOException {
+    List<String> result = new ArrayList<>();
+    for (int i = 0; i < classnames.size(); i++) {
+      String classname = classnames.get(i);
+      String simpleName = classname.substring(classname.lastIndexOf('.') + 1);
+      int dollar = simpleName.lastIndexOf('$');
+      if (dollar >= 0
+          && (dollar == simpleName.length() - 1
+              || Character.isDigit(simpleName.charAt(dollar + 1)))) {
+        continue; // an anonymous or local class
+      }
+      int flags = getClassAccess(i).accessFlags;
+      if (Modifier.isInterface(flags) || (Modifier.isAbstract(flags) && (flags & ACC_ENUM) == 0)) {
+        continue;
+      }
+      if (isVisible(i, packageName)) {
+        result.add(classname);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Indicates whether the declaration of a class, and those of the classes that enclose it, are
+   * visible from a package. An enclosing class that is not in the jar file is not checked.
+   *
+   * @param index the index of the class in {@link #classnames}
+   * @param packageName the package, or null if only public classes are visible
+   * @return true if the class is visible from the package, false otherwise
+   * @throws IOException if a class file cannot be read
+   */
+  private boolean isVisible(int index, String packageName) throws IOException {
+    ClassAccess access = getClassAccess(index);
+    int flags = access.declaredFlags;
+    if (Modifier.isPrivate(flags)) {
+      return false;
+    }
+    if (!Modifier.isPublic(flags)
+        && (packageName == null || !packageName.equals(getPackageName(classnames.get(index))))) {
+      return false;
+    }
+    Integer outer = access.outerClassName == null ? null : classIndices.get(access.outerClassName);
+    return outer == null || isVisible(outer, packageName);
+  }
+
+  /**
+   * Returns the access flags of a class in the jar file, as read from its class file.
+   *
+   * @param classname the binary name of the class
+   * @return the access flags of the class
+   * @throws IOException if the class file cannot be read
+   * @throws IllegalArgumentException if the class is not in the jar file
+   * @see ClassFileConstants#getAccessFlags(ByteBuffer)
+   */
+  public int getAccessFlags(String classname) throws IOException {
+    Integer index = classIndices.get(classname);
+    if (index == null) {
+      throw new IllegalArgumentException("No class " + classname + " in " + jarFile);
+    }
+    return getClassAccess(index).accessFlags;
+  }
+
+  /**
+   * Returns the access flags of the class with the given index and of its declaration, reading them
+   * if they have not been read.
+   *
+   * @param index the index of the class in {@link #classnames}
+   * @return the access flags of the class and of its declaration
+   * @throws IOException if the class file cannot be read
+   */
+  private ClassAccess getClassAccess(int index) throws IOException {
+    if (accesses[index] == null) {
+      try {
+        accesses[index] = ClassFileConstants.getClassAccess(getClassFile(index));
+      } catch (IOException | IndexOutOfBoundsException e) {
+        throw new IOException(
+            "Cannot read class file of " + classnames.get(index) + " in " + jarFile + ": " + e, e);
+      }
+    }
+    return accesses[index];
+  }
+
+  /**
+   * Returns the contents of the class file of a class. The class file is read from the mapped jar
+   * file if possible, and otherwise through {@link ZipFile}: for instance, if its sizes or offset
+   * are only given in a ZIP64 extra field.
+   *
+   * @param index the index of the class in {@link #classnames}
+   * @return the contents of the class file
+   * @throws IOException if the class file cannot be read
+   */
+  private ByteBuffer getClassFile(int index) throws IOException {
+    if (jar != null) {
+      try {
+        return getMappedClassFile(headerOffsets.get(index));
+      } catch (IOException | IndexOutOfBoundsException e) {
+        // read it through ZipFile below
+      }
+    }
+    if (zipFile == null) {
+      zipFile = new ZipFile(jarFile);
+    }
+    ZipEntry entry = zipFile.getEntry(entryNames.get(index));
+    if (entry == null) {
+      throw new IOException("No entry " + entryNames.get(index) + " in " + jarFile);
+    }
+    try (InputStream in = zipFile.getInputStream(entry)) {
+      return ByteBuffer.wrap(ClassFileConstants.readAll(in));
+    }
+  }
+
+  /**
+   * Closes the jar file if it was opened through {@link ZipFile}. The mapped jar file does not need
+   * to be closed.
+   *
+   * @throws IOException if the jar file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    if (zipFile != null) {
+      zipFile.close();
+      zipFile = null;
+    }
+  }
+
+  /**
+   * Returns the contents of the class file of an entry of the mapped jar file. A stored entry is
+   * returned as a view of the mapped jar file; a deflated entry is inflated.
+   *
+   * @param headerOffset the offset of the central directory header of the entry
+   * @return the contents of the class file
+   * @throws IOException if the entry is malformed, has an unsupported compression method, or has
+   *     sizes or an offset that are only given in a ZIP64 extra field
+   */
+  private ByteBuffer getMappedClassFile(int headerOffset) throws IOException {
+    int method = jar.getShort(headerOffset + 10) & 0xffff;
+    int compressedSize = toOffset(jar.getInt(headerOffset + 20) & 0xffffffffL);
+    int size = toOffset(jar.getInt(headerOffset + 24) & 0xffffffffL);
+    int localHeader = toOffset(jar.getInt(headerOffset + 42) & 0xffffffffL);
+    if (jar.getInt(localHeader) != LOCAL_HEADER_SIGNATURE) {
+      throw new IOException("malformed local header at " + localHeader);
+    }
+    int dataOffset =
+        localHeader
+            + 30
+            + (jar.getShort(localHeader + 26) & 0xffff)
+            + (jar.getShort(localHeader + 28) & 0xffff);
+
+    ByteBuffer data = jar.duplicate();
+    data.position(dataOffset);
+    data.limit(dataOffset + compressedSize);
+    if (method == STORED) {
+      return data.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+    if (method != DEFLATED) {
+      throw new IOException("unsupported compression method " + method);
+    }
+    byte[] compressed = new byte[compressedSize];
+    data.get(compressed);
+    byte[] classfile = new byte[size];
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(compressed);
+      int count = 0;
+      while (count < size && !inflater.finished()) {
+        int inflated = inflater.inflate(classfile, count, size - count);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        count += inflated;
+      }
+      if (count != size) {
+        throw new IOException("inflated " + count + " of " + size + " bytes");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("malformed deflated data", e);
+    } finally {
+      inflater.end();
+    }
+    return ByteBuffer.wrap(classfile);
+  }
+
+  /**
+   * Returns the offset of the end of central directory record, which is followed by a comment of at
+   * most 65535 bytes.
+   *
+   * @return the offset of the record
+   * @throws IOException if there is no record
+   */
+  private int findEnd() throws IOException {
+    int last = jar.capacity() - END_LENGTH;
+    for (int offset = last; offset >= 0 && offset >= last - 0xffff; offset--) {
+      if (jar.getInt(offset) == END_SIGNATURE
+          && offset + END_LENGTH + (jar.getShort(offset + 20) & 0xffff) == jar.capacity()) {
+        return offset;
+      }
+    }
+    throw new IOException("Not a jar file: " + jarFile);
+  }
+
+  /**
+   * Returns an offset in the mapped jar file.
+   *
+   * @param offset the offset, as read from the jar file
+   * @return the offset, as an int
+   * @throws IOException if the offset is beyond the end of the jar file
+   */
+  private int toOffset(long offset) throws IOException {
+    if (offset < 0 || offset > jar.capacity()) {
+      throw new IOException("offset " + offset + " is beyond the end of " + jarFile);
+    }
+    return (int) offset;
+  }
+
+  /**
+   * Returns the name of the package of a class.
+   *
+   * @param classname the binary name of the class
+   * @return the name of the package, or the empty string for the unnamed package
+   */
+  private static String getPackageName(String classname) {
+    int dot = classname.lastIndexOf('.');
+    return dot < 0 ? "" : classname.substring(0, dot);
+  }
+
+  /**
+   * Decodes a name in the jar file.
+   *
+   * @param offset the offset of the name
+   * @param length the length of the name in bytes
+   * @return the name
+   */
+  private String getString(int offset, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer name = jar.duplicate();
+    name.position(offset);
+    name.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+}
@@ -1,12 +1,10 @@
 package randoop.util;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
 
 public class JarReader {
 
@@ -22,37 +20,41 @@ public class JarReader {
     System.out.println(CollectionsExt.toStringInLines(names));
   }
 
+  /**
+   * Returns the names of the class files in a jar file whose names start with the given package
+   * name, such as {@code java.util.List.class}.
+   *
+   * @param jarName the name of the jar file
+   * @param packageName the name of the package
+   * @return the names of the class files, with dots for slashes
+   * @throws IOException if the jar file cannot be read
+   */
   public static List<String> getClassNamesInPackage(String jarName, String packageName)
       throws IOException {
     ArrayList<String> classes = new ArrayList<>();
 
-    packageName = packageName.replaceAll("\\.", "/");
     if (debug) {
       System.out.println("Jar " + jarName + " looking for " + packageName);
     }
 
-    JarInputStream jarFile = null;
-    try {
-      jarFile = new JarInputStream(new FileInputStream(jarName));
-      JarEntry jarEntry;
-
-      while (true) {
-        jarEntry = jarFile.getNextJarEntry();
-        if (jarEntry == null) {
-          break;
-        }
-        if ((jarEntry.getName().startsWith(packageName))
-            && (jarEntry.getName().endsWith(".class"))) {
-          if (debug) System.out.println(jarEntry.getName().replaceAll("/", "\\."));
-          classes.add(jarEntry.getName().replaceAll("/", "\\."));
+    try (JarIndex index = new JarIndex(new File(jarName))) {
+      for (String classname : index.getClassNames()) {
+        if (classname.startsWith(packageName)) {
+          if (debug) System.out.println(classname + ".class");
+          classes.add(classname + ".class");
         }
       }
-    } finally {
-      if (jarFile != null) jarFile.close();
     }
     return classes;
   }
 
+  /**
+   * Returns the names of the class files in a jar file, such as {@code java.util.List.class}.
+   *
+   * @param jarName the name of the jar file
+   * @return the names of the class files, with dots for slashes
+   * @throws IOException if the jar file cannot be read
+   */
   public static List<String> getClasseNamesInJar(String jarName) throws IOException {
     ArrayList<String> classes = new ArrayList<>();
 
@@ -60,23 +62,11 @@ public class JarReader {
       System.out.println("Jar " + jarName);
     }
 
-    JarInputStream jarFile = null;
-    try {
-      jarFile = new JarInputStream(new FileInputStream(jarName));
-      JarEntry jarEntry;
-
-      while (true) {
-        jarEntry = jarFile.getNextJarEntry();
-        if (jarEntry == null) {
-          break;
-        }
-        if (jarEntry.getName().endsWith(".class")) {
-          if (debug) System.out.println(jarEntry.getName().replaceAll("/", "\\."));
-          classes.add(jarEntry.getName().replaceAll("/", "\\."));
-        }
+    try (JarIndex index = new JarIndex(new File(jarName))) {
+      for (String classname : index.getClassNames()) {
+        if (debug) System.out.println(classname + ".class");
+        classes.add(classname + ".class");
       }
-    } finally {
-      if (jarFile != null) jarFile.close();
     }
     return classes;
   }
@@ -94,6 +94,89 @@ public class StringEscapeUtils {
     escapeJavaStyleString(out, str, false);
   }
 
+  /**
+   * Unescapes the escape sequences of Java in a {@code String}, so that {@code unescapeJava(
+   * escapeJava(s))} equals {@code s}. Replaces the escape sequences for control characters, quotes,
+   * and backslash, octal escapes, and Unicode escapes by the characters they represent. A backslash
+   * that is followed by any other character is removed.
+   *
+   * @param str string to unescape, may be null
+   * @return a String with unescaped values, {@code null} if input string was null
+   */
+  public static String unescapeJava(String str) {
+    if (str == null) {
+      return null;
+    }
+    StringBuilder b = new StringBuilder(str.length());
+    int sz = str.length();
+    int i = 0;
+    while (i < sz) {
+      char ch = str.charAt(i++);
+      if (ch != '\\' || i == sz) {
+        b.append(ch);
+        continue;
+      }
+      ch = str.charAt(i++);
+      switch (ch) {
+        case 'b':
+          b.append('\b');
+          break;
+        case 'n':
+          b.append('\n');
+          break;
+        case 't':
+          b.append('\t');
+          break;
+        case 'f':
+          b.append('\f');
+          break;
+        case 'r':
+          b.append('\r');
+          break;
+        case 'u':
+          if (i + 4 <= sz && isHex(str, i, i + 4)) {
+            b.append((char) Integer.parseInt(str.substring(i, i + 4), 16));
+            i += 4;
+          } else {
+            b.append(ch);
+          }
+          break;
+        default:
+          if (ch >= '0' && ch <= '7') {
+            // An octal escape has up to three digits, and a value of at most 0377.
+            int end = i - 1;
+            int maxEnd = Math.min(sz, i + (ch <= '3' ? 2 : 1));
+            while (end < maxEnd && str.charAt(end) >= '0' && str.charAt(end) <= '7') {
+              end++;
+            }
+            b.append((char) Integer.parseInt(str.substring(i - 1, end), 8));
+            i = end;
+          } else {
+            b.append(ch);
+          }
+          break;
+      }
+    }
+    return b.toString();
+  }
+
+  /**
+   * Indicates whether the characters of a string in a range are hexadecimal digits.
+   *
+   * @param str the string
+   * @param start the index of the first character
+   * @param end the index after the last character
+   * @return true if all characters in the range are hexadecimal digits
+   */
+  private static boolean isHex(String str, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (Character.digit(str.charAt(i), 16) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static String escapeJavaStyleString(String str, boolean escapeSingleQuotes) {
     if (str == null) {
       return null;
@@ -0,0 +1,148 @@
+package randoop.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import plume.UtilMDE;
+import randoop.compile.FileCompiler;
+
+/** Tests for running test classes in daemons of a {@link TestEnvironment}. */
+public class TestEnvironmentTest {
+
+  private Path directory;
+
+  private TestEnvironment environment;
+
+  @Before
+  public void setUp() throws IOException, FileCompiler.FileCompilerException {
+    directory = Files.createTempDirectory("testenvironment");
+    compile(
+        "Counting",
+        "  static int count = 0;",
+        "  @org.junit.Test",
+        "  public void test01() {",
+        "    System.out.println(\"count \" + ++count);",
+        "    org.junit.Assert.assertEquals(1, count);",
+        "  }");
+    compile(
+        "Failing",
+        "  @org.junit.Test",
+        "  public void test01() {",
+        "    org.junit.Assert.fail();",
+        "  }");
+    compile(
+        "Exiting", "  @org.junit.Test", "  public void test01() {", "    System.exit(3);", "  }");
+    compile(
+        "Sleeping",
+        "  @org.junit.Test",
+        "  public void test01() throws InterruptedException {",
+        "    Thread.sleep(60000);",
+        "  }");
+    compile(
+        "Noisy",
+        "  @org.junit.Test",
+        "  public void test01() {",
+        "    Thread thread =",
+        "        new Thread() {",
+        "          @Override",
+        "          public void run() {",
+        "            while (true) {",
+        "              System.out.println(\"noise\");",
+        "            }",
+        "          }",
+        "        };",
+        "    thread.setDaemon(true);",
+        "    thread.start();",
+        "  }");
+    environment = new TestEnvironment(System.getProperty("java.class.path"));
+    environment.setUseDaemon(true);
+  }
+
+  @After
+  public void tearDown() {
+    environment.stopDaemons();
+    UtilMDE.deleteDir(directory.toFile());
+  }
+
+  @Test
+  public void testDaemonRunsClassesWithFreshStaticState()
+      throws RunCommand.CommandException, IOException {
+    for (int i = 0; i < 2; i++) {
+      RunCommand.Status status = run("Counting");
+      assertEquals(0, status.exitStatus);
+      assertFalse(status.timedOut);
+      assertEquals(Collections.singletonList("count 1"), status.standardOutputLines);
+      assertTrue(TestResults.read(resultsFile()).isEmpty());
+    }
+    RunCommand.Status status = run("Failing");
+    assertEquals(1, status.exitStatus);
+    assertEquals(
+        Collections.singleton("test01"),
+        TestResults.read(resultsFile()).getFailingLines().keySet());
+  }
+
+  @Test
+  public void testDaemonIsRestartedAfterExit() throws RunCommand.CommandException {
+    RunCommand.Status status = run("Exiting");
+    assertEquals(3, status.exitStatus);
+    assertFalse(status.timedOut);
+    assertFalse(resultsFile().exists());
+    assertEquals(0, run("Counting").exitStatus);
+  }
+
+  @Test
+  public void testDaemonIsRestartedAfterTimeout() throws RunCommand.CommandException {
+    assertEquals(0, run("Counting").exitStatus);
+    environment.setTimeout(2000);
+    RunCommand.Status status = run("Sleeping");
+    assertTrue(status.timedOut);
+    environment.setTimeout(60000);
+    assertEquals(0, run("Counting").exitStatus);
+  }
+
+  @Test
+  public void testOutputOfLeftoverThreadIsNotAResponse() throws RunCommand.CommandException {
+    assertEquals(0, run("Noisy").exitStatus);
+    for (int i = 0; i < 3; i++) {
+      RunCommand.Status status = run("Counting");
+      assertEquals(0, status.exitStatus);
+      assertTrue(status.standardOutputLines.contains("count 1"));
+      assertTrue(resultsFile().exists());
+    }
+  }
+
+  private RunCommand.Status run(String classname) throws RunCommand.CommandException {
+    resultsFile().delete();
+    return environment.runTest(classname, directory.toFile(), resultsFile());
+  }
+
+  private File resultsFile() {
+    return directory.resolve("results.txt").toFile();
+  }
+
+  private void compile(String classname, String... bodyLines)
+      throws IOException, FileCompiler.FileCompilerException {
+    File sourceFile = directory.resolve(classname + ".java").toFile();
+    String source =
+        "public class "
+            + classname
+            + " {"
+            + System.lineSeparator()
+            + UtilMDE.join(bodyLines, System.lineSeparator())
+            + System.lineSeparator()
+            + "}";
+    Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    new FileCompiler().compile(Arrays.asList(sourceFile), directory);
+  }
+}
@@ -0,0 +1,127 @@
+package randoop.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.rules.ErrorCollector;
+import org.junit.runner.notification.Failure;
+
+/** Tests for {@link TestResults} and {@link TestResultsRunner}. */
+public class TestResultsTest {
+
+  /** A test class whose methods fail at recorded lines. Skipped unless run by a test below. */
+  public static class FailingClass {
+    static boolean enabled = false;
+    static int[] test01Lines = new int[2];
+    static int[] test02Lines = new int[2];
+
+    @org.junit.Rule public ErrorCollector collector = new ErrorCollector();
+
+    @Test
+    public void test01() {
+      Assume.assumeTrue(enabled);
+      try {
+        Assert.assertEquals(0, record(test01Lines, 0));
+      } catch (AssertionError e) {
+        collector.addError(e);
+      }
+      Assert.assertEquals(0, record(test01Lines, 1));
+    }
+
+    @Test
+    public void test02() {
+      Assume.assumeTrue(enabled);
+      try {
+        Assert.assertEquals(0, record(test02Lines, 0));
+      } catch (AssertionError e) {
+        collector.addError(e);
+      }
+      try {
+        Assert.assertEquals(0, record(test02Lines, 1));
+      } catch (AssertionError e) {
+        collector.addError(e);
+      }
+    }
+
+    @Test
+    public void test03() {}
+
+    /** Records the line of the caller, and returns a value that fails the assertion. */
+    private static int record(int[] lines, int i) {
+      lines[i] = new Throwable().getStackTrace()[1].getLineNumber();
+      return 1;
+    }
+  }
+
+  @Test
+  public void testRunCollectsFailingLines() {
+    TestResults results;
+    FailingClass.enabled = true;
+    try {
+      results = TestResultsRunner.run(FailingClass.class);
+    } finally {
+      FailingClass.enabled = false;
+    }
+    // The collected failure of test01 is dropped, since the method then throws.
+    Map<String, SortedSet<Integer>> expected = new TreeMap<>();
+    expected.put("test01", lines(FailingClass.test01Lines[1]));
+    expected.put("test02", lines(FailingClass.test02Lines[0], FailingClass.test02Lines[1]));
+    assertEquals(expected, results.getFailingLines());
+    assertTrue(results.getUnlocatedFailures().isEmpty());
+  }
+
+  @Test
+  public void testFileRoundTrip() throws IOException {
+    Failure located =
+        new Failure(
+            org.junit.runner.Description.createTestDescription(FailingClass.class, "test01"),
+            exceptionAt(FailingClass.class.getName(), "test01", 28));
+    Failure locatedCause =
+        new Failure(
+            org.junit.runner.Description.createTestDescription(FailingClass.class, "test01"),
+            new RuntimeException(exceptionAt(FailingClass.class.getName(), "test01", 32)));
+    Failure unlocated =
+        new Failure(
+            org.junit.runner.Description.createTestDescription(
+                FailingClass.class, "initializationError"),
+            new Exception("no\nclass"));
+    TestResults results =
+        TestResults.fromFailures(
+            FailingClass.class.getName(), Arrays.asList(located, locatedCause, unlocated));
+    assertEquals(Collections.singletonMap("test01", lines(28, 32)), results.getFailingLines());
+    assertEquals(1, results.getUnlocatedFailures().size());
+
+    File file = File.createTempFile("results", ".txt");
+    file.deleteOnExit();
+    results.write(file);
+    TestResults read = TestResults.read(file);
+    assertEquals(results.getFailingLines(), read.getFailingLines());
+    assertEquals(1, read.getUnlocatedFailures().size());
+    assertTrue(read.getUnlocatedFailures().get(0).startsWith("initializationError("));
+  }
+
+  private static AssertionError exceptionAt(String className, String methodName, int line) {
+    AssertionError e = new AssertionError("failed");
+    e.setStackTrace(
+        new StackTraceElement[] {
+          new StackTraceElement("org.junit.Assert", "fail", "Assert.java", 88),
+          new StackTraceElement(className, methodName, "FailingClass.java", line)
+        });
+    return e;
+  }
+
+  private static SortedSet<Integer> lines(Integer... lines) {
+    return new TreeSet<>(Arrays.asList(lines));
+  }
+}
@@ -0,0 +1,96 @@
+package randoop.generation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static randoop.reflection.VisibilityPredicate.IS_PUBLIC;
+
+import org.junit.Test;
+import randoop.DummyVisitor;
+import randoop.main.GenTests;
+import randoop.operation.TypedOperation;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.test.ContractSet;
+import randoop.test.TestCheckGenerator;
+import randoop.types.Type;
+import randoop.util.MultiMap;
+
+public class ErrorSequenceMinimizerTest {
+
+  /** A class whose {@code length()} method throws a NullPointerException once it is cleared. */
+  public static class Box {
+    private Object value = "value";
+
+    public static Box empty() {
+      Box box = new Box();
+      box.clear();
+      return box;
+    }
+
+    public void clear() {
+      value = null;
+    }
+
+    public int length() {
+      return value.toString().length();
+    }
+  }
+
+  @Test
+  public void testRemovesStatementsThatDoNotFlowIntoFailure() throws NoSuchMethodException {
+    Sequence sequence = new Sequence();
+    sequence = sequence.extend(TypedOperation.forConstructor(Box.class.getConstructor()));
+    sequence = sequence.extend(TypedOperation.forMethod(Box.class.getMethod("empty")));
+    sequence =
+        sequence.extend(
+            TypedOperation.forMethod(Box.class.getMethod("length")), sequence.getVariable(0));
+    sequence =
+        sequence.extend(
+            TypedOperation.forMethod(Box.class.getMethod("length")), sequence.getVariable(1));
+
+    ExecutableSequence minimized = minimize(sequence);
+    assertEquals(2, minimized.size());
+    assertEquals(
+        sequence.getStatement(1).getOperation(), minimized.sequence.getStatement(0).getOperation());
+  }
+
+  @Test
+  public void testRetainsStatementsThatChangeFailingValue() throws NoSuchMethodException {
+    Sequence sequence = new Sequence();
+    sequence = sequence.extend(TypedOperation.forConstructor(Box.class.getConstructor()));
+    sequence = sequence.extend(TypedOperation.forConstructor(Box.class.getConstructor()));
+    sequence =
+        sequence.extend(
+            TypedOperation.forMethod(Box.class.getMethod("length")), sequence.getVariable(1));
+    sequence =
+        sequence.extend(
+            TypedOperation.forMethod(Box.class.getMethod("clear")), sequence.getVariable(0));
+    sequence =
+        sequence.extend(
+            TypedOperation.forMethod(Box.class.getMethod("length")), sequence.getVariable(0));
+
+    ExecutableSequence minimized = minimize(sequence);
+    assertEquals(3, minimized.size());
+    assertEquals(
+        sequence.getStatement(3).getOperation(), minimized.sequence.getStatement(1).getOperation());
+    assertEquals(
+        sequence.getInputsAsAbsoluteIndices(3), minimized.sequence.getInputsAsAbsoluteIndices(1));
+  }
+
+  private static ExecutableSequence minimize(Sequence sequence) {
+    TestCheckGenerator checkGenerator =
+        GenTests.createTestCheckGenerator(
+            IS_PUBLIC, new ContractSet(), new MultiMap<Type, TypedOperation>());
+    ExecutableSequence eSeq = new ExecutableSequence(sequence);
+    eSeq.execute(new DummyVisitor(), checkGenerator);
+    assertTrue(eSeq.hasFailure());
+
+    ExecutableSequence minimized =
+        new ErrorSequenceMinimizer(new DummyVisitor(), checkGenerator).minimize(eSeq);
+    assertNotSame(eSeq, minimized);
+    assertTrue(minimized.hasFailure());
+    assertEquals(eSeq.getChecks().count(), minimized.getChecks().count());
+    return minimized;
+  }
+}
@@ -78,6 +78,38 @@ public class MinimizerTests {
     testWithInput("TestInputWithComments.java");
   }
 
+  @Test
+  public void testWithCommentsInProcess() throws IOException {
+    Minimize.minimizeinprocess = true;
+    try {
+      testWithInput("TestInputWithComments.java");
+    } finally {
+      Minimize.minimizeinprocess = false;
+    }
+  }
+
+  @Test
+  public void testWithLongRunOfStatements() throws IOException {
+    testWithInput("TestInputWithLongRunOfStatements.java");
+    // Checking the 34 statements one at a time takes at least 34 checks. Removing chunks of
+    // statements takes fewer, even though chunks that contain the needed statement are halved.
+    int checks = Minimize.getNumberOfChecks();
+    assertTrue("checked " + checks + " versions", checks <= 20);
+  }
+
+  @Test
+  public void testWithTwoWorkersInProcess() throws IOException {
+    Minimize.minimizeinprocess = true;
+    Minimize.minimizeworkers = 2;
+    try {
+      testWithInput("TestInputWithLongRunOfStatements.java");
+      testWithInput("TestInputWithMulitpleTestCases.java");
+    } finally {
+      Minimize.minimizeinprocess = false;
+      Minimize.minimizeworkers = 1;
+    }
+  }
+
   @Test
   public void testWithMulitpleTestCases() throws IOException {
     testWithInput("TestInputWithMulitpleTestCases.java");
@@ -34,4 +34,17 @@ public class TermTests {
     NonreceiverTerm nullClassTerm = new NonreceiverTerm(JavaTypes.CLASS_TYPE, null);
     assertThat("null terms are equal ", term, is(nullClassTerm));
   }
+
+  @Test
+  public void testStringParsableRoundTrip() throws OperationParseException {
+    String[] values = {"tab\tend", "quote\"and\\backslash", "line\nend", "uni\u00e9", "ctl\u0001"};
+    for (String value : values) {
+      NonreceiverTerm term = new NonreceiverTerm(JavaTypes.STRING_TYPE, value);
+      TypedOperation operation = NonreceiverTerm.parse(term.toParsableString(null, null, null));
+      assertThat(
+          "parsing the parsable string should give the value",
+          ((NonreceiverTerm) operation.getOperation()).getValue(),
+          is((Object) value));
+    }
+  }
 }
@@ -0,0 +1,161 @@
+package randoop.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import plume.UtilMDE;
+import randoop.Globals;
+import randoop.execution.TestEnvironment;
+
+/** Tests for {@link FailingTestFilter}. */
+public class FailingTestFilterTest {
+
+  private static final List<String> CLASS_LINES =
+      Arrays.asList(
+          "import org.junit.Test;",
+          "",
+          "public class FlakyTest {",
+          "",
+          "  @org.junit.BeforeClass",
+          "  public static void setUpClass() {",
+          "    org.junit.Assert.assertTrue(true);",
+          "  }",
+          "",
+          "  @Test",
+          "  public void test01() {",
+          "    org.junit.Assert.assertTrue(true);",
+          "    org.junit.Assert.assertTrue(System.nanoTime() < 0);",
+          "  }",
+          "",
+          "  @Test",
+          "  public void test02() {",
+          "    org.junit.Assert.assertEquals(1, 2);",
+          "    org.junit.Assert.assertEquals(1, 1);",
+          "    org.junit.Assert.assertEquals(\"a\", \"b\");",
+          "  }",
+          "}");
+
+  @Test
+  public void testInProcessCommentsFailingAssertions() throws IOException, RandoopOutputException {
+    assertEquals(getExpectedClass(), filter(true));
+  }
+
+  @Test
+  public void testSubprocessCommentsFailingAssertions() throws IOException, RandoopOutputException {
+    assertEquals(getExpectedClass(), filter(false));
+  }
+
+  @Test
+  public void testConcurrentClassesCommentFailingAssertions()
+      throws IOException, InterruptedException, ExecutionException {
+    File dir = Files.createTempDirectory("flakyfilter").toFile();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final FailingTestFilter filter =
+          new FailingTestFilter(
+              new TestEnvironment(System.getProperty("java.class.path")),
+              new JavaFileWriter(dir.getPath()),
+              true,
+              3);
+      List<Future<File>> files = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        final String classname = "FlakyTest" + i;
+        files.add(
+            executor.submit(
+                new Callable<File>() {
+                  @Override
+                  public File call() throws Exception {
+                    try {
+                      return filter.writeClassCode("", classname, getClassSource(classname));
+                    } catch (RandoopOutputException e) {
+                      throw new Exception(e);
+                    }
+                  }
+                }));
+      }
+      for (int i = 0; i < files.size(); i++) {
+        File file = files.get(i).get();
+        assertEquals(
+            getExpectedClass().replace("FlakyTest", "FlakyTest" + i),
+            new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+      }
+    } finally {
+      executor.shutdown();
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  @Test
+  public void testCachedMethodsAreNotRun() throws IOException, RandoopOutputException {
+    File dir = Files.createTempDirectory("flakyfilter").toFile();
+    try {
+      String classpath = System.getProperty("java.class.path");
+      File cacheFile = new File(dir, "cache.txt");
+      String source = getClassSource("FlakyTest");
+      assertEquals(getExpectedClass(), filter(dir, classpath, cacheFile, source));
+      assertEquals(2, Files.readAllLines(cacheFile.toPath(), StandardCharsets.UTF_8).size());
+
+      // The tests cannot be run without JUnit on the classpath, and are not run.
+      assertEquals(getExpectedClass(), filter(dir, "", cacheFile, source));
+
+      // Only the changed method is run.
+      String changedSource = source.replace("assertEquals(1, 1)", "assertEquals(2, 2)");
+      assertEquals(
+          getExpectedClass().replace("assertEquals(1, 1)", "assertEquals(2, 2)"),
+          filter(dir, classpath, cacheFile, changedSource));
+      assertEquals(3, Files.readAllLines(cacheFile.toPath(), StandardCharsets.UTF_8).size());
+    } finally {
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  private String filter(File dir, String testClasspath, File cacheFile, String source)
+      throws IOException, RandoopOutputException {
+    FailingTestFilter filter =
+        new FailingTestFilter(
+            new TestEnvironment(testClasspath), new JavaFileWriter(dir.getPath()));
+    filter.setCache(new FlakyTestCache(cacheFile, System.getProperty("java.class.path"), dir));
+    File file = filter.writeClassCode("", "FlakyTest", source);
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+
+  private String filter(boolean inProcess) throws IOException, RandoopOutputException {
+    File dir = Files.createTempDirectory("flakyfilter").toFile();
+    try {
+      FailingTestFilter filter =
+          new FailingTestFilter(
+              new TestEnvironment(System.getProperty("java.class.path")),
+              new JavaFileWriter(dir.getPath()),
+              inProcess);
+      File file = filter.writeClassCode("", "FlakyTest", getClassSource("FlakyTest"));
+      return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    } finally {
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  private String getClassSource(String classname) {
+    return UtilMDE.join(CLASS_LINES, Globals.lineSep).replace("FlakyTest", classname);
+  }
+
+  private String getExpectedClass() {
+    String[] lines = CLASS_LINES.toArray(new String[0]);
+    lines[12] = "// flaky: " + lines[12];
+    lines[17] = "// flaky: " + lines[17];
+    lines[19] = "// flaky: " + lines[19];
+    // JavaFileWriter ends the file with a line separator.
+    return UtilMDE.join(lines, Globals.lineSep) + Globals.lineSep;
+  }
+}
@@ -0,0 +1,129 @@
+package randoop.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import randoop.ExecutionVisitor;
+import randoop.Globals;
+import randoop.contract.PrimValue;
+import randoop.operation.TypedOperation;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.test.ExpectedExceptionCheck;
+import randoop.test.ObjectCheck;
+import randoop.test.RegressionChecks;
+import randoop.test.TestCheckGenerator;
+
+/**
+ * Tests that the template emitter of {@link JUnitCreator} writes text with the same syntax tree as
+ * the tree built for a test class, and that it writes the code of the tests as rendered.
+ */
+public class JUnitTemplateEmitterTest {
+
+  @Test
+  public void testSameTextWithoutFixtures() throws NoSuchMethodException, ParseException {
+    assertSameText(JUnitCreator.getTestCreator("pkg", null, null, null, null));
+  }
+
+  @Test
+  public void testSameTextInDefaultPackage() throws NoSuchMethodException, ParseException {
+    assertSameText(JUnitCreator.getTestCreator("", null, null, null, null));
+  }
+
+  @Test
+  public void testSameTextWithFixtures() throws NoSuchMethodException, ParseException {
+    JUnitCreator creator =
+        JUnitCreator.getTestCreator(
+            "pkg.sub",
+            JUnitCreator.parseFixture(Arrays.asList("System.out.println(\"before all\");")),
+            JUnitCreator.parseFixture(
+                Arrays.asList("if (true) {", "  System.out.println(\"after all\");", "}")),
+            JUnitCreator.parseFixture(new ArrayList<String>()),
+            JUnitCreator.parseFixture(
+                Arrays.asList("int i = 0;", "", "// a comment", "System.out.println(i);")));
+    assertSameText(creator);
+  }
+
+  private void assertSameText(JUnitCreator creator) throws NoSuchMethodException, ParseException {
+    List<ExecutableSequence> sequences = getExecutableSequences();
+    String expected = creator.createTestClass("TestClass", "test", sequences).toString();
+    creator.useTemplateEmitter(false);
+    String source = creator.createTestClassSource("TestClass", "test", sequences);
+    assertEquals(expected, JavaParser.parse(new StringReader(source), false).toString());
+    for (ExecutableSequence sequence : sequences) {
+      for (String line : sequence.toCodeLines()) {
+        // The code is written as rendered, indented as the body of a test method.
+        for (String codeLine : line.split(Globals.lineSep)) {
+          if (!codeLine.isEmpty()) {
+            assertTrue(codeLine, source.contains("        " + codeLine + Globals.lineSep));
+          }
+        }
+      }
+    }
+
+    // Checking the syntax does not change the text.
+    creator.useTemplateEmitter(true);
+    assertEquals(source, creator.createTestClassSource("TestClass", "test", sequences));
+  }
+
+  private List<ExecutableSequence> getExecutableSequences() throws NoSuchMethodException {
+    TypedOperation valueOf =
+        TypedOperation.forMethod(Integer.class.getMethod("valueOf", int.class));
+    TypedOperation intValue = TypedOperation.forMethod(Integer.class.getMethod("intValue"));
+
+    List<ExecutableSequence> sequences = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      Sequence sequence = Sequence.createSequenceForPrimitive(i);
+      if (i % 2 == 1) {
+        sequence = sequence.extend(valueOf, sequence.getLastVariable());
+        sequence = sequence.extend(intValue, sequence.getLastVariable());
+      }
+      final ExecutableSequence eseq = new ExecutableSequence(sequence);
+      final int value = i;
+      final boolean expectException = i % 3 == 0;
+      eseq.execute(
+          getExecutionVisitor(),
+          new TestCheckGenerator() {
+            @Override
+            public RegressionChecks generateTestChecks(ExecutableSequence s) {
+              if (expectException) {
+                return new RegressionChecks(
+                    new ExpectedExceptionCheck(
+                        new IllegalStateException("expected"),
+                        s.sequence.size() - 1,
+                        "java.lang.IllegalStateException"));
+              }
+              return new RegressionChecks(
+                  new ObjectCheck(
+                      new PrimValue(value, PrimValue.PrintMode.EQUALSEQUALS),
+                      s.sequence.getLastVariable()));
+            }
+          });
+      sequences.add(eseq);
+    }
+    return sequences;
+  }
+
+  private ExecutionVisitor getExecutionVisitor() {
+    return new ExecutionVisitor() {
+      @Override
+      public void visitBeforeStatement(ExecutableSequence sequence, int i) {}
+
+      @Override
+      public void visitAfterStatement(ExecutableSequence sequence, int i) {}
+
+      @Override
+      public void initialize(ExecutableSequence executableSequence) {}
+
+      @Override
+      public void visitAfterSequence(ExecutableSequence executableSequence) {}
+    };
+  }
+}
@@ -0,0 +1,184 @@
+package randoop.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import randoop.ExecutionVisitor;
+import randoop.contract.PrimValue;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.sequence.Variable;
+import randoop.test.ObjectCheck;
+import randoop.test.RegressionChecks;
+import randoop.test.TestCheckGenerator;
+
+/** Tests for {@link StreamingTestWriter}. */
+public class StreamingTestWriterTest {
+
+  /** Records the classes written, by class name. */
+  private static class RecordingWriter implements CodeWriter {
+    final Map<String, String> classes = new LinkedHashMap<>();
+
+    @Override
+    public File writeClassCode(String packageName, String classname, String classCode) {
+      classes.put(classname, classCode);
+      return new File(classname + ".java");
+    }
+
+    @Override
+    public File writeUnmodifiedClassCode(String packageName, String classname, String classCode) {
+      return writeClassCode(packageName, classname, classCode);
+    }
+  }
+
+  @Test
+  public void testStreamedClassesMatchClassesWrittenAtOnce() throws RandoopOutputException {
+    List<ExecutableSequence> sequences = getExecutableSequences();
+
+    RecordingWriter codeWriter = new RecordingWriter();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    StreamingTestWriter writer =
+        new StreamingTestWriter(
+            JUnitCreator.getTestCreator("pkg", null, null, null, null),
+            codeWriter,
+            executor,
+            "pkg",
+            "RegressionTest",
+            "test",
+            2,
+            true);
+    writer.add(sequences.subList(0, 1));
+    writer.add(sequences.subList(1, 5));
+    List<File> files = writer.finish();
+    executor.shutdown();
+
+    assertEquals(5, writer.getTestCount());
+    assertEquals(
+        Arrays.asList(
+            new File("RegressionTest0.java"),
+            new File("RegressionTest1.java"),
+            new File("RegressionTest2.java"),
+            new File("RegressionTest.java")),
+        files);
+
+    JUnitCreator creator = JUnitCreator.getTestCreator("pkg", null, null, null, null);
+    Map<String, String> expected = new LinkedHashMap<>();
+    expected.put(
+        "RegressionTest0",
+        creator.createTestClass("RegressionTest0", "test", sequences.subList(0, 2)).toString());
+    expected.put(
+        "RegressionTest1",
+        creator.createTestClass("RegressionTest1", "test", sequences.subList(2, 4)).toString());
+    expected.put(
+        "RegressionTest2",
+        creator.createTestClass("RegressionTest2", "test", sequences.subList(4, 5)).toString());
+    expected.put(
+        "RegressionTest",
+        creator.createTestSuite("RegressionTest", new LinkedHashSet<>(expected.keySet())));
+    assertEquals(expected, codeWriter.classes);
+  }
+
+  @Test
+  public void testParallelClassesMatchSequentialClasses() throws RandoopOutputException {
+    List<ExecutableSequence> sequences = getExecutableSequences();
+    Map<String, String> sequential = writeClasses(sequences, Executors.newSingleThreadExecutor());
+    Map<String, String> parallel = writeClasses(sequences, new ForkJoinPool(4));
+    assertEquals(sequential, parallel);
+  }
+
+  private Map<String, String> writeClasses(
+      List<ExecutableSequence> sequences, ExecutorService executor) throws RandoopOutputException {
+    final Map<String, String> classes = new ConcurrentHashMap<>();
+    CodeWriter codeWriter =
+        new RecordingWriter() {
+          @Override
+          public File writeClassCode(String packageName, String classname, String classCode) {
+            classes.put(classname, classCode);
+            return new File(classname + ".java");
+          }
+        };
+    StreamingTestWriter writer =
+        new StreamingTestWriter(
+            JUnitCreator.getTestCreator("pkg", null, null, null, null),
+            codeWriter,
+            executor,
+            "pkg",
+            "RegressionTest",
+            "test",
+            1,
+            false);
+    writer.add(sequences);
+    writer.finish();
+    executor.shutdown();
+    return classes;
+  }
+
+  @Test
+  public void testNoSequencesWritesNothing() throws RandoopOutputException {
+    RecordingWriter codeWriter = new RecordingWriter();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    StreamingTestWriter writer =
+        new StreamingTestWriter(
+            JUnitCreator.getTestCreator("pkg", null, null, null, null),
+            codeWriter,
+            executor,
+            "pkg",
+            "ErrorTest",
+            "test",
+            2,
+            false);
+    assertEquals(0, writer.finish().size());
+    executor.shutdown();
+    assertEquals(0, codeWriter.classes.size());
+  }
+
+  private List<ExecutableSequence> getExecutableSequences() {
+    List<ExecutableSequence> sequences = new ArrayList<>();
+    ExecutionVisitor visitor = getExecutionVisitor();
+    for (int i = 0; i < 5; i++) {
+      ExecutableSequence sequence = new ExecutableSequence(Sequence.createSequenceForPrimitive(i));
+      TestCheckGenerator checkGen = getTestCheckGenerator(i, sequence.sequence.getVariable(0));
+
+      sequence.execute(visitor, checkGen);
+      sequences.add(sequence);
+    }
+    return sequences;
+  }
+
+  private ExecutionVisitor getExecutionVisitor() {
+    return new ExecutionVisitor() {
+      @Override
+      public void visitBeforeStatement(ExecutableSequence sequence, int i) {}
+
+      @Override
+      public void visitAfterStatement(ExecutableSequence sequence, int i) {}
+
+      @Override
+      public void initialize(ExecutableSequence executableSequence) {}
+
+      @Override
+      public void visitAfterSequence(ExecutableSequence executableSequence) {}
+    };
+  }
+
+  private TestCheckGenerator getTestCheckGenerator(final int i, final Variable variable) {
+    return new TestCheckGenerator() {
+      @Override
+      public RegressionChecks generateTestChecks(ExecutableSequence eseq) {
+        return new RegressionChecks(
+            new ObjectCheck(new PrimValue(i, PrimValue.PrintMode.EQUALSEQUALS), variable));
+      }
+    };
+  }
+}
@@ -0,0 +1,147 @@
+package randoop.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import randoop.DummyVisitor;
+import randoop.main.Replay;
+import randoop.operation.OperationParseException;
+import randoop.operation.TypedClassOperation;
+import randoop.operation.TypedOperation;
+import randoop.reflection.VisibilityPredicate;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.test.ExpectedExceptionCheckGen;
+import randoop.test.RegressionCaptureGenerator;
+import randoop.test.TestCheckGenerator;
+import randoop.test.predicate.ExceptionBehaviorPredicate;
+import randoop.types.ArrayType;
+import randoop.types.GenericClassType;
+import randoop.types.JavaTypes;
+import randoop.types.ReferenceType;
+import randoop.types.Substitution;
+import randoop.types.Type;
+import randoop.util.MultiMap;
+
+/** Tests that regression tests written to a test corpus are read back and replayed. */
+public class TestCorpusTest {
+
+  @Test
+  public void testRoundTrip() throws IOException, NoSuchMethodException, OperationParseException {
+    File file = File.createTempFile("corpus", ".bin");
+    file.deleteOnExit();
+    List<ExecutableSequence> tests = getExecutedSequences();
+
+    try (TestCorpusWriter writer =
+        new TestCorpusWriter(file, "pkg", true, Collections.<TypedOperation>emptyList())) {
+      writer.addAll(tests);
+      assertEquals(tests.size(), writer.getTestCount());
+      assertEquals(0, writer.getSkippedCount());
+    }
+
+    try (TestCorpusReader reader = new TestCorpusReader(file)) {
+      assertEquals(tests.size(), reader.size());
+      assertEquals("pkg", reader.getVisibilityPackage());
+      assertTrue(reader.hasRegressionAssertions());
+      assertTrue(reader.getObservers().isEmpty());
+      // Read the tests out of order.
+      for (int i = tests.size() - 1; i >= 0; i--) {
+        TestCorpusReader.CorpusTest test = reader.get(i);
+        assertEquals(tests.get(i).sequence, test.getSequence());
+        assertEquals(
+            TestCorpusFormat.describeChecks(tests.get(i).getChecks()), test.getExpectedChecks());
+        assertTrue(test.hasExpectedChecks(tests.get(i).getChecks()));
+      }
+      assertEquals(0, Replay.replay(reader, false));
+    }
+  }
+
+  @Test
+  public void testEmptyCorpus() throws IOException {
+    File file = File.createTempFile("corpus", ".bin");
+    file.deleteOnExit();
+    new TestCorpusWriter(file, null, false, Collections.<TypedOperation>emptyList()).close();
+
+    try (TestCorpusReader reader = new TestCorpusReader(file)) {
+      assertEquals(0, reader.size());
+      assertNull(reader.getVisibilityPackage());
+      assertFalse(reader.hasRegressionAssertions());
+    }
+  }
+
+  @Test
+  public void testTypeText() throws OperationParseException {
+    Type listOfString = TestCorpusFormat.parseType("java.util.ArrayList<java.lang.String>[][]");
+    assertEquals(
+        "java.util.ArrayList<java.lang.String>[][]", TestCorpusFormat.typeText(listOfString));
+    assertEquals(JavaTypes.INT_TYPE, TestCorpusFormat.parseType("int"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotACorpus() throws IOException {
+    File file = File.createTempFile("corpus", ".bin");
+    file.deleteOnExit();
+    new TestCorpusReader(file).close();
+  }
+
+  /**
+   * Returns sequences that use each kind of operation that is stored in a corpus, executed to
+   * create their regression checks.
+   */
+  private List<ExecutableSequence> getExecutedSequences() throws NoSuchMethodException {
+    TypedOperation valueOf =
+        TypedOperation.forMethod(Integer.class.getMethod("valueOf", int.class));
+    TypedOperation parseInt =
+        TypedOperation.forMethod(Integer.class.getMethod("parseInt", String.class));
+    TypedClassOperation newList = TypedOperation.forConstructor(ArrayList.class.getConstructor());
+    TypedClassOperation add =
+        TypedOperation.forMethod(ArrayList.class.getMethod("add", Object.class));
+    Substitution<ReferenceType> substitution =
+        Substitution.forArgs(
+            ((GenericClassType) newList.getDeclaringType()).getTypeParameters(),
+            (ReferenceType) JavaTypes.STRING_TYPE);
+    newList = newList.apply(substitution);
+    add = add.apply(substitution);
+
+    List<Sequence> sequences = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Sequence sequence = Sequence.createSequenceForPrimitive(i);
+      sequences.add(sequence.extend(valueOf, sequence.getLastVariable()));
+    }
+    Sequence sequence = Sequence.createSequenceForPrimitive("not a number");
+    sequences.add(sequence.extend(parseInt, sequence.getLastVariable()));
+    sequence = new Sequence().extend(newList);
+    sequence =
+        sequence.extend(
+            TypedOperation.createNullOrZeroInitializationForType(JavaTypes.STRING_TYPE));
+    sequences.add(sequence.extend(add, sequence.getVariable(0), sequence.getVariable(1)));
+    sequence = Sequence.createSequenceForPrimitive(3);
+    sequences.add(
+        sequence.extend(
+            TypedOperation.createArrayCreation(ArrayType.ofComponentType(JavaTypes.INT_TYPE)),
+            sequence.getLastVariable()));
+
+    TestCheckGenerator checkGenerator =
+        new RegressionCaptureGenerator(
+            new ExpectedExceptionCheckGen(
+                VisibilityPredicate.IS_PUBLIC, ExceptionBehaviorPredicate.IS_EXPECTED),
+            new MultiMap<Type, TypedOperation>(),
+            VisibilityPredicate.IS_PUBLIC,
+            true);
+    List<ExecutableSequence> tests = new ArrayList<>();
+    for (Sequence s : sequences) {
+      ExecutableSequence eseq = new ExecutableSequence(s);
+      eseq.execute(new DummyVisitor(), checkGenerator);
+      tests.add(eseq);
+    }
+    return tests;
+  }
+}
@@ -0,0 +1,134 @@
+package randoop.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static randoop.reflection.VisibilityPredicate.IS_PUBLIC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import plume.UtilMDE;
+import randoop.CheckRep;
+import randoop.main.ThrowClassNameError;
+import randoop.operation.TypedOperation;
+import randoop.sequence.Sequence;
+import randoop.types.ClassOrInterfaceType;
+import randoop.util.MultiMap;
+
+/** Tests of {@link randoop.reflection.OperationModelCache}. */
+public class OperationModelCacheTest {
+
+  /** A class with a literal and a {@code @CheckRep} method. */
+  public static class Counter {
+    private int count = 0;
+
+    public void increment() {
+      count++;
+    }
+
+    public String describe() {
+      return (count == 0) ? "empty\tcounter" : "counter";
+    }
+
+    @CheckRep
+    public boolean isValid() {
+      return count >= 0;
+    }
+  }
+
+  @Test
+  public void testReadModelEqualsBuiltModel() throws Exception {
+    File dir = Files.createTempDirectory("modelcache").toFile();
+    try {
+      OperationModelCache cache = newCache(dir);
+      assertFalse(cache.getFile().exists());
+      OperationModel built = createModel(cache);
+      assertTrue(cache.getFile().exists());
+
+      OperationModel read = createModel(newCache(dir));
+      assertEquals(built.getClassTypes(), read.getClassTypes());
+      assertEquals(
+          new HashSet<>(built.getOperations()), new HashSet<TypedOperation>(read.getOperations()));
+      assertEquals(built.getInputTypes(), read.getInputTypes());
+      assertEquals(built.getCoveredClassesGoal(), read.getCoveredClassesGoal());
+      assertEquals(
+          built.getContracts().getWithArity(1).size(), read.getContracts().getWithArity(1).size());
+      assertEquals(getLiterals(built.getClassLiteralMap()), getLiterals(read.getClassLiteralMap()));
+    } finally {
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  @Test
+  public void testKeyDependsOnOptions() throws IOException {
+    File dir = Files.createTempDirectory("modelcache").toFile();
+    try {
+      String classpath = System.getProperty("java.class.path");
+      File file1 = new OperationModelCache(dir, classpath, Arrays.asList("a")).getFile();
+      File file2 = new OperationModelCache(dir, classpath, Arrays.asList("a")).getFile();
+      File file3 = new OperationModelCache(dir, classpath, Arrays.asList("b")).getFile();
+      assertEquals(file1, file2);
+      assertFalse(file1.equals(file3));
+    } finally {
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  @Test
+  public void testIgnoresMalformedFile() throws Exception {
+    File dir = Files.createTempDirectory("modelcache").toFile();
+    try {
+      OperationModelCache cache = newCache(dir);
+      Files.write(cache.getFile().toPath(), new byte[] {1, 2, 3});
+      assertNull(
+          cache.read(
+              IS_PUBLIC, new DefaultReflectionPredicate(), new OmitMethodsPredicate(null), 1));
+      assertNotNull(createModel(cache));
+    } finally {
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  private static OperationModelCache newCache(File dir) throws IOException {
+    return new OperationModelCache(
+        dir, System.getProperty("java.class.path"), Collections.singletonList("test"));
+  }
+
+  private static OperationModel createModel(OperationModelCache cache) throws Exception {
+    Set<String> classnames = new LinkedHashSet<>();
+    classnames.add(Counter.class.getName());
+    List<String> literalsFileList = new ArrayList<>();
+    literalsFileList.add("CLASSES");
+    return OperationModel.createModel(
+        IS_PUBLIC,
+        new DefaultReflectionPredicate(),
+        null,
+        classnames,
+        new LinkedHashSet<String>(),
+        new LinkedHashSet<String>(),
+        new ThrowClassNameError(),
+        literalsFileList,
+        cache);
+  }
+
+  private static Set<String> getLiterals(MultiMap<ClassOrInterfaceType, Sequence> classLiteralMap) {
+    Set<String> literals = new HashSet<>();
+    for (ClassOrInterfaceType type : classLiteralMap.keySet()) {
+      for (Sequence sequence : classLiteralMap.getValues(type)) {
+        literals.add(type + " " + sequence.toParsableString());
+      }
+    }
+    return literals;
+  }
+}
@@ -20,7 +20,9 @@ import java.util.Set;
 import org.junit.Test;
 import randoop.ExecutionOutcome;
 import randoop.NormalExecution;
+import randoop.generation.ComponentManager;
 import randoop.main.ClassNameErrorHandler;
+import randoop.main.GenInputsAbstract;
 import randoop.main.ThrowClassNameError;
 import randoop.main.WarnOnBadClassName;
 import randoop.operation.TypedClassOperation;
@@ -28,6 +30,7 @@ import randoop.operation.TypedOperation;
 import randoop.reflection.supertypetest.InheritedEnum;
 import randoop.types.ClassOrInterfaceType;
 import randoop.types.JavaTypes;
+import randoop.types.Type;
 
 /** Tests of {@link randoop.reflection.OperationModel}. */
 public class OperationModelTest {
@@ -318,6 +321,103 @@ public class OperationModelTest {
     assertEquals("should be same elements", operations1, operations2);
   }
 
+  @Test
+  public void workersModelTest() {
+    Set<String> classnames = new LinkedHashSet<>();
+    classnames.add("randoop.reflection.ClassWithMemberTypes");
+    classnames.add("randoop.reflection.GenericTreeWithInnerNode");
+    classnames.add("randoop.reflection.supertypetest.InheritedEnum");
+    classnames.add("randoop.reflection.visibilitytest.PublicClass");
+    classnames.add("java.util.LinkedList");
+    classnames.add("randoop.reflection.NoSuchClass");
+    OperationModel model1 = getOperationModel(classnames);
+
+    int workers = GenInputsAbstract.model_workers;
+    GenInputsAbstract.model_workers = 3;
+    OperationModel model2;
+    try {
+      model2 = getOperationModel(classnames);
+    } finally {
+      GenInputsAbstract.model_workers = workers;
+    }
+
+    assertEquals("should be same classes", model1.getClassTypes(), model2.getClassTypes());
+    assertEquals("should be same input types", model1.getInputTypes(), model2.getInputTypes());
+    assertEquals("should be same operations", model1.getOperations(), model2.getOperations());
+  }
+
+  @Test
+  public void signatureErrorsTest() throws NoSuchMethodException {
+    Set<String> methodSignatures = new LinkedHashSet<>();
+    methodSignatures.add("java.util.LinkedList.NoSuchMethod()");
+    methodSignatures.add("java.util.LinkedList.add(java.lang.Object)");
+    methodSignatures.add("java.util.NoSuchClass.add(java.lang.Object)");
+    methodSignatures.add("not a signature");
+    try {
+      OperationModel.createModel(
+          IS_PUBLIC,
+          new DefaultReflectionPredicate(),
+          null,
+          new LinkedHashSet<String>(),
+          new LinkedHashSet<String>(),
+          methodSignatures,
+          new ThrowClassNameError(),
+          new ArrayList<String>());
+      fail("should not parse bad signatures");
+    } catch (SignatureParseException e) {
+      assertThat("should report each bad signature", e.getSuppressed().length, is(equalTo(3)));
+      assertTrue(e.getMessage(), e.getMessage().contains("java.util.LinkedList.NoSuchMethod()"));
+      assertTrue(e.getMessage(), e.getMessage().contains("java.util.NoSuchClass"));
+      assertTrue(e.getMessage(), e.getMessage().contains("not a signature"));
+    }
+  }
+
+  @Test
+  public void lazyModelTest() {
+    Set<String> classnames = new LinkedHashSet<>();
+    classnames.add("randoop.reflection.ClassWithMemberTypes");
+    classnames.add("randoop.reflection.visibilitytest.PublicClass");
+    OperationModel eagerModel = getOperationModel(classnames);
+
+    boolean lazy = GenInputsAbstract.lazy_model;
+    GenInputsAbstract.lazy_model = true;
+    OperationModel lazyModel;
+    try {
+      lazyModel = getOperationModel(classnames);
+    } finally {
+      GenInputsAbstract.lazy_model = lazy;
+    }
+
+    assertEquals("should be pending classes", 2, lazyModel.getPendingClassnames().size());
+    assertEquals("should only be Object()", 1, lazyModel.getOperations().size());
+
+    ComponentManager compMgr = new ComponentManager();
+    List<TypedOperation> added =
+        lazyModel.addPendingClass(
+            Type.forClass(randoop.reflection.visibilitytest.PublicClass[].class),
+            compMgr,
+            GenInputsAbstract.ClassLiteralsMode.CLASS);
+    assertFalse("should add operations", added.isEmpty());
+    assertEquals("should be one pending class", 1, lazyModel.getPendingClassnames().size());
+    assertTrue(
+        "should not add again",
+        lazyModel
+            .addPendingClass(
+                "randoop.reflection.visibilitytest.PublicClass",
+                compMgr,
+                GenInputsAbstract.ClassLiteralsMode.CLASS)
+            .isEmpty());
+
+    lazyModel.addPendingClass(
+        "randoop.reflection.ClassWithMemberTypes",
+        compMgr,
+        GenInputsAbstract.ClassLiteralsMode.CLASS);
+    assertTrue("should be no pending classes", lazyModel.getPendingClassnames().isEmpty());
+    assertEquals("should be same classes", eagerModel.getClassTypes(), lazyModel.getClassTypes());
+    assertEquals(
+        "should be same operations", eagerModel.getOperations(), lazyModel.getOperations());
+  }
+
   @Test
   public void staticFinalFieldTest() {
     Set<String> classnames = new LinkedHashSet<>();
@@ -0,0 +1,86 @@
+package randoop.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/** Tests of {@link PatternSet}. */
+public class PatternSetTest {
+
+  private static final List<String> INPUTS =
+      Arrays.asList(
+          "",
+          "java.util.List.add(java.lang.Object)",
+          "java.util.ArrayList.add(int, java.lang.Object)",
+          "java.util.LinkedList.removeFirst()",
+          "randoop.reflection.omitinputs.p.G.m1()",
+          "JAVA.UTIL.HASHMAP.PUT(java.lang.Object, java.lang.Object)",
+          "abab",
+          "ushers",
+          "a#b");
+
+  @Test
+  public void testGetLiteral() {
+    assertEquals("a.b(c)", PatternSet.getLiteral(Pattern.compile("a\\.b\\(c\\)")));
+    assertEquals("a.b(c)", PatternSet.getLiteral(Pattern.compile(Pattern.quote("a.b(c)"))));
+    assertEquals("x.y*z", PatternSet.getLiteral(Pattern.compile("x\\Q.y*\\Ez")));
+    assertEquals("", PatternSet.getLiteral(Pattern.compile("")));
+    assertNull(PatternSet.getLiteral(Pattern.compile("a.b")));
+    assertNull(PatternSet.getLiteral(Pattern.compile("^a")));
+    assertNull(PatternSet.getLiteral(Pattern.compile("a\\d")));
+    assertNull(PatternSet.getLiteral(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)));
+  }
+
+  @Test
+  public void testLiterals() {
+    checkFind("he", "she", "his", "hers");
+    checkFind(Pattern.quote("java.util.List.add(java.lang.Object)"), "G\\.m2\\(\\)");
+    checkFind("ab", "bab", "c");
+    checkFind("");
+  }
+
+  @Test
+  public void testRegularExpressions() {
+    checkFind("^java\\.util\\..*List\\.add", "\\.m1\\(\\)$");
+    checkFind("removeFirst", "^randoop\\.", "Linked.*\\(");
+    checkFind("(a)(b)\\1", "(ab)\\1", "#");
+    checkFind("(?<x>a)b", "(?<x>u)s");
+    checkFind("(?i)hashmap");
+    checkFind(Pattern.compile("hashmap", Pattern.CASE_INSENSITIVE), Pattern.compile("ZZZ"));
+    checkFind(Pattern.compile("a #comment\n\\#b", Pattern.COMMENTS), Pattern.compile("zz"));
+  }
+
+  @Test
+  public void testNoPatterns() {
+    PatternSet patterns = new PatternSet(Collections.<Pattern>emptyList());
+    for (String input : INPUTS) {
+      assertEquals(false, patterns.find(input));
+    }
+  }
+
+  /** Checks that a pattern set finds the same inputs as its patterns, one at a time. */
+  private static void checkFind(String... regexes) {
+    List<Pattern> patterns = new ArrayList<>();
+    for (String regex : regexes) {
+      patterns.add(Pattern.compile(regex));
+    }
+    checkFind(patterns.toArray(new Pattern[0]));
+  }
+
+  private static void checkFind(Pattern... patterns) {
+    PatternSet patternSet = new PatternSet(Arrays.asList(patterns));
+    for (String input : INPUTS) {
+      boolean expected = false;
+      for (Pattern pattern : patterns) {
+        expected = expected || pattern.matcher(input).find();
+      }
+      assertEquals(Arrays.toString(patterns) + " in " + input, expected, patternSet.find(input));
+    }
+  }
+}
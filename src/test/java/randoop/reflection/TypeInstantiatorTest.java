@@ -0,0 +1,50 @@
+package randoop.reflection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.Test;
+import randoop.operation.TypedClassOperation;
+import randoop.operation.TypedOperation;
+import randoop.types.ClassOrInterfaceType;
+import randoop.types.GenericClassType;
+import randoop.types.Type;
+import randoop.util.Randomness;
+
+/** Tests of {@link TypeInstantiator} as its input types grow. */
+public class TypeInstantiatorTest {
+
+  @Test
+  public void testAddedInputTypes() throws NoSuchMethodException {
+    ClassOrInterfaceType stringType = ClassOrInterfaceType.forClass(String.class);
+    ClassOrInterfaceType integerType = ClassOrInterfaceType.forClass(Integer.class);
+    GenericClassType listType = (GenericClassType) ClassOrInterfaceType.forClass(ArrayList.class);
+    TypedClassOperation constructor =
+        TypedOperation.forConstructor(ArrayList.class.getConstructor());
+
+    Set<Type> inputTypes = new TreeSet<>();
+    inputTypes.add(stringType);
+    TypeInstantiator instantiator = new TypeInstantiator(inputTypes);
+    TypedClassOperation operation = instantiator.instantiate(constructor);
+    assertNotNull(operation);
+    assertEquals(listType.instantiate(stringType), operation.getOutputType());
+
+    // The remembered candidates are extended by the new type, and the choices are the same as
+    // those of an instantiator that has not seen the old set.
+    inputTypes.add(integerType);
+    Set<Type> outputTypes = new LinkedHashSet<>();
+    for (int seed = 0; seed < 20; seed++) {
+      Randomness.setSeed(seed);
+      operation = instantiator.instantiate(constructor);
+      Randomness.setSeed(seed);
+      TypedClassOperation expected = new TypeInstantiator(inputTypes).instantiate(constructor);
+      assertEquals(expected.getOutputType(), operation.getOutputType());
+      outputTypes.add(operation.getOutputType());
+    }
+    assertEquals(2, outputTypes.size());
+  }
+}
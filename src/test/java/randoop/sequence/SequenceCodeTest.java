@@ -0,0 +1,107 @@
+package randoop.sequence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import randoop.DummyVisitor;
+import randoop.operation.TypedOperation;
+import randoop.test.DummyCheckGenerator;
+
+/** Tests that the code of a sequence is the same whether or not the code of a prefix is reused. */
+public class SequenceCodeTest {
+
+  @Test
+  public void testExtensionReusesPrefixCode() throws NoSuchMethodException {
+    TypedOperation valueOf =
+        TypedOperation.forMethod(Integer.class.getMethod("valueOf", int.class));
+    TypedOperation intValue = TypedOperation.forMethod(Integer.class.getMethod("intValue"));
+
+    Sequence prefix = Sequence.createSequenceForPrimitive(1);
+    prefix = prefix.extend(valueOf, prefix.getLastVariable());
+    String prefixCode = prefix.toCodeString();
+
+    Sequence extension = prefix.extend(intValue, prefix.getLastVariable());
+    extension = extension.extend(valueOf, extension.getLastVariable());
+    assertEquals("prefix code is unchanged", prefixCode, prefix.toCodeString());
+
+    List<Sequence> parts = new ArrayList<>();
+    parts.add(extension);
+    Sequence fresh = Sequence.concatenate(parts);
+    assertEquals(fresh.toCodeString(), extension.toCodeString());
+    for (int i = 0; i < fresh.size(); i++) {
+      assertEquals(fresh.getStatementCode(i), extension.getStatementCode(i));
+    }
+  }
+
+  @Test
+  public void testCodeLinesAreRenderedOnce() throws NoSuchMethodException {
+    TypedOperation valueOf =
+        TypedOperation.forMethod(Integer.class.getMethod("valueOf", int.class));
+    Sequence sequence = Sequence.createSequenceForPrimitive(1);
+    sequence = sequence.extend(valueOf, sequence.getLastVariable());
+    ExecutableSequence executableSequence = new ExecutableSequence(sequence);
+    List<String> lines = executableSequence.toCodeLines();
+    assertSame(lines, executableSequence.toCodeLines());
+
+    // the lines are rendered again when the checks are regenerated
+    executableSequence.execute(new DummyVisitor(), new DummyCheckGenerator());
+    List<String> executedLines = executableSequence.toCodeLines();
+    assertEquals(lines, executedLines);
+    assertSame(executedLines, executableSequence.toCodeLines());
+    assertSame(executableSequence.toCodeString(), executableSequence.toCodeString());
+  }
+
+  @Test
+  public void testCodeIsRenderedConsistentlyByConcurrentThreads()
+      throws NoSuchMethodException, InterruptedException, ExecutionException {
+    TypedOperation valueOf =
+        TypedOperation.forMethod(Integer.class.getMethod("valueOf", int.class));
+    TypedOperation intValue = TypedOperation.forMethod(Integer.class.getMethod("intValue"));
+    Sequence sequence = Sequence.createSequenceForPrimitive(1);
+    for (int i = 0; i < 50; i++) {
+      sequence = sequence.extend(valueOf, sequence.getLastVariable());
+      sequence = sequence.extend(intValue, sequence.getLastVariable());
+    }
+    List<Sequence> parts = new ArrayList<>();
+    parts.add(sequence);
+    Sequence fresh = Sequence.concatenate(parts);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < fresh.size(); i++) {
+      expected.append(fresh.getStatementCode(i));
+    }
+    expected.append(new ExecutableSequence(fresh).toCodeString());
+
+    final Sequence shared = sequence;
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        results.add(
+            executor.submit(
+                new Callable<String>() {
+                  @Override
+                  public String call() {
+                    StringBuilder b = new StringBuilder();
+                    for (int i = 0; i < shared.size(); i++) {
+                      b.append(shared.getStatementCode(i));
+                    }
+                    return b.append(new ExecutableSequence(shared).toCodeString()).toString();
+                  }
+                }));
+      }
+      for (Future<String> result : results) {
+        assertEquals(expected.toString(), result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
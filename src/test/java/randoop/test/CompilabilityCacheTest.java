@@ -0,0 +1,108 @@
+package randoop.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import org.junit.Test;
+import randoop.DummyVisitor;
+import randoop.operation.NonreceiverTerm;
+import randoop.operation.TypedOperation;
+import randoop.sequence.ExecutableSequence;
+import randoop.sequence.Sequence;
+import randoop.types.JavaTypes;
+
+/** Tests for {@link CompilabilityCache}. */
+public class CompilabilityCacheTest {
+
+  @Test
+  public void testShapeIgnoresValues() {
+    Sequence one = Sequence.createSequenceForPrimitive(1);
+    Sequence two = Sequence.createSequenceForPrimitive(2);
+    Sequence text = Sequence.createSequenceForPrimitive("two");
+    assertEquals(CompilabilityCache.shapeOf(one), CompilabilityCache.shapeOf(two));
+    assertNotEquals(CompilabilityCache.shapeOf(one), CompilabilityCache.shapeOf(text));
+  }
+
+  @Test
+  public void testShapeDistinguishesNull() {
+    Sequence nullObject =
+        new Sequence()
+            .extend(TypedOperation.createNullOrZeroInitializationForType(JavaTypes.OBJECT_TYPE));
+    Sequence nullString =
+        new Sequence()
+            .extend(
+                TypedOperation.createNonreceiverInitialization(
+                    new NonreceiverTerm(JavaTypes.STRING_TYPE, null)));
+    Sequence emptyString = Sequence.createSequenceForPrimitive("");
+    assertNotEquals(CompilabilityCache.shapeOf(nullObject), CompilabilityCache.shapeOf(nullString));
+    assertNotEquals(
+        CompilabilityCache.shapeOf(emptyString), CompilabilityCache.shapeOf(nullString));
+  }
+
+  @Test
+  public void testShapeIncludesChecks() {
+    Sequence sequence = Sequence.createSequenceForPrimitive(1);
+    ExecutableSequence unchecked = new ExecutableSequence(sequence);
+    unchecked.execute(new DummyVisitor(), new DummyCheckGenerator());
+    final Check catchCheck =
+        new ExpectedExceptionCheck(new IOException(), 0, "java.io.IOException");
+    ExecutableSequence checked = new ExecutableSequence(sequence);
+    checked.execute(
+        new DummyVisitor(),
+        new TestCheckGenerator() {
+          @Override
+          public TestChecks<?> generateTestChecks(ExecutableSequence eseq) {
+            return new RegressionChecks(catchCheck);
+          }
+        });
+    // the catch of a checked exception that is not thrown does not compile
+    assertEquals(CompilabilityCache.shapeOf(sequence), CompilabilityCache.shapeOf(unchecked));
+    assertNotEquals(CompilabilityCache.shapeOf(unchecked), CompilabilityCache.shapeOf(checked));
+  }
+
+  @Test
+  public void testLookupWithoutVerification() {
+    CompilabilityCache cache = new CompilabilityCache(10, 0);
+    assertNull("unknown shape", cache.lookup("a"));
+    cache.record("a", true);
+    cache.record("b", false);
+    assertEquals(Boolean.TRUE, cache.lookup("a"));
+    assertEquals(Boolean.FALSE, cache.lookup("b"));
+  }
+
+  @Test
+  public void testVerificationRatio() {
+    CompilabilityCache cache = new CompilabilityCache(10, 0.25);
+    cache.record("a", true);
+    int verified = 0;
+    for (int i = 0; i < 100; i++) {
+      if (cache.lookup("a") == null) {
+        verified++;
+      }
+    }
+    assertEquals(25, verified);
+  }
+
+  @Test
+  public void testMismatchMakesShapeUnreliable() {
+    CompilabilityCache cache = new CompilabilityCache(10, 0);
+    cache.record("a", true);
+    cache.record("a", false);
+    assertNull("conflicting verdicts", cache.lookup("a"));
+    cache.record("a", true);
+    assertNull("unreliable shape stays unreliable", cache.lookup("a"));
+  }
+
+  @Test
+  public void testEviction() {
+    CompilabilityCache cache = new CompilabilityCache(2, 0);
+    cache.record("a", true);
+    cache.record("b", true);
+    cache.lookup("a");
+    cache.record("c", true);
+    assertEquals(Boolean.TRUE, cache.lookup("a"));
+    assertNull("least recently used shape is evicted", cache.lookup("b"));
+  }
+}
@@ -5,17 +5,26 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import org.junit.Test;
 import randoop.types.test.ParameterInput;
 
 public class ParameterizedTypeTest {
 
+  /** A generic class with an inner class. */
+  static class Outer<T> {
+    class Inner {}
+  }
+
   @Test
   public void testAssignability() {
     Type strALType =
@@ -370,4 +379,69 @@ public class ParameterizedTypeTest {
       }
     }
   }
+
+  /**
+   * The supertype queries of types without type variables are remembered, and must give the same
+   * answers for equal types created separately.
+   */
+  @Test
+  public void testRememberedSupertypes() {
+    assertSame(
+        ClassOrInterfaceType.forClass(LinkedList.class),
+        ClassOrInterfaceType.forClass(LinkedList.class));
+    GenericClassType listType = (GenericClassType) ClassOrInterfaceType.forClass(List.class);
+    GenericClassType comparableType =
+        (GenericClassType) ClassOrInterfaceType.forClass(Comparable.class);
+    for (int i = 0; i < 2; i++) {
+      InstantiatedType strLinkedListType =
+          ((GenericClassType) ClassOrInterfaceType.forClass(LinkedList.class))
+              .instantiate(new NonParameterizedType(String.class));
+      InstantiatedType strListType = listType.instantiate(new NonParameterizedType(String.class));
+      InstantiatedType intListType = listType.instantiate(new NonParameterizedType(Integer.class));
+
+      assertEquals(strListType, strLinkedListType.getMatchingSupertype(listType));
+      assertNull(strLinkedListType.getMatchingSupertype(comparableType));
+      assertTrue(strLinkedListType.isSubtypeOf(strListType));
+      assertFalse(strLinkedListType.isSubtypeOf(intListType));
+      assertTrue(strListType.isAssignableFrom(strLinkedListType));
+    }
+  }
+
+  /**
+   * The remembered supertype queries are keyed by the classes of the types, so types with the same
+   * name, such as those of local classes, are not confused.
+   */
+  @Test
+  public void testRememberedSupertypesOfLocalClasses() {
+    class A {}
+    class B {}
+    GenericClassType listType = (GenericClassType) ClassOrInterfaceType.forClass(List.class);
+    InstantiatedType aListType = listType.instantiate(new NonParameterizedType(A.class));
+    InstantiatedType bListType = listType.instantiate(new NonParameterizedType(B.class));
+    assertEquals(aListType.getName(), bListType.getName());
+
+    assertTrue(aListType.isSubtypeOf(aListType));
+    assertFalse(aListType.isSubtypeOf(bListType));
+  }
+
+  /** Capture conversion of a shared inner class type returns a new type and leaves it unchanged. */
+  @Test
+  public void testCaptureConversionDoesNotChangeType() {
+    ClassOrInterfaceType innerType = ClassOrInterfaceType.forClass(Outer.Inner.class);
+    GenericClassType outerType = (GenericClassType) ClassOrInterfaceType.forClass(Outer.class);
+    Substitution<ReferenceType> substitution =
+        Substitution.forArgs(
+            outerType.getTypeParameters(), (ReferenceType) new NonParameterizedType(String.class));
+    ClassOrInterfaceType strInnerType = innerType.apply(substitution);
+    String name = strInnerType.getName();
+
+    ClassOrInterfaceType convertedType = strInnerType.applyCaptureConversion();
+    assertNotSame(strInnerType, convertedType);
+    assertEquals(strInnerType, convertedType);
+    assertEquals(name, strInnerType.getName());
+
+    ClassOrInterfaceType convertedInnerType = innerType.applyCaptureConversion();
+    assertNotSame(innerType, convertedInnerType);
+    assertSame(innerType, ClassOrInterfaceType.forClass(Outer.Inner.class));
+  }
 }
@@ -0,0 +1,28 @@
+package randoop.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/** Tests of {@link TypeCache}. */
+public class TypeCacheTest {
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsDropped() {
+    TypeCache<String, Integer> cache = new TypeCache<>(2);
+    assertNull(cache.putIfAbsent("a", 1));
+    assertNull(cache.putIfAbsent("b", 2));
+    assertEquals(Integer.valueOf(1), cache.putIfAbsent("a", 3));
+
+    assertNull(cache.putIfAbsent("c", 4));
+    assertNull(cache.get("b"));
+    assertEquals(Integer.valueOf(1), cache.get("a"));
+    assertEquals(Integer.valueOf(4), cache.get("c"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeMustBePositive() {
+    new TypeCache<String, Integer>(0);
+  }
+}
@@ -0,0 +1,73 @@
+package randoop.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+/** Tests of {@link ClassFileConstants}. */
+public class ClassFileConstantsTest {
+
+  @Test
+  public void testConstantsOfClass() {
+    ClassFileConstants.ConstantSet constants =
+        ClassFileConstants.getConstants(ClassFileConstants.class.getName());
+    assertEquals(ClassFileConstants.class.getName(), constants.classname);
+    assertTrue("bipush", constants.ints.contains(23));
+    assertTrue("sipush", constants.ints.contains(32000));
+    assertTrue("char", constants.ints.contains((int) 'a'));
+    assertTrue("long", constants.longs.contains(200000L));
+    assertTrue("float", constants.floats.contains(3.0f));
+    assertTrue("double", constants.doubles.contains(35.3));
+    assertTrue("string", constants.strings.contains("not a class file"));
+  }
+
+  @Test
+  public void testConstantsOfNestedClass() {
+    ClassFileConstants.ConstantSet constants =
+        ClassFileConstants.getConstants(ClassFileConstants.ConstantSet.class.getName());
+    assertEquals(ClassFileConstants.ConstantSet.class.getName(), constants.classname);
+    assertTrue(constants.strings.contains("int:%d%n"));
+  }
+
+  @Test
+  public void testConstantsOfBuffer() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.write(new byte[] {1, 2, 3});
+    try (InputStream is =
+        ClassFileConstants.class.getResourceAsStream("ClassFileConstants.class")) {
+      byte[] buffer = new byte[8192];
+      int count;
+      while ((count = is.read(buffer)) > 0) {
+        bytes.write(buffer, 0, count);
+      }
+    }
+    ByteBuffer classfile = ByteBuffer.wrap(bytes.toByteArray());
+    classfile.position(3);
+    ClassFileConstants.ConstantSet constants =
+        ClassFileConstants.getConstants(classfile, new ClassFileConstants.ConstantSet());
+    assertEquals(ClassFileConstants.class.getName(), constants.classname);
+    assertTrue(constants.ints.contains(32000));
+  }
+
+  /** The constant pool of a class with lambdas has method handles and invokedynamic entries. */
+  @Test
+  public void testConstantsOfClassWithInvokeDynamic() {
+    ClassFileConstants.ConstantSet constants =
+        ClassFileConstants.getConstants("java.util.stream.Collectors");
+    assertEquals("java.util.stream.Collectors", constants.classname);
+    assertFalse(constants.strings.isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void testMalformedClassFile() throws IOException {
+    ClassFileConstants.getConstants(
+        ByteBuffer.wrap(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0}),
+        new ClassFileConstants.ConstantSet());
+  }
+}
@@ -0,0 +1,47 @@
+package randoop.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import plume.UtilMDE;
+
+/** Tests of {@link Digests}. */
+public class DigestsTest {
+
+  @Test
+  public void testClasspathDigestIgnoresOtherFiles() throws IOException {
+    File dir = Files.createTempDirectory("digests").toFile();
+    try {
+      File testDirectory = new File(dir, "tests");
+      File cacheFile = new File(dir, "flaky.cache");
+      List<File> excluded = Arrays.asList(cacheFile, testDirectory);
+      write(new File(dir, "C.class"), "class");
+      String digest = Digests.digestClasspath(dir.getPath(), excluded);
+
+      write(new File(dir, "CTest.java"), "test");
+      write(cacheFile, "entry");
+      write(new File(testDirectory, "CTest.class"), "test class");
+      assertEquals(digest, Digests.digestClasspath(dir.getPath(), excluded));
+
+      assertNotEquals(
+          digest, Digests.digestClasspath(dir.getPath(), Collections.<File>emptyList()));
+      write(new File(dir, "C.class"), "changed class");
+      assertNotEquals(digest, Digests.digestClasspath(dir.getPath(), excluded));
+    } finally {
+      UtilMDE.deleteDir(dir);
+    }
+  }
+
+  private static void write(File file, String text) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), text.getBytes(UTF_8));
+  }
+}
@@ -0,0 +1,213 @@
+package randoop.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import org.junit.Test;
+
+/** Tests of {@link JarIndex}. */
+public class JarIndexTest {
+
+  /** A class that is not visible outside of its package. */
+  static class PackagePrivateClass {}
+
+  /** An interface. */
+  public interface PublicInterface {}
+
+  /** A member class whose class file is package-private. */
+  private static class PrivateClass {}
+
+  /** A member class whose class file is public. */
+  protected static class ProtectedClass {}
+
+  /**
+   * A public class that is not visible outside of its package, because its enclosing class is not.
+   */
+  static class EnclosingClass {
+    public static class PublicMemberClass {}
+  }
+
+  @Test
+  public void testIndex() throws IOException {
+    File jarFile = File.createTempFile("jarindex", ".jar");
+    try {
+      writeJar(
+          jarFile,
+          JarIndex.class,
+          PackagePrivateClass.class,
+          PublicInterface.class,
+          Digests.class,
+          new Object() {}.getClass());
+      try (JarIndex index = new JarIndex(jarFile)) {
+        assertEquals(5, index.getClassNames().size());
+        assertEquals(Collections.singleton("randoop.util"), index.getPackageNames());
+        assertEquals(5, index.getClassNamesInPackage("randoop.util").size());
+        assertTrue(index.getClassNamesInPackage("randoop").isEmpty());
+
+        assertEquals(
+            JarIndex.class.getModifiers() & Modifier.PUBLIC,
+            index.getAccessFlags(JarIndex.class.getName()) & Modifier.PUBLIC);
+        assertTrue(Modifier.isInterface(index.getAccessFlags(PublicInterface.class.getName())));
+
+        assertEquals(
+            Arrays.asList(JarIndex.class.getName(), Digests.class.getName()),
+            index.getTestableClassNames(null));
+        assertEquals(
+            Arrays.asList(
+                JarIndex.class.getName(),
+                PackagePrivateClass.class.getName(),
+                Digests.class.getName()),
+            index.getTestableClassNames("randoop.util"));
+      }
+    } finally {
+      jarFile.deleteOnExit();
+    }
+  }
+
+  @Test
+  public void testMemberClassesAreSelectedByTheirDeclarations() throws IOException {
+    File jarFile = File.createTempFile("jarindex", ".jar");
+    try {
+      writeJar(
+          jarFile,
+          PrivateClass.class,
+          ProtectedClass.class,
+          EnclosingClass.class,
+          EnclosingClass.PublicMemberClass.class);
+      try (JarIndex index = new JarIndex(jarFile)) {
+        assertTrue(Modifier.isPublic(index.getAccessFlags(ProtectedClass.class.getName())));
+
+        assertEquals(Collections.<String>emptyList(), index.getTestableClassNames(null));
+        assertEquals(
+            Arrays.asList(
+                ProtectedClass.class.getName(),
+                EnclosingClass.class.getName(),
+                EnclosingClass.PublicMemberClass.class.getName()),
+            index.getTestableClassNames("randoop.util"));
+        assertEquals(Collections.<String>emptyList(), index.getTestableClassNames("randoop"));
+      }
+    } finally {
+      jarFile.deleteOnExit();
+    }
+  }
+
+  @Test
+  public void testZip64Entry() throws IOException {
+    File jarFile = File.createTempFile("jarindex", ".jar");
+    try {
+      writeZip64Jar(jarFile, JarIndex.class);
+      try (JarIndex index = new JarIndex(jarFile)) {
+        assertEquals(Collections.singletonList(JarIndex.class.getName()), index.getClassNames());
+        assertEquals(
+            Collections.singletonList(JarIndex.class.getName()), index.getTestableClassNames(null));
+      }
+    } finally {
+      jarFile.deleteOnExit();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotAJar() throws IOException {
+    File file = File.createTempFile("jarindex", ".jar");
+    try {
+      try (FileOutputStream out = new FileOutputStream(file)) {
+        out.write(new byte[100]);
+      }
+      new JarIndex(file);
+    } finally {
+      file.deleteOnExit();
+    }
+  }
+
+  /**
+   * Writes a jar file with the class files of the given classes. The first class is stored, and the
+   * others are deflated.
+   */
+  private static void writeJar(File jarFile, Class<?>... classes) throws IOException {
+    try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+      for (int i = 0; i < classes.length; i++) {
+        byte[] classfile = readClassFile(classes[i]);
+        ZipEntry entry = new ZipEntry(classes[i].getName().replace('.', '/') + ".class");
+        if (i == 0) {
+          CRC32 crc = new CRC32();
+          crc.update(classfile);
+          entry.setMethod(ZipEntry.STORED);
+          entry.setSize(classfile.length);
+          entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(classfile);
+        out.closeEntry();
+      }
+    }
+  }
+
+  /**
+   * Writes a jar file with the stored class file of a class, whose sizes and offset are only given
+   * in the ZIP64 extended information extra field.
+   */
+  private static void writeZip64Jar(File jarFile, Class<?> c) throws IOException {
+    byte[] classfile = readClassFile(c);
+    byte[] name = (c.getName().replace('.', '/') + ".class").getBytes(StandardCharsets.UTF_8);
+    CRC32 crc = new CRC32();
+    crc.update(classfile);
+    ByteBuffer out = ByteBuffer.allocate(classfile.length + 2 * name.length + 200);
+    out.order(ByteOrder.LITTLE_ENDIAN);
+
+    out.putInt(0x04034b50); // local file header
+    out.putShort((short) 45).putShort((short) 0).putShort((short) 0); // version, flags, method
+    out.putInt(0); // time and date
+    out.putInt((int) crc.getValue()).putInt(-1).putInt(-1); // CRC and sizes
+    out.putShort((short) name.length).putShort((short) 20).put(name);
+    out.putShort((short) 1).putShort((short) 16); // ZIP64 extra field
+    out.putLong(classfile.length).putLong(classfile.length);
+    out.put(classfile);
+
+    int directoryOffset = out.position();
+    out.putInt(0x02014b50); // central directory header
+    out.putShort((short) 45).putShort((short) 45).putShort((short) 0).putShort((short) 0);
+    out.putInt(0); // time and date
+    out.putInt((int) crc.getValue()).putInt(-1).putInt(-1); // CRC and sizes
+    out.putShort((short) name.length).putShort((short) 28).putShort((short) 0); // lengths
+    out.putShort((short) 0).putShort((short) 0).putInt(0); // disk and attributes
+    out.putInt(-1); // offset of the local header
+    out.put(name);
+    out.putShort((short) 1).putShort((short) 24); // ZIP64 extra field
+    out.putLong(classfile.length).putLong(classfile.length).putLong(0);
+
+    int directoryLength = out.position() - directoryOffset;
+    out.putInt(0x06054b50); // end of central directory record
+    out.putShort((short) 0).putShort((short) 0).putShort((short) 1).putShort((short) 1);
+    out.putInt(directoryLength).putInt(directoryOffset).putShort((short) 0);
+    Files.write(jarFile.toPath(), Arrays.copyOf(out.array(), out.position()));
+  }
+
+  private static byte[] readClassFile(Class<?> c) throws IOException {
+    String name = c.getName();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (InputStream in =
+        c.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+      byte[] buffer = new byte[8192];
+      int count;
+      while ((count = in.read(buffer)) > 0) {
+        bytes.write(buffer, 0, count);
+      }
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,45 @@
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class TestInputWithLongRunOfStatements {
+  // Test removal of long runs of removable statements, around a statement that is needed.
+  @Test
+  public void test1() throws Throwable {
+    String s0 = "0";
+    String s1 = "1";
+    String s2 = "2";
+    String s3 = "3";
+    String s4 = "4";
+    String s5 = "5";
+    String s6 = "6";
+    String s7 = "7";
+    String s8 = "8";
+    String s9 = "9";
+    String s10 = "10";
+    String s11 = "11";
+    String s12 = "12";
+    String s13 = "13";
+    String s14 = "14";
+    String s15 = "15";
+    int x = 1;
+    String s16 = "16";
+    String s17 = "17";
+    String s18 = "18";
+    String s19 = "19";
+    String s20 = "20";
+    String s21 = "21";
+    String s22 = "22";
+    String s23 = "23";
+    String s24 = "24";
+    String s25 = "25";
+    String s26 = "26";
+    String s27 = "27";
+    String s28 = "28";
+    String s29 = "29";
+    String s30 = "30";
+    String s31 = "31";
+    org.junit.Assert.assertTrue(x == 2);
+  }
+}